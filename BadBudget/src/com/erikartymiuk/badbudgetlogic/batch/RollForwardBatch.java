@@ -0,0 +1,298 @@
+package com.erikartymiuk.badbudgetlogic.batch;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.erikartymiuk.badbudgetlogic.kernel.InPlaceUpdate;
+import com.erikartymiuk.badbudgetlogic.main.BadBudgetData;
+import com.erikartymiuk.badbudgetlogic.main.BadBudgetInvalidValueException;
+import com.erikartymiuk.badbudgetlogic.store.ModelMutation;
+import com.erikartymiuk.badbudgetlogic.store.ModelStore;
+import com.erikartymiuk.badbudgetlogic.store.ModelVersion;
+
+/**
+ * Rolls many users forward from one date to another (the nightly update) on a fixed number of worker threads, keeping
+ * durable progress in a RollForwardCheckpoint so that a run cut short by a crash can be run again and picks up where
+ * it left off without updating anyone twice.
+ *
+ * Users are sorted by id and dealt round robin into one shard per thread; each thread rolls its shard in order. For
+ * each user a begin record with the user's current fingerprint is forced, then the update is published to the user's
+ * ModelStore, the rolled version is durably written to the RollForwardSink, and only then is a done record forced.
+ * Running again with the same checkpoint skips users with a done record. A user with only a begin record was
+ * interrupted somewhere in between:
+ * - if the fingerprint the sink holds no longer matches the begin record the rolled version was kept and only its done
+ *   record is written;
+ * - if the sink still holds the begin fingerprint but the user's store doesn't (published, then the write to the sink
+ *   failed) the store's version is written to the sink and recorded;
+ * - otherwise the user is rolled again.
+ * After a crash the stores are expected to be rebuilt from what the sink holds. This assumes nothing else writes to the
+ * users' stores or their kept data while a run (or its restart) is in progress.
+ *
+ * The update is the same as Prediction.update but is made by InPlaceUpdate, so no predict rows are built.
+ */
+public class RollForwardBatch
+{
+	private final int numShards;
+	private final RollForwardSink sink;
+
+	/**
+	 * Constructor for a batch runner.
+	 * @param numShards - the number of worker threads (and shards of users), at least 1
+	 * @param sink - where the rolled users are durably kept
+	 */
+	public RollForwardBatch(int numShards, RollForwardSink sink)
+	{
+		this.numShards = numShards;
+		this.sink = sink;
+	}
+
+	/**
+	 * Rolls every user forward from fromDate to toDate, resuming from the checkpoint file if it exists. A user whose
+	 * update throws, or whose rolled version can't be written to the sink, is reported as a failure and the rest are
+	 * still rolled; it has no done record so a later run tries it again.
+	 *
+	 * @param users - the store of each user by user id (ids can't hold tabs or line breaks)
+	 * @param fromDate - the date the users' values are on
+	 * @param toDate - the date to roll the users to
+	 * @param checkpointFile - the checkpoint of this run, created if it doesn't exist
+	 * @return the report of this run
+	 * @throws IOException - if the checkpoint can't be read or written, or is for another run. Users already recorded
+	 * 					stay recorded and the run can be resumed once the problem is fixed
+	 * @throws InterruptedException - if interrupted while waiting on the workers
+	 */
+	public RollForwardReport run(Map<String, ModelStore> users, final Date fromDate, final Date toDate, Path checkpointFile)
+			throws IOException, InterruptedException
+	{
+		long startNanos = System.nanoTime();
+		final RollForwardCheckpoint checkpoint = new RollForwardCheckpoint(checkpointFile, fromDate, toDate);
+		final ModelMutation rollForward = new ModelMutation()
+		{
+			public void apply(BadBudgetData bbd) throws BadBudgetInvalidValueException
+			{
+				InPlaceUpdate.update(bbd, fromDate, toDate);
+			}
+		};
+
+		List<Shard> shards = new ArrayList<Shard>(this.numShards);
+		for (int i = 0; i < this.numShards; i++)
+		{
+			shards.add(new Shard(checkpoint, this.sink, rollForward, startNanos));
+		}
+		int userIndex = 0;
+		for (Map.Entry<String, ModelStore> user : new TreeMap<String, ModelStore>(users).entrySet())
+		{
+			shards.get(userIndex % this.numShards).add(user.getKey(), user.getValue());
+			userIndex++;
+		}
+
+		final AtomicInteger threadNumber = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(this.numShards, new ThreadFactory()
+		{
+			public Thread newThread(Runnable runnable)
+			{
+				Thread thread = new Thread(runnable, "rollforward-" + threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try
+		{
+			List<Future<Shard>> futures = new ArrayList<Future<Shard>>(shards.size());
+			for (Shard shard : shards)
+			{
+				futures.add(executor.submit(shard));
+			}
+
+			int numRolled = 0;
+			int numSkipped = 0;
+			int numRecovered = 0;
+			Map<String, String> failures = new TreeMap<String, String>();
+			long totalLagNanos = 0;
+			long maxLagNanos = 0;
+			for (Future<Shard> future : futures)
+			{
+				Shard shard;
+				try
+				{
+					shard = future.get();
+				}
+				catch (ExecutionException e)
+				{
+					//Shards only throw checkpoint and sink read failures (and bugs), stop the others and pass it on
+					executor.shutdownNow();
+					Throwable cause = e.getCause();
+					if (cause instanceof IOException)
+					{
+						throw (IOException) cause;
+					}
+					else if (cause instanceof RuntimeException)
+					{
+						throw (RuntimeException) cause;
+					}
+					else
+					{
+						throw (Error) cause;
+					}
+				}
+				numRolled = numRolled + shard.numRolled;
+				numSkipped = numSkipped + shard.numSkipped;
+				numRecovered = numRecovered + shard.numRecovered;
+				failures.putAll(shard.failures);
+				totalLagNanos = totalLagNanos + shard.totalLagNanos;
+				maxLagNanos = Math.max(maxLagNanos, shard.maxLagNanos);
+			}
+			return new RollForwardReport(users.size(), numRolled, numSkipped, numRecovered, failures,
+					System.nanoTime() - startNanos, totalLagNanos, maxLagNanos);
+		}
+		finally
+		{
+			executor.shutdownNow();
+			checkpoint.close();
+		}
+	}
+
+	/**
+	 * The users rolled by one worker thread, along with the counts of what happened to them.
+	 */
+	private static class Shard implements Callable<Shard>
+	{
+		private final RollForwardCheckpoint checkpoint;
+		private final RollForwardSink sink;
+		private final ModelMutation rollForward;
+		private final long startNanos;
+		private final List<String> userIds;
+		private final List<ModelStore> stores;
+
+		private int numRolled;
+		private int numSkipped;
+		private int numRecovered;
+		private final Map<String, String> failures;
+		private long totalLagNanos;
+		private long maxLagNanos;
+
+		private Shard(RollForwardCheckpoint checkpoint, RollForwardSink sink, ModelMutation rollForward, long startNanos)
+		{
+			this.checkpoint = checkpoint;
+			this.sink = sink;
+			this.rollForward = rollForward;
+			this.startNanos = startNanos;
+			this.userIds = new ArrayList<String>();
+			this.stores = new ArrayList<ModelStore>();
+			this.failures = new TreeMap<String, String>();
+		}
+
+		private void add(String userId, ModelStore store)
+		{
+			this.userIds.add(userId);
+			this.stores.add(store);
+		}
+
+		public Shard call() throws IOException
+		{
+			for (int i = 0; i < this.userIds.size(); i++)
+			{
+				if (Thread.currentThread().isInterrupted())
+				{
+					//Another shard failed, what's left is picked up by the next run
+					break;
+				}
+
+				String userId = this.userIds.get(i);
+				ModelStore store = this.stores.get(i);
+				if (this.checkpoint.isDone(userId))
+				{
+					this.numSkipped++;
+					continue;
+				}
+
+				ModelVersion current = store.current();
+				byte[] begun = this.checkpoint.beginFingerprint(userId);
+				byte[] persisted = null;
+				if (begun != null)
+				{
+					persisted = this.sink.persistedFingerprint(userId);
+				}
+				if (begun != null && persisted != null && !Arrays.equals(begun, persisted))
+				{
+					//The rolled version was kept before the last run stopped, only its done record is missing
+					this.checkpoint.done(userId, current.getVersion(), persisted);
+					this.numRecovered++;
+				}
+				else if (begun != null && !Arrays.equals(begun, current.fingerprint()))
+				{
+					//The update was published but never kept, keep it now rather than rolling the user twice
+					if (!this.persist(userId, current))
+					{
+						continue;
+					}
+					this.checkpoint.done(userId, current.getVersion(), current.fingerprint());
+					this.numRecovered++;
+				}
+				else
+				{
+					this.checkpoint.begin(userId, current.fingerprint());
+					ModelVersion rolled;
+					try
+					{
+						rolled = store.update(this.rollForward);
+					}
+					catch (BadBudgetInvalidValueException e)
+					{
+						this.failures.put(userId, e.toString());
+						continue;
+					}
+					catch (RuntimeException e)
+					{
+						//A user whose data the update can't handle (e.g. one without a budget) shouldn't stop the others
+						this.failures.put(userId, e.toString());
+						continue;
+					}
+					if (!this.persist(userId, rolled))
+					{
+						continue;
+					}
+					this.checkpoint.done(userId, rolled.getVersion(), rolled.fingerprint());
+					this.numRolled++;
+				}
+
+				long lagNanos = System.nanoTime() - this.startNanos;
+				this.totalLagNanos = this.totalLagNanos + lagNanos;
+				this.maxLagNanos = Math.max(this.maxLagNanos, lagNanos);
+			}
+			return this;
+		}
+
+		/**
+		 * Private helper writing a user's version to the sink, reporting the user as failed if it can't be written.
+		 * @param userId - the user
+		 * @param version - the version to keep
+		 * @return true if the version was kept
+		 */
+		private boolean persist(String userId, ModelVersion version)
+		{
+			try
+			{
+				this.sink.persist(userId, version);
+				return true;
+			}
+			catch (IOException e)
+			{
+				this.failures.put(userId, e.toString());
+				return false;
+			}
+		}
+	}
+}
@@ -0,0 +1,232 @@
+package com.erikartymiuk.badbudgetlogic.batch;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+
+/**
+ * The durable progress of one roll forward run, kept as an append only text file of tab separated records:
+ *
+ * rollforward	fromDate	toDate				(the first line, naming the run)
+ * begin		userId		fingerprint			(written and forced before a user's update is published)
+ * done			userId		version		fingerprint	(written and forced after it is published and kept)
+ *
+ * Fingerprints are the hex of the user's data fingerprint (see BadBudgetSnapshot.fingerprint), the begin record holding
+ * the fingerprint from before the update and the done record the one after. Every record is forced to the device
+ * before the call writing it returns, so after a crash the file holds every user that was finished and every user that
+ * was part way through. A record cut short by the crash is dropped when the file is opened again.
+ *
+ * A user with a begin record but no done record was interrupted somewhere around its publish; whether the update
+ * was kept is told by comparing the fingerprint its RollForwardSink holds to the begin fingerprint (see
+ * RollForwardBatch).
+ */
+public class RollForwardCheckpoint
+{
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final String HEADER = "rollforward";
+	private static final String BEGIN = "begin";
+	private static final String DONE = "done";
+
+	private final FileChannel channel;
+	private final HashMap<String, String> begun;		//The begin fingerprint of each user with a begin record
+	private final HashMap<String, Long> done;			//The published version of each user with a done record
+
+	/**
+	 * Opens the checkpoint of a run, creating it if it doesn't exist. An existing file has any partial last record
+	 * dropped and must be for the same run.
+	 * @param file - the checkpoint file
+	 * @param fromDate - the date the run rolls users from
+	 * @param toDate - the date the run rolls users to
+	 * @throws IOException - if the file can't be read or written, or is the checkpoint of a different run
+	 */
+	public RollForwardCheckpoint(Path file, Date fromDate, Date toDate) throws IOException
+	{
+		this.begun = new HashMap<String, String>();
+		this.done = new HashMap<String, Long>();
+
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+		String header = HEADER + "\t" + format.format(fromDate) + "\t" + format.format(toDate);
+
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		boolean opened = false;
+		try
+		{
+			long size = this.channel.size();
+			if (size > Integer.MAX_VALUE)
+			{
+				throw new IOException("Checkpoint too large: " + file);
+			}
+			ByteBuffer contents = ByteBuffer.allocate((int) size);
+			while (contents.hasRemaining())
+			{
+				if (this.channel.read(contents, contents.position()) < 0)
+				{
+					break;
+				}
+			}
+			String text = new String(contents.array(), 0, contents.position(), UTF_8);
+
+			//Only lines ending in a newline were completely written
+			int complete = text.lastIndexOf('\n') + 1;
+			String[] lines = text.substring(0, complete).split("\n");
+			if (complete == 0)
+			{
+				this.channel.truncate(0);
+				this.append(header);
+			}
+			else if (!lines[0].equals(header))
+			{
+				throw new IOException("Checkpoint " + file + " is for another run: " + lines[0]);
+			}
+			else
+			{
+				this.channel.truncate(text.substring(0, complete).getBytes(UTF_8).length);
+				for (int i = 1; i < lines.length; i++)
+				{
+					this.replay(lines[i].split("\t"));
+				}
+			}
+			opened = true;
+		}
+		finally
+		{
+			if (!opened)
+			{
+				this.channel.close();
+			}
+		}
+	}
+
+	/**
+	 * Private helper adding one record read back from the file to the progress.
+	 * @param fields - the fields of the record
+	 */
+	private void replay(String[] fields)
+	{
+		if (fields[0].equals(BEGIN) && fields.length == 3)
+		{
+			this.begun.put(fields[1], fields[2]);
+		}
+		else if (fields[0].equals(DONE) && fields.length == 4)
+		{
+			this.done.put(fields[1], Long.valueOf(fields[2]));
+		}
+	}
+
+	/**
+	 * Indicates if a user's update was published and recorded.
+	 * @param userId - the user
+	 * @return true if the user has a done record
+	 */
+	public synchronized boolean isDone(String userId)
+	{
+		return this.done.containsKey(userId);
+	}
+
+	/**
+	 * The fingerprint a user had when its update began.
+	 * @param userId - the user
+	 * @return the fingerprint of the latest begin record of the user, null if it has none
+	 */
+	public synchronized byte[] beginFingerprint(String userId)
+	{
+		String hex = this.begun.get(userId);
+		if (hex == null)
+		{
+			return null;
+		}
+		else
+		{
+			return fromHex(hex);
+		}
+	}
+
+	/**
+	 * Durably records that a user's update is about to be published.
+	 * @param userId - the user, without tabs or line breaks
+	 * @param fingerprint - the fingerprint of the user's data before the update
+	 * @throws IOException - if the record can't be written and forced
+	 */
+	public synchronized void begin(String userId, byte[] fingerprint) throws IOException
+	{
+		checkId(userId);
+		String hex = toHex(fingerprint);
+		this.append(BEGIN + "\t" + userId + "\t" + hex);
+		this.begun.put(userId, hex);
+	}
+
+	/**
+	 * Durably records that a user's update was published.
+	 * @param userId - the user, without tabs or line breaks
+	 * @param version - the version holding the update
+	 * @param fingerprint - the fingerprint of the user's data after the update
+	 * @throws IOException - if the record can't be written and forced
+	 */
+	public synchronized void done(String userId, long version, byte[] fingerprint) throws IOException
+	{
+		checkId(userId);
+		this.append(DONE + "\t" + userId + "\t" + version + "\t" + toHex(fingerprint));
+		this.done.put(userId, version);
+	}
+
+	public synchronized int numDone()
+	{
+		return this.done.size();
+	}
+
+	public void close() throws IOException
+	{
+		this.channel.close();
+	}
+
+	/**
+	 * Private helper appending a line to the file and forcing it to the device.
+	 * @param line - the line, without its newline
+	 * @throws IOException - if the line can't be written
+	 */
+	private void append(String line) throws IOException
+	{
+		ByteBuffer bytes = ByteBuffer.wrap((line + "\n").getBytes(UTF_8));
+		long position = this.channel.size();
+		while (bytes.hasRemaining())
+		{
+			position = position + this.channel.write(bytes, position);
+		}
+		this.channel.force(false);
+	}
+
+	private static void checkId(String userId)
+	{
+		if (userId.indexOf('\t') != -1 || userId.indexOf('\n') != -1 || userId.indexOf('\r') != -1)
+		{
+			throw new IllegalArgumentException("User id can't hold tabs or line breaks: " + userId);
+		}
+	}
+
+	private static String toHex(byte[] bytes)
+	{
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes)
+		{
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+			hex.append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
+	private static byte[] fromHex(String hex)
+	{
+		byte[] bytes = new byte[hex.length() / 2];
+		for (int i = 0; i < bytes.length; i++)
+		{
+			bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+		}
+		return bytes;
+	}
+}
@@ -0,0 +1,116 @@
+package com.erikartymiuk.badbudgetlogic.batch;
+
+import java.util.Map;
+
+/**
+ * The outcome of one RollForwardBatch run: how many users were rolled, skipped, recovered, or failed, how fast they
+ * were rolled, and how long after the start of the run users had to wait for their update (the lag).
+ */
+public class RollForwardReport
+{
+	private final int numUsers;					//Every user given to the run
+	private final int numRolled;				//Users updated by this run
+	private final int numSkipped;				//Users the checkpoint already had as done
+	private final int numRecovered;				//Users whose update was published before a crash but not recorded
+	private final Map<String, String> failures;	//The message of each user whose update threw
+	private final long elapsedNanos;
+	private final long totalLagNanos;			//Sum over the rolled and recovered users of the time from the start to their done record
+	private final long maxLagNanos;
+
+	public RollForwardReport(int numUsers, int numRolled, int numSkipped, int numRecovered, Map<String, String> failures,
+			long elapsedNanos, long totalLagNanos, long maxLagNanos)
+	{
+		this.numUsers = numUsers;
+		this.numRolled = numRolled;
+		this.numSkipped = numSkipped;
+		this.numRecovered = numRecovered;
+		this.failures = failures;
+		this.elapsedNanos = elapsedNanos;
+		this.totalLagNanos = totalLagNanos;
+		this.maxLagNanos = maxLagNanos;
+	}
+
+	public int numUsers()
+	{
+		return this.numUsers;
+	}
+
+	public int numRolled()
+	{
+		return this.numRolled;
+	}
+
+	public int numSkipped()
+	{
+		return this.numSkipped;
+	}
+
+	public int numRecovered()
+	{
+		return this.numRecovered;
+	}
+
+	public int numFailed()
+	{
+		return this.failures.size();
+	}
+
+	public Map<String, String> getFailures()
+	{
+		return this.failures;
+	}
+
+	public long elapsedNanos()
+	{
+		return this.elapsedNanos;
+	}
+
+	/**
+	 * The users completed (rolled or recovered) per second of the run.
+	 * @return the throughput, 0 if the run took no measurable time
+	 */
+	public double usersPerSecond()
+	{
+		if (this.elapsedNanos == 0)
+		{
+			return 0;
+		}
+		else
+		{
+			return (this.numRolled + this.numRecovered) / (this.elapsedNanos / 1e9);
+		}
+	}
+
+	/**
+	 * The average time from the start of the run until a user's update was recorded.
+	 * @return the mean lag in milliseconds, 0 if no users were completed
+	 */
+	public double meanLagMillis()
+	{
+		int completed = this.numRolled + this.numRecovered;
+		if (completed == 0)
+		{
+			return 0;
+		}
+		else
+		{
+			return this.totalLagNanos / 1e6 / completed;
+		}
+	}
+
+	/**
+	 * The longest time from the start of the run until a user's update was recorded, the lag of the last user.
+	 * @return the max lag in milliseconds
+	 */
+	public double maxLagMillis()
+	{
+		return this.maxLagNanos / 1e6;
+	}
+
+	public String toString()
+	{
+		return String.format("%d users: %d rolled, %d skipped, %d recovered, %d failed in %.1f ms (%.1f users/s, lag mean %.1f ms max %.1f ms)",
+				this.numUsers, this.numRolled, this.numSkipped, this.numRecovered, this.numFailed(), this.elapsedNanos / 1e6,
+				this.usersPerSecond(), this.meanLagMillis(), this.maxLagMillis());
+	}
+}
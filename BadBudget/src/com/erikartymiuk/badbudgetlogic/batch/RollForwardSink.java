@@ -0,0 +1,32 @@
+package com.erikartymiuk.badbudgetlogic.batch;
+
+import java.io.IOException;
+
+import com.erikartymiuk.badbudgetlogic.store.ModelVersion;
+
+/**
+ * Where a RollForwardBatch durably keeps each user's data. A ModelStore only lives in memory, so a rolled version is
+ * written here before the user's done record: after a crash the users' stores are rebuilt from what the sink holds, and
+ * the fingerprint of what it holds tells the next run whether an interrupted user's update was kept.
+ *
+ * Calls for different users may come from different worker threads at the same time, never two for the same user.
+ */
+public interface RollForwardSink
+{
+	/**
+	 * Durably writes a user's rolled version, replacing what was kept for the user. Must not return until the version
+	 * would survive a crash.
+	 * @param userId - the user
+	 * @param rolled - the version to keep
+	 * @throws IOException - if the version can't be written, the user is then not recorded as done
+	 */
+	void persist(String userId, ModelVersion rolled) throws IOException;
+
+	/**
+	 * The fingerprint of the data durably kept for a user (see BadBudgetSnapshot.fingerprint).
+	 * @param userId - the user
+	 * @return the fingerprint, null if nothing is kept for the user
+	 * @throws IOException - if what's kept can't be read
+	 */
+	byte[] persistedFingerprint(String userId) throws IOException;
+}
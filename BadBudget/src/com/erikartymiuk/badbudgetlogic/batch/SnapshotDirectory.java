@@ -0,0 +1,141 @@
+package com.erikartymiuk.badbudgetlogic.batch;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import com.erikartymiuk.badbudgetlogic.main.BadBudgetData;
+import com.erikartymiuk.badbudgetlogic.main.BadBudgetInvalidValueException;
+import com.erikartymiuk.badbudgetlogic.main.BadBudgetSnapshot;
+import com.erikartymiuk.badbudgetlogic.store.ModelVersion;
+
+/**
+ * A RollForwardSink keeping each user's data as a snapshot file (see BadBudgetSnapshot) named after the user in one
+ * directory. A snapshot is written to a temporary file, forced, and then moved over the user's file in one atomic step,
+ * so the user's file always holds either the whole old snapshot or the whole new one.
+ */
+public class SnapshotDirectory implements RollForwardSink
+{
+	private static final String SUFFIX = ".snapshot";
+
+	private final Path directory;
+
+	/**
+	 * Constructor for the snapshots kept in a directory.
+	 * @param directory - the directory, which must exist
+	 */
+	public SnapshotDirectory(Path directory)
+	{
+		this.directory = directory;
+	}
+
+	/**
+	 * Writes a user's data, replacing what was kept for the user. Used to keep users outside of a roll forward, for
+	 * example when they are first stored or after they change their data.
+	 * @param userId - the user
+	 * @param bbd - the user's data
+	 * @throws IOException - if the snapshot can't be written
+	 * @throws BadBudgetInvalidValueException - if the data can't be snapshot
+	 */
+	public void write(String userId, BadBudgetData bbd) throws IOException, BadBudgetInvalidValueException
+	{
+		this.write(userId, BadBudgetSnapshot.write(bbd));
+	}
+
+	public void persist(String userId, ModelVersion rolled) throws IOException
+	{
+		this.write(userId, rolled.snapshot());
+	}
+
+	/**
+	 * Reads the data kept for a user.
+	 * @param userId - the user
+	 * @return the user's data, null if nothing is kept for the user
+	 * @throws IOException - if the snapshot can't be read
+	 * @throws BadBudgetInvalidValueException - if the file isn't a valid snapshot
+	 */
+	public BadBudgetData read(String userId) throws IOException, BadBudgetInvalidValueException
+	{
+		ByteBuffer snapshot = this.readSnapshot(userId);
+		if (snapshot == null)
+		{
+			return null;
+		}
+		else
+		{
+			return BadBudgetSnapshot.read(snapshot);
+		}
+	}
+
+	public byte[] persistedFingerprint(String userId) throws IOException
+	{
+		ByteBuffer snapshot = this.readSnapshot(userId);
+		if (snapshot == null)
+		{
+			return null;
+		}
+		else
+		{
+			return BadBudgetSnapshot.fingerprint(snapshot);
+		}
+	}
+
+	/**
+	 * Private helper writing a snapshot to a temporary file and moving it over the user's file once it is forced.
+	 * @param userId - the user
+	 * @param snapshot - the snapshot, from its position to its limit
+	 * @throws IOException - if the snapshot can't be written
+	 */
+	private void write(String userId, ByteBuffer snapshot) throws IOException
+	{
+		Path file = this.fileOf(userId);
+		Path temporary = this.directory.resolve(file.getFileName() + ".tmp");
+		FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		try
+		{
+			while (snapshot.hasRemaining())
+			{
+				channel.write(snapshot);
+			}
+			channel.force(true);
+		}
+		finally
+		{
+			channel.close();
+		}
+		Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Private helper reading the whole snapshot kept for a user.
+	 * @param userId - the user
+	 * @return the snapshot, null if the user has no file
+	 * @throws IOException - if the file can't be read
+	 */
+	private ByteBuffer readSnapshot(String userId) throws IOException
+	{
+		try
+		{
+			return ByteBuffer.wrap(Files.readAllBytes(this.fileOf(userId)));
+		}
+		catch (NoSuchFileException e)
+		{
+			return null;
+		}
+	}
+
+	private Path fileOf(String userId)
+	{
+		if (userId.isEmpty() || userId.indexOf('/') != -1 || userId.indexOf('\\') != -1 || userId.startsWith("."))
+		{
+			throw new IllegalArgumentException("User id can't be used as a file name: " + userId);
+		}
+		return this.directory.resolve(userId + SUFFIX);
+	}
+}
@@ -2,13 +2,15 @@ package com.erikartymiuk.badbudgetlogic.budget;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.GregorianCalendar;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import com.erikartymiuk.badbudgetlogic.main.BadBudgetInvalidValueException;
 import com.erikartymiuk.badbudgetlogic.main.Frequency;
+import com.erikartymiuk.badbudgetlogic.main.HashedEntity;
 import com.erikartymiuk.badbudgetlogic.main.Prediction;
 import com.erikartymiuk.badbudgetlogic.main.Source;
 import com.erikartymiuk.badbudgetlogic.predictdataclasses.PredictDataMoneyLoss;
@@ -17,9 +19,11 @@ import com.erikartymiuk.badbudgetlogic.predictdataclasses.PredictDataMoneyLoss;
  * Class representing the user's total budget. Consists of a list of items to be budgeted,
  * and also a set of preferences for the users budget.
  */
-public class Budget 
+public class Budget extends HashedEntity
 {
-	private HashMap<String, BudgetItem> items;	//A map of the users budget items. The key is the budget items description
+	private LinkedHashMap<String, BudgetItem> items;	//A map of the users budget items. The key is the budget items description
+	private BudgetItem[] itemArray;				//The items in insertion order for allocation free iteration, null until needed and after a change
+	private long itemsHash;						//Sum of the scattered content hashes of the items, kept current as items change
 	
 	private boolean autoReset;				//Indicates if the user would like their budgetItems to automatically reset
 	private Source budgetSource;			//The source for all budget items
@@ -50,25 +54,12 @@ public class Budget
 			this.autoReset = autoReset;
 			this.weeklyResetTime = weeklyReset;
 			this.monthlyResetTime = monthlyReset;
-			this.items = new HashMap<String, BudgetItem>();
+			this.items = new LinkedHashMap<String, BudgetItem>();
+			this.itemArray = null;
 		}
 		else
 		{
-			String errorMsg = "";
-			switch (errorCode)
-			{
-				case 1:
-				{
-					errorMsg = BadBudgetInvalidValueException.BUDGET_SOURCE_NOT_SET_E1;
-					break;
-				}
-				default:
-				{
-					errorMsg = BadBudgetInvalidValueException.UNKNOWN_UNDEFINED;
-					break;
-				}
-			}
-			throw new BadBudgetInvalidValueException(errorMsg);
+			throw new BadBudgetInvalidValueException(messageFor(errorCode));
 		}		
 	}
 	
@@ -94,6 +85,30 @@ public class Budget
 		}
 	}
 	
+	/**
+	 * Returns the exception message for an error code returned by verifyValues.
+	 * @param errorCode - the error code
+	 * @return the message for the error
+	 */
+	public static String messageFor(int errorCode)
+	{
+		String errorMsg = "";
+		switch (errorCode)
+		{
+			case 1:
+			{
+				errorMsg = BadBudgetInvalidValueException.BUDGET_SOURCE_NOT_SET_E1;
+				break;
+			}
+			default:
+			{
+				errorMsg = BadBudgetInvalidValueException.UNKNOWN_UNDEFINED;
+				break;
+			}
+		}
+		return errorMsg;
+	}
+	
 	/**
 	 * Given a budget item and the date of the last handled loss this method calculates the loss date
 	 * that occurs after the handled loss using the reset values defined by this budget object
@@ -257,7 +272,38 @@ public class Budget
 	public void addBudgetItem(BudgetItem budgetItem)
 	{
 		String key = budgetItem.getDescription();
-		items.put(key, budgetItem);
+		BudgetItem previous = items.put(key, budgetItem);
+		this.itemArray = null;
+		
+		if (previous != null)
+		{
+			this.itemsHash -= scatter(previous.contentHash());
+		}
+		this.adopt(previous, budgetItem);
+		this.itemsHash += scatter(budgetItem.contentHash());
+		this.contentChanged();
+	}
+	
+	/**
+	 * Removes the budget item with the given description from this budget.
+	 * @param description - the description of the item to remove
+	 * @return true if the item was found and removed, false if no such item exists
+	 */
+	public boolean deleteBudgetItem(String description)
+	{
+		BudgetItem removed = items.remove(description);
+		if (removed != null)
+		{
+			this.itemArray = null;
+			this.itemsHash -= scatter(removed.contentHash());
+			this.adopt(removed, null);
+			this.contentChanged();
+			return true;
+		}
+		else
+		{
+			return false;
+		}
 	}
 	
 	/**
@@ -271,13 +317,29 @@ public class Budget
 	}
 	
 	/**
-	 * Gets all of the users budget items as a map. The key is the budget item's description
+	 * Gets all of the users budget items as a map. The key is the budget item's description. The map
+	 * is a read only view, items are added with addBudgetItem and removed with deleteBudgetItem.
 	 * 
 	 * @return a map of all the user's budget items
 	 */
 	public Map<String, BudgetItem> getAllBudgetItems()
 	{
-		return this.items;
+		return Collections.unmodifiableMap(this.items);
+	}
+	
+	/**
+	 * Gets all of the users budget items as an array in the order they were added. The array is shared
+	 * and only rebuilt after items are added or removed so it should not be modified by the caller.
+	 * 
+	 * @return an array of all the user's budget items
+	 */
+	public BudgetItem[] getBudgetItemArray()
+	{
+		if (this.itemArray == null)
+		{
+			this.itemArray = this.items.values().toArray(new BudgetItem[this.items.size()]);
+		}
+		return this.itemArray;
 	}
 	
 	/* Getters and Setters */
@@ -294,15 +356,17 @@ public class Budget
 	public void setBudgetSource(Source budgetSource) 
 	{
 		this.budgetSource = budgetSource;
-		for (BudgetItem item : this.items.values())
+		for (BudgetItem item : this.getBudgetItemArray())
 		{
 			item.setSource(budgetSource);
 		}
+		this.contentChanged();
 	}
 
 	public void setAutoReset(boolean autoReset)
 	{
 		this.autoReset = autoReset;
+		this.contentChanged();
 	}
 	
 	public boolean isAutoReset()
@@ -338,6 +402,7 @@ public class Budget
 	public void setWeeklyReset(int weekly)
 	{
 		this.weeklyResetTime = weekly;
+		this.contentChanged();
 	}
 	
 	/**
@@ -348,5 +413,32 @@ public class Budget
 	public void setMonthlyReset(int monthly)
 	{
 		this.monthlyResetTime = monthly;
+		this.contentChanged();
+	}
+	
+	/**
+	 * One of this budget's items changed, swaps its old hash for the new one in the items hash.
+	 * @param entity - the item that changed
+	 * @param oldHash - its hash before the change
+	 * @param newHash - its hash now
+	 */
+	public void contentHashChanged(HashedEntity entity, long oldHash, long newHash)
+	{
+		this.itemsHash += scatter(newHash) - scatter(oldHash);
+		this.contentChanged();
+	}
+	
+	/**
+	 * Hashes the budget settings, the name of the budget source, and the items (in any order).
+	 * @return the hash of this budget's values
+	 */
+	protected long computeContentHash()
+	{
+		long hash = mix(0L, this.budgetSource);
+		hash = mix(hash, this.autoReset);
+		hash = mix(hash, (long) this.weeklyResetTime);
+		hash = mix(hash, (long) this.monthlyResetTime);
+		hash = mix(hash, this.itemsHash);
+		return hash;
 	}
 }
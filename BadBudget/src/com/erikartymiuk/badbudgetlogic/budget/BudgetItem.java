@@ -6,6 +6,7 @@ import java.util.Date;
 import com.erikartymiuk.badbudgetlogic.main.BadBudgetInvalidValueException;
 import com.erikartymiuk.badbudgetlogic.main.Frequency;
 import com.erikartymiuk.badbudgetlogic.main.MoneyLoss;
+import com.erikartymiuk.badbudgetlogic.main.RecurrenceJump;
 import com.erikartymiuk.badbudgetlogic.main.Source;
 import com.erikartymiuk.badbudgetlogic.predictdataclasses.PredictDataBudgetItem;
 import com.erikartymiuk.badbudgetlogic.predictdataclasses.PredictDataMoneyLoss;
@@ -57,20 +58,7 @@ public class BudgetItem extends MoneyLoss
 		}
 		else
 		{
-			String errorMessage = "";
-			switch (errorCode)
-			{
-				case 1:
-				{
-					errorMessage = BadBudgetInvalidValueException.BUDGET_ITEM_PRORATED_ERROR_E1;
-					break;
-				}
-				default:
-				{
-					break;
-				}
-			}
-			throw new BadBudgetInvalidValueException(errorMessage);
+			throw new BadBudgetInvalidValueException(messageFor(errorCode));
 		}
 		
 	}
@@ -99,6 +87,29 @@ public class BudgetItem extends MoneyLoss
 		}
 	}
 	
+	/**
+	 * Returns the exception message for an error code returned by verifyValues.
+	 * @param errorCode - the error code
+	 * @return the message for the error
+	 */
+	public static String messageFor(int errorCode)
+	{
+		String errorMessage = "";
+		switch (errorCode)
+		{
+			case 1:
+			{
+				errorMessage = BadBudgetInvalidValueException.BUDGET_ITEM_PRORATED_ERROR_E1;
+				break;
+			}
+			default:
+			{
+				break;
+			}
+		}
+		return errorMessage;
+	}
+	
 	/**
 	 * Increase the plus button amount
 	 * @param increase - the amount of increase
@@ -106,6 +117,7 @@ public class BudgetItem extends MoneyLoss
 	public void increasePlus(double increase)
 	{
 		this.plusAmount+=increase;
+		this.contentChanged();
 	}
 	
 	/**
@@ -115,6 +127,7 @@ public class BudgetItem extends MoneyLoss
 	public void decreasePlus(double decrease)
 	{
 		this.plusAmount-=decrease;
+		this.contentChanged();
 	}
 	
 	/**
@@ -124,6 +137,7 @@ public class BudgetItem extends MoneyLoss
 	public void increaseMinus(double increase)
 	{
 		this.minusAmount+=increase;
+		this.contentChanged();
 	}
 	
 	/**
@@ -133,6 +147,7 @@ public class BudgetItem extends MoneyLoss
 	public void decreaseMinus(double decrease)
 	{
 		this.minusAmount-=decrease;
+		this.contentChanged();
 	}
 
 	/* Getters and Setters */
@@ -146,6 +161,7 @@ public class BudgetItem extends MoneyLoss
 
 	public void setProratedStart(boolean proratedStart) {
 		this.proratedStart = proratedStart;
+		this.contentChanged();
 	}
 
 	public double getPlusAmount() {
@@ -154,6 +170,7 @@ public class BudgetItem extends MoneyLoss
 
 	public void setPlusAmount(double plusAmount) {
 		this.plusAmount = plusAmount;
+		this.contentChanged();
 	}
 
 	public double getMinusAmount() {
@@ -162,6 +179,7 @@ public class BudgetItem extends MoneyLoss
 
 	public void setMinusAmount(double minusAmount) {
 		this.minusAmount = minusAmount;
+		this.contentChanged();
 	}
 
 	public double getCurrAmount() {
@@ -170,6 +188,7 @@ public class BudgetItem extends MoneyLoss
 
 	public void setCurrAmount(double currAmount) {
 		this.currAmount = currAmount;
+		this.contentChanged();
 	}
 	
 	public RemainAmountAction remainAmountAction() {
@@ -178,6 +197,7 @@ public class BudgetItem extends MoneyLoss
 
 	public void setRemainAmountAction(RemainAmountAction remainAmountAction) {
 		this.remainAmountAction = remainAmountAction;
+		this.contentChanged();
 	}
 	
 	/**
@@ -302,4 +322,44 @@ public class BudgetItem extends MoneyLoss
 			}
 		}
 	}
+	
+	/**
+	 * Updates the next loss date of this budget item from a recurrence jump rather than a prediction run.
+	 * If auto reset is set the remaining amount is updated from the resets the jump skipped: accumulating
+	 * items add the total of the skipped losses and the other remain actions take the last skipped loss.
+	 * @param nextLoss - the next loss date found by the jump
+	 * @param skipped - the jump that found nextLoss, holding the count and loss amounts of the skipped resets
+	 * @param autoReset - specifies if this budget item should be reset on updates.
+	 */
+	public void updateNextDatesOnly(Date nextLoss, RecurrenceJump skipped, boolean autoReset)
+	{
+		this.setNextLoss(nextLoss);
+		if (autoReset && skipped.count() > 0)
+		{
+			if (this.remainAmountAction == RemainAmountAction.disappear || this.remainAmountAction == RemainAmountAction.addBack)
+			{
+				this.setCurrAmount(skipped.lastLossAmount());
+			}
+			else
+			{
+				//Accumulates, the default
+				this.setCurrAmount(this.currAmount+skipped.lossTotal());
+			}
+		}
+	}
+	
+	/**
+	 * Extends the loss hash with the budget item specific values.
+	 * @return the hash of this budget item's values
+	 */
+	protected long computeContentHash()
+	{
+		long hash = super.computeContentHash();
+		hash = mix(hash, this.proratedStart);
+		hash = mix(hash, this.plusAmount);
+		hash = mix(hash, this.minusAmount);
+		hash = mix(hash, this.currAmount);
+		hash = mix(hash, this.remainAmountAction);
+		return hash;
+	}
 }
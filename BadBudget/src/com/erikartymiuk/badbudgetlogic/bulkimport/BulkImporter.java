@@ -0,0 +1,200 @@
+package com.erikartymiuk.badbudgetlogic.bulkimport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Imports the budget models of many users from a line oriented text format. Each line is a record of tab separated
+ * fields, the first naming the kind of record. A user record starts the section of a user and every record up to the
+ * next user record belongs to that user, in any order:
+ *
+ * user		id
+ * account	name	value	quicklook
+ * savings	name	value	quicklook	goalSet	goal	goalDate	contribution	frequency	source	nextContribution	endDate	ongoing	interestRate
+ * debt		name	amount	quicklook	interestRate
+ * card		name	amount	quicklook	interestRate
+ * loan		name	amount	quicklook	interestRate	simpleInterest	principal
+ * payment	debt	amount	payoff	frequency	source	nextPayment	ongoing	endDate	goalDate
+ * gain		description	amount	frequency	nextDeposit	endDate	destination
+ * loss		description	amount	frequency	nextLoss	endDate	source
+ * transfer	description	source	destination	amount	frequency	nextTransfer	endDate
+ * budget	source	autoReset	weeklyReset	monthlyReset
+ * item		description	amount	frequency	startDate	endDate	proratedStart
+ *
+ * Booleans are true or false, dates yyyy-MM-dd (or - for none), frequencies are named as in Frequency. The input is
+ * split into user sections in one scan and each section is imported on its own, in parallel if an executor is given.
+ * Invalid records never throw, they are reported as ImportErrors with the user's result and the rest is imported.
+ */
+public class BulkImporter
+{
+	private static final byte[] USER_PREFIX = {'u', 's', 'e', 'r', '\t'};
+
+	/**
+	 * Imports the sections of the buffer from its position to its limit. The buffer's position isn't changed.
+	 * @param buffer - the input
+	 * @param executor - the executor to import the sections on, null to import them one after another on this thread
+	 * @return the imported users in the order they appear in the input; records before the first user record are
+	 * 					reported in a result with a null user id
+	 * @throws InterruptedException - if interrupted while waiting on the executor
+	 */
+	public static List<ImportedUser> importBuffer(ByteBuffer buffer, ExecutorService executor) throws InterruptedException
+	{
+		List<UserImporter> sections = split(buffer);
+		List<ImportedUser> users = new ArrayList<ImportedUser>(sections.size());
+		if (executor == null)
+		{
+			for (UserImporter section : sections)
+			{
+				users.add(section.run());
+			}
+		}
+		else
+		{
+			List<Future<ImportedUser>> futures = new ArrayList<Future<ImportedUser>>(sections.size());
+			for (final UserImporter section : sections)
+			{
+				futures.add(executor.submit(new Callable<ImportedUser>()
+				{
+					public ImportedUser call()
+					{
+						return section.run();
+					}
+				}));
+			}
+			for (Future<ImportedUser> future : futures)
+			{
+				try
+				{
+					users.add(future.get());
+				}
+				catch (ExecutionException e)
+				{
+					//Importing doesn't throw checked exceptions, so this is a bug, pass it on as is
+					Throwable cause = e.getCause();
+					if (cause instanceof RuntimeException)
+					{
+						throw (RuntimeException) cause;
+					}
+					else
+					{
+						throw (Error) cause;
+					}
+				}
+			}
+		}
+		return users;
+	}
+
+	/**
+	 * Maps the file into memory and imports it.
+	 * @param file - the file to import
+	 * @param executor - the executor to import the sections on, null to import them one after another on this thread
+	 * @return the imported users in the order they appear in the file
+	 * @throws IOException - if the file can't be read or is larger than 2GB
+	 * @throws InterruptedException - if interrupted while waiting on the executor
+	 */
+	public static List<ImportedUser> importFile(Path file, ExecutorService executor) throws IOException, InterruptedException
+	{
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try
+		{
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+			{
+				throw new IOException("File too large to import: " + file);
+			}
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			return importBuffer(buffer, executor);
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+
+	/**
+	 * Splits the buffer into one importer per section, a section beginning at each line starting with a user record.
+	 * @param buffer - the input
+	 * @return the importers of the sections in order
+	 */
+	private static List<UserImporter> split(ByteBuffer buffer)
+	{
+		List<UserImporter> sections = new ArrayList<UserImporter>();
+		int end = buffer.limit();
+		int sectionStart = buffer.position();
+		long sectionLine = 1;
+		long lineNumber = 1;
+		int lineStart = sectionStart;
+		while (lineStart < end)
+		{
+			if (lineStart != sectionStart && startsWithUser(buffer, lineStart, end))
+			{
+				//The lines before the first user record only make a section if they hold records (to report)
+				if (startsWithUser(buffer, sectionStart, end) || hasRecords(buffer, sectionStart, lineStart))
+				{
+					sections.add(new UserImporter(buffer.duplicate(), sectionStart, lineStart, sectionLine));
+				}
+				sectionStart = lineStart;
+				sectionLine = lineNumber;
+			}
+
+			int i = lineStart;
+			while (i < end && buffer.get(i) != '\n')
+			{
+				i++;
+			}
+			lineStart = i + 1;
+			lineNumber++;
+		}
+		if (sectionStart < end && (startsWithUser(buffer, sectionStart, end) || hasRecords(buffer, sectionStart, end)))
+		{
+			sections.add(new UserImporter(buffer.duplicate(), sectionStart, end, sectionLine));
+		}
+		return sections;
+	}
+
+	private static boolean startsWithUser(ByteBuffer buffer, int position, int end)
+	{
+		if (end - position < USER_PREFIX.length)
+		{
+			return false;
+		}
+		for (int i = 0; i < USER_PREFIX.length; i++)
+		{
+			if (buffer.get(position + i) != USER_PREFIX[i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Indicates if a range of lines holds anything other than blank lines and comments.
+	 * @param buffer - the input
+	 * @param start - the offset of the first line
+	 * @param end - the offset just past the last line
+	 * @return true if some line holds a record
+	 */
+	private static boolean hasRecords(ByteBuffer buffer, int start, int end)
+	{
+		LineTokenizer t = new LineTokenizer(buffer, start, end, 1);
+		while (t.nextLine())
+		{
+			if (!t.isBlankOrComment())
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,75 @@
+package com.erikartymiuk.badbudgetlogic.bulkimport;
+
+/**
+ * A record that couldn't be imported. Reported as a value rather than thrown so an import of millions of records
+ * doesn't pay for an exception (and its stack trace) per bad record.
+ */
+public class ImportError
+{
+	/* Codes for errors found by the importer rather than an entity's verifyValues */
+	public static final int FORMAT_ERROR = -1;		//Unknown record, wrong field count, a field that doesn't parse, no user
+	public static final int REFERENCE_ERROR = -2;	//A payment for an unknown debt or a budget item without a budget
+	public static final int DUPLICATE_ERROR = -3;	//A name, payment or budget that was already imported
+	public static final int REJECTED_ERROR = -4;	//The constructor rejected values verifyValues accepted
+
+	private final String userId;		//The user the record belongs to, null if it came before any user record
+	private final long lineNumber;		//The record's line, starting at 1
+	private final String record;		//The record type (the line's first field)
+	private final int field;			//The field that didn't parse, -1 if the error isn't about a single field
+	private final int code;				//The verifyValues error code of the entity or one of the codes above
+	private final String message;		//The BadBudgetInvalidValueException message for the error
+
+	/**
+	 * Constructor for an import error.
+	 * @param userId - the user the record belongs to, null if none
+	 * @param lineNumber - the record's line number
+	 * @param record - the record type
+	 * @param field - the field that didn't parse, -1 if none
+	 * @param code - the verifyValues error code or one of the importer's codes
+	 * @param message - the message for the error
+	 */
+	public ImportError(String userId, long lineNumber, String record, int field, int code, String message)
+	{
+		this.userId = userId;
+		this.lineNumber = lineNumber;
+		this.record = record;
+		this.field = field;
+		this.code = code;
+		this.message = message;
+	}
+
+	public String getUserId()
+	{
+		return this.userId;
+	}
+
+	public long getLineNumber()
+	{
+		return this.lineNumber;
+	}
+
+	public String getRecord()
+	{
+		return this.record;
+	}
+
+	public int getField()
+	{
+		return this.field;
+	}
+
+	public int getCode()
+	{
+		return this.code;
+	}
+
+	public String getMessage()
+	{
+		return this.message;
+	}
+
+	public String toString()
+	{
+		return "line " + this.lineNumber + " (" + this.record + "): " + this.message + " [" + this.code + "]";
+	}
+}
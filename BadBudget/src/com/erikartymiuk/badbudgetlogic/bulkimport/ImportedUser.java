@@ -0,0 +1,50 @@
+package com.erikartymiuk.badbudgetlogic.bulkimport;
+
+import java.util.List;
+
+import com.erikartymiuk.badbudgetlogic.main.BadBudgetData;
+
+/**
+ * The result of importing one user's records: the bbd built from the records that were valid and an error for each
+ * record that wasn't.
+ */
+public class ImportedUser
+{
+	private final String userId;				//Null for the records before the first user record
+	private final BadBudgetData data;
+	private final List<ImportError> errors;		//In the order they were found (by kind of record, then line)
+	private final int numImported;				//The number of records imported into the bbd
+
+	public ImportedUser(String userId, BadBudgetData data, List<ImportError> errors, int numImported)
+	{
+		this.userId = userId;
+		this.data = data;
+		this.errors = errors;
+		this.numImported = numImported;
+	}
+
+	public String getUserId()
+	{
+		return this.userId;
+	}
+
+	public BadBudgetData getData()
+	{
+		return this.data;
+	}
+
+	public List<ImportError> getErrors()
+	{
+		return this.errors;
+	}
+
+	public int numImported()
+	{
+		return this.numImported;
+	}
+
+	public boolean hasErrors()
+	{
+		return !this.errors.isEmpty();
+	}
+}
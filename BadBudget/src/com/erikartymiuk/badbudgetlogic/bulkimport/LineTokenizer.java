@@ -0,0 +1,455 @@
+package com.erikartymiuk.badbudgetlogic.bulkimport;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+
+import com.erikartymiuk.badbudgetlogic.main.Frequency;
+
+/**
+ * Splits a range of a byte buffer into lines and tab separated fields without copying. Fields are kept as offsets
+ * into the buffer and parsed in place; only fields read as strings (names and descriptions) are decoded (UTF-8). A
+ * field that doesn't parse doesn't throw, it sets the error field and the parse method returns a placeholder value,
+ * so the caller checks hasError() once after reading a record. Not thread safe, each thread should use its own.
+ *
+ * Lines end in \n (a \r before it is dropped). A line that is empty or starts with # is a comment. Optional dates
+ * and names are written as a single '-'.
+ */
+public class LineTokenizer
+{
+	public static final int MAX_FIELDS = 16;			//Lines with more fields report fieldCount() as MAX_FIELDS + 1
+	public static final int NO_ERROR = -1;
+
+	private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L,
+			1000000000L, 10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L, 1000000000000000L};
+	private static final int MAX_EXACT_DIGITS = 15;		//Up to this many digits the mantissa and power of ten are exact doubles
+	private static final Frequency[] FREQUENCIES = Frequency.values();
+	private static final byte[][] FREQUENCY_NAMES;		//The frequency names as ASCII by ordinal
+	static
+	{
+		FREQUENCY_NAMES = new byte[FREQUENCIES.length][];
+		for (int i = 0; i < FREQUENCIES.length; i++)
+		{
+			FREQUENCY_NAMES[i] = FREQUENCIES[i].name().getBytes(StandardCharsets.US_ASCII);
+		}
+	}
+
+	private final ByteBuffer buffer;			//Read with absolute gets only so the buffer can be shared
+	private final int end;						//End (exclusive) of the range being tokenized
+	private int position;						//Start of the next line
+	private long lineNumber;					//Line number of the current line
+
+	private final int[] fieldStarts;
+	private final int[] fieldEnds;
+	private int fieldCount;
+	private int errorField;						//The first field that failed to parse since the last line, NO_ERROR if none
+
+	private byte[] scratch;						//Reused when decoding strings
+	private final Calendar calendar;			//Reused when parsing dates
+
+	/**
+	 * Constructor for a tokenizer over part of a buffer.
+	 * @param buffer - the buffer holding the text, only read with absolute gets
+	 * @param start - the offset of the first line
+	 * @param end - the offset just past the last line
+	 * @param firstLineNumber - the line number of the first line (for error reports)
+	 */
+	public LineTokenizer(ByteBuffer buffer, int start, int end, long firstLineNumber)
+	{
+		this.buffer = buffer;
+		this.end = end;
+		this.position = start;
+		this.lineNumber = firstLineNumber - 1;
+		this.fieldStarts = new int[MAX_FIELDS];
+		this.fieldEnds = new int[MAX_FIELDS];
+		this.fieldCount = 0;
+		this.errorField = NO_ERROR;
+		this.scratch = new byte[64];
+		this.calendar = new GregorianCalendar();
+	}
+
+	/**
+	 * Moves to the next line and splits it into fields.
+	 * @return true if there was another line, false at the end of the range
+	 */
+	public boolean nextLine()
+	{
+		if (this.position >= this.end)
+		{
+			return false;
+		}
+
+		this.lineNumber++;
+		this.errorField = NO_ERROR;
+		this.fieldCount = 0;
+		int fieldStart = this.position;
+		int i = this.position;
+		while (i < this.end && this.buffer.get(i) != '\n')
+		{
+			if (this.buffer.get(i) == '\t')
+			{
+				this.addField(fieldStart, i);
+				fieldStart = i + 1;
+			}
+			i++;
+		}
+		int lineEnd = i;
+		if (lineEnd > fieldStart && this.buffer.get(lineEnd - 1) == '\r')
+		{
+			lineEnd--;
+		}
+		this.addField(fieldStart, lineEnd);
+		this.position = i + 1;
+		return true;
+	}
+
+	private void addField(int start, int end)
+	{
+		if (this.fieldCount < MAX_FIELDS)
+		{
+			this.fieldStarts[this.fieldCount] = start;
+			this.fieldEnds[this.fieldCount] = end;
+			this.fieldCount++;
+		}
+		else
+		{
+			this.fieldCount = MAX_FIELDS + 1;
+		}
+	}
+
+	/**
+	 * Indicates if the current line is empty or a comment.
+	 * @return true if the line holds no record
+	 */
+	public boolean isBlankOrComment()
+	{
+		int length = this.fieldEnds[0] - this.fieldStarts[0];
+		return (this.fieldCount == 1 && length == 0) || (length > 0 && this.buffer.get(this.fieldStarts[0]) == '#');
+	}
+
+	public long lineNumber()
+	{
+		return this.lineNumber;
+	}
+
+	public int fieldCount()
+	{
+		return this.fieldCount;
+	}
+
+	/**
+	 * Indicates if a field failed to parse since the line was read.
+	 * @return true if a parse failed
+	 */
+	public boolean hasError()
+	{
+		return this.errorField != NO_ERROR;
+	}
+
+	/**
+	 * The first field that failed to parse on this line.
+	 * @return the field index or NO_ERROR
+	 */
+	public int errorField()
+	{
+		return this.errorField;
+	}
+
+	private void fail(int field)
+	{
+		if (this.errorField == NO_ERROR)
+		{
+			this.errorField = field;
+		}
+	}
+
+	/**
+	 * Compares a field with an ASCII literal.
+	 * @param field - the field index
+	 * @param ascii - the literal's bytes
+	 * @return true if the field is exactly the literal
+	 */
+	public boolean fieldEquals(int field, byte[] ascii)
+	{
+		int start = this.fieldStarts[field];
+		if (this.fieldEnds[field] - start != ascii.length)
+		{
+			return false;
+		}
+		for (int i = 0; i < ascii.length; i++)
+		{
+			if (this.buffer.get(start + i) != ascii[i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Indicates if a field is the null marker '-'.
+	 * @param field - the field index
+	 * @return true if the field is '-'
+	 */
+	public boolean isNull(int field)
+	{
+		return this.fieldEnds[field] - this.fieldStarts[field] == 1 && this.buffer.get(this.fieldStarts[field]) == '-';
+	}
+
+	/**
+	 * Decodes a field as a UTF-8 string.
+	 * @param field - the field index
+	 * @return the field's text
+	 */
+	public String string(int field)
+	{
+		int start = this.fieldStarts[field];
+		int length = this.fieldEnds[field] - start;
+		if (this.scratch.length < length)
+		{
+			this.scratch = new byte[Math.max(length, this.scratch.length * 2)];
+		}
+		for (int i = 0; i < length; i++)
+		{
+			this.scratch[i] = this.buffer.get(start + i);
+		}
+		return new String(this.scratch, 0, length, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Decodes a field as a UTF-8 string or null if it is the null marker.
+	 * @param field - the field index
+	 * @return the field's text or null
+	 */
+	public String optionalString(int field)
+	{
+		if (this.isNull(field))
+		{
+			return null;
+		}
+		else
+		{
+			return this.string(field);
+		}
+	}
+
+	/**
+	 * Parses a field as a decimal number ([-]digits[.digits], or anything Double.parseDouble accepts). Plain numbers of
+	 * up to 15 digits are parsed in place and rounded correctly; others fall back to Double.parseDouble.
+	 * @param field - the field index
+	 * @return the number, or 0 if the field isn't one (the error is recorded)
+	 */
+	public double number(int field)
+	{
+		int i = this.fieldStarts[field];
+		int fieldEnd = this.fieldEnds[field];
+		boolean negative = false;
+		if (i < fieldEnd && this.buffer.get(i) == '-')
+		{
+			negative = true;
+			i++;
+		}
+
+		long mantissa = 0;
+		boolean anyDigits = false;
+		int digits = 0;
+		int fractionDigits = 0;
+		boolean point = false;
+		boolean plain = i < fieldEnd;
+		for (; i < fieldEnd && plain; i++)
+		{
+			byte b = this.buffer.get(i);
+			if (b >= '0' && b <= '9')
+			{
+				mantissa = mantissa * 10 + (b - '0');
+				anyDigits = true;
+				if (mantissa != 0)
+				{
+					digits++;
+				}
+				if (point)
+				{
+					fractionDigits++;
+				}
+				plain = digits <= MAX_EXACT_DIGITS;
+			}
+			else if (b == '.' && !point)
+			{
+				point = true;
+			}
+			else
+			{
+				plain = false;
+			}
+		}
+
+		if (plain && anyDigits && fractionDigits < POWERS_OF_TEN.length)
+		{
+			double value = (double) mantissa / POWERS_OF_TEN[fractionDigits];
+			if (negative)
+			{
+				return -value;
+			}
+			else
+			{
+				return value;
+			}
+		}
+		else
+		{
+			try
+			{
+				return Double.parseDouble(this.string(field));
+			}
+			catch (NumberFormatException e)
+			{
+				this.fail(field);
+				return 0;
+			}
+		}
+	}
+
+	/**
+	 * Parses a field as a decimal int.
+	 * @param field - the field index
+	 * @return the int, or 0 if the field isn't one (the error is recorded)
+	 */
+	public int integer(int field)
+	{
+		int i = this.fieldStarts[field];
+		int fieldEnd = this.fieldEnds[field];
+		boolean negative = false;
+		if (i < fieldEnd && this.buffer.get(i) == '-')
+		{
+			negative = true;
+			i++;
+		}
+		if (i == fieldEnd || fieldEnd - i > 9)
+		{
+			this.fail(field);
+			return 0;
+		}
+		int value = 0;
+		for (; i < fieldEnd; i++)
+		{
+			byte b = this.buffer.get(i);
+			if (b < '0' || b > '9')
+			{
+				this.fail(field);
+				return 0;
+			}
+			value = value * 10 + (b - '0');
+		}
+		if (negative)
+		{
+			return -value;
+		}
+		else
+		{
+			return value;
+		}
+	}
+
+	/**
+	 * Parses a field as true or false.
+	 * @param field - the field index
+	 * @return the boolean, or false if the field is neither (the error is recorded)
+	 */
+	public boolean bool(int field)
+	{
+		int start = this.fieldStarts[field];
+		int length = this.fieldEnds[field] - start;
+		if (length == 4 && this.buffer.get(start) == 't' && this.buffer.get(start + 1) == 'r' && this.buffer.get(start + 2) == 'u'
+				&& this.buffer.get(start + 3) == 'e')
+		{
+			return true;
+		}
+		else if (length == 5 && this.buffer.get(start) == 'f' && this.buffer.get(start + 1) == 'a' && this.buffer.get(start + 2) == 'l'
+				&& this.buffer.get(start + 3) == 's' && this.buffer.get(start + 4) == 'e')
+		{
+			return false;
+		}
+		else
+		{
+			this.fail(field);
+			return false;
+		}
+	}
+
+	/**
+	 * Parses a field as a yyyy-MM-dd date (midnight, default time zone) or the null marker.
+	 * @param field - the field index
+	 * @return the date, or null for the null marker or if the field isn't a date (the error is recorded)
+	 */
+	public Date date(int field)
+	{
+		if (this.isNull(field))
+		{
+			return null;
+		}
+		int start = this.fieldStarts[field];
+		if (this.fieldEnds[field] - start != 10 || this.buffer.get(start + 4) != '-' || this.buffer.get(start + 7) != '-')
+		{
+			this.fail(field);
+			return null;
+		}
+		int year = this.digits(start, 4);
+		int month = this.digits(start + 5, 2);
+		int day = this.digits(start + 8, 2);
+		if (year < 0 || month < 1 || month > 12 || day < 1)
+		{
+			this.fail(field);
+			return null;
+		}
+
+		this.calendar.clear();
+		this.calendar.set(year, month - 1, day);
+		if (day > this.calendar.getActualMaximum(Calendar.DAY_OF_MONTH))
+		{
+			this.fail(field);
+			return null;
+		}
+		return this.calendar.getTime();
+	}
+
+	/**
+	 * Reads a run of decimal digits.
+	 * @param start - the offset of the first digit
+	 * @param count - the number of digits
+	 * @return the value or -1 if any of them isn't a digit
+	 */
+	private int digits(int start, int count)
+	{
+		int value = 0;
+		for (int i = start; i < start + count; i++)
+		{
+			byte b = this.buffer.get(i);
+			if (b < '0' || b > '9')
+			{
+				return -1;
+			}
+			value = value * 10 + (b - '0');
+		}
+		return value;
+	}
+
+	/**
+	 * Parses a field as a frequency by its name (oneTime, daily, weekly, biWeekly, monthly, yearly).
+	 * @param field - the field index
+	 * @return the frequency, or null if the field isn't one (the error is recorded)
+	 */
+	public Frequency frequency(int field)
+	{
+		for (int i = 0; i < FREQUENCY_NAMES.length; i++)
+		{
+			if (this.fieldEquals(field, FREQUENCY_NAMES[i]))
+			{
+				return FREQUENCIES[i];
+			}
+		}
+		this.fail(field);
+		return null;
+	}
+}
@@ -0,0 +1,713 @@
+package com.erikartymiuk.badbudgetlogic.bulkimport;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+
+import com.erikartymiuk.badbudgetlogic.budget.Budget;
+import com.erikartymiuk.badbudgetlogic.budget.BudgetItem;
+import com.erikartymiuk.badbudgetlogic.main.*;
+
+/**
+ * Imports the records of one user (one section of the input) into a new bbd. The section is read in several passes,
+ * one per batch of record kinds, so that everything a record refers to is already built when it is validated:
+ * accounts and debts, then savings accounts (repeated while a savings account's source is a savings account still to
+ * come), then payments, gains, losses, transfers and the budget, and last the budget items. Each record is checked
+ * with its entity's verifyValues before the entity is constructed, so invalid records cost an error value rather
+ * than an exception.
+ */
+class UserImporter
+{
+	private static final byte[] USER = ascii("user");
+	private static final byte[] ACCOUNT = ascii("account");
+	private static final byte[] SAVINGS = ascii("savings");
+	private static final byte[] DEBT = ascii("debt");
+	private static final byte[] CARD = ascii("card");
+	private static final byte[] LOAN = ascii("loan");
+	private static final byte[] PAYMENT = ascii("payment");
+	private static final byte[] GAIN = ascii("gain");
+	private static final byte[] LOSS = ascii("loss");
+	private static final byte[] TRANSFER = ascii("transfer");
+	private static final byte[] BUDGET = ascii("budget");
+	private static final byte[] ITEM = ascii("item");
+
+	private final ByteBuffer buffer;
+	private final int start;
+	private final int end;
+	private final long firstLineNumber;
+
+	private String userId;
+	private final BadBudgetData bbd;
+	private final List<ImportError> errors;
+	private int numImported;
+	private final RecurrenceCache recurrences;		//Shared by the date checks of the user's savings accounts and payments
+
+	/**
+	 * Constructor for the importer of one section.
+	 * @param buffer - the input, only read with absolute gets
+	 * @param start - the offset of the section's first line (its user record, if it has one)
+	 * @param end - the offset just past the section
+	 * @param firstLineNumber - the line number of the first line
+	 */
+	UserImporter(ByteBuffer buffer, int start, int end, long firstLineNumber)
+	{
+		this.buffer = buffer;
+		this.start = start;
+		this.end = end;
+		this.firstLineNumber = firstLineNumber;
+		this.userId = null;
+		this.bbd = new BadBudgetData();
+		this.errors = new ArrayList<ImportError>();
+		this.numImported = 0;
+		this.recurrences = new RecurrenceCache();
+	}
+
+	private static byte[] ascii(String s)
+	{
+		return s.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	private LineTokenizer tokenizer()
+	{
+		return new LineTokenizer(this.buffer, this.start, this.end, this.firstLineNumber);
+	}
+
+	/**
+	 * Imports the section.
+	 * @return the imported user
+	 */
+	ImportedUser run()
+	{
+		LineTokenizer t = this.tokenizer();
+		if (t.nextLine() && !t.isBlankOrComment() && t.fieldEquals(0, USER) && t.fieldCount() == 2)
+		{
+			this.userId = t.string(1);
+			this.importAccountsAndDebts(t);
+			this.importSavingsAccounts();
+			this.importFlows();
+			this.importBudgetItems();
+		}
+		else
+		{
+			//Records before the first user record
+			t = this.tokenizer();
+			while (t.nextLine())
+			{
+				if (!t.isBlankOrComment())
+				{
+					this.error(t, ImportError.FORMAT_ERROR, BadBudgetInvalidValueException.IMPORT_NO_USER);
+				}
+			}
+		}
+		return new ImportedUser(this.userId, this.bbd, this.errors, this.numImported);
+	}
+
+	/*
+	 * Passes
+	 */
+
+	/**
+	 * First pass, checks every line is a known record and imports plain accounts and debts.
+	 * @param t - a tokenizer positioned on the user record
+	 */
+	private void importAccountsAndDebts(LineTokenizer t)
+	{
+		while (t.nextLine())
+		{
+			if (t.isBlankOrComment())
+			{
+				//Nothing to import
+			}
+			else if (t.fieldEquals(0, ACCOUNT))
+			{
+				this.importAccount(t);
+			}
+			else if (t.fieldEquals(0, DEBT) || t.fieldEquals(0, CARD) || t.fieldEquals(0, LOAN))
+			{
+				this.importDebt(t);
+			}
+			else if (!(t.fieldEquals(0, SAVINGS) || t.fieldEquals(0, PAYMENT) || t.fieldEquals(0, GAIN) || t.fieldEquals(0, LOSS)
+					|| t.fieldEquals(0, TRANSFER) || t.fieldEquals(0, BUDGET) || t.fieldEquals(0, ITEM)))
+			{
+				this.error(t, ImportError.FORMAT_ERROR, BadBudgetInvalidValueException.IMPORT_UNKNOWN_RECORD);
+			}
+		}
+	}
+
+	/**
+	 * Imports the savings accounts. A savings account whose source is another savings account that hasn't been
+	 * imported yet is put off to the next round; rounds repeat until one imports nothing, then whatever is left is
+	 * imported without its source (and reported as such).
+	 */
+	private void importSavingsAccounts()
+	{
+		HashSet<Long> done = new HashSet<Long>();	//Lines of the savings records already imported or reported
+		boolean progress = true;
+		boolean lastRound = false;
+		while (progress || !lastRound)
+		{
+			if (!progress)
+			{
+				lastRound = true;
+			}
+			progress = false;
+
+			//The savings accounts still to come this round
+			HashSet<String> pending = new HashSet<String>();
+			LineTokenizer t = this.tokenizer();
+			while (t.nextLine())
+			{
+				if (!t.isBlankOrComment() && t.fieldEquals(0, SAVINGS) && !done.contains(t.lineNumber()) && t.fieldCount() == 14)
+				{
+					pending.add(t.string(1));
+				}
+			}
+
+			t = this.tokenizer();
+			while (t.nextLine())
+			{
+				if (!t.isBlankOrComment() && t.fieldEquals(0, SAVINGS) && !done.contains(t.lineNumber()))
+				{
+					if (this.importSavingsAccount(t, pending, lastRound))
+					{
+						done.add(t.lineNumber());
+						progress = true;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Imports payments, gains, losses, transfers, and the budget.
+	 */
+	private void importFlows()
+	{
+		LineTokenizer t = this.tokenizer();
+		while (t.nextLine())
+		{
+			if (t.isBlankOrComment())
+			{
+				//Nothing to import
+			}
+			else if (t.fieldEquals(0, PAYMENT))
+			{
+				this.importPayment(t);
+			}
+			else if (t.fieldEquals(0, GAIN))
+			{
+				this.importGain(t);
+			}
+			else if (t.fieldEquals(0, LOSS))
+			{
+				this.importLoss(t);
+			}
+			else if (t.fieldEquals(0, TRANSFER))
+			{
+				this.importTransfer(t);
+			}
+			else if (t.fieldEquals(0, BUDGET))
+			{
+				this.importBudget(t);
+			}
+		}
+	}
+
+	private void importBudgetItems()
+	{
+		LineTokenizer t = this.tokenizer();
+		while (t.nextLine())
+		{
+			if (!t.isBlankOrComment() && t.fieldEquals(0, ITEM))
+			{
+				this.importBudgetItem(t);
+			}
+		}
+	}
+
+	/*
+	 * Records
+	 */
+
+	/**
+	 * Checks the field count and, after the fields were read, that they all parsed.
+	 * @param t - the tokenizer on the record
+	 * @param numFields - the number of fields the record must have (including the record type)
+	 * @return true if the field count is right
+	 */
+	private boolean checkFieldCount(LineTokenizer t, int numFields)
+	{
+		if (t.fieldCount() != numFields)
+		{
+			this.error(t, ImportError.FORMAT_ERROR, BadBudgetInvalidValueException.IMPORT_FIELD_COUNT);
+			return false;
+		}
+		else
+		{
+			return true;
+		}
+	}
+
+	private boolean checkParsed(LineTokenizer t)
+	{
+		if (t.hasError())
+		{
+			this.errors.add(new ImportError(this.userId, t.lineNumber(), t.string(0), t.errorField(), ImportError.FORMAT_ERROR,
+					BadBudgetInvalidValueException.IMPORT_BAD_FIELD));
+			return false;
+		}
+		else
+		{
+			return true;
+		}
+	}
+
+	//account	name	value	quicklook
+	private void importAccount(LineTokenizer t)
+	{
+		if (this.checkFieldCount(t, 4))
+		{
+			String name = t.string(1);
+			double value = t.number(2);
+			boolean quicklook = t.bool(3);
+			if (this.checkParsed(t))
+			{
+				int error = Account.verifyValues(name);
+				if (error != 0)
+				{
+					this.error(t, error, Account.messageFor(error));
+				}
+				else if (this.bbd.getAccountWithName(name) != null)
+				{
+					this.error(t, ImportError.DUPLICATE_ERROR, BadBudgetInvalidValueException.IMPORT_DUPLICATE_NAME);
+				}
+				else
+				{
+					try
+					{
+						this.bbd.addAccount(new Account(name, value, quicklook));
+						this.numImported++;
+					}
+					catch (BadBudgetInvalidValueException e)
+					{
+						this.error(t, ImportError.REJECTED_ERROR, e.getMessage());
+					}
+				}
+			}
+		}
+	}
+
+	//debt|card	name	amount	quicklook	interestRate
+	//loan		name	amount	quicklook	interestRate	simpleInterest	principal
+	private void importDebt(LineTokenizer t)
+	{
+		boolean loan = t.fieldEquals(0, LOAN);
+		int numFields = 5;
+		if (loan)
+		{
+			numFields = 7;
+		}
+		if (this.checkFieldCount(t, numFields))
+		{
+			String name = t.string(1);
+			double amount = t.number(2);
+			boolean quicklook = t.bool(3);
+			double interestRate = t.number(4);
+			boolean simpleInterest = false;
+			double principal = 0;
+			if (loan)
+			{
+				simpleInterest = t.bool(5);
+				principal = t.number(6);
+			}
+			if (this.checkParsed(t))
+			{
+				int error = MoneyOwed.verifyValues(name, amount, interestRate);
+				int loanError = 0;
+				if (loan)
+				{
+					loanError = Loan.verifyValues(amount, simpleInterest, principal);
+				}
+
+				if (error != 0)
+				{
+					this.error(t, error, MoneyOwed.messageFor(error));
+				}
+				else if (loanError != 0)
+				{
+					this.error(t, loanError, Loan.messageFor(loanError));
+				}
+				else if (this.bbd.getDebtWithName(name) != null)
+				{
+					this.error(t, ImportError.DUPLICATE_ERROR, BadBudgetInvalidValueException.IMPORT_DUPLICATE_NAME);
+				}
+				else
+				{
+					try
+					{
+						if (loan)
+						{
+							this.bbd.addDebt(new Loan(name, amount, quicklook, interestRate, simpleInterest, principal));
+						}
+						else if (t.fieldEquals(0, CARD))
+						{
+							this.bbd.addDebt(new CreditCard(name, amount, quicklook, interestRate));
+						}
+						else
+						{
+							this.bbd.addDebt(new MoneyOwed(name, amount, quicklook, interestRate));
+						}
+						this.numImported++;
+					}
+					catch (BadBudgetInvalidValueException e)
+					{
+						this.error(t, ImportError.REJECTED_ERROR, e.getMessage());
+					}
+				}
+			}
+		}
+	}
+
+	//savings	name	value	quicklook	goalSet	goal	goalDate	contribution	frequency	source	nextContribution	endDate	ongoing	interestRate
+	/**
+	 * Imports a savings account record.
+	 * @param t - the tokenizer on the record
+	 * @param pending - the names of the savings accounts still to be imported
+	 * @param lastRound - if true a missing source is reported rather than put off
+	 * @return true if the record was imported or reported, false if it was put off
+	 */
+	private boolean importSavingsAccount(LineTokenizer t, HashSet<String> pending, boolean lastRound)
+	{
+		if (this.checkFieldCount(t, 14))
+		{
+			String name = t.string(1);
+			double value = t.number(2);
+			boolean quicklook = t.bool(3);
+			boolean goalSet = t.bool(4);
+			double goal = t.number(5);
+			Date goalDate = t.date(6);
+			double contributionAmount = t.number(7);
+			Frequency frequency = t.frequency(8);
+			String sourceName = t.string(9);
+			Date nextContribution = t.date(10);
+			Date endDate = t.date(11);
+			boolean ongoing = t.bool(12);
+			double interestRate = t.number(13);
+			if (this.checkParsed(t))
+			{
+				Account source = this.bbd.getAccountWithName(sourceName);
+				if (source == null && !lastRound && pending.contains(sourceName) && !sourceName.equals(name))
+				{
+					return false;
+				}
+
+				int contributionError = Contribution.verifyValues(contributionAmount, frequency);
+				int nameError = Account.verifyValues(name);
+				if (contributionError != 0)
+				{
+					this.error(t, contributionError, Contribution.messageFor(contributionError));
+				}
+				else if (nameError != 0)
+				{
+					this.error(t, nameError, Account.messageFor(nameError));
+				}
+				else
+				{
+					try
+					{
+						Contribution contribution = new Contribution(contributionAmount, frequency);
+						int error = SavingsAccount.verifyValues(value, goalSet, goal, goalDate, contribution, source, nextContribution,
+								endDate, ongoing, interestRate, this.recurrences);
+						//A negative value (1) is allowed, see the SavingsAccount constructor
+						if (error != 0 && error != 1)
+						{
+							this.error(t, error, SavingsAccount.messageFor(error));
+						}
+						else if (this.bbd.getAccountWithName(name) != null)
+						{
+							this.error(t, ImportError.DUPLICATE_ERROR, BadBudgetInvalidValueException.IMPORT_DUPLICATE_NAME);
+						}
+						else
+						{
+							this.bbd.addAccount(new SavingsAccount(name, value, quicklook, goalSet, goal, goalDate, contribution, source,
+									nextContribution, endDate, ongoing, interestRate));
+							this.numImported++;
+						}
+					}
+					catch (BadBudgetInvalidValueException e)
+					{
+						this.error(t, ImportError.REJECTED_ERROR, e.getMessage());
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	//payment	debt	amount	payoff	frequency	source	nextPayment	ongoing	endDate	goalDate
+	private void importPayment(LineTokenizer t)
+	{
+		if (this.checkFieldCount(t, 10))
+		{
+			String debtName = t.string(1);
+			double amount = t.number(2);
+			boolean payoff = t.bool(3);
+			Frequency frequency = t.frequency(4);
+			String sourceName = t.string(5);
+			Date nextPayment = t.date(6);
+			boolean ongoing = t.bool(7);
+			Date endDate = t.date(8);
+			Date goalDate = t.date(9);
+			if (this.checkParsed(t))
+			{
+				MoneyOwed debt = this.bbd.getDebtWithName(debtName);
+				Account source = this.bbd.getAccountWithName(sourceName);
+				if (debt == null)
+				{
+					this.error(t, ImportError.REFERENCE_ERROR, BadBudgetInvalidValueException.IMPORT_UNKNOWN_DEBT);
+				}
+				else if (debt.payment() != null)
+				{
+					this.error(t, ImportError.DUPLICATE_ERROR, BadBudgetInvalidValueException.IMPORT_DUPLICATE_PAYMENT);
+				}
+				else
+				{
+					int error = Payment.verifyValues(amount, payoff, frequency, source, nextPayment, ongoing, endDate, debt, goalDate,
+							this.recurrences);
+					if (error != 0)
+					{
+						this.error(t, error, Payment.messageFor(error));
+					}
+					else
+					{
+						try
+						{
+							debt.setupPayment(new Payment(amount, payoff, frequency, source, nextPayment, ongoing, endDate, debt, goalDate));
+							this.numImported++;
+						}
+						catch (BadBudgetInvalidValueException e)
+						{
+							this.error(t, ImportError.REJECTED_ERROR, e.getMessage());
+						}
+					}
+				}
+			}
+		}
+	}
+
+	//gain	description	amount	frequency	nextDeposit	endDate	destination
+	private void importGain(LineTokenizer t)
+	{
+		if (this.checkFieldCount(t, 7))
+		{
+			String description = t.string(1);
+			double amount = t.number(2);
+			Frequency frequency = t.frequency(3);
+			Date nextDeposit = t.date(4);
+			Date endDate = t.date(5);
+			String destinationName = t.string(6);
+			if (this.checkParsed(t))
+			{
+				Account destination = this.bbd.getAccountWithName(destinationName);
+				int error = MoneyGain.verifyValues(description, amount, frequency, nextDeposit, endDate, destination);
+				if (error != 0)
+				{
+					this.error(t, error, MoneyGain.messageFor(error));
+				}
+				else if (this.bbd.getGainWithDescription(description) != null)
+				{
+					this.error(t, ImportError.DUPLICATE_ERROR, BadBudgetInvalidValueException.IMPORT_DUPLICATE_NAME);
+				}
+				else
+				{
+					try
+					{
+						this.bbd.addGain(new MoneyGain(description, amount, frequency, nextDeposit, endDate, destination));
+						this.numImported++;
+					}
+					catch (BadBudgetInvalidValueException e)
+					{
+						this.error(t, ImportError.REJECTED_ERROR, e.getMessage());
+					}
+				}
+			}
+		}
+	}
+
+	//loss	description	amount	frequency	nextLoss	endDate	source
+	private void importLoss(LineTokenizer t)
+	{
+		if (this.checkFieldCount(t, 7))
+		{
+			String description = t.string(1);
+			double amount = t.number(2);
+			Frequency frequency = t.frequency(3);
+			Date nextLoss = t.date(4);
+			Date endDate = t.date(5);
+			String sourceName = t.string(6);
+			if (this.checkParsed(t))
+			{
+				Source source = this.bbd.getSourceWithName(sourceName);
+				int error = MoneyLoss.verifyValues(description, amount, frequency, nextLoss, endDate, source);
+				if (error != 0)
+				{
+					this.error(t, error, MoneyLoss.messageFor(error));
+				}
+				else if (this.bbd.getLossWithDescription(description) != null)
+				{
+					this.error(t, ImportError.DUPLICATE_ERROR, BadBudgetInvalidValueException.IMPORT_DUPLICATE_NAME);
+				}
+				else
+				{
+					try
+					{
+						this.bbd.addLoss(new MoneyLoss(description, amount, frequency, nextLoss, endDate, source));
+						this.numImported++;
+					}
+					catch (BadBudgetInvalidValueException e)
+					{
+						this.error(t, ImportError.REJECTED_ERROR, e.getMessage());
+					}
+				}
+			}
+		}
+	}
+
+	//transfer	description	source	destination	amount	frequency	nextTransfer	endDate
+	private void importTransfer(LineTokenizer t)
+	{
+		if (this.checkFieldCount(t, 8))
+		{
+			String description = t.string(1);
+			String sourceName = t.string(2);
+			String destinationName = t.string(3);
+			double amount = t.number(4);
+			Frequency frequency = t.frequency(5);
+			Date nextTransfer = t.date(6);
+			Date endDate = t.date(7);
+			if (this.checkParsed(t))
+			{
+				Account source = this.bbd.getAccountWithName(sourceName);
+				Account destination = this.bbd.getAccountWithName(destinationName);
+				int error = MoneyTransfer.verifyValues(description, source, destination, amount, frequency, nextTransfer, endDate);
+				if (error != 0)
+				{
+					this.error(t, error, MoneyTransfer.messageFor(error));
+				}
+				else if (this.bbd.getTransferWithDescription(description) != null)
+				{
+					this.error(t, ImportError.DUPLICATE_ERROR, BadBudgetInvalidValueException.IMPORT_DUPLICATE_NAME);
+				}
+				else
+				{
+					try
+					{
+						this.bbd.addTransfer(new MoneyTransfer(description, source, destination, amount, frequency, nextTransfer, endDate));
+						this.numImported++;
+					}
+					catch (BadBudgetInvalidValueException e)
+					{
+						this.error(t, ImportError.REJECTED_ERROR, e.getMessage());
+					}
+				}
+			}
+		}
+	}
+
+	//budget	source	autoReset	weeklyReset	monthlyReset
+	private void importBudget(LineTokenizer t)
+	{
+		if (this.checkFieldCount(t, 5))
+		{
+			String sourceName = t.string(1);
+			boolean autoReset = t.bool(2);
+			int weeklyReset = t.integer(3);
+			int monthlyReset = t.integer(4);
+			if (this.checkParsed(t))
+			{
+				Source source = this.bbd.getSourceWithName(sourceName);
+				int error = Budget.verifyValues(source);
+				if (error != 0)
+				{
+					this.error(t, error, Budget.messageFor(error));
+				}
+				else if (this.bbd.getBudget() != null)
+				{
+					this.error(t, ImportError.DUPLICATE_ERROR, BadBudgetInvalidValueException.IMPORT_DUPLICATE_BUDGET);
+				}
+				else
+				{
+					try
+					{
+						this.bbd.setBudget(new Budget(source, autoReset, weeklyReset, monthlyReset));
+						this.numImported++;
+					}
+					catch (BadBudgetInvalidValueException e)
+					{
+						this.error(t, ImportError.REJECTED_ERROR, e.getMessage());
+					}
+				}
+			}
+		}
+	}
+
+	//item	description	amount	frequency	startDate	endDate	proratedStart
+	private void importBudgetItem(LineTokenizer t)
+	{
+		if (this.checkFieldCount(t, 7))
+		{
+			String description = t.string(1);
+			double amount = t.number(2);
+			Frequency frequency = t.frequency(3);
+			Date startDate = t.date(4);
+			Date endDate = t.date(5);
+			boolean proratedStart = t.bool(6);
+			if (this.checkParsed(t))
+			{
+				Budget budget = this.bbd.getBudget();
+				if (budget == null)
+				{
+					this.error(t, ImportError.REFERENCE_ERROR, BadBudgetInvalidValueException.IMPORT_NO_BUDGET);
+				}
+				else
+				{
+					int lossError = MoneyLoss.verifyValues(description, amount, frequency, startDate, endDate, budget.getBudgetSource());
+					int itemError = BudgetItem.verifyValues(frequency, proratedStart);
+					if (lossError != 0)
+					{
+						this.error(t, lossError, MoneyLoss.messageFor(lossError));
+					}
+					else if (itemError != 0)
+					{
+						this.error(t, itemError, BudgetItem.messageFor(itemError));
+					}
+					else if (budget.retrieveBudgetItem(description) != null)
+					{
+						this.error(t, ImportError.DUPLICATE_ERROR, BadBudgetInvalidValueException.IMPORT_DUPLICATE_NAME);
+					}
+					else
+					{
+						try
+						{
+							budget.addBudgetItem(new BudgetItem(description, amount, frequency, startDate, endDate, proratedStart,
+									budget.getBudgetSource()));
+							this.numImported++;
+						}
+						catch (BadBudgetInvalidValueException e)
+						{
+							this.error(t, ImportError.REJECTED_ERROR, e.getMessage());
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private void error(LineTokenizer t, int code, String message)
+	{
+		this.errors.add(new ImportError(this.userId, t.lineNumber(), t.string(0), -1, code, message));
+	}
+}
@@ -0,0 +1,385 @@
+package com.erikartymiuk.badbudgetlogic.export;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Calendar;
+
+/**
+ * Buffered text output to a channel that formats straight into a reusable byte buffer. Strings are encoded as UTF-8
+ * char by char and numbers and dates are written digit by digit, so writing a row allocates nothing. The buffer is
+ * written out to the channel whenever it fills and on flush. Not thread safe.
+ */
+public class ChannelOutput implements Flushable
+{
+	public static final int MIN_BUFFER_SIZE = 64;		//Room for the longest single value written at once
+	public static final int MAX_DECIMALS = 9;
+
+	private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L};
+	private static final double MAX_FIXED = 9.0E18;		//Scaled values at or above this don't fit in a long
+
+	private final WritableByteChannel channel;
+	private final ByteBuffer buffer;
+	private final byte[] digits;						//Scratch space for writing a long's digits in reverse
+	private long bytesWritten;							//Bytes written to the channel so far
+
+	/**
+	 * Constructor for a channel output.
+	 * @param channel - the channel to write to
+	 * @param bufferSize - the size of the buffer, at least MIN_BUFFER_SIZE
+	 */
+	public ChannelOutput(WritableByteChannel channel, int bufferSize)
+	{
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocateDirect(Math.max(bufferSize, MIN_BUFFER_SIZE));
+		this.digits = new byte[20];
+		this.bytesWritten = 0;
+	}
+
+	/**
+	 * Makes sure the buffer has room for the given number of bytes, writing it out first if it doesn't.
+	 * @param bytes - the number of bytes needed, at most MIN_BUFFER_SIZE
+	 * @throws IOException - if writing to the channel fails
+	 */
+	private void reserve(int bytes) throws IOException
+	{
+		if (this.buffer.remaining() < bytes)
+		{
+			this.drain();
+		}
+	}
+
+	/**
+	 * Writes everything buffered out to the channel.
+	 * @throws IOException - if writing to the channel fails
+	 */
+	private void drain() throws IOException
+	{
+		this.buffer.flip();
+		while (this.buffer.hasRemaining())
+		{
+			this.bytesWritten += this.channel.write(this.buffer);
+		}
+		this.buffer.clear();
+	}
+
+	public void flush() throws IOException
+	{
+		this.drain();
+	}
+
+	/**
+	 * The number of bytes written to the channel so far, not counting any still buffered.
+	 * @return the bytes written
+	 */
+	public long bytesWritten()
+	{
+		return this.bytesWritten;
+	}
+
+	/**
+	 * Writes a single ASCII char (used for delimiters and quotes).
+	 * @param c - the char, must be below 0x80
+	 * @throws IOException - if writing to the channel fails
+	 */
+	public void putAscii(char c) throws IOException
+	{
+		this.reserve(1);
+		this.buffer.put((byte) c);
+	}
+
+	/**
+	 * Writes a char as UTF-8. A surrogate pair is written when its low half is passed (as one four byte sequence);
+	 * an unpaired surrogate is written as '?' (callers finish a string with endChars to catch a trailing high half).
+	 * @param c - the char to write
+	 * @param previous - the char before it in the same string (or 0) so surrogate pairs can be joined
+	 * @throws IOException - if writing to the channel fails
+	 */
+	private void putChar(char c, char previous) throws IOException
+	{
+		this.reserve(5);
+		if (Character.isHighSurrogate(previous) && !Character.isLowSurrogate(c))
+		{
+			this.buffer.put((byte) '?');
+		}
+		
+		if (c < 0x80)
+		{
+			this.buffer.put((byte) c);
+		}
+		else if (c < 0x800)
+		{
+			this.buffer.put((byte) (0xC0 | (c >> 6)));
+			this.buffer.put((byte) (0x80 | (c & 0x3F)));
+		}
+		else if (Character.isHighSurrogate(c))
+		{
+			//Written with its low half
+		}
+		else if (Character.isLowSurrogate(c))
+		{
+			if (Character.isHighSurrogate(previous))
+			{
+				int codePoint = Character.toCodePoint(previous, c);
+				this.buffer.put((byte) (0xF0 | (codePoint >> 18)));
+				this.buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+				this.buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+				this.buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+			}
+			else
+			{
+				this.buffer.put((byte) '?');
+			}
+		}
+		else
+		{
+			this.buffer.put((byte) (0xE0 | (c >> 12)));
+			this.buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+			this.buffer.put((byte) (0x80 | (c & 0x3F)));
+		}
+	}
+
+	/**
+	 * Finishes a string written with putChar, writing '?' for a trailing unpaired high surrogate.
+	 * @param last - the last char of the string (or 0 if it was empty)
+	 * @throws IOException - if writing to the channel fails
+	 */
+	private void endChars(char last) throws IOException
+	{
+		if (Character.isHighSurrogate(last))
+		{
+			this.putAscii('?');
+		}
+	}
+
+	/**
+	 * Writes a string as is, encoded as UTF-8.
+	 * @param s - the string to write
+	 * @throws IOException - if writing to the channel fails
+	 */
+	public void putString(String s) throws IOException
+	{
+		char previous = 0;
+		for (int i = 0; i < s.length(); i++)
+		{
+			char c = s.charAt(i);
+			this.putChar(c, previous);
+			previous = c;
+		}
+		this.endChars(previous);
+	}
+
+	/**
+	 * Writes a string as a CSV field, quoted (with quotes doubled) only if it holds a comma, quote, or line break.
+	 * @param s - the string to write, null for an empty field
+	 * @throws IOException - if writing to the channel fails
+	 */
+	public void putCsvField(String s) throws IOException
+	{
+		if (s == null)
+		{
+			return;
+		}
+		
+		boolean quote = false;
+		for (int i = 0; i < s.length() && !quote; i++)
+		{
+			char c = s.charAt(i);
+			quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+		}
+
+		if (quote)
+		{
+			this.putAscii('"');
+			char previous = 0;
+			for (int i = 0; i < s.length(); i++)
+			{
+				char c = s.charAt(i);
+				if (c == '"')
+				{
+					this.putAscii('"');
+				}
+				this.putChar(c, previous);
+				previous = c;
+			}
+			this.endChars(previous);
+			this.putAscii('"');
+		}
+		else
+		{
+			this.putString(s);
+		}
+	}
+
+	/**
+	 * Writes a double as a JSON number with a fixed number of decimal places (see putFixed). NaN and infinities, which
+	 * JSON can't represent, are written as null.
+	 * @param value - the value to write
+	 * @param decimals - the number of decimal places, 0 to MAX_DECIMALS
+	 * @throws IOException - if writing to the channel fails
+	 */
+	public void putJsonNumber(double value, int decimals) throws IOException
+	{
+		if (Double.isNaN(value) || Double.isInfinite(value))
+		{
+			this.putString("null");
+		}
+		else
+		{
+			this.putFixed(value, decimals);
+		}
+	}
+
+	/**
+	 * Writes a string as a quoted JSON string, escaping quotes, backslashes and control chars.
+	 * @param s - the string to write
+	 * @throws IOException - if writing to the channel fails
+	 */
+	public void putJsonString(String s) throws IOException
+	{
+		this.putAscii('"');
+		char previous = 0;
+		for (int i = 0; i < s.length(); i++)
+		{
+			char c = s.charAt(i);
+			if (Character.isHighSurrogate(previous) && !Character.isLowSurrogate(c))
+			{
+				this.putAscii('?');
+			}
+			
+			if (c == '"' || c == '\\')
+			{
+				this.putAscii('\\');
+				this.putAscii(c);
+			}
+			else if (c == '\n')
+			{
+				this.putAscii('\\');
+				this.putAscii('n');
+			}
+			else if (c == '\r')
+			{
+				this.putAscii('\\');
+				this.putAscii('r');
+			}
+			else if (c == '\t')
+			{
+				this.putAscii('\\');
+				this.putAscii('t');
+			}
+			else if (c < 0x20)
+			{
+				this.putAscii('\\');
+				this.putAscii('u');
+				this.putAscii('0');
+				this.putAscii('0');
+				this.putAscii(Character.forDigit(c >> 4, 16));
+				this.putAscii(Character.forDigit(c & 0xF, 16));
+			}
+			else if (Character.isLowSurrogate(c))
+			{
+				this.putChar(c, previous);
+			}
+			else
+			{
+				//Any unpaired high surrogate before it was handled above
+				this.putChar(c, (char) 0);
+			}
+			previous = c;
+		}
+		this.endChars(previous);
+		this.putAscii('"');
+	}
+
+	/**
+	 * Writes a long in decimal.
+	 * @param value - the value to write
+	 * @throws IOException - if writing to the channel fails
+	 */
+	public void putLong(long value) throws IOException
+	{
+		this.reserve(20);
+		if (value == Long.MIN_VALUE)
+		{
+			//Can't be negated, write all but the last digit then the last one
+			this.putLong(value / 10);
+			this.putAscii('8');
+			return;
+		}
+		if (value < 0)
+		{
+			this.buffer.put((byte) '-');
+			value = -value;
+		}
+		int count = 0;
+		do
+		{
+			this.digits[count++] = (byte) ('0' + (value % 10));
+			value /= 10;
+		}
+		while (value != 0);
+		while (count > 0)
+		{
+			this.buffer.put(this.digits[--count]);
+		}
+	}
+
+	/**
+	 * Writes a double with a fixed number of decimal places, rounding half away from zero. NaN and infinities are
+	 * written as by Double.toString, as are values too large to scale into a long (the only case that allocates).
+	 * NaN and Infinity aren't JSON numbers, JSON output should use putJsonNumber.
+	 * @param value - the value to write
+	 * @param decimals - the number of decimal places, 0 to MAX_DECIMALS
+	 * @throws IOException - if writing to the channel fails
+	 */
+	public void putFixed(double value, int decimals) throws IOException
+	{
+		double scaled = Math.abs(value) * POWERS_OF_TEN[decimals];
+		if (Double.isNaN(value) || scaled >= MAX_FIXED)
+		{
+			this.putString(Double.toString(value));
+			return;
+		}
+
+		long units = (long) (scaled + 0.5);
+		if (value < 0 && units != 0)
+		{
+			this.putAscii('-');
+		}
+		this.putLong(units / POWERS_OF_TEN[decimals]);
+		if (decimals > 0)
+		{
+			this.reserve(1 + decimals);
+			this.buffer.put((byte) '.');
+			long fraction = units % POWERS_OF_TEN[decimals];
+			for (int i = decimals - 1; i >= 0; i--)
+			{
+				this.buffer.put((byte) ('0' + (fraction / POWERS_OF_TEN[i]) % 10));
+			}
+		}
+	}
+
+	/**
+	 * Writes the date the calendar is set to as yyyy-MM-dd.
+	 * @param calendar - the calendar holding the date
+	 * @throws IOException - if writing to the channel fails
+	 */
+	public void putDate(Calendar calendar) throws IOException
+	{
+		int year = calendar.get(Calendar.YEAR);
+		int month = calendar.get(Calendar.MONTH) + 1;
+		int day = calendar.get(Calendar.DAY_OF_MONTH);
+		this.reserve(10);
+		this.buffer.put((byte) ('0' + (year / 1000) % 10));
+		this.buffer.put((byte) ('0' + (year / 100) % 10));
+		this.buffer.put((byte) ('0' + (year / 10) % 10));
+		this.buffer.put((byte) ('0' + year % 10));
+		this.buffer.put((byte) '-');
+		this.buffer.put((byte) ('0' + month / 10));
+		this.buffer.put((byte) ('0' + month % 10));
+		this.buffer.put((byte) '-');
+		this.buffer.put((byte) ('0' + day / 10));
+		this.buffer.put((byte) ('0' + day % 10));
+	}
+}
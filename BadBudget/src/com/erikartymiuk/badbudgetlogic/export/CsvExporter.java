@@ -0,0 +1,85 @@
+package com.erikartymiuk.badbudgetlogic.export;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.Calendar;
+
+import com.erikartymiuk.badbudgetlogic.predictdataclasses.TransactionHistoryItem;
+
+/**
+ * Exports prediction values and history as CSV (RFC 4180, UTF-8, \n line endings) with a header row.
+ * 
+ * Values:	date,kind,id,name,value
+ * History:	date,kind,entity,amount,source_action,source,source_original,source_updated,
+ * 			destination_action,destination,destination_original,destination_updated
+ */
+public class CsvExporter extends PredictionExporter
+{
+	public static final String VALUES_HEADER = "date,kind,id,name,value";
+	public static final String HISTORY_HEADER = "date,kind,entity,amount,source_action,source,source_original,source_updated,"
+			+ "destination_action,destination,destination_original,destination_updated";
+
+	public CsvExporter(WritableByteChannel channel)
+	{
+		super(channel, DEFAULT_BUFFER_SIZE, DEFAULT_DECIMALS);
+	}
+
+	public CsvExporter(WritableByteChannel channel, int bufferSize, int decimals)
+	{
+		super(channel, bufferSize, decimals);
+	}
+
+	protected void beginValues() throws IOException
+	{
+		this.out.putString(VALUES_HEADER);
+		this.out.putAscii('\n');
+	}
+
+	protected void valueRow(Calendar date, String kind, int id, String name, double value) throws IOException
+	{
+		this.out.putDate(date);
+		this.out.putAscii(',');
+		this.out.putString(kind);
+		this.out.putAscii(',');
+		this.out.putLong(id);
+		this.out.putAscii(',');
+		this.out.putCsvField(name);
+		this.out.putAscii(',');
+		this.out.putFixed(value, this.decimals);
+		this.out.putAscii('\n');
+	}
+
+	protected void beginHistory() throws IOException
+	{
+		this.out.putString(HISTORY_HEADER);
+		this.out.putAscii('\n');
+	}
+
+	protected void historyRow(Calendar date, String kind, String entity, TransactionHistoryItem item) throws IOException
+	{
+		this.out.putDate(date);
+		this.out.putAscii(',');
+		this.out.putString(kind);
+		this.out.putAscii(',');
+		this.out.putCsvField(entity);
+		this.out.putAscii(',');
+		this.out.putFixed(item.getTransactionAmount(), this.decimals);
+		this.out.putAscii(',');
+		this.out.putCsvField(item.getSourceActionString());
+		this.out.putAscii(',');
+		this.out.putCsvField(item.getTransactionSource());
+		this.out.putAscii(',');
+		this.out.putFixed(item.getSourceOriginal(), this.decimals);
+		this.out.putAscii(',');
+		this.out.putFixed(item.getSourceUpdated(), this.decimals);
+		this.out.putAscii(',');
+		this.out.putCsvField(item.getDestinationActionString());
+		this.out.putAscii(',');
+		this.out.putCsvField(item.getTransactionDestination());
+		this.out.putAscii(',');
+		this.out.putFixed(item.getDestinationOriginal(), this.decimals);
+		this.out.putAscii(',');
+		this.out.putFixed(item.getDestinationUpdated(), this.decimals);
+		this.out.putAscii('\n');
+	}
+}
@@ -0,0 +1,99 @@
+package com.erikartymiuk.badbudgetlogic.export;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.Calendar;
+
+import com.erikartymiuk.badbudgetlogic.predictdataclasses.TransactionHistoryItem;
+
+/**
+ * Exports prediction values and history as JSON Lines (one JSON object per line, UTF-8). NaN and infinite amounts,
+ * which JSON can't represent, are written as null.
+ * 
+ * Values:	{"date":"2017-05-10","kind":"account","id":0,"name":"checking","value":5000.00}
+ * History:	{"date":..,"kind":..,"entity":..,"amount":..,"sourceAction":..,"source":..,"sourceOriginal":..,
+ * 			"sourceUpdated":..,"destinationAction":..,"destination":..,"destinationOriginal":..,"destinationUpdated":..}
+ */
+public class JsonLinesExporter extends PredictionExporter
+{
+	public JsonLinesExporter(WritableByteChannel channel)
+	{
+		super(channel, DEFAULT_BUFFER_SIZE, DEFAULT_DECIMALS);
+	}
+
+	public JsonLinesExporter(WritableByteChannel channel, int bufferSize, int decimals)
+	{
+		super(channel, bufferSize, decimals);
+	}
+
+	protected void beginValues()
+	{
+		//No header
+	}
+
+	protected void valueRow(Calendar date, String kind, int id, String name, double value) throws IOException
+	{
+		this.out.putString("{\"date\":\"");
+		this.out.putDate(date);
+		this.out.putString("\",\"kind\":\"");
+		this.out.putString(kind);
+		this.out.putString("\",\"id\":");
+		this.out.putLong(id);
+		this.out.putString(",\"name\":");
+		this.out.putJsonString(name);
+		this.out.putString(",\"value\":");
+		this.putNumber(value);
+		this.out.putString("}\n");
+	}
+
+	protected void beginHistory()
+	{
+		//No header
+	}
+
+	protected void historyRow(Calendar date, String kind, String entity, TransactionHistoryItem item) throws IOException
+	{
+		this.out.putString("{\"date\":\"");
+		this.out.putDate(date);
+		this.out.putString("\",\"kind\":\"");
+		this.out.putString(kind);
+		this.out.putString("\",\"entity\":");
+		this.out.putJsonString(entity);
+		this.out.putString(",\"amount\":");
+		this.putNumber(item.getTransactionAmount());
+		this.out.putString(",\"sourceAction\":");
+		this.putJsonStringOrNull(item.getSourceActionString());
+		this.out.putString(",\"source\":");
+		this.putJsonStringOrNull(item.getTransactionSource());
+		this.out.putString(",\"sourceOriginal\":");
+		this.putNumber(item.getSourceOriginal());
+		this.out.putString(",\"sourceUpdated\":");
+		this.putNumber(item.getSourceUpdated());
+		this.out.putString(",\"destinationAction\":");
+		this.putJsonStringOrNull(item.getDestinationActionString());
+		this.out.putString(",\"destination\":");
+		this.putJsonStringOrNull(item.getTransactionDestination());
+		this.out.putString(",\"destinationOriginal\":");
+		this.putNumber(item.getDestinationOriginal());
+		this.out.putString(",\"destinationUpdated\":");
+		this.putNumber(item.getDestinationUpdated());
+		this.out.putString("}\n");
+	}
+
+	private void putNumber(double value) throws IOException
+	{
+		this.out.putJsonNumber(value, this.decimals);
+	}
+
+	private void putJsonStringOrNull(String value) throws IOException
+	{
+		if (value == null)
+		{
+			this.out.putString("null");
+		}
+		else
+		{
+			this.out.putJsonString(value);
+		}
+	}
+}
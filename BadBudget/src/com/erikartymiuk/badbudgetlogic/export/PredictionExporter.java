@@ -0,0 +1,167 @@
+package com.erikartymiuk.badbudgetlogic.export;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import com.erikartymiuk.badbudgetlogic.kernel.PredictionValues;
+import com.erikartymiuk.badbudgetlogic.main.*;
+import com.erikartymiuk.badbudgetlogic.predictdataclasses.TransactionHistoryItem;
+
+/**
+ * Base of the streaming exporters. Walks the daily values of a prediction (a PredictionSeries or MappedPredictionStore)
+ * or the transaction history of a predicted bbd and hands each row to the format, which writes it through a
+ * ChannelOutput. Nothing is allocated per row so an export runs at the speed of the channel.
+ *
+ * Values are one row per account or debt per day. History is one row per transaction item, for every account and then
+ * every debt in registry order, on each day of the bbd's predict data (as BadBudgetDriver.printHistory prints them).
+ * Each write method flushes what it wrote to the channel before returning. An exporter is not thread safe.
+ */
+public abstract class PredictionExporter implements Flushable
+{
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+	public static final int DEFAULT_DECIMALS = 2;
+
+	public static final String KIND_ACCOUNT = "account";
+	public static final String KIND_DEBT = "debt";
+
+	protected final ChannelOutput out;			//Where the rows are written
+	protected final int decimals;				//Decimal places for amounts
+	private final Calendar calendar;			//Reused to step through and format dates
+
+	/**
+	 * Constructor for an exporter.
+	 * @param channel - the channel to write to, left open
+	 * @param bufferSize - the size of the reusable buffer
+	 * @param decimals - the number of decimal places to write amounts with, 0 to ChannelOutput.MAX_DECIMALS
+	 */
+	protected PredictionExporter(WritableByteChannel channel, int bufferSize, int decimals)
+	{
+		this.out = new ChannelOutput(channel, bufferSize);
+		this.decimals = Math.max(0, Math.min(decimals, ChannelOutput.MAX_DECIMALS));
+		this.calendar = new GregorianCalendar();
+	}
+
+	/**
+	 * Writes the value of every account and debt on every day.
+	 * @param values - the prediction values to write
+	 * @throws IOException - if writing to the channel fails
+	 */
+	public void writeValues(PredictionValues values) throws IOException
+	{
+		this.beginValues();
+		int numAccounts = values.numAccounts();
+		int numDebts = values.numDebts();
+		this.calendar.setTime(values.getStartDate());
+		for (int day = 0; day < values.numDays(); day++)
+		{
+			for (int i = 0; i < numAccounts; i++)
+			{
+				this.valueRow(this.calendar, KIND_ACCOUNT, i, values.accountName(i), values.accountValue(day, i));
+			}
+			for (int i = 0; i < numDebts; i++)
+			{
+				this.valueRow(this.calendar, KIND_DEBT, i, values.debtName(i), values.debtValue(day, i));
+			}
+			this.calendar.add(Calendar.DAY_OF_YEAR, 1);
+		}
+		this.out.flush();
+	}
+
+	/**
+	 * Writes the transaction history of every account and debt of a predicted bbd.
+	 * @param bbd - a bbd that has been predicted through at least the last day
+	 * @param lastDayIndex - the last day to write, as an offset from the prediction's start date
+	 * @throws IOException - if writing to the channel fails
+	 */
+	public void writeHistory(BadBudgetData bbd, int lastDayIndex) throws IOException
+	{
+		this.beginHistory();
+		EntityRegistry registry = bbd.getRegistry();
+		for (Account account : registry.accounts())
+		{
+			for (int day = 0; day <= lastDayIndex; day++)
+			{
+				this.historyRows(KIND_ACCOUNT, account.name(), account.getPredictData(day).transactionHistory());
+			}
+		}
+		for (MoneyOwed debt : registry.debts())
+		{
+			for (int day = 0; day <= lastDayIndex; day++)
+			{
+				this.historyRows(KIND_DEBT, debt.name(), debt.getPredictData(day).transactionHistory());
+			}
+		}
+		this.out.flush();
+	}
+
+	/**
+	 * Writes the rows of one day's history.
+	 * @param kind - KIND_ACCOUNT or KIND_DEBT
+	 * @param entity - the name of the account or debt the history belongs to
+	 * @param items - the items, null if nothing happened that day
+	 * @throws IOException - if writing to the channel fails
+	 */
+	private void historyRows(String kind, String entity, List<TransactionHistoryItem> items) throws IOException
+	{
+		if (items != null)
+		{
+			for (int i = 0; i < items.size(); i++)
+			{
+				TransactionHistoryItem item = items.get(i);
+				this.calendar.setTime(item.getTransactionDate());
+				this.historyRow(this.calendar, kind, entity, item);
+			}
+		}
+	}
+
+	public void flush() throws IOException
+	{
+		this.out.flush();
+	}
+
+	/**
+	 * The number of bytes written to the channel so far.
+	 * @return the bytes written
+	 */
+	public long bytesWritten()
+	{
+		return this.out.bytesWritten();
+	}
+
+	/**
+	 * Called before the value rows, writes any header.
+	 * @throws IOException - if writing to the channel fails
+	 */
+	protected abstract void beginValues() throws IOException;
+
+	/**
+	 * Writes one value row.
+	 * @param date - a calendar set to the row's date, must not be changed
+	 * @param kind - KIND_ACCOUNT or KIND_DEBT
+	 * @param id - the account or debt id
+	 * @param name - the account or debt name
+	 * @param value - the value at the end of the day
+	 * @throws IOException - if writing to the channel fails
+	 */
+	protected abstract void valueRow(Calendar date, String kind, int id, String name, double value) throws IOException;
+
+	/**
+	 * Called before the history rows, writes any header.
+	 * @throws IOException - if writing to the channel fails
+	 */
+	protected abstract void beginHistory() throws IOException;
+
+	/**
+	 * Writes one history row.
+	 * @param date - a calendar set to the transaction's date, must not be changed
+	 * @param kind - KIND_ACCOUNT or KIND_DEBT
+	 * @param entity - the name of the account or debt whose history this is
+	 * @param item - the transaction
+	 * @throws IOException - if writing to the channel fails
+	 */
+	protected abstract void historyRow(Calendar date, String kind, String entity, TransactionHistoryItem item) throws IOException;
+}
@@ -0,0 +1,16 @@
+package com.erikartymiuk.badbudgetlogic.kernel;
+
+/**
+ * Callback given to a prediction kernel that is told about each day once the kernel has finished simulating it.
+ * Implementations read whatever state they need from the kernel (balances, interest, etc.) and should not hold on to
+ * the kernel's arrays past the call as they are updated in place on the next day.
+ */
+public interface DaySink
+{
+	/**
+	 * Called once all of the events of the given day have been handled.
+	 * @param dayIndex - the day that was just simulated, as an offset from the kernel's start date
+	 * @param kernel - the kernel holding the end of day state
+	 */
+	public void endOfDay(int dayIndex, PredictionKernel kernel);
+}
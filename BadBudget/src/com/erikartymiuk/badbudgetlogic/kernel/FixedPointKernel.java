@@ -0,0 +1,485 @@
+package com.erikartymiuk.badbudgetlogic.kernel;
+
+import java.util.Date;
+
+import com.erikartymiuk.badbudgetlogic.main.*;
+
+/**
+ * A fixed point version of PredictionKernel. Balances, amounts and interest are held as long counts of a money unit
+ * (cents by default, or finer units such as micro dollars) so that adding and subtracting money is exact: a balance
+ * never picks up the binary rounding error of a double no matter how many events touch it.
+ *
+ * Amounts are converted to units once, when the kernel is compiled, by rounding half to even. The only other place
+ * rounding happens is interest. Each accrual is computed from the current balance and rate and rounded half to even to
+ * a whole unit before it is added, so:
+ * 		debts (daily)				interest = round(balance * rate / 365.25)
+ * 		simple interest loans		interest = round(principal * rate / 365.25)
+ * 		savings accounts (monthly)	interest = round(balance * rate / 12)
+ * Because of this the kernel can differ from PredictionKernel by up to half a unit per accrual, which is what a bank
+ * crediting interest to the cent would do. Prorated budget losses are rounded the same way when they occur.
+ *
+ * The slot layout, event order and recurrence dates are exactly those of PredictionKernel as both kernels run their
+ * days through a KernelSchedule; only the values and the arithmetic on them differ. Simulating a day allocates
+ * nothing apart from finding the next date of the events that fire on it. Values can be read as units or as doubles,
+ * and record gives a PredictionSeries of double values. Balances must stay under 2^53 units (about 90 trillion dollars
+ * in cents) for the interest products to be exact.
+ */
+public class FixedPointKernel
+{
+	/* Units per dollar for cents */
+	public static final long CENTS = 100;
+	/* Units per dollar for micro dollars */
+	public static final long MICROS = 1000000;
+
+	private final KernelSchedule schedule;	//The slots and the next day of every event, as in PredictionKernel
+	private final LongStore store;			//The values of the slots in units, changed by the schedule's events
+
+	/**
+	 * Compiles the given bad budget data into a kernel counting in cents.
+	 * @param bbd - the bad budget data to compile
+	 * @param startDate - the date of day index 0 (same as the currentDate passed to predict)
+	 * @param considerBudgetRemainValues - whether budget items should consider their remain action
+	 * @return the compiled kernel
+	 * @throws BadBudgetInvalidValueException - if any item draws on, or pays into, an account or credit card that
+	 * 						isn't part of the bbd
+	 */
+	public static FixedPointKernel compile(BadBudgetData bbd, Date startDate, boolean considerBudgetRemainValues)
+			throws BadBudgetInvalidValueException
+	{
+		return compile(bbd, startDate, considerBudgetRemainValues, CENTS);
+	}
+
+	/**
+	 * Compiles the given bad budget data into a kernel counting in the given unit.
+	 * @param bbd - the bad budget data to compile
+	 * @param startDate - the date of day index 0 (same as the currentDate passed to predict)
+	 * @param considerBudgetRemainValues - whether budget items should consider their remain action
+	 * @param unitsPerDollar - the number of units in a dollar, CENTS or MICROS for instance
+	 * @return the compiled kernel
+	 * @throws BadBudgetInvalidValueException - if any item draws on, or pays into, an account or credit card that
+	 * 						isn't part of the bbd
+	 */
+	public static FixedPointKernel compile(BadBudgetData bbd, Date startDate, boolean considerBudgetRemainValues, long unitsPerDollar)
+			throws BadBudgetInvalidValueException
+	{
+		return new FixedPointKernel(KernelSchedule.compile(bbd, startDate, considerBudgetRemainValues), unitsPerDollar);
+	}
+
+	/**
+	 * Private constructor, see compile.
+	 */
+	private FixedPointKernel(KernelSchedule schedule, long unitsPerDollar)
+	{
+		this.schedule = schedule;
+		this.store = new LongStore(schedule, unitsPerDollar);
+	}
+
+	/**
+	 * Rounds a fractional number of units half to even. This is the kernel's single rounding rule.
+	 * @param units - the exact (real valued) amount in units
+	 * @return the nearest whole number of units, ties going to the even one
+	 */
+	private static long round(double units)
+	{
+		return (long) Math.rint(units);
+	}
+
+	/**
+	 * Converts a dollar amount to this kernel's units, rounding half to even.
+	 * @param amount - the amount in dollars
+	 * @return the amount in units
+	 */
+	public long toUnits(double amount)
+	{
+		return this.store.toUnits(amount);
+	}
+
+	/**
+	 * Converts an amount in this kernel's units to dollars.
+	 * @param units - the amount in units
+	 * @return the amount in dollars (the nearest double)
+	 */
+	public double toDollars(long units)
+	{
+		return units / (double) this.store.unitsPerDollar;
+	}
+
+	/**
+	 * Simulates each day after the last simulated day up to and including lastDayIndex, continuing where the previous
+	 * call left off.
+	 * @param lastDayIndex - the last day to simulate
+	 */
+	public void advanceTo(int lastDayIndex)
+	{
+		for (int day = this.schedule.dayIndex() + 1; day <= lastDayIndex; day++)
+		{
+			this.schedule.simulateDay(day, this.store);
+		}
+	}
+
+	/**
+	 * Simulates up to and including the given date.
+	 * @param targetDate - the last date to simulate
+	 */
+	public void advanceTo(Date targetDate)
+	{
+		this.advanceTo(Prediction.numDaysBetween(this.schedule.startDate, targetDate));
+	}
+
+	/**
+	 * Simulates through lastDayIndex recording every account and debt's value on each day as dollars. The kernel must
+	 * not have simulated any days yet.
+	 * @param lastDayIndex - the last day to simulate
+	 * @return the recorded values, day 0 through lastDayIndex
+	 */
+	public PredictionSeries record(int lastDayIndex)
+	{
+		int[] accountSlots = this.schedule.accountSlots;
+		int[] debtSlots = this.schedule.debtSlots;
+		int numAccounts = accountSlots.length;
+		int numDebts = debtSlots.length;
+		int numDays = lastDayIndex + 1;
+		double[] accountValues = new double[numDays * numAccounts];
+		double[] debtValues = new double[numDays * numDebts];
+		for (int day = 0; day <= lastDayIndex; day++)
+		{
+			this.schedule.simulateDay(day, this.store);
+			for (int i = 0; i < numAccounts; i++)
+			{
+				accountValues[day * numAccounts + i] = this.toDollars(this.store.values[accountSlots[i]]);
+			}
+			for (int i = 0; i < numDebts; i++)
+			{
+				debtValues[day * numDebts + i] = this.toDollars(this.store.values[debtSlots[i]]);
+			}
+		}
+
+		EntityRegistry registry = this.schedule.registry;
+		String[] accountNames = new String[numAccounts];
+		for (int i = 0; i < numAccounts; i++)
+		{
+			accountNames[i] = registry.accounts()[i].name();
+		}
+		String[] debtNames = new String[numDebts];
+		for (int i = 0; i < numDebts; i++)
+		{
+			debtNames[i] = registry.debts()[i].name();
+		}
+		return new PredictionSeries(this.schedule.startDate, numDays, accountNames, debtNames, accountValues, debtValues);
+	}
+
+	/**
+	 * The balances of a FixedPointKernel in units and the arithmetic each event does to them. Every amount is
+	 * converted to units once, when the store is made.
+	 */
+	private static final class LongStore implements ValueStore
+	{
+		private final KernelSchedule schedule;
+		private final long unitsPerDollar;			//The scale of every long amount
+
+		private final long[] values;				//The current value of each slot in units
+		private final long[] accumulatedInterest;	//Interest accumulated since the start for each slot in units
+		private final double[] periodRates;			//rate/12 for savings accounts and rate/365.25 for debts
+		private final long[] baseAmounts;			//The debt amount at compile time (other debts with interest accumulate off of this)
+		private final long[] principals;			//Loan principal by slot
+		private final long[] interests;				//Loan interest by slot (simple interest loans only)
+
+		private final long[] transferAmounts;
+		private final long[] contributionAmounts;
+		private final long[] gainAmounts;
+		private final long[] paymentAmounts;
+		private final long[] paymentLastMade;		//The amount actually paid the last time each payment fired
+		private final long[] lossAmounts;
+		private final long[] itemAmounts;
+		private final long[] itemUpdatedAmounts;	//The current amount of each budget item
+
+		private LongStore(KernelSchedule schedule, long unitsPerDollar)
+		{
+			this.schedule = schedule;
+			this.unitsPerDollar = unitsPerDollar;
+
+			this.values = this.toUnits(schedule.startValues);
+			this.accumulatedInterest = new long[schedule.numSlots];
+			this.periodRates = schedule.periodRates;
+			this.baseAmounts = this.values.clone();
+			this.principals = this.toUnits(schedule.startPrincipals);
+			this.interests = this.toUnits(schedule.startInterests);
+
+			this.transferAmounts = this.toUnits(schedule.transferAmounts);
+			this.contributionAmounts = this.toUnits(schedule.contributionAmounts);
+			this.gainAmounts = this.toUnits(schedule.gainAmounts);
+			this.paymentAmounts = this.toUnits(schedule.paymentAmounts);
+			this.paymentLastMade = new long[schedule.payments.length];
+			this.lossAmounts = this.toUnits(schedule.lossAmounts);
+			this.itemAmounts = this.toUnits(schedule.itemAmounts);
+			this.itemUpdatedAmounts = this.toUnits(schedule.itemStartAmounts);
+		}
+
+		private long toUnits(double amount)
+		{
+			return round(amount * this.unitsPerDollar);
+		}
+
+		private long[] toUnits(double[] amounts)
+		{
+			long[] units = new long[amounts.length];
+			for (int i = 0; i < amounts.length; i++)
+			{
+				units[i] = this.toUnits(amounts[i]);
+			}
+			return units;
+		}
+
+		/*
+		 * Events
+		 */
+
+		public void transfer(int transfer, int source, int destination)
+		{
+			this.values[source] = this.values[source] - this.transferAmounts[transfer];
+			this.values[destination] = this.values[destination] + this.transferAmounts[transfer];
+		}
+
+		public void contribution(int contribution, int source, int destination)
+		{
+			this.values[destination] = this.values[destination] + this.contributionAmounts[contribution];
+			this.values[source] = this.values[source] - this.contributionAmounts[contribution];
+		}
+
+		public void gain(int gain, int destination)
+		{
+			this.values[destination] = this.values[destination] + this.gainAmounts[gain];
+		}
+
+		public void payment(int payment, int source, int debt, boolean payOff)
+		{
+			long newDebtAmount = this.values[debt] - this.paymentAmounts[payment];
+			long paymentMade = this.paymentAmounts[payment];
+			if (payOff || newDebtAmount < 0)
+			{
+				newDebtAmount = 0;
+				paymentMade = this.values[debt];
+			}
+
+			this.values[source] = this.values[source] - paymentMade;
+			this.values[debt] = newDebtAmount;
+			this.paymentLastMade[payment] = paymentMade;
+		}
+
+		public void simpleLoanPayment(int slot, int payment)
+		{
+			long paymentMade = this.paymentLastMade[payment];
+			if (this.values[slot] == 0)
+			{
+				this.principals[slot] = 0;
+				this.interests[slot] = 0;
+			}
+			else if (this.interests[slot] > paymentMade)
+			{
+				this.interests[slot] = this.interests[slot] - paymentMade;
+			}
+			else
+			{
+				long paymentToPrincipal = paymentMade - this.interests[slot];
+				this.interests[slot] = 0;
+				if (paymentToPrincipal > this.principals[slot])
+				{
+					this.principals[slot] = 0;
+				}
+				else
+				{
+					this.principals[slot] = this.principals[slot] - paymentToPrincipal;
+				}
+			}
+		}
+
+		public void loss(int loss, int source, double sign)
+		{
+			this.values[source] = this.values[source] + (long) sign * this.lossAmounts[loss];
+		}
+
+		public void budgetItem(int item, int source, double sign)
+		{
+			KernelSchedule schedule = this.schedule;
+			long originalAmount = this.itemUpdatedAmounts[item];
+
+			long lossAmount = this.itemAmounts[item];
+			if (schedule.itemProrated[item])
+			{
+				lossAmount = this.toUnits(schedule.proratedLossAmount(item));
+			}
+
+			if (schedule.itemAddsBack[item] && originalAmount != 0)
+			{
+				this.values[source] = this.values[source] - (long) sign * originalAmount;
+			}
+			this.values[source] = this.values[source] + (long) sign * lossAmount;
+
+			if (schedule.itemAccumulates[item])
+			{
+				this.itemUpdatedAmounts[item] = originalAmount + lossAmount;
+			}
+			else
+			{
+				this.itemUpdatedAmounts[item] = lossAmount;
+			}
+		}
+
+		/*
+		 * Interest loops, each accrual rounded half to even to a whole unit
+		 */
+
+		public void accrueDebtInterest()
+		{
+			KernelSchedule schedule = this.schedule;
+			for (int slot = schedule.creditCardStart; slot < schedule.creditCardEnd; slot++)
+			{
+				long interest = round(this.values[slot] * this.periodRates[slot]);
+				this.accumulatedInterest[slot] = this.accumulatedInterest[slot] + interest;
+				this.values[slot] = this.values[slot] + interest;
+			}
+
+			for (int slot = schedule.simpleLoanStart; slot < schedule.simpleLoanEnd; slot++)
+			{
+				long interest = round(this.principals[slot] * this.periodRates[slot]);
+				this.accumulatedInterest[slot] = this.accumulatedInterest[slot] + interest;
+				this.values[slot] = this.values[slot] + interest;
+				this.interests[slot] = this.interests[slot] + interest;
+			}
+
+			for (int slot = schedule.compoundLoanStart; slot < schedule.compoundLoanEnd; slot++)
+			{
+				long interest = round(this.values[slot] * this.periodRates[slot]);
+				this.accumulatedInterest[slot] = this.accumulatedInterest[slot] + interest;
+				this.values[slot] = this.values[slot] + interest;
+				this.principals[slot] = this.values[slot];
+			}
+
+			//Other debts accumulate off of their amount at the start (as in PredictionKernel)
+			for (int slot = schedule.otherInterestDebtStart; slot < schedule.otherInterestDebtEnd; slot++)
+			{
+				this.accumulatedInterest[slot] = this.accumulatedInterest[slot] + round(this.values[slot] * this.periodRates[slot]);
+				this.values[slot] = this.baseAmounts[slot] + round(this.baseAmounts[slot] * this.periodRates[slot]);
+			}
+		}
+
+		public void accrueSavingsInterest()
+		{
+			for (int slot = this.schedule.savingsStart; slot < this.schedule.savingsEnd; slot++)
+			{
+				long interest = round(this.values[slot] * this.periodRates[slot]);
+				this.accumulatedInterest[slot] = this.accumulatedInterest[slot] + interest;
+				this.values[slot] = this.values[slot] + interest;
+			}
+		}
+	}
+
+	/*
+	 * State
+	 */
+
+	public int dayIndex()
+	{
+		return this.schedule.dayIndex();
+	}
+
+	public Date getStartDate()
+	{
+		return this.schedule.startDate;
+	}
+
+	public EntityRegistry registry()
+	{
+		return this.schedule.registry;
+	}
+
+	public boolean isConsideringBudgetRemainValues()
+	{
+		return this.schedule.considerBudgetRemainValues;
+	}
+
+	public long unitsPerDollar()
+	{
+		return this.store.unitsPerDollar;
+	}
+
+	/**
+	 * The values of every slot in units. Shared with the kernel (and updated in place each day) so it should only be
+	 * read.
+	 * @return the slot values
+	 */
+	public long[] values()
+	{
+		return this.store.values;
+	}
+
+	public long accountUnits(int accountId)
+	{
+		return this.store.values[this.schedule.accountSlots[accountId]];
+	}
+
+	public long debtUnits(int debtId)
+	{
+		return this.store.values[this.schedule.debtSlots[debtId]];
+	}
+
+	public double accountValue(int accountId)
+	{
+		return this.toDollars(this.accountUnits(accountId));
+	}
+
+	public double debtValue(int debtId)
+	{
+		return this.toDollars(this.debtUnits(debtId));
+	}
+
+	public long accountAccumulatedInterestUnits(int accountId)
+	{
+		return this.store.accumulatedInterest[this.schedule.accountSlots[accountId]];
+	}
+
+	public long debtAccumulatedInterestUnits(int debtId)
+	{
+		return this.store.accumulatedInterest[this.schedule.debtSlots[debtId]];
+	}
+
+	/**
+	 * The principal of a loan in units. Only meaningful for loans.
+	 * @param debtId - the registry id of the loan
+	 * @return the loan's current principal
+	 */
+	public long loanPrincipalUnits(int debtId)
+	{
+		return this.store.principals[this.schedule.debtSlots[debtId]];
+	}
+
+	/**
+	 * The interest owed of a simple interest loan in units (0 for other loans).
+	 * @param debtId - the registry id of the loan
+	 * @return the loan's current interest owed
+	 */
+	public long loanInterestUnits(int debtId)
+	{
+		return this.store.interests[this.schedule.debtSlots[debtId]];
+	}
+
+	/**
+	 * Whether a transfer has moved money into or out of the account since the start.
+	 * @param accountId - the registry id of the account
+	 * @return true if the account's value was changed by a transfer
+	 */
+	public boolean isValueChangedByTransfer(int accountId)
+	{
+		return this.schedule.isValueChangedByTransfer(accountId);
+	}
+
+	/**
+	 * The current amount of a budget item in units.
+	 * @param itemIndex - the index of the item in the budget's item array
+	 * @return the budget item's current amount
+	 */
+	public long budgetItemUnits(int itemIndex)
+	{
+		return this.store.itemUpdatedAmounts[itemIndex];
+	}
+}
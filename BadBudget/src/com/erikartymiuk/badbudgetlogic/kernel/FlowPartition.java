@@ -0,0 +1,405 @@
+package com.erikartymiuk.badbudgetlogic.kernel;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import com.erikartymiuk.badbudgetlogic.budget.Budget;
+import com.erikartymiuk.badbudgetlogic.budget.BudgetItem;
+import com.erikartymiuk.badbudgetlogic.main.*;
+
+/**
+ * Splits a bbd into its independent money flows. Accounts and debts are linked whenever an event moves money between
+ * them: a transfer links its source and destination, a contribution its savings account and source account, and a
+ * payment its debt and source account. Gains, losses and budget items only touch one account or credit card each (an
+ * item's own source, which defaults to the budget's source) so they join that account's flow. Accounts and debts that
+ * end up linked, directly or through others, form one component.
+ *
+ * No event reads or writes a slot outside its own component, so each component can be compiled into a kernel of its
+ * own and simulated on its own thread without sharing anything. Within a component the kernel handles the events in
+ * the same order as it would for the whole bbd, so each balance sees exactly the same operations in the same day
+ * order and the merged result is identical to simulating the whole bbd, whatever the number of threads.
+ *
+ * Components are numbered by their first account (or, for components without accounts, their first debt) in registry
+ * order. The partition is of the bbd's entities when it was built; build a new one after the bbd changes.
+ */
+public class FlowPartition
+{
+	private final EntityRegistry registry;	//The partitioned bbd's registry
+	private final Budget budget;
+	private final int numComponents;
+
+	private final int[] accountComponents;	//Component of each account by account id
+	private final int[] debtComponents;		//Component of each debt by debt id
+
+	/*
+	 * Each component's part of the bbd, by component
+	 */
+	private final EntityRegistry[] componentRegistries;
+	private final BudgetItem[][] componentItems;
+	private final int[][] componentAccountIds;	//The registry id of each of the component's accounts, by component id
+	private final int[][] componentDebtIds;		//The registry id of each of the component's debts, by component id
+
+	/**
+	 * Partitions the given bbd into its independent components.
+	 * @param bbd - the bbd to partition
+	 * @return the partition
+	 * @throws BadBudgetInvalidValueException - if any item draws on, or pays into, an account or credit card that
+	 * 						isn't part of the bbd
+	 */
+	public static FlowPartition partition(BadBudgetData bbd) throws BadBudgetInvalidValueException
+	{
+		return new FlowPartition(bbd);
+	}
+
+	/**
+	 * Private constructor, see partition.
+	 */
+	private FlowPartition(BadBudgetData bbd) throws BadBudgetInvalidValueException
+	{
+		this.registry = bbd.getRegistry();
+		this.budget = bbd.getBudget();
+		Account[] accounts = this.registry.accounts();
+		MoneyOwed[] debts = this.registry.debts();
+		int numAccounts = accounts.length;
+
+		/* Union the nodes (accounts then debts) linked by an event */
+		int[] parents = new int[numAccounts + debts.length];
+		for (int i = 0; i < parents.length; i++)
+		{
+			parents[i] = i;
+		}
+		for (MoneyTransfer transfer : this.registry.transfers())
+		{
+			union(parents, this.nodeOf(transfer.getSource()), this.nodeOf(transfer.getDestination()));
+		}
+		for (SavingsAccount savingsAccount : this.registry.savingsAccounts())
+		{
+			if (savingsAccount.nextContribution() != null)
+			{
+				union(parents, this.nodeOf(savingsAccount), this.nodeOf(savingsAccount.sourceAccount()));
+			}
+		}
+		for (int i = 0; i < debts.length; i++)
+		{
+			if (debts[i].payment() != null)
+			{
+				union(parents, numAccounts + i, this.nodeOf(debts[i].payment().sourceAccount()));
+			}
+		}
+
+		/* Number the components in node order */
+		int[] rootComponents = new int[parents.length];
+		Arrays.fill(rootComponents, -1);
+		int count = 0;
+		int[] nodeComponents = new int[parents.length];
+		for (int node = 0; node < parents.length; node++)
+		{
+			int root = find(parents, node);
+			if (rootComponents[root] == -1)
+			{
+				rootComponents[root] = count;
+				count++;
+			}
+			nodeComponents[node] = rootComponents[root];
+		}
+		this.numComponents = count;
+		this.accountComponents = Arrays.copyOfRange(nodeComponents, 0, numAccounts);
+		this.debtComponents = Arrays.copyOfRange(nodeComponents, numAccounts, nodeComponents.length);
+
+		/* Split the entities and items by component */
+		BudgetItem[] items;
+		if (this.budget != null)
+		{
+			items = this.budget.getBudgetItemArray();
+		}
+		else
+		{
+			items = new BudgetItem[0];
+		}
+		int[] gainComponents = new int[this.registry.gains().length];
+		for (int i = 0; i < gainComponents.length; i++)
+		{
+			gainComponents[i] = nodeComponents[this.nodeOf(this.registry.gains()[i].destinationAccount())];
+		}
+		int[] lossComponents = new int[this.registry.losses().length];
+		for (int i = 0; i < lossComponents.length; i++)
+		{
+			lossComponents[i] = nodeComponents[this.nodeOf(this.registry.losses()[i].source())];
+		}
+		int[] transferComponents = new int[this.registry.transfers().length];
+		for (int i = 0; i < transferComponents.length; i++)
+		{
+			transferComponents[i] = nodeComponents[this.nodeOf(this.registry.transfers()[i].getSource())];
+		}
+		int[] itemComponents = new int[items.length];
+		for (int i = 0; i < items.length; i++)
+		{
+			itemComponents[i] = nodeComponents[this.nodeOf(items[i].source())];
+		}
+
+		this.componentRegistries = new EntityRegistry[count];
+		this.componentItems = new BudgetItem[count][];
+		this.componentAccountIds = new int[count][];
+		this.componentDebtIds = new int[count][];
+		for (int component = 0; component < count; component++)
+		{
+			this.componentRegistries[component] = this.registry.subset(is(this.accountComponents, component),
+					is(this.debtComponents, component), is(gainComponents, component), is(lossComponents, component),
+					is(transferComponents, component));
+			this.componentAccountIds[component] = indicesOf(this.accountComponents, component);
+			this.componentDebtIds[component] = indicesOf(this.debtComponents, component);
+			int[] itemIndices = indicesOf(itemComponents, component);
+			this.componentItems[component] = new BudgetItem[itemIndices.length];
+			for (int i = 0; i < itemIndices.length; i++)
+			{
+				this.componentItems[component][i] = items[itemIndices[i]];
+			}
+		}
+	}
+
+	/**
+	 * Private helper returning the union find node of a source, accounts first then debts.
+	 * @throws BadBudgetInvalidValueException - if the source isn't part of the bbd
+	 */
+	private int nodeOf(Source source) throws BadBudgetInvalidValueException
+	{
+		if (source instanceof Account)
+		{
+			int id = this.registry.accountId((Account) source);
+			if (id != -1)
+			{
+				return id;
+			}
+		}
+		else if (source instanceof CreditCard)
+		{
+			int id = this.registry.debtId((CreditCard) source);
+			if (id != -1)
+			{
+				return this.registry.accounts().length + id;
+			}
+		}
+		throw new BadBudgetInvalidValueException(BadBudgetInvalidValueException.KERNEL_SOURCE_NOT_IN_DATA);
+	}
+
+	private static int find(int[] parents, int node)
+	{
+		while (parents[node] != node)
+		{
+			parents[node] = parents[parents[node]];
+			node = parents[node];
+		}
+		return node;
+	}
+
+	/**
+	 * Private helper linking two nodes, the smaller root becomes the root of both.
+	 */
+	private static void union(int[] parents, int a, int b)
+	{
+		int rootA = find(parents, a);
+		int rootB = find(parents, b);
+		if (rootA < rootB)
+		{
+			parents[rootB] = rootA;
+		}
+		else if (rootB < rootA)
+		{
+			parents[rootA] = rootB;
+		}
+	}
+
+	private static boolean[] is(int[] components, int component)
+	{
+		boolean[] mask = new boolean[components.length];
+		for (int i = 0; i < components.length; i++)
+		{
+			mask[i] = (components[i] == component);
+		}
+		return mask;
+	}
+
+	private static int[] indicesOf(int[] components, int component)
+	{
+		int count = 0;
+		for (int i = 0; i < components.length; i++)
+		{
+			if (components[i] == component)
+			{
+				count++;
+			}
+		}
+		int[] indices = new int[count];
+		count = 0;
+		for (int i = 0; i < components.length; i++)
+		{
+			if (components[i] == component)
+			{
+				indices[count] = i;
+				count++;
+			}
+		}
+		return indices;
+	}
+
+	/**
+	 * Compiles each component into a kernel of its own.
+	 * @param startDate - the date of day index 0
+	 * @param considerBudgetRemainValues - whether budget items should consider their remain action
+	 * @return the kernels by component, a kernel's ids are the component's ids (see componentAccountIds)
+	 * @throws BadBudgetInvalidValueException - if a component can't be compiled
+	 */
+	public PredictionKernel[] compile(Date startDate, boolean considerBudgetRemainValues) throws BadBudgetInvalidValueException
+	{
+		PredictionKernel[] kernels = new PredictionKernel[this.numComponents];
+		for (int component = 0; component < this.numComponents; component++)
+		{
+			kernels[component] = PredictionKernel.compile(this.componentRegistries[component], this.budget,
+					this.componentItems[component], startDate, considerBudgetRemainValues);
+		}
+		return kernels;
+	}
+
+	/**
+	 * Predicts every component from the start date through the target date and merges the results. The components are
+	 * compiled on the calling thread and simulated as fork join tasks in the given pool.
+	 * @param startDate - the date the bbd's values are on
+	 * @param targetDate - the last date to predict
+	 * @param pool - the pool to simulate the components in, null to simulate them one after the other on the calling
+	 * 				thread
+	 * @return the prediction of the whole bbd, identical to PredictionSeries.record of a kernel of the whole bbd
+	 * @throws BadBudgetInvalidValueException - if a component can't be compiled
+	 */
+	public PredictionSeries record(Date startDate, Date targetDate, ForkJoinPool pool) throws BadBudgetInvalidValueException
+	{
+		final int lastDayIndex = Prediction.numDaysBetween(startDate, targetDate);
+		final PredictionKernel[] kernels = this.compile(startDate, false);
+		PredictionSeries[] parts = new PredictionSeries[this.numComponents];
+		if (pool == null || this.numComponents < 2)
+		{
+			for (int component = 0; component < this.numComponents; component++)
+			{
+				parts[component] = PredictionSeries.record(kernels[component], lastDayIndex);
+			}
+		}
+		else
+		{
+			final List<RecursiveTask<PredictionSeries>> tasks = new ArrayList<RecursiveTask<PredictionSeries>>(this.numComponents);
+			for (int component = 0; component < this.numComponents; component++)
+			{
+				final PredictionKernel kernel = kernels[component];
+				tasks.add(new RecursiveTask<PredictionSeries>()
+				{
+					protected PredictionSeries compute()
+					{
+						return PredictionSeries.record(kernel, lastDayIndex);
+					}
+				});
+			}
+			pool.invoke(new RecursiveTask<Void>()
+			{
+				protected Void compute()
+				{
+					ForkJoinTask.invokeAll(tasks);
+					return null;
+				}
+			});
+			for (int component = 0; component < this.numComponents; component++)
+			{
+				parts[component] = tasks.get(component).join();
+			}
+		}
+		return this.merge(startDate, lastDayIndex + 1, parts);
+	}
+
+	/**
+	 * Private helper merging the components' series into one in registry id order.
+	 */
+	private PredictionSeries merge(Date startDate, int numDays, PredictionSeries[] parts)
+	{
+		int numAccounts = this.accountComponents.length;
+		int numDebts = this.debtComponents.length;
+		double[] accountValues = new double[numDays * numAccounts];
+		double[] debtValues = new double[numDays * numDebts];
+		for (int component = 0; component < this.numComponents; component++)
+		{
+			PredictionSeries part = parts[component];
+			int[] accountIds = this.componentAccountIds[component];
+			int[] debtIds = this.componentDebtIds[component];
+			for (int day = 0; day < numDays; day++)
+			{
+				for (int i = 0; i < accountIds.length; i++)
+				{
+					accountValues[day * numAccounts + accountIds[i]] = part.accountValue(day, i);
+				}
+				for (int i = 0; i < debtIds.length; i++)
+				{
+					debtValues[day * numDebts + debtIds[i]] = part.debtValue(day, i);
+				}
+			}
+		}
+
+		String[] accountNames = new String[numAccounts];
+		for (int i = 0; i < numAccounts; i++)
+		{
+			accountNames[i] = this.registry.accounts()[i].name();
+		}
+		String[] debtNames = new String[numDebts];
+		for (int i = 0; i < numDebts; i++)
+		{
+			debtNames[i] = this.registry.debts()[i].name();
+		}
+		return new PredictionSeries(startDate, numDays, accountNames, debtNames, accountValues, debtValues);
+	}
+
+	/*
+	 * Components
+	 */
+
+	public int numComponents()
+	{
+		return this.numComponents;
+	}
+
+	public int accountComponent(int accountId)
+	{
+		return this.accountComponents[accountId];
+	}
+
+	public int debtComponent(int debtId)
+	{
+		return this.debtComponents[debtId];
+	}
+
+	/**
+	 * The registry ids of a component's accounts, in the order of the component's own ids.
+	 * @param component - the component
+	 * @return the account ids, shared so it should only be read
+	 */
+	public int[] componentAccountIds(int component)
+	{
+		return this.componentAccountIds[component];
+	}
+
+	/**
+	 * The registry ids of a component's debts, in the order of the component's own ids.
+	 * @param component - the component
+	 * @return the debt ids, shared so it should only be read
+	 */
+	public int[] componentDebtIds(int component)
+	{
+		return this.componentDebtIds[component];
+	}
+
+	/**
+	 * The number of accounts and debts in a component.
+	 * @param component - the component
+	 * @return the component's size
+	 */
+	public int componentSize(int component)
+	{
+		return this.componentAccountIds[component].length + this.componentDebtIds[component].length;
+	}
+}
@@ -0,0 +1,94 @@
+package com.erikartymiuk.badbudgetlogic.kernel;
+
+import java.util.Date;
+
+import com.erikartymiuk.badbudgetlogic.budget.Budget;
+import com.erikartymiuk.badbudgetlogic.budget.BudgetItem;
+import com.erikartymiuk.badbudgetlogic.main.*;
+
+/**
+ * Updates a bad budget data object to its state on an end date the same way Prediction.update does, but without
+ * building any predict rows. A kernel is compiled from the bbd and advanced to the end date holding only the current
+ * state of each entity, budget item remain amounts are folded in as each item's losses fire, and the final state is
+ * then written back to the bbd's entities. Memory is proportional to the number of entities rather than entities times
+ * days and the work done is proportional to the number of events that fire.
+ */
+public class InPlaceUpdate
+{
+	/**
+	 * Updates the bbd to its state on the end date. Equivalent to Prediction.update(bbd, currDate, endDate): values,
+	 * next dates, loan principal and interest, and (if the budget auto resets) budget item current amounts are all
+	 * set to what they would be on the end date. Savings account goals are cleared if a transfer touched the account
+	 * and credit card goals are cleared if they no longer hold. The bbd must have a budget.
+	 *
+	 * @param bbd - the bad budget data to update
+	 * @param currDate - the date considered as the start
+	 * @param endDate - the date to update the bbd to
+	 * @throws BadBudgetInvalidValueException - if the bbd can't be compiled into a kernel
+	 */
+	public static void update(BadBudgetData bbd, Date currDate, Date endDate) throws BadBudgetInvalidValueException
+	{
+		Budget budget = bbd.getBudget();
+		boolean autoReset = budget.isAutoReset();
+
+		PredictionKernel kernel = PredictionKernel.compile(bbd, currDate, autoReset);
+		kernel.advanceTo(endDate, null);
+
+		EntityRegistry registry = bbd.getRegistry();
+		Account[] accounts = registry.accounts();
+		for (int i = 0; i < accounts.length; i++)
+		{
+			if (accounts[i] instanceof SavingsAccount)
+			{
+				((SavingsAccount) accounts[i]).update(kernel.accountValue(i), kernel.nextContributionDate(i),
+						kernel.isValueChangedByTransfer(i));
+			}
+			else
+			{
+				accounts[i].setValue(kernel.accountValue(i));
+			}
+		}
+
+		MoneyTransfer[] transfers = registry.transfers();
+		for (int i = 0; i < transfers.length; i++)
+		{
+			transfers[i].setNextTransfer(kernel.nextTransferDate(i));
+		}
+
+		MoneyOwed[] debts = registry.debts();
+		for (int i = 0; i < debts.length; i++)
+		{
+			if (debts[i] instanceof Loan)
+			{
+				((Loan) debts[i]).update(endDate, kernel.debtValue(i), kernel.nextPaymentDate(i),
+						kernel.loanPrincipal(i), kernel.loanInterest(i));
+			}
+			else
+			{
+				debts[i].update(endDate, kernel.debtValue(i), kernel.nextPaymentDate(i));
+			}
+		}
+
+		MoneyGain[] gains = registry.gains();
+		for (int i = 0; i < gains.length; i++)
+		{
+			gains[i].setNextDeposit(kernel.nextDepositDate(i));
+		}
+
+		MoneyLoss[] losses = registry.losses();
+		for (int i = 0; i < losses.length; i++)
+		{
+			losses[i].setNextLoss(kernel.nextLossDate(i));
+		}
+
+		BudgetItem[] items = budget.getBudgetItemArray();
+		for (int i = 0; i < items.length; i++)
+		{
+			items[i].setNextLoss(kernel.budgetItemNextLossDate(i));
+			if (autoReset)
+			{
+				items[i].setCurrAmount(kernel.budgetItemAmount(i));
+			}
+		}
+	}
+}
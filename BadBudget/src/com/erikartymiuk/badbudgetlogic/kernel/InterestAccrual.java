@@ -0,0 +1,38 @@
+package com.erikartymiuk.badbudgetlogic.kernel;
+
+/**
+ * Accrues interest over a contiguous range of kernel slots. The kernel lays out each kind of account and debt in a
+ * range of its own so that the interest of a whole kind is one call over primitive arrays, which an implementation can
+ * process several slots at a time (see ScalarInterestAccrual for the reference implementation).
+ *
+ * Implementations must give exactly the results of ScalarInterestAccrual: each lane does the same multiplications and
+ * additions in the same order, without fusing them, so that results don't depend on the implementation installed.
+ */
+public interface InterestAccrual
+{
+	/**
+	 * Daily compounding (credit cards): for each slot in [from, to)
+	 * 		accumulatedInterest += value * periodRate
+	 * 		value = value * periodFactor
+	 * @param values - the slot values, updated in place
+	 * @param accumulatedInterest - the interest accumulated by each slot, updated in place
+	 * @param periodRates - rate/365.25 for each slot
+	 * @param periodFactors - 1 + rate/365.25 for each slot
+	 * @param from - the first slot
+	 * @param to - one past the last slot
+	 */
+	public void accrueDaily(double[] values, double[] accumulatedInterest, double[] periodRates, double[] periodFactors, int from, int to);
+
+	/**
+	 * Monthly interest (savings accounts): for each slot in [from, to)
+	 * 		accumulatedInterest += value * periodRate
+	 * 		value = value + value * rate / 12
+	 * @param values - the slot values, updated in place
+	 * @param accumulatedInterest - the interest accumulated by each slot, updated in place
+	 * @param periodRates - rate/12 for each slot
+	 * @param rates - the yearly rate of each slot
+	 * @param from - the first slot
+	 * @param to - one past the last slot
+	 */
+	public void accrueMonthly(double[] values, double[] accumulatedInterest, double[] periodRates, double[] rates, int from, int to);
+}
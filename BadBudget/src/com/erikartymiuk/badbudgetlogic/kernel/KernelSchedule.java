@@ -0,0 +1,814 @@
+package com.erikartymiuk.badbudgetlogic.kernel;
+
+import java.util.*;
+
+import com.erikartymiuk.badbudgetlogic.budget.Budget;
+import com.erikartymiuk.badbudgetlogic.budget.BudgetItem;
+import com.erikartymiuk.badbudgetlogic.budget.RemainAmountAction;
+import com.erikartymiuk.badbudgetlogic.main.*;
+
+/**
+ * The part of a compiled kernel that doesn't depend on how money is counted: the slot each account and debt is given,
+ * and the day index of every recurring event's next occurrence. PredictionKernel and FixedPointKernel each compile one
+ * and simulate their days through it; the schedule finds the events firing on a day, hands each to the kernel's
+ * ValueStore to change the balances and moves the event on to its next date.
+ *
+ * Each account and debt gets a slot and the slots are grouped by kind:
+ * 		plain accounts, savings accounts, credit cards, simple interest loans, compound interest loans,
+ * 		loans without interest, other debts with interest, other debts without interest
+ * so that each kind's interest loop runs over a contiguous range of slots. Within a kind the slots keep the order of
+ * the registry.
+ *
+ * Recurring events (transfers, contributions, gains, payments, losses, and budget items) are tracked as the int day
+ * index of their next occurrence. When an event fires its next date is found using the entity's own recurrence method
+ * so that the dates match Prediction.predict exactly.
+ *
+ * Amounts, balances and rates are kept as read from the entities, in dollars, for the kernels to convert into their
+ * own values when they're compiled. Only the next dates and the days events last fired change as days are simulated.
+ */
+final class KernelSchedule
+{
+	final EntityRegistry registry;		//The compiled registry, ids are the registry's ids
+	final Budget budget;				//The budget the items belong to (null if there are no items)
+	final Date startDate;				//The date of day index 0
+	final boolean considerBudgetRemainValues;
+
+	private int dayIndex;				//The last simulated day, -1 before the first day is run
+
+	/*
+	 * Slots
+	 */
+	final int numSlots;
+	final int[] accountSlots;			//Slot of each account by account id
+	final int[] debtSlots;				//Slot of each debt by debt id
+
+	final int savingsStart;				//The slot ranges of each kind [start, end)
+	final int savingsEnd;
+	final int creditCardStart;
+	final int creditCardEnd;
+	final int simpleLoanStart;
+	final int simpleLoanEnd;
+	final int compoundLoanStart;
+	final int compoundLoanEnd;
+	final int otherInterestDebtStart;
+	final int otherInterestDebtEnd;
+
+	final double[] startValues;			//The value of each slot when compiled
+	final double[] rates;				//The yearly interest rate of each slot
+	final double[] periodRates;			//rate/12 for savings accounts and rate/365.25 for debts
+	final double[] startPrincipals;		//Loan principal by slot when compiled
+	final double[] startInterests;		//Loan interest by slot when compiled (simple interest loans only)
+	final int[] slotPayments;			//The payment index of the debt in each slot, -1 if none
+	private final boolean[] changedByTransfer;	//Set once a transfer moves money into or out of the slot
+
+	private final int firstSavingsInterestDay;	//The first day savings accounts accumulate interest
+	private int nextSavingsInterestDay;			//All savings accounts accumulate interest on the same days
+	private Date nextSavingsInterestDate;
+
+	/*
+	 * Transfers, by transfer id
+	 */
+	final MoneyTransfer[] transfers;
+	final int[] transferSources;
+	final int[] transferDestinations;
+	final double[] transferAmounts;
+	private final int[] transferNextDays;
+	private final int[] transferEndDays;
+	private final Date[] transferNextDates;
+
+	/*
+	 * Contributions, one per savings account (in savings slot order)
+	 */
+	final SavingsAccount[] contributors;
+	final int[] contributionDestinations;
+	final int[] contributionSources;
+	final double[] contributionAmounts;
+	private final int[] contributionNextDays;
+	private final int[] contributionEndDays;
+	private final Date[] contributionNextDates;
+
+	/*
+	 * Gains, by gain id
+	 */
+	final MoneyGain[] gains;
+	final int[] gainDestinations;
+	final double[] gainAmounts;
+	private final int[] gainNextDays;
+	private final int[] gainEndDays;
+	private final Date[] gainNextDates;
+
+	/*
+	 * Payments, one per debt with a payment (in debt id order)
+	 */
+	final Payment[] payments;
+	final int[] paymentDebts;
+	final int[] paymentSources;
+	final double[] paymentAmounts;
+	final boolean[] paymentPayOffs;
+	private final int[] paymentNextDays;
+	private final int[] paymentEndDays;
+	private final Date[] paymentNextDates;
+	private final int[] paymentLastDays;	//The day the payment last fired
+
+	/*
+	 * Losses, by loss id
+	 */
+	final MoneyLoss[] losses;
+	final int[] lossSources;
+	final double[] lossSigns;			//-1 when the source is an account, 1 when it's a credit card
+	final double[] lossAmounts;
+	private final int[] lossNextDays;
+	private final int[] lossEndDays;
+	private final Date[] lossNextDates;
+
+	/*
+	 * Budget items, in the order of the given item array
+	 */
+	final BudgetItem[] items;
+	final int[] itemSources;
+	final double[] itemSigns;
+	final double[] itemAmounts;
+	final double[] itemStartAmounts;	//The item's current amount when compiled
+	final boolean[] itemProrated;
+	final boolean[] itemAccumulates;	//The item's remain action (when considered) accumulates
+	final boolean[] itemAddsBack;		//The item's remain action (when considered) adds back
+	private final int[] itemNextDays;
+	private final int[] itemEndDays;
+	private final Date[] itemNextDates;
+	private final int[] itemLossDays;	//The day the item last had a loss
+
+	/**
+	 * Compiles the schedule of a whole bbd, its registry and its budget's items.
+	 * @param bbd - the bad budget data to compile
+	 * @param startDate - the date of day index 0 (same as the currentDate passed to predict)
+	 * @param considerBudgetRemainValues - whether budget items should consider their remain action
+	 * @return the compiled schedule
+	 * @throws BadBudgetInvalidValueException - if any item draws on, or pays into, an account or credit card that
+	 * 						isn't part of the bbd
+	 */
+	static KernelSchedule compile(BadBudgetData bbd, Date startDate, boolean considerBudgetRemainValues)
+			throws BadBudgetInvalidValueException
+	{
+		Budget budget = bbd.getBudget();
+		BudgetItem[] items;
+		if (budget != null)
+		{
+			items = budget.getBudgetItemArray();
+		}
+		else
+		{
+			items = new BudgetItem[0];
+		}
+		return new KernelSchedule(bbd.getRegistry(), budget, items, startDate, considerBudgetRemainValues);
+	}
+
+	/**
+	 * Compiles the schedule of the entities of the given registry and the given budget items. Every source the
+	 * entities and items use must be in the registry.
+	 * @param registry - the entities to compile
+	 * @param budget - the budget the items belong to (null if there are no items)
+	 * @param items - the budget items to compile
+	 * @param startDate - the date of day index 0
+	 * @param considerBudgetRemainValues - whether budget items should consider their remain action
+	 * @throws BadBudgetInvalidValueException - if any item draws on, or pays into, an account or credit card that
+	 * 						isn't in the registry
+	 */
+	KernelSchedule(EntityRegistry registry, Budget budget, BudgetItem[] items, Date startDate,
+			boolean considerBudgetRemainValues) throws BadBudgetInvalidValueException
+	{
+		this.registry = registry;
+		this.budget = budget;
+		this.startDate = startDate;
+		this.considerBudgetRemainValues = considerBudgetRemainValues;
+		this.dayIndex = -1;
+
+		Account[] accounts = registry.accounts();
+		MoneyOwed[] debts = registry.debts();
+		this.numSlots = accounts.length + debts.length;
+
+		this.accountSlots = new int[accounts.length];
+		this.debtSlots = new int[debts.length];
+		this.startValues = new double[this.numSlots];
+		this.rates = new double[this.numSlots];
+		this.periodRates = new double[this.numSlots];
+		this.startPrincipals = new double[this.numSlots];
+		this.startInterests = new double[this.numSlots];
+		this.slotPayments = new int[this.numSlots];
+		this.changedByTransfer = new boolean[this.numSlots];
+		Arrays.fill(this.slotPayments, -1);
+
+		/* Lay out the slots kind by kind */
+		int slot = 0;
+		for (Account account : registry.plainAccounts())
+		{
+			this.accountSlots[registry.accountId(account)] = slot;
+			this.startValues[slot] = account.value();
+			slot++;
+		}
+
+		this.savingsStart = slot;
+		for (SavingsAccount savingsAccount : registry.savingsAccounts())
+		{
+			this.accountSlots[registry.accountId(savingsAccount)] = slot;
+			this.startValues[slot] = savingsAccount.value();
+			this.rates[slot] = savingsAccount.getInterestRate();
+			this.periodRates[slot] = savingsAccount.getInterestRate()/12.0;
+			slot++;
+		}
+		this.savingsEnd = slot;
+
+		this.creditCardStart = slot;
+		for (CreditCard creditCard : registry.creditCards())
+		{
+			slot = this.layoutDebt(creditCard, slot);
+		}
+		this.creditCardEnd = slot;
+
+		this.simpleLoanStart = slot;
+		for (Loan loan : registry.loans())
+		{
+			if (loan.interestRate() != 0 && loan.isSimpleInterest())
+			{
+				slot = this.layoutDebt(loan, slot);
+				this.startPrincipals[slot-1] = loan.getPrincipalBalance();
+				this.startInterests[slot-1] = loan.getInterestAmount();
+			}
+		}
+		this.simpleLoanEnd = slot;
+
+		this.compoundLoanStart = slot;
+		for (Loan loan : registry.loans())
+		{
+			if (loan.interestRate() != 0 && !loan.isSimpleInterest())
+			{
+				slot = this.layoutDebt(loan, slot);
+				this.startPrincipals[slot-1] = loan.amount();
+			}
+		}
+		this.compoundLoanEnd = slot;
+
+		for (Loan loan : registry.loans())
+		{
+			if (loan.interestRate() == 0)
+			{
+				slot = this.layoutDebt(loan, slot);
+				this.startPrincipals[slot-1] = loan.amount();
+			}
+		}
+
+		this.otherInterestDebtStart = slot;
+		for (MoneyOwed debt : registry.otherDebts())
+		{
+			if (debt.interestRate() != 0)
+			{
+				slot = this.layoutDebt(debt, slot);
+			}
+		}
+		this.otherInterestDebtEnd = slot;
+
+		for (MoneyOwed debt : registry.otherDebts())
+		{
+			if (debt.interestRate() == 0)
+			{
+				slot = this.layoutDebt(debt, slot);
+			}
+		}
+
+		//Savings interest first accumulates on the 1st of the month after the start and then monthly after that
+		Calendar firstOfNextMonth = Calendar.getInstance();
+		firstOfNextMonth.setTime(startDate);
+		firstOfNextMonth.set(Calendar.DAY_OF_MONTH, 1);
+		firstOfNextMonth.add(Calendar.MONTH, 1);
+		this.nextSavingsInterestDate = firstOfNextMonth.getTime();
+		this.nextSavingsInterestDay = this.dayOf(this.nextSavingsInterestDate);
+		this.firstSavingsInterestDay = this.nextSavingsInterestDay;
+
+		/* Transfers */
+		this.transfers = registry.transfers();
+		int numTransfers = this.transfers.length;
+		this.transferSources = new int[numTransfers];
+		this.transferDestinations = new int[numTransfers];
+		this.transferAmounts = new double[numTransfers];
+		this.transferNextDays = new int[numTransfers];
+		this.transferEndDays = new int[numTransfers];
+		this.transferNextDates = new Date[numTransfers];
+		for (int i = 0; i < numTransfers; i++)
+		{
+			MoneyTransfer transfer = this.transfers[i];
+			this.transferSources[i] = this.slotOf(transfer.getSource());
+			this.transferDestinations[i] = this.slotOf(transfer.getDestination());
+			this.transferAmounts[i] = transfer.getAmount();
+			this.transferNextDates[i] = transfer.getNextTransfer();
+			this.transferNextDays[i] = this.dayOf(transfer.getNextTransfer());
+			this.transferEndDays[i] = this.endDayOf(transfer.getEndDate());
+		}
+
+		/* Contributions */
+		this.contributors = registry.savingsAccounts();
+		int numContributions = this.contributors.length;
+		this.contributionDestinations = new int[numContributions];
+		this.contributionSources = new int[numContributions];
+		this.contributionAmounts = new double[numContributions];
+		this.contributionNextDays = new int[numContributions];
+		this.contributionEndDays = new int[numContributions];
+		this.contributionNextDates = new Date[numContributions];
+		for (int i = 0; i < numContributions; i++)
+		{
+			SavingsAccount savingsAccount = this.contributors[i];
+			this.contributionDestinations[i] = this.slotOf(savingsAccount);
+			this.contributionNextDates[i] = savingsAccount.nextContribution();
+			this.contributionNextDays[i] = this.dayOf(savingsAccount.nextContribution());
+			this.contributionEndDays[i] = this.endDayOf(savingsAccount.endDate());
+			if (savingsAccount.nextContribution() != null)
+			{
+				this.contributionSources[i] = this.slotOf(savingsAccount.sourceAccount());
+				this.contributionAmounts[i] = savingsAccount.contribution().getContribution();
+			}
+		}
+
+		/* Gains */
+		this.gains = registry.gains();
+		int numGains = this.gains.length;
+		this.gainDestinations = new int[numGains];
+		this.gainAmounts = new double[numGains];
+		this.gainNextDays = new int[numGains];
+		this.gainEndDays = new int[numGains];
+		this.gainNextDates = new Date[numGains];
+		for (int i = 0; i < numGains; i++)
+		{
+			MoneyGain gain = this.gains[i];
+			this.gainDestinations[i] = this.slotOf(gain.destinationAccount());
+			this.gainAmounts[i] = gain.gainAmount();
+			this.gainNextDates[i] = gain.nextDeposit();
+			this.gainNextDays[i] = this.dayOf(gain.nextDeposit());
+			this.gainEndDays[i] = this.endDayOf(gain.endDate());
+		}
+
+		/* Payments */
+		int numPayments = 0;
+		for (MoneyOwed debt : debts)
+		{
+			if (debt.payment() != null)
+			{
+				numPayments++;
+			}
+		}
+		this.payments = new Payment[numPayments];
+		this.paymentDebts = new int[numPayments];
+		this.paymentSources = new int[numPayments];
+		this.paymentAmounts = new double[numPayments];
+		this.paymentPayOffs = new boolean[numPayments];
+		this.paymentNextDays = new int[numPayments];
+		this.paymentEndDays = new int[numPayments];
+		this.paymentNextDates = new Date[numPayments];
+		this.paymentLastDays = new int[numPayments];
+		Arrays.fill(this.paymentLastDays, PredictionKernel.NEVER);
+		int paymentIndex = 0;
+		for (MoneyOwed debt : debts)
+		{
+			Payment payment = debt.payment();
+			if (payment != null)
+			{
+				int debtSlot = this.debtSlots[registry.debtId(debt)];
+				this.payments[paymentIndex] = payment;
+				this.paymentDebts[paymentIndex] = debtSlot;
+				this.paymentSources[paymentIndex] = this.slotOf(payment.sourceAccount());
+				this.paymentAmounts[paymentIndex] = payment.amount();
+				this.paymentPayOffs[paymentIndex] = payment.payOff();
+				this.paymentNextDates[paymentIndex] = payment.nextPaymentDate();
+				this.paymentNextDays[paymentIndex] = this.dayOf(payment.nextPaymentDate());
+				this.paymentEndDays[paymentIndex] = this.endDayOf(payment.endDate());
+				this.slotPayments[debtSlot] = paymentIndex;
+				paymentIndex++;
+			}
+		}
+
+		/* Losses */
+		this.losses = registry.losses();
+		int numLosses = this.losses.length;
+		this.lossSources = new int[numLosses];
+		this.lossSigns = new double[numLosses];
+		this.lossAmounts = new double[numLosses];
+		this.lossNextDays = new int[numLosses];
+		this.lossEndDays = new int[numLosses];
+		this.lossNextDates = new Date[numLosses];
+		for (int i = 0; i < numLosses; i++)
+		{
+			MoneyLoss loss = this.losses[i];
+			this.lossSources[i] = this.slotOf(loss.source());
+			this.lossSigns[i] = signOf(loss.source());
+			this.lossAmounts[i] = loss.lossAmount();
+			this.lossNextDates[i] = loss.nextLoss();
+			this.lossNextDays[i] = this.dayOf(loss.nextLoss());
+			this.lossEndDays[i] = this.endDayOf(loss.endDate());
+		}
+
+		/* Budget items */
+		this.items = items;
+		int numItems = this.items.length;
+		this.itemSources = new int[numItems];
+		this.itemSigns = new double[numItems];
+		this.itemAmounts = new double[numItems];
+		this.itemStartAmounts = new double[numItems];
+		this.itemProrated = new boolean[numItems];
+		this.itemAccumulates = new boolean[numItems];
+		this.itemAddsBack = new boolean[numItems];
+		this.itemNextDays = new int[numItems];
+		this.itemEndDays = new int[numItems];
+		this.itemNextDates = new Date[numItems];
+		this.itemLossDays = new int[numItems];
+		Arrays.fill(this.itemLossDays, PredictionKernel.NEVER);
+		for (int i = 0; i < numItems; i++)
+		{
+			BudgetItem item = this.items[i];
+			this.itemSources[i] = this.slotOf(item.source());
+			this.itemSigns[i] = signOf(item.source());
+			this.itemAmounts[i] = item.lossAmount();
+			this.itemStartAmounts[i] = item.getCurrAmount();
+			this.itemProrated[i] = item.isProratedStart();
+			if (considerBudgetRemainValues)
+			{
+				RemainAmountAction action = item.remainAmountAction();
+				this.itemAddsBack[i] = (action == RemainAmountAction.addBack);
+				this.itemAccumulates[i] = (action != RemainAmountAction.addBack && action != RemainAmountAction.disappear);
+			}
+			this.itemNextDates[i] = item.nextLoss();
+			this.itemNextDays[i] = this.dayOf(item.nextLoss());
+			this.itemEndDays[i] = this.endDayOf(item.endDate());
+		}
+	}
+
+	/**
+	 * Private helper that gives the debt the next slot and records its amount and rates.
+	 * @param debt - the debt to lay out
+	 * @param slot - the slot to give the debt
+	 * @return the next free slot
+	 */
+	private int layoutDebt(MoneyOwed debt, int slot)
+	{
+		this.debtSlots[this.registry.debtId(debt)] = slot;
+		this.startValues[slot] = debt.amount();
+		this.rates[slot] = debt.interestRate();
+		this.periodRates[slot] = debt.interestRate()/Prediction.NUM_DAYS_IN_YEAR;
+		return slot + 1;
+	}
+
+	/**
+	 * Private helper returning the slot of the given source (an account or credit card).
+	 * @param source - the source to find the slot of
+	 * @return the source's slot
+	 * @throws BadBudgetInvalidValueException - if the source isn't part of the compiled registry
+	 */
+	private int slotOf(Source source) throws BadBudgetInvalidValueException
+	{
+		if (source instanceof Account)
+		{
+			int id = this.registry.accountId((Account) source);
+			if (id != -1)
+			{
+				return this.accountSlots[id];
+			}
+		}
+		else if (source instanceof CreditCard)
+		{
+			int id = this.registry.debtId((CreditCard) source);
+			if (id != -1)
+			{
+				return this.debtSlots[id];
+			}
+		}
+		throw new BadBudgetInvalidValueException(BadBudgetInvalidValueException.KERNEL_SOURCE_NOT_IN_DATA);
+	}
+
+	/**
+	 * Private helper returning the sign a loss from the given source has on the source's value. Losses lower the value
+	 * of an account and raise the value (the amount owed) of a credit card.
+	 * @param source - the source of a loss
+	 * @return -1 for accounts, 1 for credit cards
+	 */
+	private static double signOf(Source source)
+	{
+		if (source instanceof CreditCard)
+		{
+			return 1;
+		}
+		else
+		{
+			return -1;
+		}
+	}
+
+	/**
+	 * Private helper converting a next date into a day index.
+	 * @param date - the date of the next event, can be null
+	 * @return the day index of the date or NEVER if the date is null
+	 */
+	private int dayOf(Date date)
+	{
+		if (date == null)
+		{
+			return PredictionKernel.NEVER;
+		}
+		else
+		{
+			return Prediction.numDaysBetween(this.startDate, date);
+		}
+	}
+
+	/**
+	 * Private helper converting an end date into the last day index an event can occur on.
+	 * @param endDate - the end date, can be null
+	 * @return the day index of the end date or NO_END if the end date is null
+	 */
+	private int endDayOf(Date endDate)
+	{
+		if (endDate == null)
+		{
+			return PredictionKernel.NO_END;
+		}
+		else
+		{
+			return Prediction.numDaysBetween(this.startDate, endDate);
+		}
+	}
+
+	/**
+	 * Simulates the day after the last simulated day, in the same order as Prediction.predict: transfers,
+	 * contributions, gains, payments (and their split on simple interest loans), losses, budget items, then debt
+	 * interest (after the start day) and savings interest (on its monthly days).
+	 * @param day - the day after the last simulated day
+	 * @param store - the kernel's values, changed by each event that fires
+	 */
+	void simulateDay(int day, ValueStore store)
+	{
+		this.handleTransfers(day, store);
+		this.handleContributions(day, store);
+		this.handleGains(day, store);
+		this.handlePayments(day, store);
+		this.handleSimpleLoanPayments(day, store);
+		this.handleLosses(day, store);
+		this.handleBudgetItems(day, store);
+		//Debts accumulate interest every day after the start day
+		if (day > 0)
+		{
+			store.accrueDebtInterest();
+		}
+		if (day == this.nextSavingsInterestDay)
+		{
+			store.accrueSavingsInterest();
+			Calendar cal = Calendar.getInstance();
+			cal.setTime(this.nextSavingsInterestDate);
+			cal.add(Calendar.MONTH, 1);
+			this.nextSavingsInterestDate = cal.getTime();
+			this.nextSavingsInterestDay = this.dayOf(this.nextSavingsInterestDate);
+		}
+		this.dayIndex = day;
+	}
+
+	/*
+	 * Event loops
+	 */
+
+	private void handleTransfers(int day, ValueStore store)
+	{
+		for (int i = 0; i < this.transferNextDays.length; i++)
+		{
+			if (this.transferNextDays[i] == day && day <= this.transferEndDays[i])
+			{
+				int source = this.transferSources[i];
+				int destination = this.transferDestinations[i];
+				this.changedByTransfer[source] = true;
+				this.changedByTransfer[destination] = true;
+				store.transfer(i, source, destination);
+
+				Date next = this.transfers[i].calculateNextTransfer(this.transferNextDates[i]);
+				this.transferNextDates[i] = next;
+				this.transferNextDays[i] = this.dayOf(next);
+			}
+		}
+	}
+
+	private void handleContributions(int day, ValueStore store)
+	{
+		for (int i = 0; i < this.contributionNextDays.length; i++)
+		{
+			if (this.contributionNextDays[i] == day && day <= this.contributionEndDays[i])
+			{
+				store.contribution(i, this.contributionSources[i], this.contributionDestinations[i]);
+
+				Date next = this.contributors[i].contribution().nextContributionDate(this.contributionNextDates[i]);
+				this.contributionNextDates[i] = next;
+				this.contributionNextDays[i] = this.dayOf(next);
+			}
+		}
+	}
+
+	private void handleGains(int day, ValueStore store)
+	{
+		for (int i = 0; i < this.gainNextDays.length; i++)
+		{
+			if (this.gainNextDays[i] == day && day <= this.gainEndDays[i])
+			{
+				store.gain(i, this.gainDestinations[i]);
+
+				Date next = this.gains[i].calculateNextDeposit(this.gainNextDates[i]);
+				this.gainNextDates[i] = next;
+				this.gainNextDays[i] = this.dayOf(next);
+			}
+		}
+	}
+
+	private void handlePayments(int day, ValueStore store)
+	{
+		for (int i = 0; i < this.paymentNextDays.length; i++)
+		{
+			if (this.paymentNextDays[i] == day && day <= this.paymentEndDays[i])
+			{
+				store.payment(i, this.paymentSources[i], this.paymentDebts[i], this.paymentPayOffs[i]);
+				this.paymentLastDays[i] = day;
+
+				Date next = this.payments[i].determineNextPayment(this.paymentNextDates[i]);
+				this.paymentNextDates[i] = next;
+				this.paymentNextDays[i] = this.dayOf(next);
+			}
+		}
+	}
+
+	private void handleSimpleLoanPayments(int day, ValueStore store)
+	{
+		for (int slot = this.simpleLoanStart; slot < this.simpleLoanEnd; slot++)
+		{
+			int payment = this.slotPayments[slot];
+			if (payment != -1 && this.paymentLastDays[payment] == day)
+			{
+				store.simpleLoanPayment(slot, payment);
+			}
+		}
+	}
+
+	private void handleLosses(int day, ValueStore store)
+	{
+		for (int i = 0; i < this.lossNextDays.length; i++)
+		{
+			if (this.lossNextDays[i] == day && day <= this.lossEndDays[i])
+			{
+				store.loss(i, this.lossSources[i], this.lossSigns[i]);
+
+				Date next = this.losses[i].calculateNextLoss(this.lossNextDates[i]);
+				this.lossNextDates[i] = next;
+				this.lossNextDays[i] = this.dayOf(next);
+			}
+		}
+	}
+
+	private void handleBudgetItems(int day, ValueStore store)
+	{
+		for (int i = 0; i < this.itemNextDays.length; i++)
+		{
+			if (this.itemNextDays[i] == day && day <= this.itemEndDays[i])
+			{
+				store.budgetItem(i, this.itemSources[i], this.itemSigns[i]);
+				this.itemLossDays[i] = day;
+
+				Date next = this.budget.calculateNextLoss(this.items[i], this.itemNextDates[i]);
+				this.itemNextDates[i] = next;
+				this.itemNextDays[i] = this.dayOf(next);
+			}
+		}
+	}
+
+	/**
+	 * The prorated loss amount of a budget item firing today, for the value store.
+	 * @param itemIndex - the item index, its loss must be firing on the day being simulated
+	 * @return the item's loss amount on the day in dollars
+	 */
+	double proratedLossAmount(int itemIndex)
+	{
+		return this.budget.lossAmount(this.items[itemIndex], this.itemNextDates[itemIndex]);
+	}
+
+	/*
+	 * State
+	 */
+
+	int dayIndex()
+	{
+		return this.dayIndex;
+	}
+
+	boolean isValueChangedByTransfer(int accountId)
+	{
+		return this.changedByTransfer[this.accountSlots[accountId]];
+	}
+
+	/**
+	 * The day a budget item last had a loss.
+	 * @param itemIndex - the item index
+	 * @return the day index of the item's last loss or NEVER if it hasn't had one
+	 */
+	int budgetItemLossDay(int itemIndex)
+	{
+		return this.itemLossDays[itemIndex];
+	}
+
+	int nextContributionDay(int accountId)
+	{
+		int slot = this.accountSlots[accountId];
+		if (slot >= this.savingsStart && slot < this.savingsEnd)
+		{
+			return this.contributionNextDays[slot - this.savingsStart];
+		}
+		else
+		{
+			return PredictionKernel.NEVER;
+		}
+	}
+
+	int nextAccountInterestDay(int accountId)
+	{
+		int slot = this.accountSlots[accountId];
+		if (slot < this.savingsStart || slot >= this.savingsEnd)
+		{
+			return PredictionKernel.NEVER;
+		}
+		else if (this.rates[slot] == 0)
+		{
+			return this.firstSavingsInterestDay;
+		}
+		else
+		{
+			return this.nextSavingsInterestDay;
+		}
+	}
+
+	int nextPaymentDay(int debtId)
+	{
+		int payment = this.slotPayments[this.debtSlots[debtId]];
+		if (payment == -1)
+		{
+			return PredictionKernel.NEVER;
+		}
+		else
+		{
+			return this.paymentNextDays[payment];
+		}
+	}
+
+	int nextDebtInterestDay(int debtId)
+	{
+		if (this.rates[this.debtSlots[debtId]] == 0 || this.dayIndex < 1)
+		{
+			return 1;
+		}
+		else
+		{
+			return this.dayIndex + 1;
+		}
+	}
+
+	Date nextContributionDate(int accountId)
+	{
+		int slot = this.accountSlots[accountId];
+		if (slot >= this.savingsStart && slot < this.savingsEnd)
+		{
+			return this.contributionNextDates[slot - this.savingsStart];
+		}
+		else
+		{
+			return null;
+		}
+	}
+
+	Date nextPaymentDate(int debtId)
+	{
+		int payment = this.slotPayments[this.debtSlots[debtId]];
+		if (payment == -1)
+		{
+			return null;
+		}
+		else
+		{
+			return this.paymentNextDates[payment];
+		}
+	}
+
+	Date nextTransferDate(int transferId)
+	{
+		return this.transferNextDates[transferId];
+	}
+
+	Date nextDepositDate(int gainId)
+	{
+		return this.gainNextDates[gainId];
+	}
+
+	Date nextLossDate(int lossId)
+	{
+		return this.lossNextDates[lossId];
+	}
+
+	Date budgetItemNextLossDate(int itemIndex)
+	{
+		return this.itemNextDates[itemIndex];
+	}
+}
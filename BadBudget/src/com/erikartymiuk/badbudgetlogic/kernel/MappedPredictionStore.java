@@ -0,0 +1,517 @@
+package com.erikartymiuk.badbudgetlogic.kernel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+
+import com.erikartymiuk.badbudgetlogic.main.*;
+import com.erikartymiuk.badbudgetlogic.predictdataclasses.*;
+
+/**
+ * A prediction store backed by a memory-mapped file. Used as the day sink of a prediction kernel it writes the end of
+ * day state of every account and debt to the file as fixed-width records, so a run's memory use doesn't grow with its
+ * horizon (a 80 year run is around 29,000 days). The rows can be read back as the usual predict data objects.
+ *
+ * File layout (values in big endian):
+ * 		header		int magic, short version, byte kind (KIND_MAPPED_SERIES), byte 0, long start date,
+ * 					int numAccounts, int numDebts, int capacity (days), int days written, int record size,
+ * 					int data offset, padded out to HEADER_BYTES
+ * 		names		the account names by id then the debt names by id (snapshot strings)
+ * 		data		from the data offset, day by day, one record per account (by id) and then one per debt (by id)
+ *
+ * Each record is RECORD_BYTES long:
+ * 		double value, double accumulated interest, double principal, double interest,
+ * 		int next payment or contribution day, int next interest day, int flags, int 0
+ *
+ * Day indices in the records are offsets from the start date, NEVER (-1) for none. The file is mapped in chunks of
+ * whole days so that files over 2GB can be used. A store is not thread safe.
+ */
+public class MappedPredictionStore implements DaySink, PredictionValues, Closeable
+{
+	public static final int HEADER_BYTES = 64;
+	public static final int RECORD_BYTES = 48;
+
+	/* Record flags */
+	public static final int FLAG_SAVINGS_ACCOUNT = 1;
+	public static final int FLAG_LOAN = 2;
+	public static final int FLAG_CHANGED_BY_TRANSFER = 4;
+
+	/* Record field offsets */
+	private static final int VALUE = 0;
+	private static final int ACCUMULATED_INTEREST = 8;
+	private static final int PRINCIPAL = 16;
+	private static final int INTEREST = 24;
+	private static final int NEXT_DAY = 32;
+	private static final int NEXT_INTEREST_DAY = 36;
+	private static final int FLAGS = 40;
+
+	/* Header field offsets */
+	private static final int DAYS_WRITTEN = 28;
+
+	private static final long MAX_CHUNK_BYTES = 1 << 30;	//Mappings are limited to 2GB, keep well under
+
+	private final FileChannel channel;
+	private final boolean writable;
+	private final MappedByteBuffer header;
+
+	private final Date startDate;
+	private final String[] accountNames;
+	private final String[] debtNames;
+	private final int[] accountFlags;		//The kind flags of each account, by id
+	private final int[] debtFlags;			//The kind flags of each debt, by id
+	private final int capacity;				//The number of days the file has room for
+	private int daysWritten;				//One past the last day written
+
+	private final long dataOffset;
+	private final int dayBytes;				//The bytes of all the records of one day
+	private final int daysPerChunk;
+	private final MappedByteBuffer[] chunks;
+
+	/**
+	 * Creates (or replaces) the file and maps it for writing.
+	 * @param file - the file to write
+	 * @param kernel - the kernel whose days will be written, used for the entity names and kinds
+	 * @param lastDayIndex - the last day the store needs room for
+	 * @return the store, ready to be passed to the kernel's advanceTo as its sink
+	 * @throws IOException - if the file can't be created or mapped
+	 */
+	public static MappedPredictionStore create(Path file, PredictionKernel kernel, int lastDayIndex) throws IOException
+	{
+		return create(file, kernel, lastDayIndex, MAX_CHUNK_BYTES);
+	}
+
+	/**
+	 * Package private create that allows setting the size of the mapped chunks (for testing).
+	 */
+	static MappedPredictionStore create(Path file, PredictionKernel kernel, int lastDayIndex, long maxChunkBytes) throws IOException
+	{
+		EntityRegistry registry = kernel.registry();
+		Account[] accounts = registry.accounts();
+		MoneyOwed[] debts = registry.debts();
+
+		String[] accountNames = new String[accounts.length];
+		int[] accountFlags = new int[accounts.length];
+		for (int i = 0; i < accounts.length; i++)
+		{
+			accountNames[i] = accounts[i].name();
+			if (accounts[i] instanceof SavingsAccount)
+			{
+				accountFlags[i] = FLAG_SAVINGS_ACCOUNT;
+			}
+		}
+		String[] debtNames = new String[debts.length];
+		int[] debtFlags = new int[debts.length];
+		for (int i = 0; i < debts.length; i++)
+		{
+			debtNames[i] = debts[i].name();
+			if (debts[i] instanceof Loan)
+			{
+				debtFlags[i] = FLAG_LOAN;
+			}
+		}
+
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try
+		{
+			int namesBytes = 0;
+			for (String name : accountNames)
+			{
+				namesBytes += BadBudgetSnapshot.sizeOf(name);
+			}
+			for (String name : debtNames)
+			{
+				namesBytes += BadBudgetSnapshot.sizeOf(name);
+			}
+			long dataOffset = align(HEADER_BYTES + namesBytes);
+
+			ByteBuffer start = ByteBuffer.allocate((int) dataOffset);
+			BadBudgetSnapshot.putHeader(start, BadBudgetSnapshot.KIND_MAPPED_SERIES);
+			start.put((byte) 0);
+			BadBudgetSnapshot.putDate(start, kernel.getStartDate());
+			start.putInt(accounts.length);
+			start.putInt(debts.length);
+			start.putInt(lastDayIndex + 1);
+			start.putInt(0);
+			start.putInt(RECORD_BYTES);
+			start.putInt((int) dataOffset);
+			start.position(HEADER_BYTES);
+			for (String name : accountNames)
+			{
+				BadBudgetSnapshot.putString(start, name);
+			}
+			for (String name : debtNames)
+			{
+				BadBudgetSnapshot.putString(start, name);
+			}
+			start.rewind();
+			while (start.hasRemaining())
+			{
+				channel.write(start);
+			}
+
+			return new MappedPredictionStore(channel, true, kernel.getStartDate(), accountNames, debtNames, accountFlags, debtFlags,
+					lastDayIndex + 1, 0, dataOffset, maxChunkBytes);
+		}
+		catch (IOException e)
+		{
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Runs a prediction of the given bbd writing every day to the given file.
+	 * @param bbd - the bbd to predict
+	 * @param startDate - the date the bbd's values are on
+	 * @param endDate - the last date to predict
+	 * @param file - the file to write
+	 * @return the store holding the result, should be closed when no longer needed
+	 * @throws IOException - if the file can't be created or mapped
+	 * @throws BadBudgetInvalidValueException - if the bbd can't be compiled into a kernel
+	 */
+	public static MappedPredictionStore predict(BadBudgetData bbd, Date startDate, Date endDate, Path file)
+			throws IOException, BadBudgetInvalidValueException
+	{
+		PredictionKernel kernel = PredictionKernel.compile(bbd, startDate, false);
+		int lastDayIndex = Prediction.numDaysBetween(startDate, endDate);
+		MappedPredictionStore store = create(file, kernel, lastDayIndex);
+		kernel.advanceTo(lastDayIndex, store);
+		return store;
+	}
+
+	/**
+	 * Opens a previously written store for reading.
+	 * @param file - the file to read
+	 * @return the store
+	 * @throws IOException - if the file can't be opened or mapped
+	 * @throws BadBudgetInvalidValueException - if the file isn't a store of a supported version or is cut short
+	 */
+	public static MappedPredictionStore open(Path file) throws IOException, BadBudgetInvalidValueException
+	{
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try
+		{
+			if (channel.size() < HEADER_BYTES)
+			{
+				throw new BadBudgetInvalidValueException(BadBudgetInvalidValueException.SNAPSHOT_NOT_A_SNAPSHOT);
+			}
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+			BadBudgetSnapshot.getHeader(header, BadBudgetSnapshot.KIND_MAPPED_SERIES);
+			header.get();
+			Date startDate = BadBudgetSnapshot.getDate(header);
+			int numAccounts = BadBudgetSnapshot.getCount(header);
+			int numDebts = BadBudgetSnapshot.getCount(header);
+			int capacity = BadBudgetSnapshot.getCount(header);
+			int daysWritten = BadBudgetSnapshot.getCount(header);
+			int recordBytes = header.getInt();
+			long dataOffset = BadBudgetSnapshot.getCount(header);
+			long dayBytes = (long) RECORD_BYTES * (numAccounts + numDebts);
+			if (recordBytes != RECORD_BYTES || daysWritten > capacity || dataOffset < HEADER_BYTES
+					|| channel.size() < dataOffset + dayBytes * capacity)
+			{
+				throw new BadBudgetInvalidValueException(BadBudgetInvalidValueException.SNAPSHOT_CORRUPT);
+			}
+
+			ByteBuffer names = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, dataOffset - HEADER_BYTES);
+			String[] accountNames = new String[numAccounts];
+			for (int i = 0; i < numAccounts; i++)
+			{
+				accountNames[i] = BadBudgetSnapshot.getString(names);
+			}
+			String[] debtNames = new String[numDebts];
+			for (int i = 0; i < numDebts; i++)
+			{
+				debtNames[i] = BadBudgetSnapshot.getString(names);
+			}
+
+			MappedPredictionStore store = new MappedPredictionStore(channel, false, startDate, accountNames, debtNames,
+					new int[numAccounts], new int[numDebts], capacity, daysWritten, dataOffset, MAX_CHUNK_BYTES);
+			if (daysWritten > 0)
+			{
+				for (int i = 0; i < numAccounts; i++)
+				{
+					store.accountFlags[i] = store.getInt(0, i, FLAGS) & FLAG_SAVINGS_ACCOUNT;
+				}
+				for (int i = 0; i < numDebts; i++)
+				{
+					store.debtFlags[i] = store.getInt(0, numAccounts + i, FLAGS) & FLAG_LOAN;
+				}
+			}
+			return store;
+		}
+		catch (IOException e)
+		{
+			channel.close();
+			throw e;
+		}
+		catch (BadBudgetInvalidValueException e)
+		{
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Private constructor, maps the header and data chunks. See create and open.
+	 */
+	private MappedPredictionStore(FileChannel channel, boolean writable, Date startDate, String[] accountNames, String[] debtNames,
+			int[] accountFlags, int[] debtFlags, int capacity, int daysWritten, long dataOffset, long maxChunkBytes) throws IOException
+	{
+		this.channel = channel;
+		this.writable = writable;
+		this.startDate = startDate;
+		this.accountNames = accountNames;
+		this.debtNames = debtNames;
+		this.accountFlags = accountFlags;
+		this.debtFlags = debtFlags;
+		this.capacity = capacity;
+		this.daysWritten = daysWritten;
+		this.dataOffset = dataOffset;
+		this.dayBytes = RECORD_BYTES * (accountNames.length + debtNames.length);
+
+		FileChannel.MapMode mode = FileChannel.MapMode.READ_ONLY;
+		if (writable)
+		{
+			mode = FileChannel.MapMode.READ_WRITE;
+		}
+		this.header = channel.map(mode, 0, HEADER_BYTES);
+
+		if (this.dayBytes == 0)
+		{
+			this.daysPerChunk = capacity;
+			this.chunks = new MappedByteBuffer[0];
+		}
+		else
+		{
+			this.daysPerChunk = (int) Math.max(1, maxChunkBytes / this.dayBytes);
+			int numChunks = (capacity + this.daysPerChunk - 1) / this.daysPerChunk;
+			this.chunks = new MappedByteBuffer[numChunks];
+			for (int i = 0; i < numChunks; i++)
+			{
+				int firstDay = i * this.daysPerChunk;
+				int chunkDays = Math.min(this.daysPerChunk, capacity - firstDay);
+				this.chunks[i] = channel.map(mode, dataOffset + (long) firstDay * this.dayBytes, (long) chunkDays * this.dayBytes);
+			}
+		}
+	}
+
+	/**
+	 * Private helper rounding a file offset up to a multiple of 8.
+	 */
+	private static long align(long offset)
+	{
+		return (offset + 7) & ~7L;
+	}
+
+	/**
+	 * Writes the records of the day that just finished.
+	 * @param dayIndex - the day to write, must be less than the capacity the store was created with
+	 * @param kernel - the kernel holding the end of day state
+	 */
+	public void endOfDay(int dayIndex, PredictionKernel kernel)
+	{
+		ByteBuffer chunk = this.chunks[dayIndex / this.daysPerChunk];
+		int position = (dayIndex % this.daysPerChunk) * this.dayBytes;
+
+		for (int i = 0; i < this.accountNames.length; i++)
+		{
+			int flags = this.accountFlags[i];
+			if (kernel.isValueChangedByTransfer(i))
+			{
+				flags |= FLAG_CHANGED_BY_TRANSFER;
+			}
+			chunk.putDouble(position + VALUE, kernel.accountValue(i));
+			chunk.putDouble(position + ACCUMULATED_INTEREST, kernel.accountAccumulatedInterest(i));
+			chunk.putDouble(position + PRINCIPAL, 0);
+			chunk.putDouble(position + INTEREST, 0);
+			chunk.putInt(position + NEXT_DAY, kernel.nextContributionDay(i));
+			chunk.putInt(position + NEXT_INTEREST_DAY, kernel.nextAccountInterestDay(i));
+			chunk.putInt(position + FLAGS, flags);
+			position += RECORD_BYTES;
+		}
+		for (int i = 0; i < this.debtNames.length; i++)
+		{
+			double principal = 0;
+			double interest = 0;
+			if ((this.debtFlags[i] & FLAG_LOAN) != 0)
+			{
+				principal = kernel.loanPrincipal(i);
+				interest = kernel.loanInterest(i);
+			}
+			chunk.putDouble(position + VALUE, kernel.debtValue(i));
+			chunk.putDouble(position + ACCUMULATED_INTEREST, kernel.debtAccumulatedInterest(i));
+			chunk.putDouble(position + PRINCIPAL, principal);
+			chunk.putDouble(position + INTEREST, interest);
+			chunk.putInt(position + NEXT_DAY, kernel.nextPaymentDay(i));
+			chunk.putInt(position + NEXT_INTEREST_DAY, kernel.nextDebtInterestDay(i));
+			chunk.putInt(position + FLAGS, this.debtFlags[i]);
+			position += RECORD_BYTES;
+		}
+
+		if (dayIndex + 1 > this.daysWritten)
+		{
+			this.daysWritten = dayIndex + 1;
+			this.header.putInt(DAYS_WRITTEN, this.daysWritten);
+		}
+	}
+
+	/**
+	 * Flushes any written days to the file.
+	 */
+	public void force()
+	{
+		if (this.writable)
+		{
+			this.header.force();
+			for (MappedByteBuffer chunk : this.chunks)
+			{
+				chunk.force();
+			}
+		}
+	}
+
+	/**
+	 * Flushes and closes the file. The mappings themselves are released once they are garbage collected.
+	 */
+	public void close() throws IOException
+	{
+		this.force();
+		this.channel.close();
+	}
+
+	/*
+	 * Reading
+	 */
+
+	public Date getStartDate()
+	{
+		return this.startDate;
+	}
+
+	/**
+	 * The number of days written, days 0 through numDays() - 1 can be read.
+	 * @return the number of days written
+	 */
+	public int numDays()
+	{
+		return this.daysWritten;
+	}
+
+	public int capacity()
+	{
+		return this.capacity;
+	}
+
+	public int numAccounts()
+	{
+		return this.accountNames.length;
+	}
+
+	public int numDebts()
+	{
+		return this.debtNames.length;
+	}
+
+	public String accountName(int accountId)
+	{
+		return this.accountNames[accountId];
+	}
+
+	public String debtName(int debtId)
+	{
+		return this.debtNames[debtId];
+	}
+
+	public double accountValue(int dayIndex, int accountId)
+	{
+		return this.getDouble(dayIndex, accountId, VALUE);
+	}
+
+	public double debtValue(int dayIndex, int debtId)
+	{
+		return this.getDouble(dayIndex, this.accountNames.length + debtId, VALUE);
+	}
+
+	/**
+	 * The predict data row of an account on a day, built from the stored record. Savings accounts give a
+	 * PredictDataSavingsAccount. The row has no transaction history.
+	 * @param accountId - the id of the account
+	 * @param dayIndex - the day
+	 * @return the account's row on that day
+	 */
+	public PredictDataAccount getAccountPredictData(int accountId, int dayIndex)
+	{
+		Date date = Prediction.addDays(this.startDate, dayIndex);
+		double value = this.getDouble(dayIndex, accountId, VALUE);
+		if ((this.accountFlags[accountId] & FLAG_SAVINGS_ACCOUNT) != 0)
+		{
+			int flags = this.getInt(dayIndex, accountId, FLAGS);
+			return new PredictDataSavingsAccount(date, value, this.dateOf(this.getInt(dayIndex, accountId, NEXT_DAY)),
+					this.dateOf(this.getInt(dayIndex, accountId, NEXT_INTEREST_DAY)),
+					this.getDouble(dayIndex, accountId, ACCUMULATED_INTEREST), (flags & FLAG_CHANGED_BY_TRANSFER) != 0);
+		}
+		else
+		{
+			return new PredictDataAccount(date, value);
+		}
+	}
+
+	/**
+	 * The predict data row of a debt on a day, built from the stored record. Loans give a PredictDataLoan. The row
+	 * has no transaction history.
+	 * @param debtId - the id of the debt
+	 * @param dayIndex - the day
+	 * @return the debt's row on that day
+	 */
+	public PredictDataMoneyOwed getDebtPredictData(int debtId, int dayIndex)
+	{
+		int record = this.accountNames.length + debtId;
+		Date date = Prediction.addDays(this.startDate, dayIndex);
+		double value = this.getDouble(dayIndex, record, VALUE);
+		Date nextPayment = this.dateOf(this.getInt(dayIndex, record, NEXT_DAY));
+		Date nextInterest = this.dateOf(this.getInt(dayIndex, record, NEXT_INTEREST_DAY));
+		double accumulatedInterest = this.getDouble(dayIndex, record, ACCUMULATED_INTEREST);
+		if ((this.debtFlags[debtId] & FLAG_LOAN) != 0)
+		{
+			return new PredictDataLoan(date, value, nextPayment, nextInterest, accumulatedInterest,
+					this.getDouble(dayIndex, record, PRINCIPAL), this.getDouble(dayIndex, record, INTEREST));
+		}
+		else
+		{
+			return new PredictDataMoneyOwed(date, value, nextPayment, nextInterest, accumulatedInterest);
+		}
+	}
+
+	/**
+	 * Private helper converting a stored day index to a date.
+	 */
+	private Date dateOf(int dayIndex)
+	{
+		if (dayIndex == PredictionKernel.NEVER)
+		{
+			return null;
+		}
+		else
+		{
+			return Prediction.addDays(this.startDate, dayIndex);
+		}
+	}
+
+	private double getDouble(int dayIndex, int record, int field)
+	{
+		int position = (dayIndex % this.daysPerChunk) * this.dayBytes + record * RECORD_BYTES + field;
+		return this.chunks[dayIndex / this.daysPerChunk].getDouble(position);
+	}
+
+	private int getInt(int dayIndex, int record, int field)
+	{
+		int position = (dayIndex % this.daysPerChunk) * this.dayBytes + record * RECORD_BYTES + field;
+		return this.chunks[dayIndex / this.daysPerChunk].getInt(position);
+	}
+}
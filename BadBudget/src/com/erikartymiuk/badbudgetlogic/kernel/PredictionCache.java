@@ -0,0 +1,388 @@
+package com.erikartymiuk.badbudgetlogic.kernel;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+
+import com.erikartymiuk.badbudgetlogic.main.*;
+
+/**
+ * A cache of prediction results keyed by the content of the predicted bbd (see BadBudgetSnapshot.fingerprint) and the
+ * local day of the start date. Predictions step a day at a time, so requests starting at different times of the same
+ * day share an entry. Each key holds the longest horizon predicted for it so far; a request for a shorter horizon is answered
+ * by slicing the cached series, a request for a longer one predicts again and replaces it.
+ *
+ * Entries are evicted least recently used first once the estimated bytes of the cached series go over the cache's
+ * limit. Hits, misses, slices, evictions, coalesced requests and bytes held are kept as metrics.
+ *
+ * The cache is safe to share between threads. Concurrent misses are coalesced: while a prediction for a key is in
+ * flight, a request for the same key with the same or a shorter horizon waits for it and shares its result (sliced if
+ * need be) rather than running its own. A request for a longer horizon runs its own prediction, which later requests
+ * then attach to.
+ */
+public class PredictionCache
+{
+	/**
+	 * The cache key, the bbd's fingerprint and the start day (see RecurrenceCache.dayNumber).
+	 */
+	private static final class Key
+	{
+		private final byte[] fingerprint;
+		private final int startDay;
+		private final int hash;
+
+		private Key(byte[] fingerprint, int startDay)
+		{
+			this.fingerprint = fingerprint;
+			this.startDay = startDay;
+			this.hash = 31 * Arrays.hashCode(fingerprint) + startDay;
+		}
+
+		@Override
+		public boolean equals(Object other)
+		{
+			if (!(other instanceof Key))
+			{
+				return false;
+			}
+			Key key = (Key) other;
+			return this.startDay == key.startDay && Arrays.equals(this.fingerprint, key.fingerprint);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return this.hash;
+		}
+	}
+
+	/**
+	 * A prediction in flight, completed once by the thread running it and waited on by the requests attached to it.
+	 */
+	private static final class Flight
+	{
+		private final int numDays;				//The horizon being predicted
+		private final CountDownLatch done;
+		private PredictionSeries series;		//Set before done counts down, unless the prediction failed
+		private Throwable failure;
+
+		private Flight(int numDays)
+		{
+			this.numDays = numDays;
+			this.done = new CountDownLatch(1);
+		}
+
+		/**
+		 * Waits for the prediction to complete, keeping the waiting thread's interrupt for after.
+		 * @return the predicted series
+		 * @throws BadBudgetInvalidValueException - if the prediction failed with one
+		 */
+		private PredictionSeries await() throws BadBudgetInvalidValueException
+		{
+			boolean interrupted = false;
+			while (true)
+			{
+				try
+				{
+					this.done.await();
+					break;
+				}
+				catch (InterruptedException e)
+				{
+					interrupted = true;
+				}
+			}
+			if (interrupted)
+			{
+				Thread.currentThread().interrupt();
+			}
+
+			if (this.failure instanceof BadBudgetInvalidValueException)
+			{
+				throw new BadBudgetInvalidValueException(this.failure.getMessage());
+			}
+			else if (this.failure instanceof RuntimeException)
+			{
+				throw (RuntimeException) this.failure;
+			}
+			else if (this.failure instanceof Error)
+			{
+				throw (Error) this.failure;
+			}
+			return this.series;
+		}
+	}
+
+	private final long maxBytes;					//The limit on the estimated bytes of the cached series
+	private final LinkedHashMap<Key, PredictionSeries> entries;	//In access order, least recently used first
+	private final HashMap<Key, Flight> flights;		//The longest prediction in flight for each key
+	private final RecurrenceCache days;				//Finds the start day of a key, only used holding the cache's lock
+
+	private long bytesHeld;
+	private long hits;
+	private long slices;			//Hits answered by slicing a longer horizon (also counted as hits)
+	private long misses;
+	private long evictions;
+	private long coalesced;			//Requests answered by waiting on another request's prediction
+
+	/**
+	 * Constructor for a prediction cache.
+	 * @param maxBytes - the limit on the estimated bytes of the cached series, a series bigger than the limit
+	 * 					on its own isn't cached
+	 */
+	public PredictionCache(long maxBytes)
+	{
+		this.maxBytes = maxBytes;
+		this.entries = new LinkedHashMap<Key, PredictionSeries>(16, 0.75f, true);
+		this.flights = new HashMap<Key, Flight>();
+		this.days = new RecurrenceCache();
+	}
+
+	/**
+	 * Predicts the given bbd from the start date through the target date, answering from the cache when it can.
+	 * @param bbd - the bbd to predict
+	 * @param startDate - the date the bbd's values are on
+	 * @param targetDate - the last date to predict
+	 * @return the prediction, shared with the cache so it should only be read
+	 * @throws BadBudgetInvalidValueException - if the bbd can't be fingerprinted or predicted
+	 */
+	public PredictionSeries get(BadBudgetData bbd, Date startDate, Date targetDate) throws BadBudgetInvalidValueException
+	{
+		return this.get(BadBudgetSnapshot.fingerprint(bbd), bbd, startDate, targetDate);
+	}
+
+	/**
+	 * Same as get, for callers that already have the bbd's fingerprint.
+	 * @param fingerprint - the bbd's fingerprint
+	 * @param bbd - the bbd to predict (only used on a miss that isn't coalesced)
+	 * @param startDate - the date the bbd's values are on
+	 * @param targetDate - the last date to predict
+	 * @return the prediction, shared with the cache so it should only be read
+	 * @throws BadBudgetInvalidValueException - if the bbd can't be predicted
+	 */
+	public PredictionSeries get(byte[] fingerprint, BadBudgetData bbd, Date startDate, Date targetDate) throws BadBudgetInvalidValueException
+	{
+		int numDays = Prediction.numDaysBetween(startDate, targetDate) + 1;
+
+		Key key;
+		Flight flight;
+		boolean leader;
+		synchronized (this)
+		{
+			key = new Key(fingerprint, this.days.dayNumber(startDate));
+			PredictionSeries cached = this.lookup(key, numDays);
+			if (cached != null)
+			{
+				return cached;
+			}
+
+			//Publishing the flight under the same lock as the checks means only one request can miss for it
+			flight = this.flights.get(key);
+			if (flight != null && flight.numDays >= numDays)
+			{
+				this.coalesced++;
+				leader = false;
+			}
+			else
+			{
+				this.misses++;
+				flight = new Flight(numDays);
+				this.flights.put(key, flight);
+				leader = true;
+			}
+		}
+
+		if (leader)
+		{
+			return this.fly(key, flight, bbd, startDate, targetDate);
+		}
+		else
+		{
+			return flight.await().slice(numDays);
+		}
+	}
+
+	/**
+	 * Private helper checking the cache for a horizon of the given number of days. Called holding the cache's lock.
+	 * @return the (possibly sliced) cached series or null if it isn't cached
+	 */
+	private PredictionSeries lookup(Key key, int numDays)
+	{
+		PredictionSeries cached = this.entries.get(key);
+		if (cached != null && cached.numDays() >= numDays)
+		{
+			this.hits++;
+			if (cached.numDays() > numDays)
+			{
+				this.slices++;
+				return cached.slice(numDays);
+			}
+			return cached;
+		}
+		return null;
+	}
+
+	/**
+	 * Private helper running the prediction of a flight published by get. The flight is only withdrawn once its series
+	 * has been added to the cache so that no request in between misses both, and is left alone if a longer flight has
+	 * replaced it.
+	 */
+	private PredictionSeries fly(Key key, Flight flight, BadBudgetData bbd, Date startDate, Date targetDate)
+			throws BadBudgetInvalidValueException
+	{
+		PredictionSeries series = null;
+		try
+		{
+			series = PredictionSeries.predict(bbd, startDate, targetDate);
+			flight.series = series;
+			return series;
+		}
+		catch (BadBudgetInvalidValueException e)
+		{
+			flight.failure = e;
+			throw e;
+		}
+		catch (RuntimeException e)
+		{
+			flight.failure = e;
+			throw e;
+		}
+		catch (Error e)
+		{
+			flight.failure = e;
+			throw e;
+		}
+		finally
+		{
+			synchronized (this)
+			{
+				if (series != null)
+				{
+					this.put(key, series);
+				}
+				if (this.flights.get(key) == flight)
+				{
+					this.flights.remove(key);
+				}
+			}
+			flight.done.countDown();
+		}
+	}
+
+	/**
+	 * Private helper adding a series unless a longer one has been added for the key in the meantime, then evicting
+	 * down to the byte limit.
+	 */
+	private synchronized void put(Key key, PredictionSeries series)
+	{
+		long bytes = series.estimatedBytes();
+		if (bytes > this.maxBytes)
+		{
+			return;
+		}
+
+		PredictionSeries existing = this.entries.get(key);
+		if (existing != null)
+		{
+			if (existing.numDays() >= series.numDays())
+			{
+				return;
+			}
+			this.entries.remove(key);
+			this.bytesHeld -= existing.estimatedBytes();
+		}
+		this.entries.put(key, series);
+		this.bytesHeld += bytes;
+
+		Iterator<Map.Entry<Key, PredictionSeries>> eldest = this.entries.entrySet().iterator();
+		while (this.bytesHeld > this.maxBytes && eldest.hasNext())
+		{
+			Map.Entry<Key, PredictionSeries> entry = eldest.next();
+			if (entry.getKey().equals(key))
+			{
+				continue;
+			}
+			this.bytesHeld -= entry.getValue().estimatedBytes();
+			eldest.remove();
+			this.evictions++;
+		}
+	}
+
+	/**
+	 * Removes every entry. The metrics other than bytes held are kept.
+	 */
+	public synchronized void clear()
+	{
+		this.entries.clear();
+		this.bytesHeld = 0;
+	}
+
+	/*
+	 * Metrics
+	 */
+
+	public synchronized long hitCount()
+	{
+		return this.hits;
+	}
+
+	public synchronized long sliceCount()
+	{
+		return this.slices;
+	}
+
+	public synchronized long missCount()
+	{
+		return this.misses;
+	}
+
+	public synchronized long evictionCount()
+	{
+		return this.evictions;
+	}
+
+	public synchronized long coalescedCount()
+	{
+		return this.coalesced;
+	}
+
+	/**
+	 * The number of keys with a prediction in flight.
+	 * @return the in flight count
+	 */
+	public synchronized int inFlightCount()
+	{
+		return this.flights.size();
+	}
+
+	public synchronized long bytesHeld()
+	{
+		return this.bytesHeld;
+	}
+
+	public synchronized int size()
+	{
+		return this.entries.size();
+	}
+
+	public long maxBytes()
+	{
+		return this.maxBytes;
+	}
+
+	/**
+	 * The fraction of requests answered from the cache.
+	 * @return hits / (hits + misses + coalesced), 0 if there haven't been any requests
+	 */
+	public synchronized double hitRate()
+	{
+		long requests = this.hits + this.misses + this.coalesced;
+		if (requests == 0)
+		{
+			return 0;
+		}
+		else
+		{
+			return (double) this.hits / requests;
+		}
+	}
+}
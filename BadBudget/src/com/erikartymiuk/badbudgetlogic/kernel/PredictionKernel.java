@@ -0,0 +1,674 @@
+package com.erikartymiuk.badbudgetlogic.kernel;
+
+import java.util.*;
+
+import com.erikartymiuk.badbudgetlogic.budget.Budget;
+import com.erikartymiuk.badbudgetlogic.budget.BudgetItem;
+import com.erikartymiuk.badbudgetlogic.main.*;
+
+/**
+ * A compiled, struct-of-arrays form of a bad budget data object that runs the same day by day simulation as
+ * Prediction.predict but without creating any predict rows or transaction history. Balances, rates, amounts and
+ * next event days are held in primitive arrays and each kind of entity is handled by its own loop so that no
+ * loop needs to check the type of what it's looking at.
+ *
+ * All balances are held in a single values array, each account and debt in its own slot. The slot layout and the
+ * next day of every recurring event are kept by a KernelSchedule, shared with FixedPointKernel; this kernel adds the
+ * double values and the arithmetic each event does to them.
+ *
+ * The kernel reads the bbd's entities when compiled. Changes made to the bbd afterwards aren't seen, compile a new
+ * kernel instead.
+ */
+public class PredictionKernel
+{
+	/* Day index used for an event that never (or no longer) occurs */
+	public static final int NEVER = -1;
+	/* Day index used for an event without an end date */
+	public static final int NO_END = Integer.MAX_VALUE;
+
+	private static volatile InterestAccrual defaultInterestAccrual = ScalarInterestAccrual.INSTANCE;
+
+	/**
+	 * Installs the interest accrual kernels compiled from now on use for credit cards and savings accounts.
+	 * @param accrual - the accrual to use, null for ScalarInterestAccrual
+	 */
+	public static void setInterestAccrual(InterestAccrual accrual)
+	{
+		if (accrual == null)
+		{
+			defaultInterestAccrual = ScalarInterestAccrual.INSTANCE;
+		}
+		else
+		{
+			defaultInterestAccrual = accrual;
+		}
+	}
+
+	public static InterestAccrual getInterestAccrual()
+	{
+		return defaultInterestAccrual;
+	}
+
+	private final KernelSchedule schedule;	//The slots and the next day of every event
+	private final DoubleStore store;		//The values of the slots, changed by the schedule's events
+
+	/**
+	 * Compiles the given bad budget data into a kernel starting on the given date. The kernel's state is the bbd's
+	 * current values; nothing has been simulated until advanceTo is called.
+	 *
+	 * @param bbd - the bad budget data to compile
+	 * @param startDate - the date of day index 0 (same as the currentDate passed to predict)
+	 * @param considerBudgetRemainValues - whether budget items should consider their remain action (the same as
+	 * 						predict does when updating with auto reset on)
+	 * @return the compiled kernel
+	 * @throws BadBudgetInvalidValueException - if any item draws on, or pays into, an account or credit card that
+	 * 						isn't part of the bbd
+	 */
+	public static PredictionKernel compile(BadBudgetData bbd, Date startDate, boolean considerBudgetRemainValues)
+			throws BadBudgetInvalidValueException
+	{
+		return new PredictionKernel(KernelSchedule.compile(bbd, startDate, considerBudgetRemainValues));
+	}
+
+	/**
+	 * Compiles part of a bbd, the entities of the given registry and the given budget items. Every source the entities
+	 * and items use must be in the registry. Ids are the given registry's ids and item indices are indices into the
+	 * given items.
+	 *
+	 * @param registry - the entities to compile, usually a subset of a bbd's registry
+	 * @param budget - the budget the items belong to (null if there are no items)
+	 * @param items - the budget items to compile
+	 * @param startDate - the date of day index 0
+	 * @param considerBudgetRemainValues - whether budget items should consider their remain action
+	 * @return the compiled kernel
+	 * @throws BadBudgetInvalidValueException - if any item draws on, or pays into, an account or credit card that
+	 * 						isn't in the registry
+	 */
+	static PredictionKernel compile(EntityRegistry registry, Budget budget, BudgetItem[] items, Date startDate,
+			boolean considerBudgetRemainValues) throws BadBudgetInvalidValueException
+	{
+		return new PredictionKernel(new KernelSchedule(registry, budget, items, startDate, considerBudgetRemainValues));
+	}
+
+	/**
+	 * Private constructor, see compile.
+	 */
+	private PredictionKernel(KernelSchedule schedule)
+	{
+		this.schedule = schedule;
+		this.store = new DoubleStore(schedule, defaultInterestAccrual);
+	}
+
+	/**
+	 * Simulates each day after the last simulated day up to and including lastDayIndex. The first call starts
+	 * with day 0 and later calls continue where the previous left off (like predictContinue).
+	 *
+	 * @param lastDayIndex - the last day to simulate
+	 * @param sink - told about each day as it finishes, can be null
+	 */
+	public void advanceTo(int lastDayIndex, DaySink sink)
+	{
+		for (int day = this.schedule.dayIndex() + 1; day <= lastDayIndex; day++)
+		{
+			this.schedule.simulateDay(day, this.store);
+			if (sink != null)
+			{
+				sink.endOfDay(day, this);
+			}
+		}
+	}
+
+	/**
+	 * Simulates up to and including the given date.
+	 * @param targetDate - the last date to simulate
+	 * @param sink - told about each day as it finishes, can be null
+	 */
+	public void advanceTo(Date targetDate, DaySink sink)
+	{
+		this.advanceTo(Prediction.numDaysBetween(this.schedule.startDate, targetDate), sink);
+	}
+
+	/**
+	 * The balances of a PredictionKernel in doubles and the arithmetic each event does to them. Rates and amounts are
+	 * the schedule's own arrays.
+	 */
+	private static final class DoubleStore implements ValueStore
+	{
+		private final KernelSchedule schedule;
+		private final InterestAccrual interestAccrual;	//The accrual installed when the kernel was compiled
+		private Sensitivities sensitivities;			//Null unless trackSensitivities was called
+
+		private final double[] values;				//The current value of each slot
+		private final double[] accumulatedInterest;	//Interest accumulated since the start for each slot
+		private final double[] rates;				//The yearly interest rate of each slot
+		private final double[] periodRates;			//rate/12 for savings accounts and rate/365.25 for debts
+		private final double[] periodFactors;		//1 + rate/365.25 for debts
+		private final double[] baseAmounts;			//The debt amount at compile time (other debts with interest accumulate off of this)
+		private final double[] principals;			//Loan principal by slot
+		private final double[] interests;			//Loan interest by slot (simple interest loans only)
+
+		private final double[] paymentLastMade;		//The amount actually paid the last time each payment fired
+		private final double[] itemUpdatedAmounts;	//The current amount of each budget item
+		private final double[] itemLossAmounts;		//The amount of each budget item's last loss
+
+		private DoubleStore(KernelSchedule schedule, InterestAccrual interestAccrual)
+		{
+			this.schedule = schedule;
+			this.interestAccrual = interestAccrual;
+
+			int numSlots = schedule.numSlots;
+			this.values = schedule.startValues.clone();
+			this.accumulatedInterest = new double[numSlots];
+			this.rates = schedule.rates;
+			this.periodRates = schedule.periodRates;
+			this.periodFactors = new double[numSlots];
+			for (int slot = schedule.creditCardStart; slot < numSlots; slot++)
+			{
+				this.periodFactors[slot] = 1+schedule.rates[slot]/Prediction.NUM_DAYS_IN_YEAR;
+			}
+			this.baseAmounts = schedule.startValues;
+			this.principals = schedule.startPrincipals.clone();
+			this.interests = schedule.startInterests.clone();
+
+			this.paymentLastMade = new double[schedule.payments.length];
+			this.itemUpdatedAmounts = schedule.itemStartAmounts.clone();
+			this.itemLossAmounts = new double[schedule.items.length];
+		}
+
+		/*
+		 * Events
+		 */
+
+		public void transfer(int transfer, int source, int destination)
+		{
+			double amount = this.schedule.transferAmounts[transfer];
+			this.values[source] = this.values[source] - amount;
+			this.values[destination] = this.values[destination] + amount;
+		}
+
+		public void contribution(int contribution, int source, int destination)
+		{
+			double amount = this.schedule.contributionAmounts[contribution];
+			this.values[destination] = this.values[destination] + amount;
+			this.values[source] = this.values[source] - amount;
+		}
+
+		public void gain(int gain, int destination)
+		{
+			this.values[destination] = this.values[destination] + this.schedule.gainAmounts[gain];
+			if (this.sensitivities != null)
+			{
+				this.sensitivities.add(destination, this.sensitivities.gainParameter(gain), 1);
+			}
+		}
+
+		public void payment(int payment, int source, int debt, boolean payOff)
+		{
+			double newDebtAmount = this.values[debt] - this.schedule.paymentAmounts[payment];
+			double paymentMade = this.schedule.paymentAmounts[payment];
+			if (payOff || newDebtAmount < 0)
+			{
+				newDebtAmount = 0;
+				paymentMade = this.values[debt];
+				if (this.sensitivities != null)
+				{
+					this.sensitivities.payOff(payment, source, debt);
+				}
+			}
+			else if (this.sensitivities != null)
+			{
+				this.sensitivities.payFixed(payment);
+			}
+
+			this.values[source] = this.values[source] - paymentMade;
+			this.values[debt] = newDebtAmount;
+			this.paymentLastMade[payment] = paymentMade;
+		}
+
+		public void simpleLoanPayment(int slot, int payment)
+		{
+			double paymentMade = this.paymentLastMade[payment];
+			Sensitivities sensitivities = this.sensitivities;
+			if (this.values[slot] == 0)
+			{
+				this.principals[slot] = 0;
+				this.interests[slot] = 0;
+				if (sensitivities != null)
+				{
+					sensitivities.clearLoan(slot);
+				}
+			}
+			else if (this.interests[slot] > paymentMade)
+			{
+				this.interests[slot] = this.interests[slot] - paymentMade;
+				if (sensitivities != null)
+				{
+					sensitivities.payInterest(slot, payment);
+				}
+			}
+			else
+			{
+				double paymentToPrincipal = paymentMade - this.interests[slot];
+				this.interests[slot] = 0;
+				if (paymentToPrincipal > this.principals[slot])
+				{
+					this.principals[slot] = 0;
+					if (sensitivities != null)
+					{
+						sensitivities.clearLoan(slot);
+					}
+				}
+				else
+				{
+					this.principals[slot] = this.principals[slot] - paymentToPrincipal;
+					if (sensitivities != null)
+					{
+						sensitivities.payPrincipal(slot, payment);
+					}
+				}
+			}
+		}
+
+		public void loss(int loss, int source, double sign)
+		{
+			this.values[source] = this.values[source] + sign * this.schedule.lossAmounts[loss];
+			if (this.sensitivities != null)
+			{
+				this.sensitivities.add(source, this.sensitivities.lossParameter(loss), sign);
+			}
+		}
+
+		public void budgetItem(int item, int source, double sign)
+		{
+			KernelSchedule schedule = this.schedule;
+			double originalAmount = this.itemUpdatedAmounts[item];
+
+			double lossAmount = schedule.itemAmounts[item];
+			if (schedule.itemProrated[item])
+			{
+				lossAmount = schedule.proratedLossAmount(item);
+			}
+
+			if (schedule.itemAddsBack[item] && originalAmount != 0)
+			{
+				this.values[source] = this.values[source] - sign * originalAmount;
+			}
+			this.values[source] = this.values[source] + sign * lossAmount;
+			if (this.sensitivities != null)
+			{
+				//A prorated loss is a fixed fraction of the item's amount
+				double lossDerivative = 1;
+				if (schedule.itemProrated[item] && schedule.itemAmounts[item] != 0)
+				{
+					lossDerivative = lossAmount / schedule.itemAmounts[item];
+				}
+				this.sensitivities.budgetItem(item, source, sign, lossDerivative,
+						schedule.itemAddsBack[item] && originalAmount != 0, schedule.itemAccumulates[item]);
+			}
+
+			if (schedule.itemAccumulates[item])
+			{
+				this.itemUpdatedAmounts[item] = originalAmount + lossAmount;
+			}
+			else
+			{
+				this.itemUpdatedAmounts[item] = lossAmount;
+			}
+			this.itemLossAmounts[item] = lossAmount;
+		}
+
+		/*
+		 * Interest loops, each over a contiguous range of slots
+		 */
+
+		public void accrueDebtInterest()
+		{
+			this.handleCreditCardInterest();
+			this.handleSimpleLoanInterest();
+			this.handleCompoundLoanInterest();
+			this.handleOtherDebtInterest();
+		}
+
+		private void handleCreditCardInterest()
+		{
+			int start = this.schedule.creditCardStart;
+			int end = this.schedule.creditCardEnd;
+			this.interestAccrual.accrueDaily(this.values, this.accumulatedInterest, this.periodRates, this.periodFactors,
+					start, end);
+			if (this.sensitivities != null)
+			{
+				this.sensitivities.scale(start, end, this.periodFactors);
+			}
+		}
+
+		private void handleSimpleLoanInterest()
+		{
+			for (int slot = this.schedule.simpleLoanStart; slot < this.schedule.simpleLoanEnd; slot++)
+			{
+				double simpleInterest = this.principals[slot] * this.periodRates[slot];
+				this.accumulatedInterest[slot] = this.accumulatedInterest[slot] + simpleInterest;
+				this.values[slot] = this.values[slot] + simpleInterest;
+				this.interests[slot] = this.interests[slot] + simpleInterest;
+				if (this.sensitivities != null)
+				{
+					this.sensitivities.simpleInterest(slot, this.periodRates[slot]);
+				}
+			}
+		}
+
+		private void handleCompoundLoanInterest()
+		{
+			for (int slot = this.schedule.compoundLoanStart; slot < this.schedule.compoundLoanEnd; slot++)
+			{
+				double value = this.values[slot];
+				double compoundedInterest = value * this.rates[slot] / Prediction.NUM_DAYS_IN_YEAR;
+				this.accumulatedInterest[slot] = this.accumulatedInterest[slot] + compoundedInterest;
+				this.values[slot] = value + compoundedInterest;
+				this.principals[slot] = value + compoundedInterest;
+				if (this.sensitivities != null)
+				{
+					this.sensitivities.compound(slot, 1 + this.rates[slot] / Prediction.NUM_DAYS_IN_YEAR);
+				}
+			}
+		}
+
+		/**
+		 * Debts that are neither credit cards nor loans. Note that (as in Prediction) these accumulate off of their
+		 * amount at the start rather than their current value.
+		 */
+		private void handleOtherDebtInterest()
+		{
+			for (int slot = this.schedule.otherInterestDebtStart; slot < this.schedule.otherInterestDebtEnd; slot++)
+			{
+				this.accumulatedInterest[slot] = this.accumulatedInterest[slot] + this.values[slot] * this.periodRates[slot];
+				this.values[slot] = this.baseAmounts[slot] * this.periodFactors[slot];
+				if (this.sensitivities != null)
+				{
+					this.sensitivities.clear(slot);
+				}
+			}
+		}
+
+		public void accrueSavingsInterest()
+		{
+			int start = this.schedule.savingsStart;
+			int end = this.schedule.savingsEnd;
+			this.interestAccrual.accrueMonthly(this.values, this.accumulatedInterest, this.periodRates, this.rates,
+					start, end);
+			if (this.sensitivities != null)
+			{
+				for (int slot = start; slot < end; slot++)
+				{
+					this.sensitivities.scale(slot, 1 + this.rates[slot]/12.0);
+				}
+			}
+		}
+	}
+
+	/*
+	 * Sensitivities
+	 */
+
+	/**
+	 * Starts carrying the derivative of every balance with respect to every loss, budget item, and gain amount
+	 * alongside the balances (see Sensitivities). Costs a multiple of the number of those amounts in time and memory so
+	 * it is off unless asked for. Must be called before the first day is simulated.
+	 * @return the sensitivities, updated in place as the kernel advances
+	 * @throws IllegalStateException - if days have already been simulated
+	 */
+	public Sensitivities trackSensitivities()
+	{
+		if (this.schedule.dayIndex() != -1)
+		{
+			throw new IllegalStateException("Sensitivities must be tracked from the first day");
+		}
+		if (this.store.sensitivities == null)
+		{
+			this.store.sensitivities = new Sensitivities(this.schedule.numSlots, this.schedule.payments.length,
+					this.schedule.losses.length, this.schedule.items.length, this.schedule.gains.length);
+		}
+		return this.store.sensitivities;
+	}
+
+	/**
+	 * The sensitivities being tracked.
+	 * @return the sensitivities or null if trackSensitivities wasn't called
+	 */
+	public Sensitivities sensitivities()
+	{
+		return this.store.sensitivities;
+	}
+
+	/**
+	 * The derivative of an account's current value with respect to an input amount.
+	 * @param accountId - the registry id of the account
+	 * @param parameter - the parameter (see Sensitivities.lossParameter, budgetItemParameter, and gainParameter)
+	 * @return d(account value)/d(amount)
+	 */
+	public double accountSensitivity(int accountId, int parameter)
+	{
+		return this.store.sensitivities.slotSensitivity(this.schedule.accountSlots[accountId], parameter);
+	}
+
+	public double debtSensitivity(int debtId, int parameter)
+	{
+		return this.store.sensitivities.slotSensitivity(this.schedule.debtSlots[debtId], parameter);
+	}
+
+	/*
+	 * State
+	 */
+
+	/**
+	 * The last simulated day.
+	 * @return the last day index simulated or -1 if advanceTo hasn't simulated any days yet
+	 */
+	public int dayIndex()
+	{
+		return this.schedule.dayIndex();
+	}
+
+	public Date getStartDate()
+	{
+		return this.schedule.startDate;
+	}
+
+	public EntityRegistry registry()
+	{
+		return this.schedule.registry;
+	}
+
+	public boolean isConsideringBudgetRemainValues()
+	{
+		return this.schedule.considerBudgetRemainValues;
+	}
+
+	/**
+	 * The values of every slot. Shared with the kernel (and updated in place each day) so it should only be read.
+	 * @return the slot values
+	 */
+	public double[] values()
+	{
+		return this.store.values;
+	}
+
+	public int accountSlot(int accountId)
+	{
+		return this.schedule.accountSlots[accountId];
+	}
+
+	public int debtSlot(int debtId)
+	{
+		return this.schedule.debtSlots[debtId];
+	}
+
+	public double accountValue(int accountId)
+	{
+		return this.store.values[this.schedule.accountSlots[accountId]];
+	}
+
+	public double debtValue(int debtId)
+	{
+		return this.store.values[this.schedule.debtSlots[debtId]];
+	}
+
+	/**
+	 * Interest accumulated by a savings account since the start.
+	 * @param accountId - the registry id of the account
+	 * @return the accumulated interest, 0 for plain accounts
+	 */
+	public double accountAccumulatedInterest(int accountId)
+	{
+		return this.store.accumulatedInterest[this.schedule.accountSlots[accountId]];
+	}
+
+	public double debtAccumulatedInterest(int debtId)
+	{
+		return this.store.accumulatedInterest[this.schedule.debtSlots[debtId]];
+	}
+
+	/**
+	 * The principal of a loan. Only meaningful for loans.
+	 * @param debtId - the registry id of the loan
+	 * @return the loan's current principal
+	 */
+	public double loanPrincipal(int debtId)
+	{
+		return this.store.principals[this.schedule.debtSlots[debtId]];
+	}
+
+	/**
+	 * The interest owed of a simple interest loan (0 for other loans).
+	 * @param debtId - the registry id of the loan
+	 * @return the loan's current interest owed
+	 */
+	public double loanInterest(int debtId)
+	{
+		return this.store.interests[this.schedule.debtSlots[debtId]];
+	}
+
+	/**
+	 * Whether a transfer has moved money into or out of the account since the start.
+	 * @param accountId - the registry id of the account
+	 * @return true if the account's value was changed by a transfer
+	 */
+	public boolean isValueChangedByTransfer(int accountId)
+	{
+		return this.schedule.isValueChangedByTransfer(accountId);
+	}
+
+	/**
+	 * The day of a savings account's next contribution.
+	 * @param accountId - the registry id of the account
+	 * @return the day index of the next contribution or NEVER if there isn't one (or the account isn't a savings account)
+	 */
+	public int nextContributionDay(int accountId)
+	{
+		return this.schedule.nextContributionDay(accountId);
+	}
+
+	/**
+	 * The next day a savings account accumulates interest. As in Prediction, accounts without interest stay on the
+	 * first interest day.
+	 * @param accountId - the registry id of the account
+	 * @return the day index of the next interest accumulation or NEVER if the account isn't a savings account
+	 */
+	public int nextAccountInterestDay(int accountId)
+	{
+		return this.schedule.nextAccountInterestDay(accountId);
+	}
+
+	/**
+	 * The day of a debt's next payment.
+	 * @param debtId - the registry id of the debt
+	 * @return the day index of the next payment or NEVER if the debt has no payment
+	 */
+	public int nextPaymentDay(int debtId)
+	{
+		return this.schedule.nextPaymentDay(debtId);
+	}
+
+	/**
+	 * The next day a debt accumulates interest. Debts accumulate daily starting the day after the start, as in
+	 * Prediction debts without interest stay on that first day.
+	 * @param debtId - the registry id of the debt
+	 * @return the day index of the next interest accumulation
+	 */
+	public int nextDebtInterestDay(int debtId)
+	{
+		return this.schedule.nextDebtInterestDay(debtId);
+	}
+
+	/**
+	 * The date of a savings account's next contribution.
+	 * @param accountId - the registry id of the account
+	 * @return the next contribution date or null if there isn't one (or the account isn't a savings account)
+	 */
+	public Date nextContributionDate(int accountId)
+	{
+		return this.schedule.nextContributionDate(accountId);
+	}
+
+	/**
+	 * The date of a debt's next payment.
+	 * @param debtId - the registry id of the debt
+	 * @return the next payment date or null if the debt has no payment
+	 */
+	public Date nextPaymentDate(int debtId)
+	{
+		return this.schedule.nextPaymentDate(debtId);
+	}
+
+	public Date nextTransferDate(int transferId)
+	{
+		return this.schedule.nextTransferDate(transferId);
+	}
+
+	public Date nextDepositDate(int gainId)
+	{
+		return this.schedule.nextDepositDate(gainId);
+	}
+
+	public Date nextLossDate(int lossId)
+	{
+		return this.schedule.nextLossDate(lossId);
+	}
+
+	/**
+	 * The date of a budget item's next loss.
+	 * @param itemIndex - the index of the item in the budget's item array
+	 * @return the next loss date of the item
+	 */
+	public Date budgetItemNextLossDate(int itemIndex)
+	{
+		return this.schedule.budgetItemNextLossDate(itemIndex);
+	}
+
+	/**
+	 * The current amount of a budget item (the updated amount of its most recent predict row).
+	 * @param itemIndex - the index of the item in the budget's item array
+	 * @return the budget item's current amount
+	 */
+	public double budgetItemAmount(int itemIndex)
+	{
+		return this.store.itemUpdatedAmounts[itemIndex];
+	}
+
+	/**
+	 * The loss amount of a budget item on the given day.
+	 * @param itemIndex - the index of the item in the budget's item array
+	 * @param day - the day to check, only the most recent loss is kept so this should be the last simulated day
+	 * @return the loss amount on that day or -1 if the item had no loss on that day
+	 */
+	public double budgetItemLossAmount(int itemIndex, int day)
+	{
+		if (this.schedule.budgetItemLossDay(itemIndex) == day)
+		{
+			return this.store.itemLossAmounts[itemIndex];
+		}
+		else
+		{
+			return -1;
+		}
+	}
+}
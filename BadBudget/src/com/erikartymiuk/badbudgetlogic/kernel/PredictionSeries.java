@@ -0,0 +1,376 @@
+package com.erikartymiuk.badbudgetlogic.kernel;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeoutException;
+
+import com.erikartymiuk.badbudgetlogic.main.*;
+
+/**
+ * The result of a prediction as plain arrays: the end of day value of every account and debt on every day from the
+ * start date through the end date. Values are stored day by day, so the value of account a on day d is at
+ * d * numAccounts() + a (and likewise for debts), where a is the account's id in the predicted bbd's registry.
+ *
+ * A series can be written to and read from a ByteBuffer using the same snapshot format as BadBudgetSnapshot
+ * (header kind KIND_SERIES).
+ */
+public class PredictionSeries implements PredictionValues
+{
+	public static final int CHECK_DAYS = 64;	//Days recorded between checks for interruption and the deadline
+
+	private final Date startDate;			//The date of day index 0
+	private final int numDays;				//The number of days held, start date through end date inclusive
+	private final String[] accountNames;	//By account id
+	private final String[] debtNames;		//By debt id
+	private final double[] accountValues;	//numDays * accountNames.length values, day by day
+	private final double[] debtValues;		//numDays * debtNames.length values, day by day
+
+	/**
+	 * Constructor for a prediction series. The arrays are kept, not copied.
+	 * @param startDate - the date of day index 0
+	 * @param numDays - the number of days in the series
+	 * @param accountNames - the names of the accounts by id
+	 * @param debtNames - the names of the debts by id
+	 * @param accountValues - the account values, numDays * accountNames.length of them, day by day
+	 * @param debtValues - the debt values, numDays * debtNames.length of them, day by day
+	 */
+	public PredictionSeries(Date startDate, int numDays, String[] accountNames, String[] debtNames, double[] accountValues, double[] debtValues)
+	{
+		this.startDate = startDate;
+		this.numDays = numDays;
+		this.accountNames = accountNames;
+		this.debtNames = debtNames;
+		this.accountValues = accountValues;
+		this.debtValues = debtValues;
+	}
+
+	/**
+	 * Runs a prediction of the given bbd from the start date through the end date and records the result. The
+	 * bbd's predict data is left untouched.
+	 * @param bbd - the bbd to predict
+	 * @param startDate - the date the bbd's values are on
+	 * @param endDate - the last date to predict
+	 * @return the recorded series
+	 * @throws BadBudgetInvalidValueException - if the bbd can't be compiled into a kernel
+	 */
+	public static PredictionSeries predict(BadBudgetData bbd, Date startDate, Date endDate) throws BadBudgetInvalidValueException
+	{
+		PredictionKernel kernel = PredictionKernel.compile(bbd, startDate, false);
+		int lastDayIndex = Prediction.numDaysBetween(startDate, endDate);
+		return record(kernel, lastDayIndex);
+	}
+
+	/**
+	 * Advances a newly compiled kernel through the given day, recording every day.
+	 * @param kernel - a kernel that hasn't been advanced yet
+	 * @param lastDayIndex - the last day to record
+	 * @return the recorded series
+	 */
+	public static PredictionSeries record(PredictionKernel kernel, int lastDayIndex)
+	{
+		Recorder recorder = new Recorder(kernel, lastDayIndex);
+		kernel.advanceTo(lastDayIndex, recorder);
+		return recorder.series(kernel);
+	}
+
+	/**
+	 * Same as record, but gives up if the thread is interrupted or the deadline passes. Both are checked every
+	 * CHECK_DAYS days, so a long prediction can be abandoned part way through.
+	 * @param kernel - a kernel that hasn't been advanced yet
+	 * @param lastDayIndex - the last day to record
+	 * @param deadlineNanos - the System.nanoTime() to give up at
+	 * @return the recorded series
+	 * @throws InterruptedException - if the thread was interrupted
+	 * @throws TimeoutException - if the deadline passed first
+	 */
+	public static PredictionSeries record(PredictionKernel kernel, int lastDayIndex, long deadlineNanos) throws InterruptedException, TimeoutException
+	{
+		Recorder recorder = new Recorder(kernel, lastDayIndex);
+		while (kernel.dayIndex() < lastDayIndex)
+		{
+			if (Thread.interrupted())
+			{
+				throw new InterruptedException();
+			}
+			if (System.nanoTime() - deadlineNanos > 0)
+			{
+				throw new TimeoutException();
+			}
+			kernel.advanceTo(Math.min(lastDayIndex, kernel.dayIndex() + CHECK_DAYS), recorder);
+		}
+		return recorder.series(kernel);
+	}
+
+	/**
+	 * Copies the values of each day out of the kernel as it finishes.
+	 */
+	private static final class Recorder implements DaySink
+	{
+		private final int numDays;
+		private final String[] accountNames;
+		private final String[] debtNames;
+		private final double[] accountValues;
+		private final double[] debtValues;
+
+		private Recorder(PredictionKernel kernel, int lastDayIndex)
+		{
+			EntityRegistry registry = kernel.registry();
+			Account[] accounts = registry.accounts();
+			MoneyOwed[] debts = registry.debts();
+
+			this.numDays = lastDayIndex + 1;
+			this.accountNames = new String[accounts.length];
+			this.debtNames = new String[debts.length];
+			this.accountValues = new double[this.numDays * accounts.length];
+			this.debtValues = new double[this.numDays * debts.length];
+			for (int i = 0; i < accounts.length; i++)
+			{
+				this.accountNames[i] = accounts[i].name();
+			}
+			for (int i = 0; i < debts.length; i++)
+			{
+				this.debtNames[i] = debts[i].name();
+			}
+		}
+
+		public void endOfDay(int dayIndex, PredictionKernel kernel)
+		{
+			double[] values = kernel.values();
+			int numAccounts = this.accountNames.length;
+			int accountRow = dayIndex * numAccounts;
+			for (int i = 0; i < numAccounts; i++)
+			{
+				this.accountValues[accountRow + i] = values[kernel.accountSlot(i)];
+			}
+			int numDebts = this.debtNames.length;
+			int debtRow = dayIndex * numDebts;
+			for (int i = 0; i < numDebts; i++)
+			{
+				this.debtValues[debtRow + i] = values[kernel.debtSlot(i)];
+			}
+		}
+
+		private PredictionSeries series(PredictionKernel kernel)
+		{
+			return new PredictionSeries(kernel.getStartDate(), this.numDays, this.accountNames, this.debtNames, this.accountValues,
+					this.debtValues);
+		}
+	}
+
+	public Date getStartDate()
+	{
+		return this.startDate;
+	}
+
+	public int numDays()
+	{
+		return this.numDays;
+	}
+
+	public int numAccounts()
+	{
+		return this.accountNames.length;
+	}
+
+	public int numDebts()
+	{
+		return this.debtNames.length;
+	}
+
+	public String accountName(int accountId)
+	{
+		return this.accountNames[accountId];
+	}
+
+	public String debtName(int debtId)
+	{
+		return this.debtNames[debtId];
+	}
+
+	/**
+	 * The value of an account at the end of a day.
+	 * @param dayIndex - the day as an offset from the start date
+	 * @param accountId - the account's id
+	 * @return the account's value
+	 */
+	public double accountValue(int dayIndex, int accountId)
+	{
+		return this.accountValues[dayIndex * this.accountNames.length + accountId];
+	}
+
+	/**
+	 * The value of a debt at the end of a day.
+	 * @param dayIndex - the day as an offset from the start date
+	 * @param debtId - the debt's id
+	 * @return the debt's value
+	 */
+	public double debtValue(int dayIndex, int debtId)
+	{
+		return this.debtValues[dayIndex * this.debtNames.length + debtId];
+	}
+
+	/**
+	 * The account values of every day, day by day. Shared with the series so it should only be read.
+	 * @return the account values
+	 */
+	public double[] accountValues()
+	{
+		return this.accountValues;
+	}
+
+	/**
+	 * The debt values of every day, day by day. Shared with the series so it should only be read.
+	 * @return the debt values
+	 */
+	public double[] debtValues()
+	{
+		return this.debtValues;
+	}
+
+	/**
+	 * The first days of this series as a series of its own.
+	 * @param numDays - the number of days to keep, at most numDays()
+	 * @return a series with the same start date holding the first numDays days, this series if it already has that many
+	 */
+	public PredictionSeries slice(int numDays)
+	{
+		if (numDays == this.numDays)
+		{
+			return this;
+		}
+		else
+		{
+			return new PredictionSeries(this.startDate, numDays, this.accountNames, this.debtNames,
+					Arrays.copyOf(this.accountValues, numDays * this.accountNames.length),
+					Arrays.copyOf(this.debtValues, numDays * this.debtNames.length));
+		}
+	}
+
+	/**
+	 * A rough estimate of the heap this series takes, the values plus the names.
+	 * @return the estimated size in bytes
+	 */
+	public long estimatedBytes()
+	{
+		long bytes = 8L * (this.accountValues.length + this.debtValues.length);
+		for (String name : this.accountNames)
+		{
+			bytes += BadBudgetSnapshot.sizeOf(name);
+		}
+		for (String name : this.debtNames)
+		{
+			bytes += BadBudgetSnapshot.sizeOf(name);
+		}
+		return bytes;
+	}
+
+	/*
+	 * Snapshot
+	 */
+
+	/**
+	 * The exact number of bytes the snapshot of this series takes.
+	 * @return the size of the series snapshot in bytes
+	 */
+	public int snapshotSize()
+	{
+		int size = BadBudgetSnapshot.HEADER_SIZE + 8 + 4;
+		size += 4;
+		for (String name : this.accountNames)
+		{
+			size += BadBudgetSnapshot.sizeOf(name);
+		}
+		size += 4;
+		for (String name : this.debtNames)
+		{
+			size += BadBudgetSnapshot.sizeOf(name);
+		}
+		size += 8 * (this.accountValues.length + this.debtValues.length);
+		return size;
+	}
+
+	/**
+	 * Writes a snapshot of this series to a new buffer sized exactly for it.
+	 * @return a buffer holding the snapshot, flipped and ready to be read or written out
+	 */
+	public ByteBuffer writeSnapshot()
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(this.snapshotSize());
+		this.writeSnapshot(buffer);
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Writes a snapshot of this series into the buffer at its current position.
+	 * @param buffer - the buffer to write to, must have at least snapshotSize() bytes remaining
+	 */
+	public void writeSnapshot(ByteBuffer buffer)
+	{
+		BadBudgetSnapshot.putHeader(buffer, BadBudgetSnapshot.KIND_SERIES);
+		BadBudgetSnapshot.putDate(buffer, this.startDate);
+		buffer.putInt(this.numDays);
+		buffer.putInt(this.accountNames.length);
+		for (String name : this.accountNames)
+		{
+			BadBudgetSnapshot.putString(buffer, name);
+		}
+		buffer.putInt(this.debtNames.length);
+		for (String name : this.debtNames)
+		{
+			BadBudgetSnapshot.putString(buffer, name);
+		}
+		buffer.asDoubleBuffer().put(this.accountValues);
+		buffer.position(buffer.position() + 8 * this.accountValues.length);
+		buffer.asDoubleBuffer().put(this.debtValues);
+		buffer.position(buffer.position() + 8 * this.debtValues.length);
+	}
+
+	/**
+	 * Reads a series snapshot from the buffer's current position. The buffer's position is left after the snapshot.
+	 * @param buffer - the buffer to read from
+	 * @return the restored series
+	 * @throws BadBudgetInvalidValueException - if the buffer doesn't hold a series snapshot of a supported version or
+	 * 					the snapshot is cut short or corrupt
+	 */
+	public static PredictionSeries readSnapshot(ByteBuffer buffer) throws BadBudgetInvalidValueException
+	{
+		try
+		{
+			BadBudgetSnapshot.getHeader(buffer, BadBudgetSnapshot.KIND_SERIES);
+			Date startDate = BadBudgetSnapshot.getDate(buffer);
+			int numDays = BadBudgetSnapshot.getCount(buffer);
+
+			String[] accountNames = new String[BadBudgetSnapshot.getCount(buffer)];
+			for (int i = 0; i < accountNames.length; i++)
+			{
+				accountNames[i] = BadBudgetSnapshot.getString(buffer);
+			}
+			String[] debtNames = new String[BadBudgetSnapshot.getCount(buffer)];
+			for (int i = 0; i < debtNames.length; i++)
+			{
+				debtNames[i] = BadBudgetSnapshot.getString(buffer);
+			}
+
+			long numValues = (long) numDays * (accountNames.length + debtNames.length);
+			if (numValues > buffer.remaining() / 8)
+			{
+				throw new BadBudgetInvalidValueException(BadBudgetInvalidValueException.SNAPSHOT_CORRUPT);
+			}
+			double[] accountValues = new double[numDays * accountNames.length];
+			double[] debtValues = new double[numDays * debtNames.length];
+			buffer.asDoubleBuffer().get(accountValues);
+			buffer.position(buffer.position() + 8 * accountValues.length);
+			buffer.asDoubleBuffer().get(debtValues);
+			buffer.position(buffer.position() + 8 * debtValues.length);
+
+			return new PredictionSeries(startDate, numDays, accountNames, debtNames, accountValues, debtValues);
+		}
+		catch (BufferUnderflowException e)
+		{
+			throw new BadBudgetInvalidValueException(BadBudgetInvalidValueException.SNAPSHOT_CORRUPT);
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package com.erikartymiuk.badbudgetlogic.kernel;
+
+import java.util.Date;
+
+/**
+ * Read access to the end of day values of a prediction, day by day, by account and debt id. Implemented by the heap
+ * held PredictionSeries and the file backed MappedPredictionStore so that consumers (such as the exporters) work
+ * with either.
+ */
+public interface PredictionValues
+{
+	/**
+	 * The date of day index 0.
+	 * @return the start date
+	 */
+	public Date getStartDate();
+
+	/**
+	 * The number of days that can be read, day indices 0 through numDays() - 1.
+	 * @return the number of days
+	 */
+	public int numDays();
+
+	public int numAccounts();
+
+	public int numDebts();
+
+	public String accountName(int accountId);
+
+	public String debtName(int debtId);
+
+	/**
+	 * The value of an account at the end of a day.
+	 * @param dayIndex - the day as an offset from the start date
+	 * @param accountId - the account's id
+	 * @return the account's value
+	 */
+	public double accountValue(int dayIndex, int accountId);
+
+	/**
+	 * The value of a debt at the end of a day.
+	 * @param dayIndex - the day as an offset from the start date
+	 * @param debtId - the debt's id
+	 * @return the debt's value
+	 */
+	public double debtValue(int dayIndex, int debtId);
+}
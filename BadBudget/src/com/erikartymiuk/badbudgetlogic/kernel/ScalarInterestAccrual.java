@@ -0,0 +1,34 @@
+package com.erikartymiuk.badbudgetlogic.kernel;
+
+/**
+ * The plain loop implementation of InterestAccrual, used unless another is installed (see
+ * PredictionKernel.setInterestAccrual). Runs on every platform.
+ */
+public final class ScalarInterestAccrual implements InterestAccrual
+{
+	public static final ScalarInterestAccrual INSTANCE = new ScalarInterestAccrual();
+
+	private ScalarInterestAccrual()
+	{
+	}
+
+	public void accrueDaily(double[] values, double[] accumulatedInterest, double[] periodRates, double[] periodFactors, int from, int to)
+	{
+		for (int slot = from; slot < to; slot++)
+		{
+			double value = values[slot];
+			accumulatedInterest[slot] = accumulatedInterest[slot] + value * periodRates[slot];
+			values[slot] = value * periodFactors[slot];
+		}
+	}
+
+	public void accrueMonthly(double[] values, double[] accumulatedInterest, double[] periodRates, double[] rates, int from, int to)
+	{
+		for (int slot = from; slot < to; slot++)
+		{
+			double value = values[slot];
+			accumulatedInterest[slot] = accumulatedInterest[slot] + value * periodRates[slot];
+			values[slot] = value + value * rates[slot]/12.0;
+		}
+	}
+}
@@ -0,0 +1,244 @@
+package com.erikartymiuk.badbudgetlogic.kernel;
+
+/**
+ * Forward mode sensitivities of a PredictionKernel's balances to its input amounts. Alongside each slot's value the
+ * kernel carries the derivative of that value with respect to every loss amount, budget item amount, and gain amount
+ * (the parameters), updating the derivatives by the same rule as each event and interest step changes the value. After
+ * one run the sensitivity of every balance to every input amount can be read off, rather than running one what if
+ * prediction per input.
+ *
+ * Away from interest the simulation is linear in the amounts so the sensitivities are exact slopes (a loss's
+ * sensitivity on its own source is minus the number of times it fired). With interest they are the exact derivatives
+ * of the compounded balances. Where an event branches on a balance (a payment paying off what's left of a debt) the
+ * derivative of the branch taken is used.
+ *
+ * Parameters are numbered losses first (by loss id), then budget items (by item index), then gains (by gain id).
+ * Derivatives are stored slot major, each slot's derivatives with respect to all parameters together, so that the
+ * interest steps scale one contiguous row per slot.
+ */
+public final class Sensitivities
+{
+	private final int numLosses;
+	private final int numItems;
+	private final int numParameters;
+
+	private final double[] values;			//d(value of slot)/d(parameter) at [slot * numParameters + parameter]
+	private final double[] principals;		//d(principal of slot)/d(parameter), for loans
+	private final double[] interests;		//d(interest owed of slot)/d(parameter), for simple interest loans
+	private final double[] paymentsMade;	//d(amount paid the last time the payment fired)/d(parameter) by payment
+	private final double[] itemAmounts;		//d(updated amount of the item)/d(the item's own amount) by item
+
+	Sensitivities(int numSlots, int numPayments, int numLosses, int numItems, int numGains)
+	{
+		this.numLosses = numLosses;
+		this.numItems = numItems;
+		this.numParameters = numLosses + numItems + numGains;
+		this.values = new double[numSlots * this.numParameters];
+		this.principals = new double[numSlots * this.numParameters];
+		this.interests = new double[numSlots * this.numParameters];
+		this.paymentsMade = new double[numPayments * this.numParameters];
+		this.itemAmounts = new double[numItems];
+	}
+
+	/*
+	 * Parameters
+	 */
+
+	public int numParameters()
+	{
+		return this.numParameters;
+	}
+
+	public int lossParameter(int lossId)
+	{
+		return lossId;
+	}
+
+	public int budgetItemParameter(int itemIndex)
+	{
+		return this.numLosses + itemIndex;
+	}
+
+	public int gainParameter(int gainId)
+	{
+		return this.numLosses + this.numItems + gainId;
+	}
+
+	/**
+	 * The derivative of a slot's value with respect to a parameter.
+	 * @param slot - the slot (see PredictionKernel.accountSlot and debtSlot)
+	 * @param parameter - the parameter
+	 * @return d(value)/d(parameter)
+	 */
+	public double slotSensitivity(int slot, int parameter)
+	{
+		return this.values[slot * this.numParameters + parameter];
+	}
+
+	/*
+	 * Event rules, called by the kernel as each event changes the values
+	 */
+
+	/**
+	 * A value changed by sign times a parameter's amount (a gain, a loss, or a budget item's full loss).
+	 */
+	void add(int slot, int parameter, double derivative)
+	{
+		this.values[slot * this.numParameters + parameter] += derivative;
+	}
+
+	/**
+	 * A payment fired for its fixed amount, which depends on no parameter.
+	 */
+	void payFixed(int payment)
+	{
+		int row = payment * this.numParameters;
+		for (int p = 0; p < this.numParameters; p++)
+		{
+			this.paymentsMade[row + p] = 0;
+		}
+	}
+
+	/**
+	 * A payment paid off the whole debt: the amount paid is the debt's value, taken from the source, and the debt is 0.
+	 */
+	void payOff(int payment, int source, int debt)
+	{
+		int paymentRow = payment * this.numParameters;
+		int sourceRow = source * this.numParameters;
+		int debtRow = debt * this.numParameters;
+		for (int p = 0; p < this.numParameters; p++)
+		{
+			double paid = this.values[debtRow + p];
+			this.paymentsMade[paymentRow + p] = paid;
+			this.values[sourceRow + p] -= paid;
+			this.values[debtRow + p] = 0;
+		}
+	}
+
+	/**
+	 * A simple interest loan's payment went to interest only.
+	 */
+	void payInterest(int slot, int payment)
+	{
+		int row = slot * this.numParameters;
+		int paymentRow = payment * this.numParameters;
+		for (int p = 0; p < this.numParameters; p++)
+		{
+			this.interests[row + p] -= this.paymentsMade[paymentRow + p];
+		}
+	}
+
+	/**
+	 * A simple interest loan's payment cleared the interest and the rest went to principal.
+	 */
+	void payPrincipal(int slot, int payment)
+	{
+		int row = slot * this.numParameters;
+		int paymentRow = payment * this.numParameters;
+		for (int p = 0; p < this.numParameters; p++)
+		{
+			this.principals[row + p] -= this.paymentsMade[paymentRow + p] - this.interests[row + p];
+			this.interests[row + p] = 0;
+		}
+	}
+
+	/**
+	 * A simple interest loan's principal and interest were set to 0 (paid off, or the payment covered the principal).
+	 */
+	void clearLoan(int slot)
+	{
+		int row = slot * this.numParameters;
+		for (int p = 0; p < this.numParameters; p++)
+		{
+			this.principals[row + p] = 0;
+			this.interests[row + p] = 0;
+		}
+	}
+
+	/**
+	 * A budget item lost an amount whose derivative with respect to the item's amount is lossDerivative.
+	 */
+	void budgetItem(int item, int source, double sign, double lossDerivative, boolean addsBack, boolean accumulates)
+	{
+		int index = source * this.numParameters + this.budgetItemParameter(item);
+		if (addsBack)
+		{
+			this.values[index] -= sign * this.itemAmounts[item];
+		}
+		this.values[index] += sign * lossDerivative;
+
+		if (accumulates)
+		{
+			this.itemAmounts[item] += lossDerivative;
+		}
+		else
+		{
+			this.itemAmounts[item] = lossDerivative;
+		}
+	}
+
+	/*
+	 * Interest rules
+	 */
+
+	/**
+	 * Each slot in the range was multiplied by its factor.
+	 */
+	void scale(int from, int to, double[] factors)
+	{
+		for (int slot = from; slot < to; slot++)
+		{
+			this.scale(slot, factors[slot]);
+		}
+	}
+
+	void scale(int slot, double factor)
+	{
+		int row = slot * this.numParameters;
+		for (int p = 0; p < this.numParameters; p++)
+		{
+			this.values[row + p] *= factor;
+		}
+	}
+
+	/**
+	 * A compound interest loan's value was multiplied by the factor and its principal set to the new value.
+	 */
+	void compound(int slot, double factor)
+	{
+		int row = slot * this.numParameters;
+		for (int p = 0; p < this.numParameters; p++)
+		{
+			double value = this.values[row + p] * factor;
+			this.values[row + p] = value;
+			this.principals[row + p] = value;
+		}
+	}
+
+	/**
+	 * A simple interest loan accrued its principal times the period rate onto its value and interest owed.
+	 */
+	void simpleInterest(int slot, double periodRate)
+	{
+		int row = slot * this.numParameters;
+		for (int p = 0; p < this.numParameters; p++)
+		{
+			double interest = this.principals[row + p] * periodRate;
+			this.values[row + p] += interest;
+			this.interests[row + p] += interest;
+		}
+	}
+
+	/**
+	 * A slot's value was set to something that depends on no parameter.
+	 */
+	void clear(int slot)
+	{
+		int row = slot * this.numParameters;
+		for (int p = 0; p < this.numParameters; p++)
+		{
+			this.values[row + p] = 0;
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package com.erikartymiuk.badbudgetlogic.kernel;
+
+/**
+ * The arithmetic half of a kernel. A KernelSchedule decides which events fire on a day and keeps their next dates, and
+ * calls its kernel's value store to change the balances for each one. PredictionKernel counts money in doubles and
+ * FixedPointKernel in long units, which is the only thing that differs between the two.
+ *
+ * Every call is made in the kernel's event order (see KernelSchedule.simulateDay). Slots, payment, loss and item
+ * indices are the schedule's; amounts and rates are read from the schedule's arrays in whatever form the store
+ * converted them to when its kernel was compiled.
+ */
+interface ValueStore
+{
+	public void transfer(int transfer, int source, int destination);
+
+	/**
+	 * A savings account's contribution moved its amount from its source.
+	 * @param contribution - the contribution index (the account's position among the savings slots)
+	 * @param source - the slot paying the contribution
+	 * @param destination - the savings account's slot
+	 */
+	public void contribution(int contribution, int source, int destination);
+
+	public void gain(int gain, int destination);
+
+	/**
+	 * A payment fired. The store keeps the amount actually paid for simpleLoanPayment, the whole debt when the payment
+	 * pays it off or when its amount is more than what's owed.
+	 * @param payment - the payment index
+	 * @param source - the slot paying
+	 * @param debt - the slot of the debt being paid
+	 * @param payOff - whether the payment always pays off the whole debt
+	 */
+	public void payment(int payment, int source, int debt, boolean payOff);
+
+	/**
+	 * Splits the amount a simple interest loan's payment made today between the loan's interest and principal.
+	 * @param slot - the loan's slot
+	 * @param payment - the payment index of the loan's payment
+	 */
+	public void simpleLoanPayment(int slot, int payment);
+
+	/**
+	 * A loss fired.
+	 * @param loss - the loss id
+	 * @param source - the slot losing
+	 * @param sign - -1 when the source is an account, 1 when it's a credit card
+	 */
+	public void loss(int loss, int source, double sign);
+
+	/**
+	 * A budget item's loss fired. A prorated item's loss amount is KernelSchedule.proratedLossAmount.
+	 * @param item - the item index
+	 * @param source - the slot losing
+	 * @param sign - -1 when the source is an account, 1 when it's a credit card
+	 */
+	public void budgetItem(int item, int source, double sign);
+
+	/**
+	 * Daily interest of every debt, called every day after the start day: credit cards, then simple interest loans,
+	 * then compound interest loans, then other debts with interest.
+	 */
+	public void accrueDebtInterest();
+
+	/**
+	 * Monthly interest of every savings account.
+	 */
+	public void accrueSavingsInterest();
+}
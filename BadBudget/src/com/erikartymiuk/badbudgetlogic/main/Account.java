@@ -15,7 +15,7 @@ import com.erikartymiuk.badbudgetlogic.predictdataclasses.*;
  * for setting up regular contributions.
  * 
  */
-public class Account implements Source
+public class Account extends HashedEntity implements Source
 {
 	
 	private String name; //User entered descriptor of this account		
@@ -47,20 +47,7 @@ public class Account implements Source
 		}
 		else
 		{
-			String message = "";
-			if (error == 1)
-			{
-				message = BadBudgetInvalidValueException.ACCOUNT_NAME_NULL;
-			}
-			else if (error == 2)
-			{
-				message = BadBudgetInvalidValueException.ACCOUNT_NAME_EMPTY;
-			}
-			else
-			{
-				message = BadBudgetInvalidValueException.UNKNOWN_UNDEFINED;
-			}
-			throw new BadBudgetInvalidValueException(message);
+			throw new BadBudgetInvalidValueException(messageFor(error));
 		}
 	}
 	
@@ -88,6 +75,29 @@ public class Account implements Source
 		}
 	}
 	
+	/**
+	 * Returns the exception message for an error code returned by verifyValues.
+	 * @param error - the error code
+	 * @return the message for the error
+	 */
+	public static String messageFor(int error)
+	{
+		String message = "";
+		if (error == 1)
+		{
+			message = BadBudgetInvalidValueException.ACCOUNT_NAME_NULL;
+		}
+		else if (error == 2)
+		{
+			message = BadBudgetInvalidValueException.ACCOUNT_NAME_EMPTY;
+		}
+		else
+		{
+			message = BadBudgetInvalidValueException.UNKNOWN_UNDEFINED;
+		}
+		return message;
+	}
+	
 	/** Get the PredictData at row index. Each row of the predict data list
 	 * should hold data for a single day. It is up to the prediction algorithm
 	 * to correctly populate and retrieve items from this list.
@@ -152,6 +162,7 @@ public class Account implements Source
 	public void deposit(double amount)
 	{
 		this.value += amount;
+		this.contentChanged();
 	}
 	
 	/**
@@ -166,6 +177,7 @@ public class Account implements Source
 	public boolean withdraw(double amount)
 	{
 		this.value -= amount;
+		this.contentChanged();
 		if (this.value >= 0)
 		{
 			return true;
@@ -185,16 +197,20 @@ public class Account implements Source
 	public void setName(String name)
 	{
 		this.name = name;
+		this.contentChanged();
+		this.sourceRenamed();
 	}
 	
 	public void setValue(double v)
 	{
 		this.value = v;
+		this.contentChanged();
 	}
 	
 	public void setQuickLook(boolean quickLook)
 	{
 		this.quicklook = quickLook;
+		this.contentChanged();
 	}
 	
 	public String name()
@@ -268,6 +284,7 @@ public class Account implements Source
 		PredictDataAccount pda = this.predictDataRows.get(dayIndex);
 		double uValue = pda.value();
 		this.value = uValue;
+		this.contentChanged();
 	}
 	
 	/**
@@ -279,4 +296,17 @@ public class Account implements Source
 	{
 
 	}
+	
+	/**
+	 * Hashes this account's kind, name, value, and quicklook setting.
+	 * @return the hash of this account's values
+	 */
+	protected long computeContentHash()
+	{
+		long hash = mix(0L, this.getClass().getName());
+		hash = mix(hash, this.name);
+		hash = mix(hash, this.value);
+		hash = mix(hash, this.quicklook);
+		return hash;
+	}
 }
@@ -9,7 +9,7 @@ import com.erikartymiuk.badbudgetlogic.budget.BudgetItem;
  * all MoneyOwed debts, all MoneyGains, all money losses, all money transfers, and
  * all budget data.
  */
-public class BadBudgetData 
+public class BadBudgetData implements ContentHashListener
 {
 	private HashMap<String, Account> accounts; //All of the user's accounts as a map with the key being the account name
 	private HashMap<String, MoneyOwed> debts; //All the user's MoneyOwed (debts) as a map
@@ -19,6 +19,17 @@ public class BadBudgetData
 	
 	private Budget budget;	//The user's budget
 	
+	private EntityRegistry registry; //Typed arrays and ids of the above entities, null until needed and after any add/delete
+	private SourceIndex sourceIndex; //What draws from each source, null until needed and after any add/delete or change
+	
+	//Sums of the scattered content hashes of each collection, kept current by add/delete and the entities' setters
+	private long accountsHash;
+	private long debtsHash;
+	private long gainsHash;
+	private long lossesHash;
+	private long transfersHash;
+	private LinkedHashSet<HashedEntity> changedEntities; //Entities added, deleted or changed since the last clearChangedEntities
+	
 	/**
 	 * BadBudgetData constructor. Sets up all accounts, debts, gains, losses,
 	 * and transfers as empty. Any accounts, debts, and gains need to be added individually.
@@ -26,11 +37,14 @@ public class BadBudgetData
 	 */
 	public BadBudgetData()
 	{
-		this.accounts = new HashMap<String, Account>();
-		this.debts = new HashMap<String, MoneyOwed>();
-		this.gains = new HashMap<String, MoneyGain>();
-		this.losses = new HashMap<String, MoneyLoss>();
-		this.transfers = new HashMap<String, MoneyTransfer>();
+		this.accounts = new LinkedHashMap<String, Account>();
+		this.debts = new LinkedHashMap<String, MoneyOwed>();
+		this.gains = new LinkedHashMap<String, MoneyGain>();
+		this.losses = new LinkedHashMap<String, MoneyLoss>();
+		this.transfers = new LinkedHashMap<String, MoneyTransfer>();
+		this.registry = null;
+		this.sourceIndex = null;
+		this.changedEntities = new LinkedHashSet<HashedEntity>();
 		
 		this.budget = null;
 	}
@@ -41,7 +55,9 @@ public class BadBudgetData
 	 */
 	public void setBudget(Budget budget)
 	{
+		this.swap(this.budget, budget);
 		this.budget = budget;
+		this.sourceIndex = null;
 	}
 	
 	/**
@@ -60,7 +76,9 @@ public class BadBudgetData
 	 */
 	public void addAccount(Account account)
 	{
-		this.accounts.put(account.name(), account);
+		this.accountsHash += this.swap(this.accounts.put(account.name(), account), account);
+		this.registry = null;
+		this.sourceIndex = null;
 	}
 	
 	/**
@@ -71,7 +89,9 @@ public class BadBudgetData
 	 */
 	public void addDebt(MoneyOwed debt)
 	{
-		this.debts.put(debt.name(), debt);
+		this.debtsHash += this.swap(this.debts.put(debt.name(), debt), debt);
+		this.registry = null;
+		this.sourceIndex = null;
 	}
 	
 	/**
@@ -82,7 +102,9 @@ public class BadBudgetData
 	 */
 	public void addGain(MoneyGain gain)
 	{
-		this.gains.put(gain.sourceDescription(), gain);
+		this.gainsHash += this.swap(this.gains.put(gain.sourceDescription(), gain), gain);
+		this.registry = null;
+		this.sourceIndex = null;
 	}
 	
 	/**
@@ -93,7 +115,9 @@ public class BadBudgetData
 	 */
 	public void addLoss(MoneyLoss loss)
 	{
-		this.losses.put(loss.expenseDescription(), loss);
+		this.lossesHash += this.swap(this.losses.put(loss.expenseDescription(), loss), loss);
+		this.registry = null;
+		this.sourceIndex = null;
 	}
 	
 	/**
@@ -102,7 +126,9 @@ public class BadBudgetData
 	 */
 	public void addTransfer(MoneyTransfer transfer)
 	{
-		this.transfers.put(transfer.getTransferDescription(), transfer);
+		this.transfersHash += this.swap(this.transfers.put(transfer.getTransferDescription(), transfer), transfer);
+		this.registry = null;
+		this.sourceIndex = null;
 	}
 	
 	/*
@@ -110,49 +136,63 @@ public class BadBudgetData
 	 */
 	
 	/**
-	 * Returns a list of all the accounts in no particular order
+	 * Returns the entity registry of this bb data object. The registry holds stable typed arrays of the
+	 * accounts, debts, gains, losses, and transfers (in the order they were added) and gives each a dense
+	 * int id. It is only rebuilt after an add or delete, so repeated calls are allocation free.
+	 * @return the entity registry for this bb data's current entities
+	 */
+	public EntityRegistry getRegistry()
+	{
+		if (this.registry == null)
+		{
+			this.registry = new EntityRegistry(this.accounts, this.debts, this.gains, this.losses, this.transfers);
+		}
+		return this.registry;
+	}
+	
+	/**
+	 * Returns a list of all the accounts in the order they were added
 	 * @return - a list of accounts in this BB data object
 	 */
 	public ArrayList<Account> getAccounts()
 	{
-		
-		return new ArrayList<Account>(this.accounts.values());
+		return new ArrayList<Account>(Arrays.asList(this.getRegistry().accounts()));
 	}
 	
 	/**
-	 * Returns a list of this BB data's debts in no particular order
+	 * Returns a list of this BB data's debts in the order they were added
 	 * @return - a list of debts (money owed objects)
 	 */
 	public ArrayList<MoneyOwed> getDebts()
 	{
-		return new ArrayList<MoneyOwed>(this.debts.values());
+		return new ArrayList<MoneyOwed>(Arrays.asList(this.getRegistry().debts()));
 	}
 	
 	/**
-	 * Returns a list of this BB data objects gains in no particular order
+	 * Returns a list of this BB data objects gains in the order they were added
 	 * @return - a list of gains
 	 */
 	public ArrayList<MoneyGain> getGains()
 	{
-		return new ArrayList<MoneyGain>(this.gains.values());
+		return new ArrayList<MoneyGain>(Arrays.asList(this.getRegistry().gains()));
 	}
 	
 	/**
-	 * Returns a list of this bb data's losses in no particular order
+	 * Returns a list of this bb data's losses in the order they were added
 	 * @return -  a list of losses
 	 */
 	public ArrayList<MoneyLoss> getLosses()
 	{
-		return new ArrayList<MoneyLoss>(this.losses.values());
+		return new ArrayList<MoneyLoss>(Arrays.asList(this.getRegistry().losses()));
 	}
 	
 	/**
-	 * Returns a list of this bb data's transfers in no particular order
+	 * Returns a list of this bb data's transfers in the order they were added
 	 * @return - a list of transfers
 	 */
 	public ArrayList<MoneyTransfer> getTransfers()
 	{
-		return new ArrayList<MoneyTransfer>(this.transfers.values());
+		return new ArrayList<MoneyTransfer>(Arrays.asList(this.getRegistry().transfers()));
 	}
 	
 	/* 
@@ -227,8 +267,12 @@ public class BadBudgetData
 	 */
 	public boolean deleteAccountWithName(String name)
 	{
-		if (this.accounts.remove(name) != null)
+		Account removed = this.accounts.remove(name);
+		if (removed != null)
 		{
+			this.accountsHash += this.swap(removed, null);
+			this.registry = null;
+			this.sourceIndex = null;
 			return true;
 		}
 		else
@@ -245,8 +289,12 @@ public class BadBudgetData
 	 */
 	public boolean deleteDebtWithName(String name)
 	{
-		if (this.debts.remove(name) != null)
+		MoneyOwed removed = this.debts.remove(name);
+		if (removed != null)
 		{
+			this.debtsHash += this.swap(removed, null);
+			this.registry = null;
+			this.sourceIndex = null;
 			return true;
 		}
 		else
@@ -263,8 +311,12 @@ public class BadBudgetData
 	 */
 	public boolean deleteGainWithDescription(String description)
 	{
-		if (this.gains.remove(description) != null)
+		MoneyGain removed = this.gains.remove(description);
+		if (removed != null)
 		{
+			this.gainsHash += this.swap(removed, null);
+			this.registry = null;
+			this.sourceIndex = null;
 			return true;
 		}
 		else
@@ -281,8 +333,12 @@ public class BadBudgetData
 	 */
 	public boolean deleteLossWithDescription(String description)
 	{
-		if (this.losses.remove(description) != null)
+		MoneyLoss removed = this.losses.remove(description);
+		if (removed != null)
 		{
+			this.lossesHash += this.swap(removed, null);
+			this.registry = null;
+			this.sourceIndex = null;
 			return true;
 		}
 		else
@@ -302,8 +358,12 @@ public class BadBudgetData
 	 */
 	public boolean deleteTransferWithDescription(String description)
 	{
-		if (this.transfers.remove(description) != null)
+		MoneyTransfer removed = this.transfers.remove(description);
+		if (removed != null)
 		{
+			this.transfersHash += this.swap(removed, null);
+			this.registry = null;
+			this.sourceIndex = null;
 			return true;
 		}
 		else
@@ -318,27 +378,28 @@ public class BadBudgetData
 	 */
 	public void clearPredictData()
 	{
-		for (Account a : this.getAccounts())
+		EntityRegistry entities = this.getRegistry();
+		for (Account a : entities.accounts())
 		{
 			a.clearPredictData();
 		}
-		for (MoneyGain mg : this.getGains())
+		for (MoneyGain mg : entities.gains())
 		{
 			mg.clearPredictData();
 		}
-		for (MoneyLoss ml : this.getLosses())
+		for (MoneyLoss ml : entities.losses())
 		{
 			ml.clearPredictData();
 		}
-		for (MoneyTransfer mt : this.getTransfers())
+		for (MoneyTransfer mt : entities.transfers())
 		{
 			mt.clearPredictData();
 		}
-		for (MoneyOwed mo : this.getDebts())
+		for (MoneyOwed mo : entities.debts())
 		{
 			mo.clearPredictData();
 		}
-		for (BudgetItem bi : this.getBudget().getAllBudgetItems().values())
+		for (BudgetItem bi : this.getBudget().getBudgetItemArray())
 		{
 			bi.clearPredictData();
 		}
@@ -353,20 +414,22 @@ public class BadBudgetData
 	 */
 	public Source getSourceWithName(String name)
 	{
-		Source source = this.getAccountWithName(name);
-		if (source != null)
-		{
-			return source;
-		}
-		else
+		return this.getRegistry().sourceWithName(name);
+	}
+	
+	/**
+	 * Returns an index from each of this bbd's sources to the losses, budget items, payments, contributions
+	 * and transfers drawing from it. It is only rebuilt after an add or delete, or after any of this bbd's entities
+	 * (or the budget) reports a change, which includes a change of source, so repeated calls are allocation free.
+	 * @return the source index for this bbd's current links
+	 */
+	public SourceIndex getSourceIndex()
+	{
+		if (this.sourceIndex == null)
 		{
-			MoneyOwed debt = this.getDebtWithName(name);
-			if (debt instanceof CreditCard)
-			{
-				return (CreditCard) debt;
-			}
+			this.sourceIndex = new SourceIndex(this.getRegistry(), this.getBudget());
 		}
-		return null;
+		return this.sourceIndex;
 	}
 	
 	/**
@@ -375,17 +438,7 @@ public class BadBudgetData
 	 */
 	public ArrayList<Source> getSources()
 	{
-		ArrayList<Source> sources = new ArrayList<Source>();
-		sources.addAll(this.getAccounts());
-		for (MoneyOwed debt : this.getDebts())
-		{
-			if (debt instanceof CreditCard)
-			{
-				CreditCard cc = (CreditCard) debt;
-				sources.add(cc);
-			}
-		}
-		return sources;
+		return new ArrayList<Source>(Arrays.asList(this.getRegistry().sources()));
 	}
 	
 	/**
@@ -394,22 +447,10 @@ public class BadBudgetData
 	 */
 	public ArrayList<Source> getSourcesExcludeSavingAccounts()
 	{
-		ArrayList<Source> sources = new ArrayList<Source>();
-		for (Account account : this.getAccounts())
-		{
-			if (!(account instanceof SavingsAccount))
-			{
-				sources.add(account);
-			}
-		}
-		for (MoneyOwed debt : this.getDebts())
-		{
-			if (debt instanceof CreditCard)
-			{
-				CreditCard cc = (CreditCard) debt;
-				sources.add(cc);
-			}
-		}
+		EntityRegistry entities = this.getRegistry();
+		ArrayList<Source> sources = new ArrayList<Source>(entities.plainAccounts().length + entities.creditCards().length);
+		sources.addAll(Arrays.asList(entities.plainAccounts()));
+		sources.addAll(Arrays.asList(entities.creditCards()));
 		return sources;
 	}
 	
@@ -423,20 +464,204 @@ public class BadBudgetData
 	 */
 	public Source getSourceWithNameExcludeSavingAccounts(String name)
 	{
-		Source source = this.getAccountWithName(name);
-		if (source != null && !(source instanceof SavingsAccount))
+		return this.getRegistry().sourceWithNameExcludeSavingAccounts(name);
+	}
+	
+	/*
+	 * Content hashes
+	 */
+	
+	/**
+	 * Stops a removed entity reporting to this bbd and starts an added one reporting, recording both as changed.
+	 * Either may be null.
+	 * @param removed - the entity removed or replaced
+	 * @param added - the entity added
+	 * @return the change to the collection hash the entities belong to
+	 */
+	private long swap(HashedEntity removed, HashedEntity added)
+	{
+		long delta = 0;
+		if (removed != null)
+		{
+			if (removed.getContentHashListener() == this)
+			{
+				removed.setContentHashListener(null);
+			}
+			delta -= HashedEntity.scatter(removed.contentHash());
+			this.changedEntities.add(removed);
+		}
+		if (added != null)
 		{
-			return source;
+			added.setContentHashListener(this);
+			delta += HashedEntity.scatter(added.contentHash());
+			this.changedEntities.add(added);
 		}
-		else
+		return delta;
+	}
+	
+	/**
+	 * One of this bbd's entities changed, swaps its old hash for the new one in its collection's hash and records it
+	 * as changed. Budget items report to the budget so a changed item shows up as the budget changing. The change may
+	 * have been to a source the entity draws from, so the source index is dropped.
+	 * @param entity - the entity that changed
+	 * @param oldHash - its hash before the change
+	 * @param newHash - its hash now
+	 */
+	public void contentHashChanged(HashedEntity entity, long oldHash, long newHash)
+	{
+		long delta = HashedEntity.scatter(newHash) - HashedEntity.scatter(oldHash);
+		if (entity instanceof Account)
+		{
+			this.accountsHash += delta;
+		}
+		else if (entity instanceof MoneyOwed)
+		{
+			this.debtsHash += delta;
+		}
+		else if (entity instanceof MoneyGain)
+		{
+			this.gainsHash += delta;
+		}
+		else if (entity instanceof MoneyLoss)
+		{
+			this.lossesHash += delta;
+		}
+		else if (entity instanceof MoneyTransfer)
+		{
+			this.transfersHash += delta;
+		}
+		this.sourceIndex = null;
+		this.changedEntities.add(entity);
+	}
+	
+	/**
+	 * A source of this bbd was renamed. The entities drawing from it or paying into it, and the budget if it is the
+	 * budget source, hash its name, so each of them is rehashed (and reports here as changed).
+	 * @param source - the renamed source
+	 */
+	void sourceRenamed(Source source)
+	{
+		SourceIndex index = this.getSourceIndex();
+		for (MoneyLoss loss : index.lossesFrom(source))
+		{
+			loss.contentChanged();
+		}
+		for (BudgetItem item : index.budgetItemsFrom(source))
+		{
+			item.contentChanged();
+		}
+		for (MoneyOwed debt : index.paymentsFrom(source))
 		{
-			MoneyOwed debt = this.getDebtWithName(name);
-			if (debt instanceof CreditCard)
+			debt.payment().contentChanged();
+		}
+		for (SavingsAccount savingsAccount : index.contributionsFrom(source))
+		{
+			savingsAccount.contentChanged();
+		}
+
+		//The index only covers what draws from a source, gains and transfers can also pay into it
+		EntityRegistry registry = this.getRegistry();
+		for (MoneyTransfer transfer : registry.transfers())
+		{
+			if (transfer.getSource() == source || transfer.getDestination() == source)
 			{
-				return (CreditCard) debt;
+				transfer.contentChanged();
 			}
 		}
-		return null;
+		for (MoneyGain gain : registry.gains())
+		{
+			if (gain.destinationAccount() == source)
+			{
+				gain.contentChanged();
+			}
+		}
+
+		if (this.budget != null && this.budget.getBudgetSource() == source)
+		{
+			this.budget.contentChanged();
+		}
+	}
+	
+	/**
+	 * Returns a hash of everything in this bbd, the collection hashes below combined. It is kept current as entities
+	 * are added, deleted, or changed through their setters so it takes constant time. Comparing it with an earlier
+	 * value tells if anything changed since then.
+	 * @return the content hash of this bbd
+	 */
+	public long contentHash()
+	{
+		long hash = HashedEntity.mix(0L, this.accountsHash);
+		hash = HashedEntity.mix(hash, this.debtsHash);
+		hash = HashedEntity.mix(hash, this.gainsHash);
+		hash = HashedEntity.mix(hash, this.lossesHash);
+		hash = HashedEntity.mix(hash, this.transfersHash);
+		hash = HashedEntity.mix(hash, this.budgetHash());
+		return hash;
+	}
+	
+	/**
+	 * The hash of the accounts, the sum of each account's scattered content hash (so it doesn't depend on order).
+	 * @return the accounts hash
+	 */
+	public long accountsHash()
+	{
+		return this.accountsHash;
+	}
+	
+	public long debtsHash()
+	{
+		return this.debtsHash;
+	}
+	
+	public long gainsHash()
+	{
+		return this.gainsHash;
+	}
+	
+	public long lossesHash()
+	{
+		return this.lossesHash;
+	}
+	
+	public long transfersHash()
+	{
+		return this.transfersHash;
+	}
+	
+	/**
+	 * The content hash of the budget, which covers its items.
+	 * @return the budget's hash or 0 if no budget is set
+	 */
+	public long budgetHash()
+	{
+		if (this.budget != null)
+		{
+			return this.budget.contentHash();
+		}
+		else
+		{
+			return 0;
+		}
+	}
+	
+	/**
+	 * Returns the entities added, deleted, or changed since this bbd was created or clearChangedEntities was last
+	 * called, in the order they were first changed. Finding what changed takes time in the number of changes rather
+	 * than the size of the bbd. A deleted entity is in the set but no longer in the bbd; a changed budget item shows
+	 * up as the budget.
+	 * @return a read only view of the changed entities
+	 */
+	public Set<HashedEntity> changedEntities()
+	{
+		return Collections.unmodifiableSet(this.changedEntities);
+	}
+	
+	/**
+	 * Forgets the changed entities, usually after the changes have been synced or cached.
+	 */
+	public void clearChangedEntities()
+	{
+		this.changedEntities.clear();
 	}
 	
 }
@@ -177,6 +177,27 @@ public class BadBudgetInvalidValueException extends Exception {
 	 
 	 /* Loan specific error messages */
 	 public static final String LOAN_PRINCIPAL_GREATER_DEBT = "Simple interest loan has principal greater than debt amount";
+	 
+	 /* Prediction kernel error messages */
+	 public static final String KERNEL_SOURCE_NOT_IN_DATA = "An item draws from or pays into an account or credit card that is not part of the budget data";
+	 
+	 /* Snapshot error messages */
+	 public static final String SNAPSHOT_NOT_A_SNAPSHOT = "The data is not a bad budget snapshot";
+	 public static final String SNAPSHOT_UNSUPPORTED_VERSION = "The snapshot was written by an unsupported version";
+	 public static final String SNAPSHOT_WRONG_KIND = "The snapshot holds a different kind of data than expected";
+	 public static final String SNAPSHOT_CORRUPT = "The snapshot is cut short or corrupt";
+	 public static final String SNAPSHOT_SOURCE_NOT_IN_DATA = "An item refers to an account or credit card that is not part of the budget data";
+	 
+	 /* Bulk import error messages */
+	 public static final String IMPORT_UNKNOWN_RECORD = "The line is not a known record type";
+	 public static final String IMPORT_FIELD_COUNT = "The record has the wrong number of fields";
+	 public static final String IMPORT_BAD_FIELD = "A field of the record could not be parsed";
+	 public static final String IMPORT_NO_USER = "The record comes before any user record";
+	 public static final String IMPORT_UNKNOWN_DEBT = "The payment is for a debt that was not imported for this user";
+	 public static final String IMPORT_NO_BUDGET = "The budget item is for a user without a budget";
+	 public static final String IMPORT_DUPLICATE_NAME = "An item with the same name or description was already imported for this user";
+	 public static final String IMPORT_DUPLICATE_PAYMENT = "A payment was already imported for this debt";
+	 public static final String IMPORT_DUPLICATE_BUDGET = "A budget was already imported for this user";
 
 	/**
 	 * Constructor for BadBudgetInvalidValueException
@@ -0,0 +1,740 @@
+package com.erikartymiuk.badbudgetlogic.main;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+
+import com.erikartymiuk.badbudgetlogic.budget.Budget;
+import com.erikartymiuk.badbudgetlogic.budget.BudgetItem;
+import com.erikartymiuk.badbudgetlogic.budget.RemainAmountAction;
+
+/**
+ * Versioned binary snapshot format for bad budget data. A snapshot holds every account, debt (with its payment),
+ * gain, loss, transfer, and the budget with its items, and is written to and read from a ByteBuffer directly
+ * with no intermediate objects. Prediction data is not part of a snapshot (see PredictionSeries for storing
+ * prediction results in the same format).
+ *
+ * Every snapshot starts with a header:
+ * 		int magic, short version, byte kind
+ * followed by the body for its kind. Values are written in the buffer's byte order (big endian unless changed), strings
+ * as an int length (-1 for null) followed by their chars, dates as a long of milliseconds (Long.MIN_VALUE for null),
+ * and enums as a byte ordinal. Items that refer to an account or credit card do so by its id in the entity registry
+ * (see EntityRegistry), which is also the order entities are written and restored in, so a restored bbd keeps the
+ * same insertion order and ids.
+ *
+ * Reading builds each entity once. Savings accounts and payments are restored without being verified again as
+ * updates can legitimately move them into states their constructors don't accept (for example a next contribution
+ * past the goal date), the other entities go through their public constructors.
+ */
+public class BadBudgetSnapshot
+{
+	public static final int MAGIC = 0x42424453;	//"BBDS"
+	public static final short VERSION = 1;
+
+	/* Header kinds */
+	public static final byte KIND_DATA = 1;
+	public static final byte KIND_SERIES = 2;
+	public static final byte KIND_MAPPED_SERIES = 3;
+
+	public static final int HEADER_SIZE = 4 + 2 + 1;
+
+	/* Record kinds */
+	private static final byte ACCOUNT = 0;
+	private static final byte SAVINGS_ACCOUNT = 1;
+	private static final byte OTHER_DEBT = 0;
+	private static final byte CREDIT_CARD = 1;
+	private static final byte LOAN = 2;
+
+	private static final long NULL_DATE = Long.MIN_VALUE;
+
+	/**
+	 * No instances, the snapshot methods are all static.
+	 */
+	private BadBudgetSnapshot()
+	{
+	}
+
+	/**
+	 * Writes a snapshot of the given bbd to a new buffer sized exactly for it.
+	 * @param bbd - the bbd to snapshot
+	 * @return a buffer holding the snapshot, flipped and ready to be read or written out
+	 * @throws BadBudgetInvalidValueException - if any item refers to an account or credit card that isn't part of the bbd
+	 */
+	public static ByteBuffer write(BadBudgetData bbd) throws BadBudgetInvalidValueException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(sizeOf(bbd));
+		write(bbd, buffer);
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * A content fingerprint of the given bbd, the SHA-256 digest of its snapshot. Two bbds with the same entities,
+	 * values, and insertion order have the same fingerprint.
+	 * @param bbd - the bbd to fingerprint
+	 * @return the 32 byte fingerprint
+	 * @throws BadBudgetInvalidValueException - if any item refers to an account or credit card that isn't part of the bbd
+	 */
+	public static byte[] fingerprint(BadBudgetData bbd) throws BadBudgetInvalidValueException
+	{
+		return fingerprint(write(bbd));
+	}
+
+	/**
+	 * The fingerprint of an already written snapshot, the same as fingerprint of the bbd it was written from.
+	 * @param snapshot - the snapshot, from its position to its limit (the buffer itself is left untouched)
+	 * @return the 32 byte fingerprint
+	 */
+	public static byte[] fingerprint(ByteBuffer snapshot)
+	{
+		try
+		{
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(snapshot.duplicate());
+			return digest.digest();
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			//Every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * The exact number of bytes the snapshot of the given bbd takes.
+	 * @param bbd - the bbd to size
+	 * @return the size of the bbd's snapshot in bytes
+	 */
+	public static int sizeOf(BadBudgetData bbd)
+	{
+		EntityRegistry registry = bbd.getRegistry();
+		int size = HEADER_SIZE;
+
+		size += 4;
+		for (Account account : registry.accounts())
+		{
+			size += 1 + sizeOf(account.name()) + 8 + 1;
+			if (account instanceof SavingsAccount)
+			{
+				size += 1 + 8 + 8 + 1 + 8 + 8 + 8 + 1 + 8 + 4;
+			}
+		}
+
+		size += 4;
+		for (MoneyOwed debt : registry.debts())
+		{
+			size += 1 + sizeOf(debt.name()) + 8 + 1 + 8;
+			if (debt instanceof Loan)
+			{
+				size += 1 + 8 + 8;
+			}
+			size += 1;
+			if (debt.payment() != null)
+			{
+				size += 8 + 1 + 1 + 4 + 8 + 1 + 8 + 8;
+			}
+		}
+
+		size += 4;
+		for (MoneyGain gain : registry.gains())
+		{
+			size += sizeOf(gain.sourceDescription()) + 8 + 1 + 8 + 8 + 4;
+		}
+
+		size += 4;
+		for (MoneyLoss loss : registry.losses())
+		{
+			size += sizeOf(loss.expenseDescription()) + 8 + 1 + 8 + 8 + 4;
+		}
+
+		size += 4;
+		for (MoneyTransfer transfer : registry.transfers())
+		{
+			size += sizeOf(transfer.getTransferDescription()) + 4 + 4 + 8 + 1 + 8 + 8;
+		}
+
+		size += 1;
+		Budget budget = bbd.getBudget();
+		if (budget != null)
+		{
+			size += 4 + 1 + 4 + 4 + 4;
+			for (BudgetItem item : budget.getBudgetItemArray())
+			{
+				size += sizeOf(item.getDescription()) + 8 + 1 + 8 + 8 + 1 + 4 + 8 + 8 + 8 + 1;
+			}
+		}
+
+		return size;
+	}
+
+	/**
+	 * Writes a snapshot of the given bbd into the buffer at its current position.
+	 * @param bbd - the bbd to snapshot
+	 * @param buffer - the buffer to write to, must have at least sizeOf(bbd) bytes remaining
+	 * @throws BadBudgetInvalidValueException - if any item refers to an account or credit card that isn't part of the bbd
+	 */
+	public static void write(BadBudgetData bbd, ByteBuffer buffer) throws BadBudgetInvalidValueException
+	{
+		EntityRegistry registry = bbd.getRegistry();
+		putHeader(buffer, KIND_DATA);
+
+		Account[] accounts = registry.accounts();
+		buffer.putInt(accounts.length);
+		for (Account account : accounts)
+		{
+			if (account instanceof SavingsAccount)
+			{
+				buffer.put(SAVINGS_ACCOUNT);
+			}
+			else
+			{
+				buffer.put(ACCOUNT);
+			}
+			putString(buffer, account.name());
+			buffer.putDouble(account.value());
+			putBoolean(buffer, account.quickLook());
+
+			if (account instanceof SavingsAccount)
+			{
+				SavingsAccount savingsAccount = (SavingsAccount) account;
+				putBoolean(buffer, savingsAccount.goalSet());
+				buffer.putDouble(savingsAccount.goal());
+				putDate(buffer, savingsAccount.goalDate());
+				Contribution contribution = savingsAccount.contribution();
+				if (contribution != null)
+				{
+					buffer.put((byte) contribution.getFrequency().ordinal());
+					buffer.putDouble(contribution.getContribution());
+				}
+				else
+				{
+					buffer.put((byte) -1);
+					buffer.putDouble(0);
+				}
+				putDate(buffer, savingsAccount.nextContribution());
+				putDate(buffer, savingsAccount.endDate());
+				putBoolean(buffer, savingsAccount.ongoing());
+				buffer.putDouble(savingsAccount.getInterestRate());
+				buffer.putInt(accountRef(registry, savingsAccount.sourceAccount()));
+			}
+		}
+
+		MoneyOwed[] debts = registry.debts();
+		buffer.putInt(debts.length);
+		for (MoneyOwed debt : debts)
+		{
+			if (debt instanceof CreditCard)
+			{
+				buffer.put(CREDIT_CARD);
+			}
+			else if (debt instanceof Loan)
+			{
+				buffer.put(LOAN);
+			}
+			else
+			{
+				buffer.put(OTHER_DEBT);
+			}
+			putString(buffer, debt.name());
+			buffer.putDouble(debt.amount());
+			putBoolean(buffer, debt.quicklook());
+			buffer.putDouble(debt.interestRate());
+
+			if (debt instanceof Loan)
+			{
+				Loan loan = (Loan) debt;
+				putBoolean(buffer, loan.isSimpleInterest());
+				buffer.putDouble(loan.getPrincipalBalance());
+				buffer.putDouble(loan.getInterestAmount());
+			}
+
+			Payment payment = debt.payment();
+			putBoolean(buffer, payment != null);
+			if (payment != null)
+			{
+				buffer.putDouble(payment.amount());
+				putBoolean(buffer, payment.payOff());
+				buffer.put((byte) payment.frequency().ordinal());
+				buffer.putInt(accountRef(registry, payment.sourceAccount()));
+				putDate(buffer, payment.nextPaymentDate());
+				putBoolean(buffer, payment.ongoing());
+				putDate(buffer, payment.endDate());
+				putDate(buffer, payment.goalDate());
+			}
+		}
+
+		MoneyGain[] gains = registry.gains();
+		buffer.putInt(gains.length);
+		for (MoneyGain gain : gains)
+		{
+			putString(buffer, gain.sourceDescription());
+			buffer.putDouble(gain.gainAmount());
+			buffer.put((byte) gain.gainFrequency().ordinal());
+			putDate(buffer, gain.nextDeposit());
+			putDate(buffer, gain.endDate());
+			buffer.putInt(accountRef(registry, gain.destinationAccount()));
+		}
+
+		MoneyLoss[] losses = registry.losses();
+		buffer.putInt(losses.length);
+		for (MoneyLoss loss : losses)
+		{
+			putString(buffer, loss.expenseDescription());
+			buffer.putDouble(loss.lossAmount());
+			buffer.put((byte) loss.lossFrequency().ordinal());
+			putDate(buffer, loss.nextLoss());
+			putDate(buffer, loss.endDate());
+			buffer.putInt(sourceRef(registry, loss.source()));
+		}
+
+		MoneyTransfer[] transfers = registry.transfers();
+		buffer.putInt(transfers.length);
+		for (MoneyTransfer transfer : transfers)
+		{
+			putString(buffer, transfer.getTransferDescription());
+			buffer.putInt(accountRef(registry, transfer.getSource()));
+			buffer.putInt(accountRef(registry, transfer.getDestination()));
+			buffer.putDouble(transfer.getAmount());
+			buffer.put((byte) transfer.getFrequency().ordinal());
+			putDate(buffer, transfer.getNextTransfer());
+			putDate(buffer, transfer.getEndDate());
+		}
+
+		Budget budget = bbd.getBudget();
+		putBoolean(buffer, budget != null);
+		if (budget != null)
+		{
+			buffer.putInt(sourceRef(registry, budget.getBudgetSource()));
+			putBoolean(buffer, budget.isAutoReset());
+			buffer.putInt(budget.getWeeklyReset());
+			buffer.putInt(budget.getMonthlyReset());
+
+			BudgetItem[] items = budget.getBudgetItemArray();
+			buffer.putInt(items.length);
+			for (BudgetItem item : items)
+			{
+				putString(buffer, item.getDescription());
+				buffer.putDouble(item.lossAmount());
+				buffer.put((byte) item.lossFrequency().ordinal());
+				putDate(buffer, item.nextLoss());
+				putDate(buffer, item.endDate());
+				putBoolean(buffer, item.isProratedStart());
+				buffer.putInt(sourceRef(registry, item.source()));
+				buffer.putDouble(item.getPlusAmount());
+				buffer.putDouble(item.getMinusAmount());
+				buffer.putDouble(item.getCurrAmount());
+				if (item.remainAmountAction() != null)
+				{
+					buffer.put((byte) item.remainAmountAction().ordinal());
+				}
+				else
+				{
+					buffer.put((byte) -1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads a bbd snapshot from the buffer's current position. The buffer's position is left after the snapshot.
+	 * @param buffer - the buffer to read from
+	 * @return the restored bbd
+	 * @throws BadBudgetInvalidValueException - if the buffer doesn't hold a bbd snapshot of a supported version, the
+	 * 					snapshot is cut short or corrupt, or the snapshot holds values the entities don't accept
+	 */
+	public static BadBudgetData read(ByteBuffer buffer) throws BadBudgetInvalidValueException
+	{
+		try
+		{
+			getHeader(buffer, KIND_DATA);
+			BadBudgetData bbd = new BadBudgetData();
+
+			/* Accounts, savings accounts get their source once every account has been read */
+			int numAccounts = getCount(buffer);
+			Account[] accounts = new Account[numAccounts];
+			int[] savingsSources = new int[numAccounts];
+			for (int i = 0; i < numAccounts; i++)
+			{
+				byte kind = buffer.get();
+				String name = getString(buffer);
+				double value = buffer.getDouble();
+				boolean quickLook = getBoolean(buffer);
+
+				if (kind == ACCOUNT)
+				{
+					accounts[i] = new Account(name, value, quickLook);
+				}
+				else if (kind == SAVINGS_ACCOUNT)
+				{
+					boolean goalSet = getBoolean(buffer);
+					double goal = buffer.getDouble();
+					Date goalDate = getDate(buffer);
+					byte contributionFrequency = buffer.get();
+					double contributionAmount = buffer.getDouble();
+					Contribution contribution = null;
+					if (contributionFrequency != -1)
+					{
+						contribution = new Contribution(contributionAmount, getFrequency(contributionFrequency));
+					}
+					Date nextContribution = getDate(buffer);
+					Date endDate = getDate(buffer);
+					boolean ongoing = getBoolean(buffer);
+					double interestRate = buffer.getDouble();
+					savingsSources[i] = buffer.getInt();
+
+					accounts[i] = SavingsAccount.restore(name, value, quickLook, goalSet, goal, goalDate, contribution,
+							null, nextContribution, endDate, ongoing, interestRate);
+				}
+				else
+				{
+					throw new BadBudgetInvalidValueException(BadBudgetInvalidValueException.SNAPSHOT_CORRUPT);
+				}
+			}
+			for (int i = 0; i < numAccounts; i++)
+			{
+				if (accounts[i] instanceof SavingsAccount)
+				{
+					((SavingsAccount) accounts[i]).updateSourceAccount(getAccount(accounts, savingsSources[i]));
+				}
+				bbd.addAccount(accounts[i]);
+			}
+
+			/* Debts, credit cards are also kept by source id for the losses and budget */
+			int numDebts = getCount(buffer);
+			Source[] sources = new Source[numAccounts + numDebts];
+			System.arraycopy(accounts, 0, sources, 0, numAccounts);
+			int numSources = numAccounts;
+			for (int i = 0; i < numDebts; i++)
+			{
+				byte kind = buffer.get();
+				String name = getString(buffer);
+				double amount = buffer.getDouble();
+				boolean quicklook = getBoolean(buffer);
+				double interestRate = buffer.getDouble();
+
+				MoneyOwed debt = null;
+				if (kind == CREDIT_CARD)
+				{
+					CreditCard creditCard = new CreditCard(name, amount, quicklook, interestRate);
+					sources[numSources] = creditCard;
+					numSources++;
+					debt = creditCard;
+				}
+				else if (kind == LOAN)
+				{
+					boolean simpleInterest = getBoolean(buffer);
+					double principal = buffer.getDouble();
+					double interest = buffer.getDouble();
+					Loan loan = new Loan(name, amount, quicklook, interestRate, simpleInterest, principal);
+					loan.setInterestAmount(interest);
+					debt = loan;
+				}
+				else if (kind == OTHER_DEBT)
+				{
+					debt = new MoneyOwed(name, amount, quicklook, interestRate);
+				}
+				else
+				{
+					throw new BadBudgetInvalidValueException(BadBudgetInvalidValueException.SNAPSHOT_CORRUPT);
+				}
+
+				if (getBoolean(buffer))
+				{
+					double paymentAmount = buffer.getDouble();
+					boolean payOff = getBoolean(buffer);
+					Frequency frequency = getFrequency(buffer.get());
+					Account sourceAccount = getAccount(accounts, buffer.getInt());
+					Date nextPayment = getDate(buffer);
+					boolean ongoing = getBoolean(buffer);
+					Date endDate = getDate(buffer);
+					Date goalDate = getDate(buffer);
+					debt.setupPayment(Payment.restore(paymentAmount, payOff, frequency, sourceAccount, nextPayment, ongoing, endDate, debt, goalDate));
+				}
+				bbd.addDebt(debt);
+			}
+
+			int numGains = getCount(buffer);
+			for (int i = 0; i < numGains; i++)
+			{
+				String description = getString(buffer);
+				double amount = buffer.getDouble();
+				Frequency frequency = getFrequency(buffer.get());
+				Date nextDeposit = getDate(buffer);
+				Date endDate = getDate(buffer);
+				Account destination = getAccount(accounts, buffer.getInt());
+				bbd.addGain(new MoneyGain(description, amount, frequency, nextDeposit, endDate, destination));
+			}
+
+			int numLosses = getCount(buffer);
+			for (int i = 0; i < numLosses; i++)
+			{
+				String description = getString(buffer);
+				double amount = buffer.getDouble();
+				Frequency frequency = getFrequency(buffer.get());
+				Date nextLoss = getDate(buffer);
+				Date endDate = getDate(buffer);
+				Source source = getSource(sources, numSources, buffer.getInt());
+				bbd.addLoss(new MoneyLoss(description, amount, frequency, nextLoss, endDate, source));
+			}
+
+			int numTransfers = getCount(buffer);
+			for (int i = 0; i < numTransfers; i++)
+			{
+				String description = getString(buffer);
+				Account source = getAccount(accounts, buffer.getInt());
+				Account destination = getAccount(accounts, buffer.getInt());
+				double amount = buffer.getDouble();
+				Frequency frequency = getFrequency(buffer.get());
+				Date nextTransfer = getDate(buffer);
+				Date endDate = getDate(buffer);
+				bbd.addTransfer(new MoneyTransfer(description, source, destination, amount, frequency, nextTransfer, endDate));
+			}
+
+			if (getBoolean(buffer))
+			{
+				Source budgetSource = getSource(sources, numSources, buffer.getInt());
+				boolean autoReset = getBoolean(buffer);
+				int weeklyReset = buffer.getInt();
+				int monthlyReset = buffer.getInt();
+				Budget budget = new Budget(budgetSource, autoReset, weeklyReset, monthlyReset);
+
+				int numItems = getCount(buffer);
+				for (int i = 0; i < numItems; i++)
+				{
+					String description = getString(buffer);
+					double amount = buffer.getDouble();
+					Frequency frequency = getFrequency(buffer.get());
+					Date nextLoss = getDate(buffer);
+					Date endDate = getDate(buffer);
+					boolean proratedStart = getBoolean(buffer);
+					Source source = getSource(sources, numSources, buffer.getInt());
+
+					BudgetItem item = new BudgetItem(description, amount, frequency, nextLoss, endDate, proratedStart, source);
+					item.setPlusAmount(buffer.getDouble());
+					item.setMinusAmount(buffer.getDouble());
+					item.setCurrAmount(buffer.getDouble());
+					byte remainAmountAction = buffer.get();
+					if (remainAmountAction == -1)
+					{
+						item.setRemainAmountAction(null);
+					}
+					else if (remainAmountAction >= 0 && remainAmountAction < RemainAmountAction.values().length)
+					{
+						item.setRemainAmountAction(RemainAmountAction.values()[remainAmountAction]);
+					}
+					else
+					{
+						throw new BadBudgetInvalidValueException(BadBudgetInvalidValueException.SNAPSHOT_CORRUPT);
+					}
+					budget.addBudgetItem(item);
+				}
+				bbd.setBudget(budget);
+			}
+
+			return bbd;
+		}
+		catch (BufferUnderflowException e)
+		{
+			throw new BadBudgetInvalidValueException(BadBudgetInvalidValueException.SNAPSHOT_CORRUPT);
+		}
+	}
+
+	/*
+	 * Header and value helpers, shared with the other snapshot kinds
+	 */
+
+	/**
+	 * Writes a snapshot header.
+	 * @param buffer - the buffer to write to
+	 * @param kind - the kind of snapshot that follows the header
+	 */
+	public static void putHeader(ByteBuffer buffer, byte kind)
+	{
+		buffer.putInt(MAGIC);
+		buffer.putShort(VERSION);
+		buffer.put(kind);
+	}
+
+	/**
+	 * Reads and checks a snapshot header.
+	 * @param buffer - the buffer to read from
+	 * @param kind - the kind of snapshot expected
+	 * @throws BadBudgetInvalidValueException - if the header isn't a snapshot header, is for an unsupported version, or
+	 * 					is for a different kind of snapshot
+	 */
+	public static void getHeader(ByteBuffer buffer, byte kind) throws BadBudgetInvalidValueException
+	{
+		if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC)
+		{
+			throw new BadBudgetInvalidValueException(BadBudgetInvalidValueException.SNAPSHOT_NOT_A_SNAPSHOT);
+		}
+		if (buffer.getShort() != VERSION)
+		{
+			throw new BadBudgetInvalidValueException(BadBudgetInvalidValueException.SNAPSHOT_UNSUPPORTED_VERSION);
+		}
+		if (buffer.get() != kind)
+		{
+			throw new BadBudgetInvalidValueException(BadBudgetInvalidValueException.SNAPSHOT_WRONG_KIND);
+		}
+	}
+
+	/**
+	 * The number of bytes the given string takes in a snapshot.
+	 * @param s - the string, can be null
+	 * @return the size of the string in bytes
+	 */
+	public static int sizeOf(String s)
+	{
+		if (s == null)
+		{
+			return 4;
+		}
+		else
+		{
+			return 4 + 2 * s.length();
+		}
+	}
+
+	public static void putString(ByteBuffer buffer, String s)
+	{
+		if (s == null)
+		{
+			buffer.putInt(-1);
+		}
+		else
+		{
+			buffer.putInt(s.length());
+			for (int i = 0; i < s.length(); i++)
+			{
+				buffer.putChar(s.charAt(i));
+			}
+		}
+	}
+
+	public static String getString(ByteBuffer buffer) throws BadBudgetInvalidValueException
+	{
+		int length = buffer.getInt();
+		if (length == -1)
+		{
+			return null;
+		}
+		else if (length < 0 || length > buffer.remaining() / 2)
+		{
+			throw new BadBudgetInvalidValueException(BadBudgetInvalidValueException.SNAPSHOT_CORRUPT);
+		}
+		else
+		{
+			char[] chars = new char[length];
+			buffer.asCharBuffer().get(chars);
+			buffer.position(buffer.position() + 2 * length);
+			return new String(chars);
+		}
+	}
+
+	public static void putDate(ByteBuffer buffer, Date date)
+	{
+		if (date == null)
+		{
+			buffer.putLong(NULL_DATE);
+		}
+		else
+		{
+			buffer.putLong(date.getTime());
+		}
+	}
+
+	public static Date getDate(ByteBuffer buffer)
+	{
+		long time = buffer.getLong();
+		if (time == NULL_DATE)
+		{
+			return null;
+		}
+		else
+		{
+			return new Date(time);
+		}
+	}
+
+	private static void putBoolean(ByteBuffer buffer, boolean b)
+	{
+		if (b)
+		{
+			buffer.put((byte) 1);
+		}
+		else
+		{
+			buffer.put((byte) 0);
+		}
+	}
+
+	private static boolean getBoolean(ByteBuffer buffer)
+	{
+		return buffer.get() != 0;
+	}
+
+	/**
+	 * Reads a count and checks that it isn't negative.
+	 * @param buffer - the buffer to read from
+	 * @return the count
+	 * @throws BadBudgetInvalidValueException - if the count is negative
+	 */
+	public static int getCount(ByteBuffer buffer) throws BadBudgetInvalidValueException
+	{
+		int count = buffer.getInt();
+		if (count < 0)
+		{
+			throw new BadBudgetInvalidValueException(BadBudgetInvalidValueException.SNAPSHOT_CORRUPT);
+		}
+		return count;
+	}
+
+	private static Frequency getFrequency(byte ordinal) throws BadBudgetInvalidValueException
+	{
+		if (ordinal < 0 || ordinal >= Frequency.values().length)
+		{
+			throw new BadBudgetInvalidValueException(BadBudgetInvalidValueException.SNAPSHOT_CORRUPT);
+		}
+		return Frequency.values()[ordinal];
+	}
+
+	private static Account getAccount(Account[] accounts, int ref) throws BadBudgetInvalidValueException
+	{
+		if (ref < 0 || ref >= accounts.length)
+		{
+			throw new BadBudgetInvalidValueException(BadBudgetInvalidValueException.SNAPSHOT_CORRUPT);
+		}
+		return accounts[ref];
+	}
+
+	private static Source getSource(Source[] sources, int numSources, int ref) throws BadBudgetInvalidValueException
+	{
+		if (ref < 0 || ref >= numSources)
+		{
+			throw new BadBudgetInvalidValueException(BadBudgetInvalidValueException.SNAPSHOT_CORRUPT);
+		}
+		return sources[ref];
+	}
+
+	private static int accountRef(EntityRegistry registry, Account account) throws BadBudgetInvalidValueException
+	{
+		int id = registry.accountId(account);
+		if (id == -1)
+		{
+			throw new BadBudgetInvalidValueException(BadBudgetInvalidValueException.SNAPSHOT_SOURCE_NOT_IN_DATA);
+		}
+		return id;
+	}
+
+	private static int sourceRef(EntityRegistry registry, Source source) throws BadBudgetInvalidValueException
+	{
+		int id = registry.sourceId(source);
+		if (id == -1)
+		{
+			throw new BadBudgetInvalidValueException(BadBudgetInvalidValueException.SNAPSHOT_SOURCE_NOT_IN_DATA);
+		}
+		return id;
+	}
+}
@@ -0,0 +1,17 @@
+package com.erikartymiuk.badbudgetlogic.main;
+
+/**
+ * Told whenever the content hash of a hashed entity changes. A debt listens to its payment, a savings account to its
+ * contribution, a budget to its items, and a bad budget data object to the entities added to it, so a change to any
+ * entity rolls up to the roots above it.
+ */
+public interface ContentHashListener
+{
+	/**
+	 * Called after the content hash of the entity changed.
+	 * @param entity - the entity that changed
+	 * @param oldHash - the entity's hash before the change
+	 * @param newHash - the entity's hash now
+	 */
+	public void contentHashChanged(HashedEntity entity, long oldHash, long newHash);
+}
@@ -7,7 +7,7 @@ import java.util.Date;
  * and how often it is given (frequency).
  * 
  */
-public class Contribution 
+public class Contribution extends HashedEntity
 {	
 	private double contribution;	//Amount of the contribution
 	private Frequency frequency;	//How often the contribution is processed
@@ -30,20 +30,7 @@ public class Contribution
 		}
 		else
 		{
-			String message = "";
-			if (error == 1)
-			{
-				message = BadBudgetInvalidValueException.CONTRIBUTION_AMOUNT_NON_POSITIVE;
-			}
-			else if (error == 2)
-			{
-				message = BadBudgetInvalidValueException.CONTRIBUTION_FREQUENCY_NULL;
-			}
-			else
-			{
-				message = BadBudgetInvalidValueException.UNKNOWN_UNDEFINED;
-			}
-			throw new BadBudgetInvalidValueException(message);
+			throw new BadBudgetInvalidValueException(messageFor(error));
 		}
 	}
 	
@@ -72,6 +59,29 @@ public class Contribution
 		}
 	}
 	
+	/**
+	 * Returns the exception message for an error code returned by verifyValues.
+	 * @param error - the error code
+	 * @return the message for the error
+	 */
+	public static String messageFor(int error)
+	{
+		String message = "";
+		if (error == 1)
+		{
+			message = BadBudgetInvalidValueException.CONTRIBUTION_AMOUNT_NON_POSITIVE;
+		}
+		else if (error == 2)
+		{
+			message = BadBudgetInvalidValueException.CONTRIBUTION_FREQUENCY_NULL;
+		}
+		else
+		{
+			message = BadBudgetInvalidValueException.UNKNOWN_UNDEFINED;
+		}
+		return message;
+	}
+	
 	/**
 	 * Given a starting date for the last contribution this method returns what the next contribution date
 	 * would be.
@@ -129,10 +139,23 @@ public class Contribution
 	public void setContributionAmount(double amount)
 	{
 		this.contribution = amount;
+		this.contentChanged();
 	}
 	
 	public void setFrequency(Frequency f)
 	{
 		this.frequency = f;
+		this.contentChanged();
+	}
+	
+	/**
+	 * Hashes the contribution amount and frequency.
+	 * @return the hash of this contribution's values
+	 */
+	protected long computeContentHash()
+	{
+		long hash = mix(0L, this.contribution);
+		hash = mix(hash, this.frequency);
+		return hash;
 	}
 }
@@ -69,23 +69,21 @@ public class CreditCard extends MoneyOwed implements Source
 	}
 	
 	/**
-	 * After running the prediction algorithm this method updates this credit card's values to 
-	 * the value's it would have on the day represented by day index. If a goal is set
-	 * it is assumed to be invalid (TODO verify/correct the last sentence, 4/7/2017)
+	 * Updates this credit card to the given end state of a prediction (the row based update inherited from
+	 * MoneyOwed delegates here). If a goal is set it is recomputed and cleared if it no longer matches.
 	 * 
 	 * @param predictEndDate - the date our prediction algorithm ends. Any interest calculations treat this + 1 as the start date.
 	 * 						(note uses GOAL_LIMIT_YEARS as the limit for the goal date calculation)
-	 * @param dayIndex - the day, as an offset from the start date used in the prediction algorithm, to update
-	 * 						this credit cards values to.
+	 * @param amount - the amount of this credit card on the end date
+	 * @param nextPaymentDate - the next payment date on the end date (ignored if this credit card has no payment)
 	 */
-	public void update(Date predictEndDate, int dayIndex)
+	public void update(Date predictEndDate, double amount, Date nextPaymentDate)
 	{
-		PredictDataMoneyOwed pdmo = this.getPredictData(dayIndex);
-		double uAmount = pdmo.value();
+		double uAmount = amount;
 		this.changeAmount(uAmount);
 		
 		if (this.payment() != null) {
-			Date uNextPaymentDate = pdmo.getNextPaymentDate();
+			Date uNextPaymentDate = nextPaymentDate;
 			this.payment().setNextPaymentDate(uNextPaymentDate);
 
 			if (this.payment().goalDate() != null) {
@@ -0,0 +1,22 @@
+package com.erikartymiuk.badbudgetlogic.main;
+
+/**
+ * Listener told about every call into the prediction engine once the call completes, installed with
+ * Prediction.setEngineListener. Used to hand the shape and cost of each call to a monitoring system (for example to
+ * emit flight recorder events) without extra logging. The listener is called on the thread that made the call and
+ * should return quickly.
+ */
+public interface EngineListener
+{
+	/**
+	 * Called after a predict, predictContinue, update, or updateNextDatesOnly call completes.
+	 * @param call - the details of the call
+	 */
+	void predictionCompleted(PredictionCall call);
+
+	/**
+	 * Called after a solver (findGoalDateCompoundInterest, findContributionAmount and so on) returns.
+	 * @param call - the details of the call
+	 */
+	void solverCompleted(SolverCall call);
+}
@@ -0,0 +1,39 @@
+package com.erikartymiuk.badbudgetlogic.main;
+
+/**
+ * The concrete kinds of entity the prediction algorithm handles (the same grouping the registry uses plus the
+ * non account entities).
+ */
+public enum EntityKind
+{
+	plainAccount,
+	savingsAccount,
+	creditCard,
+	loan,
+	otherDebt,
+	gain,
+	loss,
+	transfer,
+	budgetItem;
+
+	/**
+	 * The kind of a debt.
+	 * @param debt - the debt
+	 * @return creditCard, loan, or otherDebt
+	 */
+	public static EntityKind of(MoneyOwed debt)
+	{
+		if (debt instanceof CreditCard)
+		{
+			return creditCard;
+		}
+		else if (debt instanceof Loan)
+		{
+			return loan;
+		}
+		else
+		{
+			return otherDebt;
+		}
+	}
+}
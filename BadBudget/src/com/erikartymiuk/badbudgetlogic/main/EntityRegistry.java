@@ -0,0 +1,346 @@
+package com.erikartymiuk.badbudgetlogic.main;
+
+import java.util.*;
+
+/**
+ * A registry of all the entities of a bad budget data object. Each entity is given a dense int id (its
+ * index in the typed array for its kind) and the typed arrays keep the order the entities were added to the
+ * bad budget data in. The registry is built by the bad budget data object on first use and is thrown away
+ * only when an entity is added or deleted, so the prediction algorithm and the analyze methods can iterate
+ * these arrays on every day without allocating and can key side tables (arrays) by id.
+ *
+ * The arrays returned by this class are shared and must not be modified by callers.
+ *
+ * Along with the arrays for each collection the registry also groups the entities by their concrete kind
+ * (plain accounts, savings accounts, credit cards, loans, and other debts) so that code wanting to treat
+ * each kind differently doesn't need to check the type of each entity.
+ */
+public class EntityRegistry
+{
+	private final Account[] accounts;	//All accounts, including savings accounts, in insertion order
+	private final MoneyOwed[] debts;	//All debts in insertion order
+	private final MoneyGain[] gains;
+	private final MoneyLoss[] losses;
+	private final MoneyTransfer[] transfers;
+
+	private final Account[] plainAccounts;				//Accounts that are not savings accounts
+	private final SavingsAccount[] savingsAccounts;
+	private final CreditCard[] creditCards;
+	private final Loan[] loans;
+	private final MoneyOwed[] otherDebts;				//Debts that are neither credit cards nor loans
+
+	private final Source[] sources;						//All accounts followed by all credit cards (the getSources order)
+
+	//Identity maps from entity to its id (index in the arrays above)
+	private final IdentityHashMap<Account, Integer> accountIds;
+	private final IdentityHashMap<MoneyOwed, Integer> debtIds;
+	private final IdentityHashMap<MoneyGain, Integer> gainIds;
+	private final IdentityHashMap<MoneyLoss, Integer> lossIds;
+	private final IdentityHashMap<MoneyTransfer, Integer> transferIds;
+	private final IdentityHashMap<Source, Integer> sourceIds;
+
+	//Sources by the name they were added to the bbd with. Accounts take precedence over credit cards with the same name.
+	private final HashMap<String, Source> sourcesByName;
+	private final HashMap<String, Source> sourcesByNameExcludeSavingAccounts;
+
+	/**
+	 * Package private constructor. Builds the arrays and id maps from the given bad budget data maps.
+	 * Should only be called by the bad budget data object that owns this registry.
+	 *
+	 * @param accountMap - the bbd's accounts by name
+	 * @param debtMap - the bbd's debts by name
+	 * @param gainMap - the bbd's gains by description
+	 * @param lossMap - the bbd's losses by description
+	 * @param transferMap - the bbd's transfers by description
+	 */
+	EntityRegistry(Map<String, Account> accountMap, Map<String, MoneyOwed> debtMap, Map<String, MoneyGain> gainMap,
+			Map<String, MoneyLoss> lossMap, Map<String, MoneyTransfer> transferMap)
+	{
+		this.accounts = accountMap.values().toArray(new Account[accountMap.size()]);
+		this.debts = debtMap.values().toArray(new MoneyOwed[debtMap.size()]);
+		this.gains = gainMap.values().toArray(new MoneyGain[gainMap.size()]);
+		this.losses = lossMap.values().toArray(new MoneyLoss[lossMap.size()]);
+		this.transfers = transferMap.values().toArray(new MoneyTransfer[transferMap.size()]);
+
+		ArrayList<Account> plain = new ArrayList<Account>();
+		ArrayList<SavingsAccount> savings = new ArrayList<SavingsAccount>();
+		for (Account account : this.accounts)
+		{
+			if (account instanceof SavingsAccount)
+			{
+				savings.add((SavingsAccount) account);
+			}
+			else
+			{
+				plain.add(account);
+			}
+		}
+		this.plainAccounts = plain.toArray(new Account[plain.size()]);
+		this.savingsAccounts = savings.toArray(new SavingsAccount[savings.size()]);
+
+		ArrayList<CreditCard> cards = new ArrayList<CreditCard>();
+		ArrayList<Loan> loanList = new ArrayList<Loan>();
+		ArrayList<MoneyOwed> others = new ArrayList<MoneyOwed>();
+		for (MoneyOwed debt : this.debts)
+		{
+			if (debt instanceof CreditCard)
+			{
+				cards.add((CreditCard) debt);
+			}
+			else if (debt instanceof Loan)
+			{
+				loanList.add((Loan) debt);
+			}
+			else
+			{
+				others.add(debt);
+			}
+		}
+		this.creditCards = cards.toArray(new CreditCard[cards.size()]);
+		this.loans = loanList.toArray(new Loan[loanList.size()]);
+		this.otherDebts = others.toArray(new MoneyOwed[others.size()]);
+
+		this.sources = new Source[this.accounts.length + this.creditCards.length];
+		System.arraycopy(this.accounts, 0, this.sources, 0, this.accounts.length);
+		System.arraycopy(this.creditCards, 0, this.sources, this.accounts.length, this.creditCards.length);
+
+		this.accountIds = indexOf(this.accounts);
+		this.debtIds = indexOf(this.debts);
+		this.gainIds = indexOf(this.gains);
+		this.lossIds = indexOf(this.losses);
+		this.transferIds = indexOf(this.transfers);
+		this.sourceIds = indexOf(this.sources);
+
+		this.sourcesByName = new HashMap<String, Source>();
+		this.sourcesByNameExcludeSavingAccounts = new HashMap<String, Source>();
+		for (Map.Entry<String, MoneyOwed> entry : debtMap.entrySet())
+		{
+			if (entry.getValue() instanceof CreditCard)
+			{
+				this.sourcesByName.put(entry.getKey(), (CreditCard) entry.getValue());
+				this.sourcesByNameExcludeSavingAccounts.put(entry.getKey(), (CreditCard) entry.getValue());
+			}
+		}
+		for (Map.Entry<String, Account> entry : accountMap.entrySet())
+		{
+			this.sourcesByName.put(entry.getKey(), entry.getValue());
+			if (!(entry.getValue() instanceof SavingsAccount))
+			{
+				this.sourcesByNameExcludeSavingAccounts.put(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Private helper that builds an identity map from each element of the array to its index.
+	 * @param array - the array to index
+	 * @return a map from each element to its index in the array
+	 */
+	private static <T> IdentityHashMap<T, Integer> indexOf(T[] array)
+	{
+		IdentityHashMap<T, Integer> ids = new IdentityHashMap<T, Integer>(array.length * 2);
+		for (int i = 0; i < array.length; i++)
+		{
+			ids.put(array[i], i);
+		}
+		return ids;
+	}
+
+	/**
+	 * Private helper returning the id in the given map or -1 if the entity isn't present.
+	 */
+	private static <T> int idIn(IdentityHashMap<T, Integer> ids, T entity)
+	{
+		Integer id = ids.get(entity);
+		if (id == null)
+		{
+			return -1;
+		}
+		else
+		{
+			return id;
+		}
+	}
+
+	/**
+	 * Builds a registry of some of this registry's entities, keeping their order. The subset isn't owned by any bbd
+	 * and ids in it are dense again, so they generally differ from this registry's ids.
+	 *
+	 * @param keepAccounts - which accounts to keep, by account id
+	 * @param keepDebts - which debts to keep, by debt id
+	 * @param keepGains - which gains to keep, by gain id
+	 * @param keepLosses - which losses to keep, by loss id
+	 * @param keepTransfers - which transfers to keep, by transfer id
+	 * @return the registry of the kept entities
+	 */
+	public EntityRegistry subset(boolean[] keepAccounts, boolean[] keepDebts, boolean[] keepGains, boolean[] keepLosses,
+			boolean[] keepTransfers)
+	{
+		LinkedHashMap<String, Account> accountMap = new LinkedHashMap<String, Account>();
+		for (int i = 0; i < this.accounts.length; i++)
+		{
+			if (keepAccounts[i])
+			{
+				accountMap.put(this.accounts[i].name(), this.accounts[i]);
+			}
+		}
+		LinkedHashMap<String, MoneyOwed> debtMap = new LinkedHashMap<String, MoneyOwed>();
+		for (int i = 0; i < this.debts.length; i++)
+		{
+			if (keepDebts[i])
+			{
+				debtMap.put(this.debts[i].name(), this.debts[i]);
+			}
+		}
+		LinkedHashMap<String, MoneyGain> gainMap = new LinkedHashMap<String, MoneyGain>();
+		for (int i = 0; i < this.gains.length; i++)
+		{
+			if (keepGains[i])
+			{
+				gainMap.put(this.gains[i].sourceDescription(), this.gains[i]);
+			}
+		}
+		LinkedHashMap<String, MoneyLoss> lossMap = new LinkedHashMap<String, MoneyLoss>();
+		for (int i = 0; i < this.losses.length; i++)
+		{
+			if (keepLosses[i])
+			{
+				lossMap.put(this.losses[i].expenseDescription(), this.losses[i]);
+			}
+		}
+		LinkedHashMap<String, MoneyTransfer> transferMap = new LinkedHashMap<String, MoneyTransfer>();
+		for (int i = 0; i < this.transfers.length; i++)
+		{
+			if (keepTransfers[i])
+			{
+				transferMap.put(this.transfers[i].getTransferDescription(), this.transfers[i]);
+			}
+		}
+		return new EntityRegistry(accountMap, debtMap, gainMap, lossMap, transferMap);
+	}
+
+	/*
+	 * Typed arrays (shared, do not modify)
+	 */
+
+	public Account[] accounts()
+	{
+		return this.accounts;
+	}
+
+	public MoneyOwed[] debts()
+	{
+		return this.debts;
+	}
+
+	public MoneyGain[] gains()
+	{
+		return this.gains;
+	}
+
+	public MoneyLoss[] losses()
+	{
+		return this.losses;
+	}
+
+	public MoneyTransfer[] transfers()
+	{
+		return this.transfers;
+	}
+
+	public Account[] plainAccounts()
+	{
+		return this.plainAccounts;
+	}
+
+	public SavingsAccount[] savingsAccounts()
+	{
+		return this.savingsAccounts;
+	}
+
+	public CreditCard[] creditCards()
+	{
+		return this.creditCards;
+	}
+
+	public Loan[] loans()
+	{
+		return this.loans;
+	}
+
+	public MoneyOwed[] otherDebts()
+	{
+		return this.otherDebts;
+	}
+
+	/**
+	 * All of the sources in this registry. Accounts come first (in the same order as accounts()) followed
+	 * by the credit cards (in the same order as creditCards()).
+	 * @return the sources in this registry
+	 */
+	public Source[] sources()
+	{
+		return this.sources;
+	}
+
+	/**
+	 * The source (account or credit card) added with the given name. If both an account and a credit card
+	 * have the name the account is returned.
+	 * @param name - the name of the source
+	 * @return the source with the name or null if there is none
+	 */
+	public Source sourceWithName(String name)
+	{
+		return this.sourcesByName.get(name);
+	}
+
+	/**
+	 * The source (non-savings account or credit card) added with the given name. If both a non-savings account
+	 * and a credit card have the name the account is returned.
+	 * @param name - the name of the source
+	 * @return the source with the name or null if there is none
+	 */
+	public Source sourceWithNameExcludeSavingAccounts(String name)
+	{
+		return this.sourcesByNameExcludeSavingAccounts.get(name);
+	}
+
+	/*
+	 * Ids, each returns -1 if the entity isn't part of this registry
+	 */
+
+	public int accountId(Account account)
+	{
+		return idIn(this.accountIds, account);
+	}
+
+	public int debtId(MoneyOwed debt)
+	{
+		return idIn(this.debtIds, debt);
+	}
+
+	public int gainId(MoneyGain gain)
+	{
+		return idIn(this.gainIds, gain);
+	}
+
+	public int lossId(MoneyLoss loss)
+	{
+		return idIn(this.lossIds, loss);
+	}
+
+	public int transferId(MoneyTransfer transfer)
+	{
+		return idIn(this.transferIds, transfer);
+	}
+
+	/**
+	 * The source id of an account or credit card (its index in sources()).
+	 * @param source - the source to get the id of
+	 * @return the source id or -1 if the source isn't part of this registry
+	 */
+	public int sourceId(Source source)
+	{
+		return idIn(this.sourceIds, source);
+	}
+}
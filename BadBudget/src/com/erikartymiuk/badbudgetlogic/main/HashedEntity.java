@@ -0,0 +1,244 @@
+package com.erikartymiuk.badbudgetlogic.main;
+
+import java.util.Date;
+
+/**
+ * Base of the budget model entities (accounts, debts, payments, contributions, gains, losses, transfers, the budget
+ * and its items). Each entity keeps a 64 bit hash of its model values (not its predict data) which its setters keep up
+ * to date by calling contentChanged. The hash is computed on first use, after that each change costs one recompute
+ * of the changed entity and is passed on to the entity's listener, which is how the hashes roll up into the collection
+ * and model roots of a bad budget data object.
+ *
+ * An entity has at most one listener. Owned entities (a debt's payment, a savings account's contribution, a budget's
+ * items) report to their owner, which as a listener itself simply recomputes its own hash.
+ */
+public abstract class HashedEntity implements ContentHashListener
+{
+	private static final long GOLDEN = 0x9E3779B97F4A7C15L;	//2^64 divided by the golden ratio, spreads small values
+	private static final long NULL_HASH = 0x6A09E667F3BCC908L;	//Stands in for null references and dates
+
+	private long contentHash;				//The hash of this entity's model values, only valid once hashed is true
+	private boolean hashed;					//Indicates if the hash has been computed yet
+	private ContentHashListener listener;	//Told when the hash changes, null if none
+
+	/**
+	 * Computes the hash of this entity's current model values. Subclasses extend the hash of their superclass and
+	 * include the content hash (not the identity) of any owned entity and the name of any entity they only refer to.
+	 * @return the hash of the entity's values
+	 */
+	protected abstract long computeContentHash();
+
+	/**
+	 * Returns the hash of this entity's model values. Entities with equal values (and equally valued owned entities)
+	 * have equal hashes.
+	 * @return the content hash of this entity
+	 */
+	public long contentHash()
+	{
+		if (!this.hashed)
+		{
+			this.contentHash = this.computeContentHash();
+			this.hashed = true;
+		}
+		return this.contentHash;
+	}
+
+	/**
+	 * Must be called after any change to a value the hash covers. Recomputes the hash and tells the listener if it
+	 * changed. Does nothing if the hash hasn't been asked for yet (no one can hold the old value).
+	 */
+	protected void contentChanged()
+	{
+		if (this.hashed)
+		{
+			long oldHash = this.contentHash;
+			long newHash = this.computeContentHash();
+			if (newHash != oldHash)
+			{
+				this.contentHash = newHash;
+				if (this.listener != null)
+				{
+					this.listener.contentHashChanged(this, oldHash, newHash);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Must be called after a change to this entity's name when it is a source. Entities that refer to a source hash
+	 * its name (see mix(long, Source)), so the bbd this entity belongs to rehashes each of them. Does nothing if the
+	 * entity isn't part of a bbd.
+	 */
+	protected void sourceRenamed()
+	{
+		if (this instanceof Source && this.listener instanceof BadBudgetData)
+		{
+			((BadBudgetData) this.listener).sourceRenamed((Source) this);
+		}
+	}
+
+	/**
+	 * An owned entity of this one changed. Its hash is part of this entity's hash so this one changes too.
+	 * @param entity - the owned entity that changed
+	 * @param oldHash - its hash before the change
+	 * @param newHash - its hash now
+	 */
+	public void contentHashChanged(HashedEntity entity, long oldHash, long newHash)
+	{
+		this.contentChanged();
+	}
+
+	public ContentHashListener getContentHashListener()
+	{
+		return this.listener;
+	}
+
+	/**
+	 * Sets the listener told about changes to this entity's hash, replacing any previous one. The hash is computed if
+	 * it hasn't been yet so the listener can rely on it.
+	 * @param listener - the new listener, null for none
+	 */
+	public void setContentHashListener(ContentHashListener listener)
+	{
+		this.contentHash();
+		this.listener = listener;
+	}
+
+	/**
+	 * Makes this entity the listener of an owned entity, replacing the previous owned entity (which stops reporting
+	 * here). Either may be null.
+	 * @param previous - the entity being replaced
+	 * @param owned - the entity now owned
+	 */
+	protected void adopt(HashedEntity previous, HashedEntity owned)
+	{
+		if (previous != null && previous != owned && previous.getContentHashListener() == this)
+		{
+			previous.setContentHashListener(null);
+		}
+		if (owned != null)
+		{
+			owned.setContentHashListener(this);
+		}
+	}
+
+	/*
+	 * Hash building helpers
+	 */
+
+	/**
+	 * Finalizes a hash so that every input bit affects every output bit (the MurmurHash3 64 bit finalizer). Roll ups
+	 * add the scattered hashes of their entities so that the order of a collection doesn't matter and a changed
+	 * entity can be swapped in and out in constant time.
+	 * @param h - the value to scatter
+	 * @return the scattered value
+	 */
+	public static long scatter(long h)
+	{
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	/**
+	 * Combines a running hash with the next value.
+	 * @param hash - the hash so far
+	 * @param value - the value to add to it
+	 * @return the combined hash
+	 */
+	public static long mix(long hash, long value)
+	{
+		return scatter(hash * GOLDEN + value);
+	}
+
+	public static long mix(long hash, double value)
+	{
+		return mix(hash, Double.doubleToLongBits(value));
+	}
+
+	public static long mix(long hash, boolean value)
+	{
+		if (value)
+		{
+			return mix(hash, 1L);
+		}
+		else
+		{
+			return mix(hash, 0L);
+		}
+	}
+
+	public static long mix(long hash, Date value)
+	{
+		if (value == null)
+		{
+			return mix(hash, NULL_HASH);
+		}
+		else
+		{
+			return mix(hash, value.getTime());
+		}
+	}
+
+	/**
+	 * Combines a running hash with a string, 64 bits (FNV-1a) rather than String.hashCode's 32.
+	 * @param hash - the hash so far
+	 * @param value - the string, may be null
+	 * @return the combined hash
+	 */
+	public static long mix(long hash, String value)
+	{
+		if (value == null)
+		{
+			return mix(hash, NULL_HASH);
+		}
+		long h = 0xCBF29CE484222325L;
+		for (int i = 0; i < value.length(); i++)
+		{
+			h ^= value.charAt(i);
+			h *= 0x100000001B3L;
+		}
+		return mix(hash, h);
+	}
+
+	/**
+	 * Combines a running hash with an enum constant (by name so the hash doesn't depend on declaration order).
+	 * @param hash - the hash so far
+	 * @param value - the constant, may be null
+	 * @return the combined hash
+	 */
+	public static long mix(long hash, Enum<?> value)
+	{
+		if (value == null)
+		{
+			return mix(hash, NULL_HASH);
+		}
+		else
+		{
+			return mix(hash, value.name());
+		}
+	}
+
+	/**
+	 * Combines a running hash with a referenced source (by kind and name, a reference isn't owned). A source's bbd
+	 * rehashes the entities referring to it when it is renamed (see sourceRenamed). The kind tells an account from a
+	 * credit card of the same name, so moving a reference between them is reported as a change.
+	 * @param hash - the hash so far
+	 * @param value - the referenced source, may be null
+	 * @return the combined hash
+	 */
+	public static long mix(long hash, Source value)
+	{
+		if (value == null)
+		{
+			return mix(hash, NULL_HASH);
+		}
+		else
+		{
+			return mix(mix(hash, value instanceof CreditCard), value.name());
+		}
+	}
+}
@@ -39,27 +39,13 @@ public class Loan extends MoneyOwed
 		}
 		else
 		{
-			String message = "";
-			switch (error)
-			{
-				case 1:
-				{
-					message = BadBudgetInvalidValueException.LOAN_PRINCIPAL_GREATER_DEBT;
-					break;
-				}
-				default:
-				{
-					message = BadBudgetInvalidValueException.UNKNOWN_UNDEFINED;
-					break;
-				}
-			}
-			throw new BadBudgetInvalidValueException(message);
+			throw new BadBudgetInvalidValueException(messageFor(error));
 		}
 	}
 	
 	/**
-	 * Private helper mehtod that verifies the values for loan specific debt values.
-	 * Super should be used to check values of generic debts.
+	 * Helper method that verifies the values for loan specific debt values.
+	 * MoneyOwed.verifyValues should be used to check values of generic debts.
 	 * 
 	 * 		0 - Values are good
 	 * 		1 - Loan is a simple interest loan and the principal amount is greater (strict) than the debt amount
@@ -69,7 +55,7 @@ public class Loan extends MoneyOwed
 	 * @param principalBalance
 	 * @return - an error code indicating various errors of loan specific debt values.
 	 */
-	private int verifyValues(double debt, boolean simpleInterest, double principalBalance)
+	public static int verifyValues(double debt, boolean simpleInterest, double principalBalance)
 	{
 		if (simpleInterest && principalBalance > debt)
 		{
@@ -77,6 +63,30 @@ public class Loan extends MoneyOwed
 		}
 		return 0;
 	}
+	
+	/**
+	 * Returns the exception message for an error code returned by verifyValues.
+	 * @param error - the error code
+	 * @return the message for the error
+	 */
+	public static String messageFor(int error)
+	{
+		String message = "";
+		switch (error)
+		{
+			case 1:
+			{
+				message = BadBudgetInvalidValueException.LOAN_PRINCIPAL_GREATER_DEBT;
+				break;
+			}
+			default:
+			{
+				message = BadBudgetInvalidValueException.UNKNOWN_UNDEFINED;
+				break;
+			}
+		}
+		return message;
+	}
 
 	public boolean isSimpleInterest() {
 		return simpleInterest;
@@ -84,6 +94,7 @@ public class Loan extends MoneyOwed
 
 	public void setSimpleInterest(boolean simpleInterest) {
 		this.simpleInterest = simpleInterest;
+		this.contentChanged();
 	}
 
 	public double getPrincipalBalance() {
@@ -92,6 +103,7 @@ public class Loan extends MoneyOwed
 
 	public void setPrincipalBalance(double principalBalance) {
 		this.principalBalance = principalBalance;
+		this.contentChanged();
 	}
 
 	public double getInterestAmount() {
@@ -100,6 +112,7 @@ public class Loan extends MoneyOwed
 
 	public void setInterestAmount(double interestAmount) {
 		this.interestAmount = interestAmount;
+		this.contentChanged();
 	}
 	
 	/**
@@ -146,13 +159,41 @@ public class Loan extends MoneyOwed
 	 */
 	public void update(Date predictEndDate, int dayIndex)
 	{
-		super.update(predictEndDate, dayIndex);
 		PredictDataLoan pdl = this.getPredictData(dayIndex);
+		this.update(predictEndDate, pdl.value(), pdl.getNextPaymentDate(), pdl.getPrincipal(), pdl.getInterest());
+	}
+	
+	/**
+	 * Updates this loan to the given end state of a prediction without reading any predict data rows.
+	 * 
+	 * @param predictEndDate - the date our prediction algorithm ends
+	 * @param amount - the amount of this loan on the end date
+	 * @param nextPaymentDate - the next payment date on the end date (ignored if this loan has no payment)
+	 * @param principal - the principal balance on the end date
+	 * @param interest - the interest owed on the end date
+	 */
+	public void update(Date predictEndDate, double amount, Date nextPaymentDate, double principal, double interest)
+	{
+		super.update(predictEndDate, amount, nextPaymentDate);
 		
-		double uPrincipal = pdl.getPrincipal();
-		double uInterest = pdl.getInterest();
+		double uPrincipal = principal;
+		double uInterest = interest;
 		
 		this.principalBalance = uPrincipal;
 		this.interestAmount = uInterest;
+		this.contentChanged();
+	}
+	
+	/**
+	 * Extends the debt hash with the simple interest setting and the principal and interest balances.
+	 * @return the hash of this loan's values
+	 */
+	protected long computeContentHash()
+	{
+		long hash = super.computeContentHash();
+		hash = mix(hash, this.simpleInterest);
+		hash = mix(hash, this.principalBalance);
+		hash = mix(hash, this.interestAmount);
+		return hash;
 	}
 }
@@ -9,7 +9,7 @@ import com.erikartymiuk.badbudgetlogic.predictdataclasses.PredictDataMoneyOwed;
  * Examples include a regular paycheck, a one time financial aid refund,
  * etc.
  */
-public class MoneyGain 
+public class MoneyGain extends HashedEntity
 {
 	private String source; //String description of where the money is coming from
 	private double amount; //How much is being gained
@@ -52,51 +52,7 @@ public class MoneyGain
 		}
 		else
 		{
-			String errorMessage = "";
-			switch (errorCode)
-			{
-				case 1:
-				{
-					errorMessage = BadBudgetInvalidValueException.GAIN_SOURCE_NOT_SET_E1;
-					break;
-				}
-				case 2:
-				{
-					errorMessage = BadBudgetInvalidValueException.GAIN_AMOUNT_NEGATIVE_E2;
-					break;
-				}
-				case 3:
-				{
-					errorMessage = BadBudgetInvalidValueException.GAIN_FREQUENCY_NOT_SET_E3;
-					break;
-				}
-				case 5:
-				{
-					errorMessage = BadBudgetInvalidValueException.GAIN_ONETIME_END_NULL_E5;
-					break;
-				}
-				case 7:
-				{
-					errorMessage = BadBudgetInvalidValueException.GAIN_NEXT_DEPOSIT_NULL_NOT_ONE_TIME_E7;
-					break;
-				}
-				case 8:
-				{
-					errorMessage = BadBudgetInvalidValueException.GAIN_ONE_TIME_NEXT_DEPOSIT_MISMATCH_END_E8;
-					break;
-				}
-				case 6:
-				{
-					errorMessage = BadBudgetInvalidValueException.GAIN_DESTINATION_NOT_SET_E6;
-					break;
-				}
-				default:
-				{
-					errorMessage = BadBudgetInvalidValueException.UNKNOWN_UNDEFINED;
-					break;
-				}
-			}
-			throw new BadBudgetInvalidValueException(errorMessage);
+			throw new BadBudgetInvalidValueException(messageFor(errorCode));
 		}
 	}
 	
@@ -156,6 +112,60 @@ public class MoneyGain
 		}
 	}
 	
+	/**
+	 * Returns the exception message for an error code returned by verifyValues.
+	 * @param errorCode - the error code
+	 * @return the message for the error
+	 */
+	public static String messageFor(int errorCode)
+	{
+		String errorMessage = "";
+		switch (errorCode)
+		{
+			case 1:
+			{
+				errorMessage = BadBudgetInvalidValueException.GAIN_SOURCE_NOT_SET_E1;
+				break;
+			}
+			case 2:
+			{
+				errorMessage = BadBudgetInvalidValueException.GAIN_AMOUNT_NEGATIVE_E2;
+				break;
+			}
+			case 3:
+			{
+				errorMessage = BadBudgetInvalidValueException.GAIN_FREQUENCY_NOT_SET_E3;
+				break;
+			}
+			case 5:
+			{
+				errorMessage = BadBudgetInvalidValueException.GAIN_ONETIME_END_NULL_E5;
+				break;
+			}
+			case 7:
+			{
+				errorMessage = BadBudgetInvalidValueException.GAIN_NEXT_DEPOSIT_NULL_NOT_ONE_TIME_E7;
+				break;
+			}
+			case 8:
+			{
+				errorMessage = BadBudgetInvalidValueException.GAIN_ONE_TIME_NEXT_DEPOSIT_MISMATCH_END_E8;
+				break;
+			}
+			case 6:
+			{
+				errorMessage = BadBudgetInvalidValueException.GAIN_DESTINATION_NOT_SET_E6;
+				break;
+			}
+			default:
+			{
+				errorMessage = BadBudgetInvalidValueException.UNKNOWN_UNDEFINED;
+				break;
+			}
+		}
+		return errorMessage;
+	}
+	
 	/**
 	 * Processes the next deposit. Takes the amount of the money gain and deposits it
 	 * into the destination account. Updates the next deposit date using the frequency.
@@ -165,6 +175,7 @@ public class MoneyGain
 	{
 		this.destination.deposit(this.amount);
 		this.nextDeposit = this.calculateNextDeposit(this.nextDeposit);
+		this.contentChanged();
 	}
 	
 	/**
@@ -281,31 +292,37 @@ public class MoneyGain
 	public void setSourceDescription(String s)
 	{
 		this.source = s;
+		this.contentChanged();
 	}
 	
 	public void setGainAmount(double amount)
 	{
 		this.amount = amount;
+		this.contentChanged();
 	}
 	
 	public void setGainFrequency(Frequency f)
 	{
 		this.frequency = f;
+		this.contentChanged();
 	}
 	
 	public void setEndDate(Date end)
 	{
 		this.endDate = end;
+		this.contentChanged();
 	}
 	
 	public void setDestination(Account d)
 	{
 		this.destination = d;
+		this.contentChanged();
 	}
 	
 	public void setNextDeposit(Date next)
 	{
 		this.nextDeposit = next;
+		this.contentChanged();
 	}
 	
 	/**
@@ -327,6 +344,7 @@ public class MoneyGain
 	{
 		PredictDataMoneyGain pdmg = this.getPredictData(dayIndex);
 		this.nextDeposit = pdmg.nextDeposit();
+		this.contentChanged();
 	}
 	
 	/**
@@ -337,6 +355,22 @@ public class MoneyGain
 	{
 		PredictDataMoneyGain pdmg = this.getPredictData(dayIndex);
 		this.nextDeposit = pdmg.nextDeposit();
+		this.contentChanged();
+	}
+
+	/**
+	 * Hashes this gain's values and the name of its destination account.
+	 * @return the hash of this gain's values
+	 */
+	protected long computeContentHash()
+	{
+		long hash = mix(0L, this.source);
+		hash = mix(hash, this.amount);
+		hash = mix(hash, this.frequency);
+		hash = mix(hash, this.endDate);
+		hash = mix(hash, this.destination);
+		hash = mix(hash, this.nextDeposit);
+		return hash;
 	}
 
 }
@@ -12,7 +12,7 @@ import com.erikartymiuk.badbudgetlogic.predictdataclasses.PredictDataMoneyOwed;
  * a credit card. A budget item is a type of loss but if it well be tracked it should
  * be a member of the budgetItem class. This class is similar to a money gain object
  */
-public class MoneyLoss 
+public class MoneyLoss extends HashedEntity
 {
 	private String expense; //Description of the loss
 	private double amount;	//How much the loss is
@@ -54,45 +54,7 @@ public class MoneyLoss
 		}
 		else
 		{
-			String errorMessage = "";
-			switch (errorCode)
-			{
-				case 1:
-				{
-					errorMessage = BadBudgetInvalidValueException.LOSS_EXPENSE_NOT_SET_E1;
-					break;
-				}
-				case 2:
-				{
-					errorMessage = BadBudgetInvalidValueException.LOSS_AMOUNT_NEGATIVE_E2;
-					break;
-				}
-				case 5:
-				{
-					errorMessage = BadBudgetInvalidValueException.LOSS_ONE_TIME_END_DATE_NULL_E5;
-					break;
-				}
-				case 7:
-				{
-					errorMessage = BadBudgetInvalidValueException.LOSS_NEXT_LOSS_NULL_NOT_ONE_TIME_E7;
-					break;
-				}
-				case 8:
-				{
-					errorMessage = BadBudgetInvalidValueException.LOSS_NEXT_LOSS_END_DATE_MISMATCH_E8;
-				}
-				case 6:
-				{
-					errorMessage = BadBudgetInvalidValueException.LOSS_SOURCE_NOT_SET_E6;
-					break;
-				}
-				default:
-				{
-					errorMessage = BadBudgetInvalidValueException.UNKNOWN_UNDEFINED;
-					break;
-				}
-			}
-			throw new BadBudgetInvalidValueException(errorMessage);
+			throw new BadBudgetInvalidValueException(messageFor(errorCode));
 		}
 	}
 	
@@ -148,6 +110,54 @@ public class MoneyLoss
 		}
 	}
 	
+	/**
+	 * Returns the exception message for an error code returned by verifyValues.
+	 * @param errorCode - the error code
+	 * @return the message for the error
+	 */
+	public static String messageFor(int errorCode)
+	{
+		String errorMessage = "";
+		switch (errorCode)
+		{
+			case 1:
+			{
+				errorMessage = BadBudgetInvalidValueException.LOSS_EXPENSE_NOT_SET_E1;
+				break;
+			}
+			case 2:
+			{
+				errorMessage = BadBudgetInvalidValueException.LOSS_AMOUNT_NEGATIVE_E2;
+				break;
+			}
+			case 5:
+			{
+				errorMessage = BadBudgetInvalidValueException.LOSS_ONE_TIME_END_DATE_NULL_E5;
+				break;
+			}
+			case 7:
+			{
+				errorMessage = BadBudgetInvalidValueException.LOSS_NEXT_LOSS_NULL_NOT_ONE_TIME_E7;
+				break;
+			}
+			case 8:
+			{
+				errorMessage = BadBudgetInvalidValueException.LOSS_NEXT_LOSS_END_DATE_MISMATCH_E8;
+			}
+			case 6:
+			{
+				errorMessage = BadBudgetInvalidValueException.LOSS_SOURCE_NOT_SET_E6;
+				break;
+			}
+			default:
+			{
+				errorMessage = BadBudgetInvalidValueException.UNKNOWN_UNDEFINED;
+				break;
+			}
+		}
+		return errorMessage;
+	}
+	
 	/**
 	 * Indicates if the nextLoss occurs on the given day.
 	 * 
@@ -181,6 +191,7 @@ public class MoneyLoss
 	{
 		//this.source.predictWithdrawOnDay(this.amount, this.nextLoss, this.expense);
 		this.nextLoss = this.calculateNextLoss(this.nextLoss);
+		this.contentChanged();
 	}
 	
 	/** Using the given loss date and the frequency of this object returns what the next loss
@@ -294,31 +305,37 @@ public class MoneyLoss
 	public void setExpenseDescription(String e)
 	{
 		this.expense = e;
+		this.contentChanged();
 	}
 	
 	public void setLossAmount(double amount)
 	{
 		this.amount = amount;
+		this.contentChanged();
 	}
 	
 	public void setLossFrequency(Frequency f)
 	{
 		this.frequency = f;
+		this.contentChanged();
 	}
 	
 	public void setEndDate(Date end)
 	{
 		this.endDate = end;
+		this.contentChanged();
 	}
 	
 	public void setSource(Source s)
 	{
 		this.source = s;
+		this.contentChanged();
 	}
 	
 	public void setNextLoss(Date next)
 	{
 		this.nextLoss = next;
+		this.contentChanged();
 	}
 	
 	/**
@@ -340,6 +357,7 @@ public class MoneyLoss
 	{
 		PredictDataMoneyLoss pdml = this.getPredictData(dayIndex);
 		this.nextLoss = pdml.nextLoss();
+		this.contentChanged();
 	}
 
 	/**
@@ -350,5 +368,22 @@ public class MoneyLoss
 	{
 		PredictDataMoneyLoss pdml = this.getPredictData(dayIndex);
 		this.nextLoss = pdml.nextLoss();
+		this.contentChanged();
+	}
+	
+	/**
+	 * Hashes this loss's kind, values, and the name of its source.
+	 * @return the hash of this loss's values
+	 */
+	protected long computeContentHash()
+	{
+		long hash = mix(0L, this.getClass().getName());
+		hash = mix(hash, this.expense);
+		hash = mix(hash, this.amount);
+		hash = mix(hash, this.frequency);
+		hash = mix(hash, this.endDate);
+		hash = mix(hash, this.nextLoss);
+		hash = mix(hash, this.source);
+		return hash;
 	}
 }
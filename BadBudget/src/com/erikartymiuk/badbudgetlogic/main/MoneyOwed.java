@@ -11,7 +11,7 @@ import com.erikartymiuk.badbudgetlogic.predictdataclasses.*;
  * All other moneyOwed objects (classified as other or misc. to the user) should
  * be using this class directly
  */
-public class MoneyOwed {
+public class MoneyOwed extends HashedEntity {
 	
 	private double interestRate;
 		
@@ -48,31 +48,7 @@ public class MoneyOwed {
 		}
 		else
 		{
-			String message = "";
-			switch (error)
-			{
-				case 1:
-				{
-					message = BadBudgetInvalidValueException.MONEY_OWED_NAME_INVALID;
-					break;
-				}
-				case 2:
-				{
-					message = BadBudgetInvalidValueException.MONEY_OWED_AMOUNT_INVALID;
-					break;
-				}
-				case 3:
-				{
-					message = BadBudgetInvalidValueException.MONEY_OWED_NEGATIVE_INTEREST_RATE;
-					break;
-				}
-				default:
-				{
-					message = BadBudgetInvalidValueException.UNKNOWN_UNDEFINED;
-					break;
-				}
-			}
-			throw new BadBudgetInvalidValueException(message);
+			throw new BadBudgetInvalidValueException(messageFor(error));
 		}
 	}
 	
@@ -110,6 +86,40 @@ public class MoneyOwed {
 		return 0;
 	}
 	
+	/**
+	 * Returns the exception message for an error code returned by verifyValues.
+	 * @param error - the error code
+	 * @return the message for the error
+	 */
+	public static String messageFor(int error)
+	{
+		String message = "";
+		switch (error)
+		{
+			case 1:
+			{
+				message = BadBudgetInvalidValueException.MONEY_OWED_NAME_INVALID;
+				break;
+			}
+			case 2:
+			{
+				message = BadBudgetInvalidValueException.MONEY_OWED_AMOUNT_INVALID;
+				break;
+			}
+			case 3:
+			{
+				message = BadBudgetInvalidValueException.MONEY_OWED_NEGATIVE_INTEREST_RATE;
+				break;
+			}
+			default:
+			{
+				message = BadBudgetInvalidValueException.UNKNOWN_UNDEFINED;
+				break;
+			}
+		}
+		return message;
+	}
+	
 	/**
 	 * Adds the given row to this debt objects predict data list (at the end)
 	 * 
@@ -171,7 +181,9 @@ public class MoneyOwed {
 			}
 			else
 			{
+				this.adopt(this.payment, p);
 				this.payment = p;
+				this.contentChanged();
 			}
 		}
 	}
@@ -182,7 +194,9 @@ public class MoneyOwed {
 	 */
 	public void removePayment()
 	{
+		this.adopt(this.payment, null);
 		this.payment = null;
+		this.contentChanged();
 	}
 	
 	/* Getters and setters */
@@ -200,11 +214,14 @@ public class MoneyOwed {
 	public void changeName(String newName)
 	{
 		this.name = newName;
+		this.contentChanged();
+		this.sourceRenamed();
 	}
 	
 	public void changeAmount(double newAmount)
 	{
 		this.debtAmount = newAmount;
+		this.contentChanged();
 	}
 	
 	public Payment payment()
@@ -219,6 +236,7 @@ public class MoneyOwed {
 	public void setQuicklook(boolean quicklook)
 	{
 		this.quicklook = quicklook;
+		this.contentChanged();
 	}
 	
 	/**
@@ -248,6 +266,7 @@ public class MoneyOwed {
 	public void setInterestRate(double interestRate)
 	{
 		this.interestRate = interestRate;
+		this.contentChanged();
 	}
 	
 	/**
@@ -262,12 +281,26 @@ public class MoneyOwed {
 	public void update(Date predictEndDate, int dayIndex)
 	{
 		PredictDataMoneyOwed pdmo = this.predictDataRows.get(dayIndex);
-		double uAmount = pdmo.value();
+		this.update(predictEndDate, pdmo.value(), pdmo.getNextPaymentDate());
+	}
+	
+	/**
+	 * Updates this debt to the given end state of a prediction without reading any predict data rows.
+	 * If a goal is set it is assumed to still be valid (overridden in the creditCard class).
+	 * 
+	 * @param predictEndDate - the date our prediction algorithm ends. Any interest calculations treat this + 1 day as the start date.
+	 * @param amount - the amount of this debt on the end date
+	 * @param nextPaymentDate - the next payment date on the end date (ignored if this debt has no payment)
+	 */
+	public void update(Date predictEndDate, double amount, Date nextPaymentDate)
+	{
+		double uAmount = amount;
 		this.debtAmount = uAmount;
+		this.contentChanged();
 		
 		if (payment != null)
 		{
-			Date uNextPaymentDate = pdmo.getNextPaymentDate();
+			Date uNextPaymentDate = nextPaymentDate;
 			payment.setNextPaymentDate(uNextPaymentDate);
 			
 			//Removed 3/16/2017 - code was to check if goal was still valid after the amount was updated. Now it
@@ -296,11 +329,21 @@ public class MoneyOwed {
 	public void updateNextDatesOnly(int dayIndex)
 	{
 		PredictDataMoneyOwed pdmo = this.predictDataRows.get(dayIndex);
+		this.updateNextDatesOnly(pdmo.getNextPaymentDate());
+	}
+	
+	/**
+	 * Updates this debts next payment date without reading any predict data rows. This applies only if
+	 * the debt has a payment associated with it. If the payment has a goal date it is cleared
+	 * @param nextPaymentDate - the next payment date after the update
+	 */
+	public void updateNextDatesOnly(Date nextPaymentDate)
+	{
 		double uAmount = this.debtAmount;
 		
 		if (payment != null)
 		{
-			Date uNextPaymentDate = pdmo.getNextPaymentDate();
+			Date uNextPaymentDate = nextPaymentDate;
 			payment.setNextPaymentDate(uNextPaymentDate);
 			
 			//Goal is likely no longer valid since we are not updating the amounts
@@ -321,4 +364,26 @@ public class MoneyOwed {
 		}
 	}
 
+	/**
+	 * Hashes this debt's kind, name, amount, quicklook setting, interest rate and the hash of its payment.
+	 * @return the hash of this debt's values
+	 */
+	protected long computeContentHash()
+	{
+		long hash = mix(0L, this.getClass().getName());
+		hash = mix(hash, this.name);
+		hash = mix(hash, this.debtAmount);
+		hash = mix(hash, this.quicklook);
+		hash = mix(hash, this.interestRate);
+		if (this.payment != null)
+		{
+			hash = mix(hash, this.payment.contentHash());
+		}
+		else
+		{
+			hash = mix(hash, (Date) null);
+		}
+		return hash;
+	}
+
 }
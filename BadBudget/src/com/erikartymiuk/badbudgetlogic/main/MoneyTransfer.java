@@ -13,7 +13,7 @@ import com.erikartymiuk.badbudgetlogic.predictdataclasses.PredictDataMoneyTransf
  * @author Erik Artymiuk
  *
  */
-public class MoneyTransfer {
+public class MoneyTransfer extends HashedEntity {
 	
 	private String transferDescription; //a unique description for this transfer
 	
@@ -60,60 +60,7 @@ public class MoneyTransfer {
 		}
 		else
 		{
-			String errorMessage = "";
-			switch (errorCode)
-			{
-				case 1:
-				{
-					errorMessage = BadBudgetInvalidValueException.TRANSFER_SOURCE_NOT_SET_E1;
-					break;
-				}
-				case 2:
-				{
-					errorMessage = BadBudgetInvalidValueException.TRANSFER_DESTINATION_NOT_SET_E2;
-					break;
-				}
-				case 3:
-				{
-					errorMessage = BadBudgetInvalidValueException.TRANSFER_CONTRIBUTION_RESERVED_E3;
-					break;
-				}
-				case 4:
-				{
-					errorMessage = BadBudgetInvalidValueException.TRANSFER_AMOUNT_NEGATIVE_E4;
-					break;
-				}
-				case 5:
-				{
-					errorMessage = BadBudgetInvalidValueException.TRANSFER_FREQUENCY_NOT_SET_E5;
-					break;
-				}
-				case 6:
-				{
-					errorMessage = BadBudgetInvalidValueException.TRANSFER_ONETIME_END_NULL_E6;
-					break;
-				}
-				case 7:
-				{
-					errorMessage = BadBudgetInvalidValueException.TRANSFER_NEXT_DEPOSIT_NULL_NOT_ONE_TIME_E7;
-					break;
-				}
-				case 8:
-				{
-					errorMessage = BadBudgetInvalidValueException.TRANSFER_ONE_TIME_NEXT_DEPOSIT_MISMATCH_END_E8;
-				}
-				case 9:
-				{
-					errorMessage = BadBudgetInvalidValueException.TRANSFER_DESCRIPTION_NOT_SET_E9;
-					break;
-				}
-				default:
-				{
-					errorMessage = BadBudgetInvalidValueException.UNKNOWN_UNDEFINED;
-					break;
-				}
-			}
-			throw new BadBudgetInvalidValueException(errorMessage);
+			throw new BadBudgetInvalidValueException(messageFor(errorCode));
 		}
 	}
 	
@@ -123,6 +70,7 @@ public class MoneyTransfer {
 
 	public void setTransferDescription(String transferDescription) {
 		this.transferDescription = transferDescription;
+		this.contentChanged();
 	}
 
 	/**
@@ -192,6 +140,69 @@ public class MoneyTransfer {
 		}
 	}
 	
+	/**
+	 * Returns the exception message for an error code returned by verifyValues.
+	 * @param errorCode - the error code
+	 * @return the message for the error
+	 */
+	public static String messageFor(int errorCode)
+	{
+		String errorMessage = "";
+		switch (errorCode)
+		{
+			case 1:
+			{
+				errorMessage = BadBudgetInvalidValueException.TRANSFER_SOURCE_NOT_SET_E1;
+				break;
+			}
+			case 2:
+			{
+				errorMessage = BadBudgetInvalidValueException.TRANSFER_DESTINATION_NOT_SET_E2;
+				break;
+			}
+			case 3:
+			{
+				errorMessage = BadBudgetInvalidValueException.TRANSFER_CONTRIBUTION_RESERVED_E3;
+				break;
+			}
+			case 4:
+			{
+				errorMessage = BadBudgetInvalidValueException.TRANSFER_AMOUNT_NEGATIVE_E4;
+				break;
+			}
+			case 5:
+			{
+				errorMessage = BadBudgetInvalidValueException.TRANSFER_FREQUENCY_NOT_SET_E5;
+				break;
+			}
+			case 6:
+			{
+				errorMessage = BadBudgetInvalidValueException.TRANSFER_ONETIME_END_NULL_E6;
+				break;
+			}
+			case 7:
+			{
+				errorMessage = BadBudgetInvalidValueException.TRANSFER_NEXT_DEPOSIT_NULL_NOT_ONE_TIME_E7;
+				break;
+			}
+			case 8:
+			{
+				errorMessage = BadBudgetInvalidValueException.TRANSFER_ONE_TIME_NEXT_DEPOSIT_MISMATCH_END_E8;
+			}
+			case 9:
+			{
+				errorMessage = BadBudgetInvalidValueException.TRANSFER_DESCRIPTION_NOT_SET_E9;
+				break;
+			}
+			default:
+			{
+				errorMessage = BadBudgetInvalidValueException.UNKNOWN_UNDEFINED;
+				break;
+			}
+		}
+		return errorMessage;
+	}
+	
 	/**
 	 * Calculate the next transfer date using the given last transfer date and this
 	 * money transfer's frequency.
@@ -278,6 +289,7 @@ public class MoneyTransfer {
 
 	public void setSource(Account source) {
 		this.source = source;
+		this.contentChanged();
 	}
 
 	public Account getDestination() {
@@ -286,6 +298,7 @@ public class MoneyTransfer {
 
 	public void setDestination(Account destination) {
 		this.destination = destination;
+		this.contentChanged();
 	}
 
 	public double getAmount() {
@@ -294,6 +307,7 @@ public class MoneyTransfer {
 
 	public void setAmount(double amount) {
 		this.amount = amount;
+		this.contentChanged();
 	}
 
 	public Frequency getFrequency() {
@@ -302,6 +316,7 @@ public class MoneyTransfer {
 
 	public void setFrequency(Frequency frequency) {
 		this.frequency = frequency;
+		this.contentChanged();
 	}
 
 	public Date getNextTransfer() {
@@ -310,6 +325,7 @@ public class MoneyTransfer {
 
 	public void setNextTransfer(Date nextTransfer) {
 		this.nextTransfer = nextTransfer;
+		this.contentChanged();
 	}
 
 	public Date getEndDate() {
@@ -318,6 +334,7 @@ public class MoneyTransfer {
 
 	public void setEndDate(Date endDate) {
 		this.endDate = endDate;
+		this.contentChanged();
 	}
 	
 	/**
@@ -339,6 +356,7 @@ public class MoneyTransfer {
 	{
 		PredictDataMoneyTransfer pdmt = this.getPredictData(dayIndex);
 		this.nextTransfer = pdmt.nextTransfer();
+		this.contentChanged();
 	}
 	
 	/**
@@ -349,5 +367,22 @@ public class MoneyTransfer {
 	{
 		PredictDataMoneyTransfer pdmt = this.getPredictData(dayIndex);
 		this.nextTransfer = pdmt.nextTransfer();
+		this.contentChanged();
+	}
+	
+	/**
+	 * Hashes this transfer's values and the names of its source and destination accounts.
+	 * @return the hash of this transfer's values
+	 */
+	protected long computeContentHash()
+	{
+		long hash = mix(0L, this.transferDescription);
+		hash = mix(hash, this.source);
+		hash = mix(hash, this.destination);
+		hash = mix(hash, this.amount);
+		hash = mix(hash, this.frequency);
+		hash = mix(hash, this.nextTransfer);
+		hash = mix(hash, this.endDate);
+		return hash;
 	}
 }
@@ -4,7 +4,7 @@ import java.util.*;
 /**
  *  Class representing various payments for any debt accounts (money owed) 
  */
-public class Payment 
+public class Payment extends HashedEntity
 {	
 	private double amount; //payment amount: will pay up to this amount on the next payment date. must be a positive
 	  						//value unless payoff is set, in which case must be set to -1.
@@ -64,99 +64,49 @@ public class Payment
 		}
 		else
 		{
-			String errorMessage = "";
-			switch (errorCode)
-			{
-				case 1:
-				{
-					errorMessage = BadBudgetInvalidValueException.PAYMENT_E1;
-					break;
-				}
-				case 2:
-				{
-					errorMessage = BadBudgetInvalidValueException.PAYMENT_E2;
-					break;
-				}
-				case 3:
-				{
-					errorMessage = BadBudgetInvalidValueException.PAYMENT_E3;
-					break;
-				}
-				case 4:
-				{
-					errorMessage = BadBudgetInvalidValueException.PAYMENT_E4;
-					break;
-				}
-				case 5:
-				{
-					errorMessage = BadBudgetInvalidValueException.PAYMENT_E5;
-					break;
-				}
-				case 6:
-				{
-					errorMessage = BadBudgetInvalidValueException.PAYMENT_E6;
-					break;
-				}
-				case 7:
-				{
-					errorMessage = BadBudgetInvalidValueException.PAYMENT_E7;
-					break;
-				}
-				case 8:
-				{
-					errorMessage = BadBudgetInvalidValueException.PAYMENT_E8;
-					break;
-				}
-				case 9:
-				{
-					errorMessage = BadBudgetInvalidValueException.PAYMENT_E9;
-					break;
-				}
-				case 10:
-				{
-					errorMessage = BadBudgetInvalidValueException.PAYMENT_E10;
-					break;
-				}
-				case 11:
-				{
-					errorMessage = BadBudgetInvalidValueException.PAYMENT_E11;
-					break;
-				}
-				case 12:
-				{
-					errorMessage = BadBudgetInvalidValueException.PAYMENT_E12;
-					break;
-				}
-				case 13:
-				{
-					errorMessage = BadBudgetInvalidValueException.PAYMENT_E13;
-					break;
-				}
-				case 14:
-				{
-					errorMessage = BadBudgetInvalidValueException.PAYMENT_E14;
-					break;
-				}
-				case 15:
-				{
-					errorMessage = BadBudgetInvalidValueException.PAYMENT_E15;
-					break;
-				}
-				case 16:
-				{
-					errorMessage = BadBudgetInvalidValueException.PAYMENT_E16;
-					break;
-				}
-				default:
-				{
-					errorMessage = BadBudgetInvalidValueException.UNKNOWN_UNDEFINED;
-					break;
-				}
-			}
-			throw new BadBudgetInvalidValueException(errorMessage);
+			throw new BadBudgetInvalidValueException(messageFor(errorCode));
 		}
 	}
 	
+	/**
+	 * Private constructor for restore. Leaves every value unset.
+	 */
+	private Payment()
+	{
+	}
+	
+	/**
+	 * Package private factory used to restore a payment from a snapshot. The values are set as given without
+	 * being verified. They were verified when the payment was first created but updates can move the next payment
+	 * date or debt amount so that a payment with a goal no longer passes verifyValues.
+	 * 
+	 * @param amount - the payment amount (-1 if payoff is set)
+	 * @param payoff - indicates if every payment should pay the entire balance
+	 * @param frequency - how often this payment should be applied
+	 * @param sourceAccount - the account the payment is withdrawn from
+	 * @param nextPayment - when to next make this payment
+	 * @param ongoing - indicates if payments should keep occurring
+	 * @param endDate - the last date a payment can be made on
+	 * @param debt - the debt this payment is being applied to
+	 * @param goalDate - the goal date or null if there is no goal
+	 * @return the restored payment
+	 */
+	static Payment restore(double amount, boolean payoff, Frequency frequency, Account sourceAccount, 
+			Date nextPayment, boolean ongoing, Date endDate, MoneyOwed debt, Date goalDate)
+	{
+		Payment payment = new Payment();
+		payment.amount = amount;
+		payment.payOff = payoff;
+		payment.frequency = frequency;
+		payment.sourceAccount = sourceAccount;
+		payment.nextPaymentDate = nextPayment;
+		payment.ongoing = ongoing;
+		payment.endDate = endDate;
+		payment.debt = debt;
+		payment.goalDate = goalDate;
+		return payment;
+	}
+	
 	/**
 	 * Verifies that the passed values form a valid payment. Checks for the following errors and if
 	 * found returns the corresponding integer error code.
@@ -200,6 +150,18 @@ public class Payment
 	public static int verifyValues(double paymentAmount, boolean payoff, Frequency frequency, Account sourceAccount, 
 			Date nextPayment, boolean ongoing, Date endDate, MoneyOwed debt, Date goalDate)
 	{
+		return verifyValues(paymentAmount, payoff, frequency, sourceAccount, nextPayment, ongoing, endDate, debt, goalDate, null);
+	}
+
+	/**
+	 * Same as verifyValues above but working out the date checks with the given cache, for checking many payments
+	 * in a row.
+	 * @param cache - the cache to use, null to use the Prediction methods
+	 * @return the error code, see above
+	 */
+	public static int verifyValues(double paymentAmount, boolean payoff, Frequency frequency, Account sourceAccount, 
+			Date nextPayment, boolean ongoing, Date endDate, MoneyOwed debt, Date goalDate, RecurrenceCache cache)
+	{
 		
 		//Payoff & ongoing can be expressed as paymentAmount and endDate so make sure consistent
 		
@@ -283,7 +245,7 @@ public class Payment
 			return 5;
 		}
 		//6 - Goal date not null and next payment after goal date and debt amount not 0
-		else if (goalDate != null && (Prediction.numDaysBetween(nextPayment, goalDate) < 0) && debt.amount() != 0)
+		else if (goalDate != null && (RecurrenceCache.numDaysBetween(cache, nextPayment, goalDate) < 0) && debt.amount() != 0)
 		{
 			return 6;
 		}
@@ -294,8 +256,8 @@ public class Payment
 		}
 		//16 - Goal date not null and next payment before or on goal date, there is no interest rate to consider 
 		//and debt, frequency, goal date, next payment and payment amount are inconsistent
-		else if (goalDate != null && (Prediction.numDaysBetween(nextPayment, goalDate) >= 0) && debt.interestRate() == 0 &&
-				!Prediction.datesEqualUpToDay(goalDate, Prediction.findGoalDate(nextPayment, paymentAmount, frequency, debt.amount(), null)))
+		else if (goalDate != null && (RecurrenceCache.numDaysBetween(cache, nextPayment, goalDate) >= 0) && debt.interestRate() == 0 &&
+				!RecurrenceCache.isGoalDate(cache, goalDate, nextPayment, paymentAmount, frequency, debt.amount()))
 		{
 			return 16;
 		}
@@ -305,7 +267,7 @@ public class Payment
 			return 12;
 		}
 		//15 - Ongoing false and goal date not null and goal date not equal to end date
-		else if (!ongoing && goalDate != null && !Prediction.datesEqualUpToDay(endDate, goalDate))
+		else if (!ongoing && goalDate != null && !RecurrenceCache.datesEqualUpToDay(cache, endDate, goalDate))
 		{
 			return 15;
 		}
@@ -315,7 +277,7 @@ public class Payment
 			return 9;
 		}
 		//7 - Frequency one time and nextPayment not null and nextPayment not equal to endDate
-		else if (frequency.equals(Frequency.oneTime) && nextPayment != null && !Prediction.datesEqualUpToDay(nextPayment, endDate))
+		else if (frequency.equals(Frequency.oneTime) && nextPayment != null && !RecurrenceCache.datesEqualUpToDay(cache, nextPayment, endDate))
 		{
 			return 7;
 		}
@@ -327,6 +289,105 @@ public class Payment
 		}
 	}
 	
+	/**
+	 * Returns the exception message for an error code returned by verifyValues.
+	 * @param errorCode - the error code
+	 * @return the message for the error
+	 */
+	public static String messageFor(int errorCode)
+	{
+		String errorMessage = "";
+		switch (errorCode)
+		{
+			case 1:
+			{
+				errorMessage = BadBudgetInvalidValueException.PAYMENT_E1;
+				break;
+			}
+			case 2:
+			{
+				errorMessage = BadBudgetInvalidValueException.PAYMENT_E2;
+				break;
+			}
+			case 3:
+			{
+				errorMessage = BadBudgetInvalidValueException.PAYMENT_E3;
+				break;
+			}
+			case 4:
+			{
+				errorMessage = BadBudgetInvalidValueException.PAYMENT_E4;
+				break;
+			}
+			case 5:
+			{
+				errorMessage = BadBudgetInvalidValueException.PAYMENT_E5;
+				break;
+			}
+			case 6:
+			{
+				errorMessage = BadBudgetInvalidValueException.PAYMENT_E6;
+				break;
+			}
+			case 7:
+			{
+				errorMessage = BadBudgetInvalidValueException.PAYMENT_E7;
+				break;
+			}
+			case 8:
+			{
+				errorMessage = BadBudgetInvalidValueException.PAYMENT_E8;
+				break;
+			}
+			case 9:
+			{
+				errorMessage = BadBudgetInvalidValueException.PAYMENT_E9;
+				break;
+			}
+			case 10:
+			{
+				errorMessage = BadBudgetInvalidValueException.PAYMENT_E10;
+				break;
+			}
+			case 11:
+			{
+				errorMessage = BadBudgetInvalidValueException.PAYMENT_E11;
+				break;
+			}
+			case 12:
+			{
+				errorMessage = BadBudgetInvalidValueException.PAYMENT_E12;
+				break;
+			}
+			case 13:
+			{
+				errorMessage = BadBudgetInvalidValueException.PAYMENT_E13;
+				break;
+			}
+			case 14:
+			{
+				errorMessage = BadBudgetInvalidValueException.PAYMENT_E14;
+				break;
+			}
+			case 15:
+			{
+				errorMessage = BadBudgetInvalidValueException.PAYMENT_E15;
+				break;
+			}
+			case 16:
+			{
+				errorMessage = BadBudgetInvalidValueException.PAYMENT_E16;
+				break;
+			}
+			default:
+			{
+				errorMessage = BadBudgetInvalidValueException.UNKNOWN_UNDEFINED;
+				break;
+			}
+		}
+		return errorMessage;
+	}
+	
 	/**
 	 * Withdraws funds from source of this payment and reduces debt
 	 * balance by that amount. Next payment date is updated. Should make
@@ -371,6 +432,7 @@ public class Payment
 				}
 			}
 		}		
+		this.contentChanged();
 	}
 	
 	/**
@@ -496,36 +558,43 @@ public class Payment
 	public void updateAmount(double a)
 	{
 		this.amount = a;
+		this.contentChanged();
 	}
 	
 	public void payOff(boolean p)
 	{
 		this.payOff = p;
+		this.contentChanged();
 	}
 	
 	public void frequency(Frequency f)
 	{
 		this.frequency = f;
+		this.contentChanged();
 	}
 	
 	public void setEndDate(Date e)
 	{
 		this.endDate = e;
+		this.contentChanged();
 	}
 	
 	public void setGoalDate(Date g)
 	{
 		this.goalDate = g;
+		this.contentChanged();
 	}
 	
 	public void setOngoing(boolean o)
 	{
 		this.ongoing = o;
+		this.contentChanged();
 	}
 	
 	public void setSourceAccount(Account a)
 	{
 		this.sourceAccount = a;
+		this.contentChanged();
 	}
 	
 	public MoneyOwed getDebt()
@@ -536,5 +605,24 @@ public class Payment
 	public void setNextPaymentDate(Date nextPaymentDate)
 	{
 		this.nextPaymentDate = nextPaymentDate;
+		this.contentChanged();
+	}
+	
+	/**
+	 * Hashes this payment's values and the name of its source account. The debt isn't included, the debt includes
+	 * the payment's hash in its own.
+	 * @return the hash of this payment's values
+	 */
+	protected long computeContentHash()
+	{
+		long hash = mix(0L, this.amount);
+		hash = mix(hash, this.payOff);
+		hash = mix(hash, this.frequency);
+		hash = mix(hash, this.sourceAccount);
+		hash = mix(hash, this.nextPaymentDate);
+		hash = mix(hash, this.ongoing);
+		hash = mix(hash, this.endDate);
+		hash = mix(hash, this.goalDate);
+		return hash;
 	}
 }
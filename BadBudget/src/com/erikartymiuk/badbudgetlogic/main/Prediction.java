@@ -18,6 +18,23 @@ public class Prediction {
 	
 	public static final double NUM_DAYS_IN_YEAR = 365.25;
 	
+	private static volatile EngineListener engineListener;	//Told about every prediction and solver call, null if none
+	
+	/**
+	 * Installs a listener told about every prediction (predict, predictContinue, update, updateNextDatesOnly) and
+	 * solver call once it completes. With no listener installed (the default) calls aren't measured at all.
+	 * @param listener - the listener to install, null to remove the installed one
+	 */
+	public static void setEngineListener(EngineListener listener)
+	{
+		engineListener = listener;
+	}
+	
+	public static EngineListener getEngineListener()
+	{
+		return engineListener;
+	}
+	
 	/**
 	 * Main method for the prediction class. Static method that will populate all the user objects
 	 * with correct values for days between currentDate and targetDate. A new call to predict using
@@ -41,7 +58,7 @@ public class Prediction {
 	 */
 	public static void predict(BadBudgetData currentUserValues, Date currentDate, Date targetDate)
 	{	
-		predict(currentUserValues, currentDate, targetDate, false);
+		predict(currentUserValues, currentDate, targetDate, (PredictionTimings) null);
 	}
 	
 	/**
@@ -56,31 +73,37 @@ public class Prediction {
 	 * 					has the algorithm take into account the remain action of the budget items, whereas
 	 * 					if set to false the algorithm assumes that the full budget item amount will be lost
 	 * 					from the source (not added back or accumulated).
+	 * @param timings - the timings to record into, null if the run isn't instrumented
+	 */
+	private static void predict(BadBudgetData currentUserValues, Date currentDate, Date targetDate, boolean considerBudgetRemainValues,
+			PredictionTimings timings)
+	{
+		predictDays(currentUserValues, currentDate, 0, numDaysBetween(currentDate, targetDate), considerBudgetRemainValues, timings);
+	}
+	
+	/**
+	 * Runs predict while recording how long each phase of the algorithm takes and how many events each fires.
+	 * The prediction data populated is identical to that of predict.
+	 * @param currentUserValues - All of the user's current accounts to be used and have their
+	 * 								predict data populated
+	 * @param currentDate - The day the user's data is on (should be the current day)
+	 * @param targetDate - Any day past currentDate that the user would like to know what their
+	 * 						accounts value is on that day.
+	 * @param timings - the timings to add this run's counts to, null to run without instrumentation
 	 */
-	private static void predict(BadBudgetData currentUserValues, Date currentDate, Date targetDate, boolean considerBudgetRemainValues)
-	{
-		//Loop through each day starting with the currentDate up to the targetDate
-		int numDays = numDaysBetween(currentDate, targetDate);
-		for (int dayIndex = 0; dayIndex <= numDays; dayIndex++)
-		{
-			//First initialize all rows for this day index
-			initializePredictRowsForDayIndex(currentUserValues, dayIndex, currentDate);
-			//After the row data is initialized, we can check for any transfers that occur on this day
-			handleTransfersForDayIndex(currentUserValues.getTransfers(), dayIndex, currentDate);
-			//Next we can check for any contributions that occur on this day
-			handleContributionsForDayIndex(currentUserValues.getAccounts(), dayIndex, currentDate);
-			//Next we check for any moneyGains that occur on this day
-			handleGainsForDayIndex(currentUserValues.getGains(), dayIndex, currentDate);
-			//Next is any payments being applied to moneyOwed objects
-			handleDebtsPaymentsForDayIndex(currentUserValues.getDebts(), dayIndex, currentDate);
-			//Handle any losses that occur
-			handleLossesForDayIndex(currentUserValues.getLosses(), dayIndex, currentDate);
-			//Handle the budget items
-			handleBudgetForDayIndex(currentUserValues.getBudget(), dayIndex, currentDate, considerBudgetRemainValues);
-			//Handle debts interest calculations
-			handleDebtsInterestForDayIndex(currentUserValues.getDebts(), dayIndex, currentDate);
-			//Handle savings interest accumulation
-			handleSavingsInterestForDayIndex(currentUserValues.getAccounts(), dayIndex, currentDate);
+	public static void predict(BadBudgetData currentUserValues, Date currentDate, Date targetDate, PredictionTimings timings)
+	{
+		EngineListener listener = engineListener;
+		if (listener == null)
+		{
+			predict(currentUserValues, currentDate, targetDate, false, timings);
+		}
+		else
+		{
+			long startNanos = System.nanoTime();
+			PredictionTimings callTimings = new PredictionTimings();
+			predict(currentUserValues, currentDate, targetDate, false, callTimings);
+			predictionCompleted(listener, PredictionCall.PREDICT, currentUserValues, callTimings, timings, startNanos);
 		}
 	}
 	
@@ -96,31 +119,130 @@ public class Prediction {
 	 * @param newTarget - the date we would like to continue the prediction up to now.
 	 */
 	public static void predictContinue(BadBudgetData currentUserValues, Date originalStart, Date lastTarget, Date newTarget)
+	{
+		predictContinue(currentUserValues, originalStart, lastTarget, newTarget, null);
+	}
+	
+	/**
+	 * Runs predictContinue while recording how long each phase of the algorithm takes and how many events each fires.
+	 * @param currentUserValues - the bad budget data that has already been populated by a previous call to predict or predict continue
+	 * @param originalStart - the original start date passed to the initial predict call.
+	 * @param lastTarget - the date we have prediction data up to already from previous calls to predict and/or predict continue
+	 * @param newTarget - the date we would like to continue the prediction up to now.
+	 * @param timings - the timings to add this run's counts to, null to run without instrumentation
+	 */
+	public static void predictContinue(BadBudgetData currentUserValues, Date originalStart, Date lastTarget, Date newTarget, PredictionTimings timings)
 	{
 		//Figure out the day index we left off on, and the dayIndex we should now go to
 		//Then proceed identically as before using the new dayIndex and bounds
 		int previousDayIndex = numDaysBetween(originalStart, lastTarget);
 		int newDayIndex = numDaysBetween(originalStart, newTarget);
-		for (int dayIndex = previousDayIndex+1; dayIndex <= newDayIndex; dayIndex++)
-		{
-			//First initialize all rows for this day index
-			initializePredictRowsForDayIndex(currentUserValues, dayIndex, originalStart);
-			//After the row data is initialized, we can check for any transfers that occur on this day
-			handleTransfersForDayIndex(currentUserValues.getTransfers(), dayIndex, originalStart);
-			//Next we can check for any contributions that occur on this day
-			handleContributionsForDayIndex(currentUserValues.getAccounts(), dayIndex, originalStart);
-			//Next we check for any moneyGains that occur on this day
-			handleGainsForDayIndex(currentUserValues.getGains(), dayIndex, originalStart);
-			//Next is any payments being applied to moneyOwed objects
-			handleDebtsPaymentsForDayIndex(currentUserValues.getDebts(), dayIndex, originalStart);
-			//Handle any losses that occur
-			handleLossesForDayIndex(currentUserValues.getLosses(), dayIndex, originalStart);
-			//Handle the budget items
-			handleBudgetForDayIndex(currentUserValues.getBudget(), dayIndex, originalStart, false);
-			//Handle debts interest calculations
-			handleDebtsInterestForDayIndex(currentUserValues.getDebts(), dayIndex, originalStart);
-			//Handle savings interest accumulation
-			handleSavingsInterestForDayIndex(currentUserValues.getAccounts(), dayIndex, originalStart);
+		EngineListener listener = engineListener;
+		if (listener == null)
+		{
+			predictDays(currentUserValues, originalStart, previousDayIndex+1, newDayIndex, false, timings);
+		}
+		else
+		{
+			long startNanos = System.nanoTime();
+			PredictionTimings callTimings = new PredictionTimings();
+			predictDays(currentUserValues, originalStart, previousDayIndex+1, newDayIndex, false, callTimings);
+			predictionCompleted(listener, PredictionCall.PREDICT_CONTINUE, currentUserValues, callTimings, timings, startNanos);
+		}
+	}
+	
+	/**
+	 * Private helper method telling the engine listener about a completed prediction call.
+	 * @param listener - the listener to tell
+	 * @param operation - the call made, one of the PredictionCall constants
+	 * @param bbd - the data the call was made on
+	 * @param callTimings - the timings recorded for just this call
+	 * @param timings - the timings the caller passed in (added to), null if none were
+	 * @param startNanos - System.nanoTime() when the call started
+	 */
+	private static void predictionCompleted(EngineListener listener, String operation, BadBudgetData bbd, PredictionTimings callTimings,
+			PredictionTimings timings, long startNanos)
+	{
+		long durationNanos = System.nanoTime() - startNanos;
+		if (timings != null)
+		{
+			timings.add(callTimings);
+		}
+		listener.predictionCompleted(new PredictionCall(operation, bbd, callTimings, durationNanos));
+	}
+	
+	/**
+	 * Private helper method running the prediction algorithm over a range of day indices. Each day runs through
+	 * the phases in order: the rows for the day are initialized and then the transfers, contributions, gains, debt
+	 * payments, losses, budget items, debt interest and savings interest for the day are handled.
+	 * 
+	 * With timings the time spent in each phase is recorded, without them (null) the phases run back to back
+	 * without reading the clock.
+	 * @param currentUserValues - the user's data to populate the predict data of
+	 * @param startDate - the date of day index 0
+	 * @param firstDayIndex - the first day to predict
+	 * @param lastDayIndex - the last day to predict (inclusive)
+	 * @param considerBudgetRemainValues - set if the prediction data will be used to update the base bbd objects
+	 * @param timings - the timings to record into, null if the run isn't instrumented
+	 */
+	private static void predictDays(BadBudgetData currentUserValues, Date startDate, int firstDayIndex, int lastDayIndex, 
+			boolean considerBudgetRemainValues, PredictionTimings timings)
+	{
+		//The registry arrays stay the same for the whole run (no entities are added or deleted while predicting)
+		EntityRegistry registry = currentUserValues.getRegistry();
+		Budget budget = currentUserValues.getBudget();
+		BudgetItem[] budgetItems = budget.getBudgetItemArray();
+		
+		if (timings == null)
+		{
+			for (int dayIndex = firstDayIndex; dayIndex <= lastDayIndex; dayIndex++)
+			{
+				//First initialize all rows for this day index
+				initializePredictRowsForDayIndex(registry, budgetItems, dayIndex, startDate);
+				//After the row data is initialized, we can check for any transfers that occur on this day
+				handleTransfersForDayIndex(registry.transfers(), dayIndex, startDate, null);
+				//Next we can check for any contributions that occur on this day
+				handleContributionsForDayIndex(registry.savingsAccounts(), dayIndex, startDate, null);
+				//Next we check for any moneyGains that occur on this day
+				handleGainsForDayIndex(registry.gains(), dayIndex, startDate, null);
+				//Next is any payments being applied to moneyOwed objects
+				handleDebtsPaymentsForDayIndex(registry.debts(), dayIndex, startDate, null);
+				//Handle any losses that occur
+				handleLossesForDayIndex(registry.losses(), dayIndex, startDate, null);
+				//Handle the budget items
+				handleBudgetForDayIndex(budget, dayIndex, startDate, considerBudgetRemainValues, null);
+				//Handle debts interest calculations
+				handleDebtsInterestForDayIndex(registry, dayIndex, startDate, null);
+				//Handle savings interest accumulation
+				handleSavingsInterestForDayIndex(registry.savingsAccounts(), dayIndex, startDate, null);
+			}
+		}
+		else
+		{
+			//Same phases as above, each followed by recording it (which returns the start time of the next phase)
+			timings.startRun(lastDayIndex - firstDayIndex + 1);
+			long start = System.nanoTime();
+			for (int dayIndex = firstDayIndex; dayIndex <= lastDayIndex; dayIndex++)
+			{
+				initializePredictRowsForDayIndex(registry, budgetItems, dayIndex, startDate);
+				start = timings.record(PredictionPhase.initializeRows, start);
+				handleTransfersForDayIndex(registry.transfers(), dayIndex, startDate, timings);
+				start = timings.record(PredictionPhase.transfers, start);
+				handleContributionsForDayIndex(registry.savingsAccounts(), dayIndex, startDate, timings);
+				start = timings.record(PredictionPhase.contributions, start);
+				handleGainsForDayIndex(registry.gains(), dayIndex, startDate, timings);
+				start = timings.record(PredictionPhase.gains, start);
+				handleDebtsPaymentsForDayIndex(registry.debts(), dayIndex, startDate, timings);
+				start = timings.record(PredictionPhase.debtPayments, start);
+				handleLossesForDayIndex(registry.losses(), dayIndex, startDate, timings);
+				start = timings.record(PredictionPhase.losses, start);
+				handleBudgetForDayIndex(budget, dayIndex, startDate, considerBudgetRemainValues, timings);
+				start = timings.record(PredictionPhase.budget, start);
+				handleDebtsInterestForDayIndex(registry, dayIndex, startDate, timings);
+				start = timings.record(PredictionPhase.debtInterest, start);
+				handleSavingsInterestForDayIndex(registry.savingsAccounts(), dayIndex, startDate, timings);
+				start = timings.record(PredictionPhase.savingsInterest, start);
+			}
 		}
 	}
 	
@@ -129,9 +251,10 @@ public class Prediction {
 	 * @param transfers - a list of the transfers to consider
 	 * @param dayIndex - the day to consider given as an index (offset from the startDate)
 	 * @param startDate - the day the prediction started (typically the current day)
+	 * @param timings - the timings to count the events fired toward, null if the run isn't instrumented
 	 * 
 	 */
-	private static void handleTransfersForDayIndex(ArrayList<MoneyTransfer> transfers, int dayIndex, Date startDate)
+	private static void handleTransfersForDayIndex(MoneyTransfer[] transfers, int dayIndex, Date startDate, PredictionTimings timings)
 	{
 		for (MoneyTransfer mt : transfers)
 		{				
@@ -177,6 +300,10 @@ public class Prediction {
 				
 				pdaSource.addHistoryItem(historyItem);
 				pdaDestination.addHistoryItem(historyItem);
+				if (timings != null)
+				{
+					timings.event(EntityKind.transfer, 1);
+				}
 			}
 		}
 	}
@@ -193,10 +320,11 @@ public class Prediction {
 	 * @param considerBudgetRemainValues - Specifies if the algorithm should take into account a budget item's remain
 	 * 					amount action. If so it considers addbacks and accumulation. If false then
 	 * 					it is assumed all remaining amount of the budget item is fully lost.
+	 * @param timings - the timings to count the events fired toward, null if the run isn't instrumented
 	 */
-	private static void handleBudgetForDayIndex(Budget userBudget, int dayIndex, Date startDate, boolean considerBudgetRemainValues)
+	private static void handleBudgetForDayIndex(Budget userBudget, int dayIndex, Date startDate, boolean considerBudgetRemainValues, PredictionTimings timings)
 	{
-		for (BudgetItem currItem : userBudget.getAllBudgetItems().values())
+		for (BudgetItem currItem : userBudget.getBudgetItemArray())
 		{
 			PredictDataBudgetItem pdbi = currItem.getPredictData(dayIndex);
 			Date currentLoss = pdbi.nextLoss();
@@ -268,6 +396,16 @@ public class Prediction {
 				
 				pdbi.updateNextLoss(updatedNextLoss);
 				pdbi.setLossAmountToday(lossAmount);
+				if (timings != null)
+				{
+					//Adding back to the source records a second history item
+					int historyItems = 1;
+					if (considerBudgetRemainValues && currItem.remainAmountAction() == RemainAmountAction.addBack && pdbi.getOriginalAmount() != 0)
+					{
+						historyItems = 2;
+					}
+					timings.event(EntityKind.budgetItem, historyItems);
+				}
 			}
 		}
 	}
@@ -280,8 +418,9 @@ public class Prediction {
 	 * @param losses - the list of the users MoneyLoss objects
 	 * @param dayIndex - the date (as an index or offset from the start date) that we are interested in
 	 * @param startDate - the start date of the prediction algorithm
+	 * @param timings - the timings to count the events fired toward, null if the run isn't instrumented
 	 */
-	private static void handleLossesForDayIndex(ArrayList<MoneyLoss> losses, int dayIndex, Date startDate)
+	private static void handleLossesForDayIndex(MoneyLoss[] losses, int dayIndex, Date startDate, PredictionTimings timings)
 	{
 		for (MoneyLoss currLoss : losses)
 		{
@@ -304,7 +443,11 @@ public class Prediction {
 				lossSource.predictLossForDayIndex(currLoss.expenseDescription(), currLoss.lossAmount(), false, -1, dayIndex);
 				
 				Date nextLossUpdate = currLoss.calculateNextLoss(nextLoss);
-				pdml.updateNextLoss(nextLossUpdate);				
+				pdml.updateNextLoss(nextLossUpdate);
+				if (timings != null)
+				{
+					timings.event(EntityKind.loss, 1);
+				}				
 			}
 		}
 	}
@@ -313,32 +456,33 @@ public class Prediction {
 	 * Checks any savings accounts and handles any interest accumulation that occurs on the day specified by day index.
 	 * Interest is only considered if the interest rate for a particular savings account is not zero. Interest is handled
 	 * once a month.
-	 * @param accounts - the accounts to consider for interest accumulation
+	 * @param savingsAccounts - the savings accounts to consider for interest accumulation
 	 * @param dayIndex - the day index to look at
 	 * @param startDate - the start of the prediction algorithm
+	 * @param timings - the timings to count the events fired toward, null if the run isn't instrumented
 	 */
-	private static void handleSavingsInterestForDayIndex(ArrayList<Account> accounts, int dayIndex, Date startDate)
+	private static void handleSavingsInterestForDayIndex(SavingsAccount[] savingsAccounts, int dayIndex, Date startDate, PredictionTimings timings)
 	{
-		for (Account currAccount : accounts)
+		for (SavingsAccount currSavingsAccount : savingsAccounts)
 		{
-			if (currAccount instanceof SavingsAccount)
+			if (currSavingsAccount.getInterestRate() != 0)
 			{
-				SavingsAccount currSavingsAccount = (SavingsAccount)currAccount;
-				if (currSavingsAccount.getInterestRate() != 0)
+				PredictDataSavingsAccount pdsa = currSavingsAccount.getPredictData(dayIndex);
+				Date rowDate = pdsa.date();
+				Date nextInterestDate = pdsa.getNextInterestAccumulationDate();
+				if (Prediction.datesEqualUpToDay(rowDate, nextInterestDate))
 				{
-					PredictDataSavingsAccount pdsa = currSavingsAccount.getPredictData(dayIndex);
-					Date rowDate = pdsa.date();
-					Date nextInterestDate = pdsa.getNextInterestAccumulationDate();
-					if (Prediction.datesEqualUpToDay(rowDate, nextInterestDate))
+					double interest = pdsa.value() * (currSavingsAccount.getInterestRate()/12.0);
+					pdsa.setAccumulatedInterest(pdsa.getAccumulatedInterest()+interest);
+					
+					pdsa.updateValue(pdsa.value() + pdsa.value() * currSavingsAccount.getInterestRate()/12.0);
+					Calendar cal = Calendar.getInstance();
+					cal.setTime(nextInterestDate);
+					cal.add(Calendar.MONTH, 1);
+					pdsa.setNextInterestAccumulationDate(cal.getTime());
+					if (timings != null)
 					{
-						double interest = pdsa.value() * (currSavingsAccount.getInterestRate()/12.0);
-						pdsa.setAccumulatedInterest(pdsa.getAccumulatedInterest()+interest);
-						
-						pdsa.updateValue(pdsa.value() + pdsa.value() * currSavingsAccount.getInterestRate()/12.0);
-						Calendar cal = Calendar.getInstance();
-						cal.setTime(nextInterestDate);
-						cal.add(Calendar.MONTH, 1);
-						pdsa.setNextInterestAccumulationDate(cal.getTime());
+						timings.event(EntityKind.savingsAccount, 0);
 					}
 				}
 			}
@@ -347,74 +491,107 @@ public class Prediction {
 	
 	/**
 	 * Loops through all debts and handles any interest accumulation on the day specified by day index.
-	 * @param debts - the debts to handle
+	 * Each kind of debt (credit cards, loans, and other debts) accumulates interest differently and is handled
+	 * in its own loop. The debts don't affect each other so the order between kinds doesn't matter.
+	 * @param registry - the registry holding the debts grouped by kind
 	 * @param dayIndex - the day index to check for interest accumulation
 	 * @param startDate - the start date of the prediction being run
+	 * @param timings - the timings to count the events fired toward, null if the run isn't instrumented
 	 */
-	private static void handleDebtsInterestForDayIndex(ArrayList<MoneyOwed> debts, int dayIndex, Date startDate)
+	private static void handleDebtsInterestForDayIndex(EntityRegistry registry, int dayIndex, Date startDate, PredictionTimings timings)
 	{
-		for (MoneyOwed currDebt : debts)
+		for (CreditCard currCreditCard : registry.creditCards())
 		{
-			if (currDebt.interestRate() != 0)
+			if (currCreditCard.interestRate() != 0)
 			{
-				PredictDataMoneyOwed predictDataAll = currDebt.getPredictData(dayIndex);
-				Date rowDate = predictDataAll.date();
-				Date nextInterestDate = predictDataAll.getNextInterestAccumulationDate();
-				if (Prediction.datesEqualUpToDay(rowDate, nextInterestDate))
+				PredictDataMoneyOwed pdmo = currCreditCard.getPredictData(dayIndex);
+				Date nextInterestDate = pdmo.getNextInterestAccumulationDate();
+				if (Prediction.datesEqualUpToDay(pdmo.date(), nextInterestDate))
 				{
-					if (currDebt instanceof CreditCard)
+					double interest = pdmo.value() * (currCreditCard.interestRate()/NUM_DAYS_IN_YEAR);
+					pdmo.setAccumulatedInterest(pdmo.getAccumulatedInterest()+interest);
+					
+					pdmo.updateValue(pdmo.value() * (1+currCreditCard.interestRate()/NUM_DAYS_IN_YEAR));
+					pdmo.setNextInterestAccumulationDate(nextDebtInterestDate(nextInterestDate));
+					if (timings != null)
 					{
-						CreditCard currCreditCard = (CreditCard) currDebt;
-						
-						double interest = predictDataAll.value() * (currCreditCard.interestRate()/NUM_DAYS_IN_YEAR);
-						predictDataAll.setAccumulatedInterest(predictDataAll.getAccumulatedInterest()+interest);
-						
-						predictDataAll.updateValue(predictDataAll.value() * (1+currCreditCard.interestRate()/NUM_DAYS_IN_YEAR));
+						timings.event(EntityKind.creditCard, 0);
 					}
-					else if (currDebt instanceof Loan)
+				}
+			}
+		}
+		
+		for (Loan currLoan : registry.loans())
+		{
+			if (currLoan.interestRate() != 0)
+			{
+				PredictDataLoan pdl = currLoan.getPredictData(dayIndex);
+				Date nextInterestDate = pdl.getNextInterestAccumulationDate();
+				if (Prediction.datesEqualUpToDay(pdl.date(), nextInterestDate))
+				{
+					if (currLoan.isSimpleInterest())
 					{
-						Loan currLoan = (Loan) currDebt;
-						PredictDataLoan pdl = (PredictDataLoan)predictDataAll;
-	
-						if (currLoan.isSimpleInterest())
-						{
-							double simpleInterest = pdl.getPrincipal() * (currLoan.interestRate()/NUM_DAYS_IN_YEAR);
-							
-							pdl.setAccumulatedInterest(pdl.getAccumulatedInterest()+simpleInterest);
-							
-							pdl.updateValue(pdl.value() + simpleInterest);
-							pdl.setInterest(pdl.getInterest()+simpleInterest);
-						}
-						else
-						{	
-							double compoundedInterest = pdl.value() * currLoan.interestRate()/NUM_DAYS_IN_YEAR;
-							
-							pdl.setAccumulatedInterest(pdl.getAccumulatedInterest()+compoundedInterest);
-							
-							pdl.updateValue(pdl.value() + compoundedInterest);
-							pdl.setPrincipal(pdl.value());
-							pdl.setInterest(0);
-						}
+						double simpleInterest = pdl.getPrincipal() * (currLoan.interestRate()/NUM_DAYS_IN_YEAR);
+						
+						pdl.setAccumulatedInterest(pdl.getAccumulatedInterest()+simpleInterest);
+						
+						pdl.updateValue(pdl.value() + simpleInterest);
+						pdl.setInterest(pdl.getInterest()+simpleInterest);
 					}
 					else
-					{
-						PredictDataMoneyOwed pdmo = currDebt.getPredictData(dayIndex);
+					{	
+						double compoundedInterest = pdl.value() * currLoan.interestRate()/NUM_DAYS_IN_YEAR;
 						
-						double interest = pdmo.value() * (currDebt.interestRate()/NUM_DAYS_IN_YEAR);
-						pdmo.setAccumulatedInterest(pdmo.getAccumulatedInterest()+interest);
+						pdl.setAccumulatedInterest(pdl.getAccumulatedInterest()+compoundedInterest);
 						
-						pdmo.updateValue(currDebt.amount() * (1+currDebt.interestRate()/NUM_DAYS_IN_YEAR));
+						pdl.updateValue(pdl.value() + compoundedInterest);
+						pdl.setPrincipal(pdl.value());
+						pdl.setInterest(0);
 					}
+					pdl.setNextInterestAccumulationDate(nextDebtInterestDate(nextInterestDate));
+					if (timings != null)
+					{
+						timings.event(EntityKind.loan, 0);
+					}
+				}
+			}
+		}
+		
+		for (MoneyOwed currDebt : registry.otherDebts())
+		{
+			if (currDebt.interestRate() != 0)
+			{
+				PredictDataMoneyOwed pdmo = currDebt.getPredictData(dayIndex);
+				Date nextInterestDate = pdmo.getNextInterestAccumulationDate();
+				if (Prediction.datesEqualUpToDay(pdmo.date(), nextInterestDate))
+				{
+					double interest = pdmo.value() * (currDebt.interestRate()/NUM_DAYS_IN_YEAR);
+					pdmo.setAccumulatedInterest(pdmo.getAccumulatedInterest()+interest);
 					
-					Calendar updateNextInterestCal = Calendar.getInstance();
-					updateNextInterestCal.setTime(nextInterestDate);
-					updateNextInterestCal.add(Calendar.DAY_OF_YEAR, 1);
-					predictDataAll.setNextInterestAccumulationDate(updateNextInterestCal.getTime());
+					pdmo.updateValue(currDebt.amount() * (1+currDebt.interestRate()/NUM_DAYS_IN_YEAR));
+					pdmo.setNextInterestAccumulationDate(nextDebtInterestDate(nextInterestDate));
+					if (timings != null)
+					{
+						timings.event(EntityKind.otherDebt, 0);
+					}
 				}
 			}
 		}
 	}
 	
+	/**
+	 * Private helper returning the date of the debt interest accumulation after the given one (debts accumulate daily).
+	 * @param interestDate - the date interest was just accumulated on
+	 * @return the next date interest should be accumulated on
+	 */
+	private static Date nextDebtInterestDate(Date interestDate)
+	{
+		Calendar updateNextInterestCal = Calendar.getInstance();
+		updateNextInterestCal.setTime(interestDate);
+		updateNextInterestCal.add(Calendar.DAY_OF_YEAR, 1);
+		return updateNextInterestCal.getTime();
+	}
+	
 	/**
 	 * Private helper method. For a particular day, specified as an index from the startDate, this method
 	 * check if any payments for debts occur on this day and handles them if they do
@@ -422,9 +599,10 @@ public class Prediction {
 	 * @param debts - the list of the users debts to check 
 	 * @param dayIndex - the date to check for any debt payments (as an index)
 	 * @param startDate - the date the prediction start (typically the current day)
+	 * @param timings - the timings to count the events fired toward, null if the run isn't instrumented
 	 * 
 	 */
-	private static void handleDebtsPaymentsForDayIndex(ArrayList<MoneyOwed> debts, int dayIndex, Date startDate)
+	private static void handleDebtsPaymentsForDayIndex(MoneyOwed[] debts, int dayIndex, Date startDate, PredictionTimings timings)
 	{
 		for (MoneyOwed currDebt : debts)
 		{
@@ -521,6 +699,10 @@ public class Prediction {
 							true, true);
 					pda.addHistoryItem(historyItem);
 					pdmo.addHistoryItem(historyItem);
+					if (timings != null)
+					{
+						timings.event(EntityKind.of(currDebt), 1);
+					}
 				}
 			}
 		}
@@ -531,9 +713,10 @@ public class Prediction {
 	 * @param gains - a list of the gains to consider
 	 * @param dayIndex - the day to consider given as an index (offset from the startDate)
 	 * @param startDate - the day the prediction started (typically the current day)
+	 * @param timings - the timings to count the events fired toward, null if the run isn't instrumented
 	 * 
 	 */
-	private static void handleGainsForDayIndex(ArrayList<MoneyGain> gains, int dayIndex, Date startDate)
+	private static void handleGainsForDayIndex(MoneyGain[] gains, int dayIndex, Date startDate, PredictionTimings timings)
 	{
 		for (MoneyGain mg : gains)
 		{				
@@ -560,56 +743,60 @@ public class Prediction {
 						TransactionHistoryItem.ACCOUNT_DESTINATION_ACTION, mg.destinationAccount().name(), originalDestinationValue, pda.value(), 
 						false, true);
 				pda.addHistoryItem(historyItem);
+				if (timings != null)
+				{
+					timings.event(EntityKind.gain, 1);
+				}
 			}
 		}
 	}
 
 	/**	Private Helper method. For a particular day, check for any contributions on that day and handle any that occur.
 	 * 
-	 * @param accounts - a list of the user's cash account
+	 * @param savingsAccounts - the user's savings accounts (only savings accounts have contributions)
 	 * @param dayIndex - the int specifying the day index (days past the startDate)
 	 * @param startDate - the day the prediction started (should be the current day)
+	 * @param timings - the timings to count the events fired toward, null if the run isn't instrumented
 	 * 
 	 */
-	private static void handleContributionsForDayIndex(ArrayList<Account> accounts, int dayIndex, Date startDate)
+	private static void handleContributionsForDayIndex(SavingsAccount[] savingsAccounts, int dayIndex, Date startDate, PredictionTimings timings)
 	{
-		for (Account a : accounts)
+		for (SavingsAccount sa : savingsAccounts)
 		{
-			//Only need to consider SavingsAccounts
-			if (a instanceof SavingsAccount)
+			PredictDataSavingsAccount pdsa = sa.getPredictData(dayIndex);
+			Date nextContribution = pdsa.getNextContributionDate();
+			Date rowDate = pdsa.date();
+			
+			//Check to see if we've gone past the end date if it is set (not ongoing)
+			Date endDate = sa.endDate();
+			boolean endDateHit = (endDate != null && numDaysBetween(rowDate, endDate) < 0);		
+
+			if (!endDateHit && nextContribution != null && datesEqualUpToDay(nextContribution, rowDate))
 			{
-				SavingsAccount sa = (SavingsAccount) a;
-				PredictDataSavingsAccount pdsa = sa.getPredictData(dayIndex);
-				Date nextContribution = pdsa.getNextContributionDate();
-				Date rowDate = pdsa.date();
+				//Need to handle this contribution
+				Contribution contribution = sa.contribution();
+				PredictDataAccount pda = sa.sourceAccount().getPredictData(dayIndex);
 				
-				//Check to see if we've gone past the end date if it is set (not ongoing)
-				Date endDate = sa.endDate();
-				boolean endDateHit = (endDate != null && numDaysBetween(rowDate, endDate) < 0);		
-
-				if (!endDateHit && nextContribution != null && datesEqualUpToDay(nextContribution, rowDate))
+				//update the values (remove from source account and add to savings account)
+				double originalSourceValue = pda.value();
+				double originalDestinationValue = pdsa.value();
+				
+				pdsa.updateValue(pdsa.value()+contribution.getContribution());
+				pda.updateValue(pda.value()-contribution.getContribution());
+				
+				//update the nextContribution for the PredictSavingsAccountRow
+				pdsa.updateContributionDate(contribution.nextContributionDate(nextContribution));
+				
+				//Construct the transaction record for the source account and the debt account
+				TransactionHistoryItem historyItem = new TransactionHistoryItem(rowDate, contribution.getContribution(), 
+						TransactionHistoryItem.ACCOUNT_SOURCE_ACTION, sa.sourceAccount().name(), originalSourceValue, pda.value(), 
+						TransactionHistoryItem.SAVINGS_ACCOUNT_DESTINATION_ACTION, sa.name(), originalDestinationValue, pdsa.value(), 
+						true, true);
+				pda.addHistoryItem(historyItem);
+				pdsa.addHistoryItem(historyItem);
+				if (timings != null)
 				{
-					//Need to handle this contribution
-					Contribution contribution = sa.contribution();
-					PredictDataAccount pda = sa.sourceAccount().getPredictData(dayIndex);
-					
-					//update the values (remove from source account and add to savings account)
-					double originalSourceValue = pda.value();
-					double originalDestinationValue = pdsa.value();
-					
-					pdsa.updateValue(pdsa.value()+contribution.getContribution());
-					pda.updateValue(pda.value()-contribution.getContribution());
-					
-					//update the nextContribution for the PredictSavingsAccountRow
-					pdsa.updateContributionDate(contribution.nextContributionDate(nextContribution));
-					
-					//Construct the transaction record for the source account and the debt account
-					TransactionHistoryItem historyItem = new TransactionHistoryItem(rowDate, contribution.getContribution(), 
-							TransactionHistoryItem.ACCOUNT_SOURCE_ACTION, sa.sourceAccount().name(), originalSourceValue, pda.value(), 
-							TransactionHistoryItem.SAVINGS_ACCOUNT_DESTINATION_ACTION, sa.name(), originalDestinationValue, pdsa.value(), 
-							true, true);
-					pda.addHistoryItem(historyItem);
-					pdsa.addHistoryItem(historyItem);
+					timings.event(EntityKind.savingsAccount, 1);
 				}
 			}
 		}
@@ -620,70 +807,65 @@ public class Prediction {
 	 * Previous days rows should have already been handled so that the next day's rows can be initialized correctly. Unless
 	 * it is the first day.
 	 * 
-	 * @param data - the user's data
+	 * @param registry - the registry of the user's data
+	 * @param budgetItems - the items in the user's budget
 	 * @param dayIndex - index specifying which day we are currently on (days from starting Date)
 	 * @param startingDate - the date the prediction was kicked off on
 	 * 
 	 */
-	private static void initializePredictRowsForDayIndex(BadBudgetData data, int dayIndex, Date startingDate)
+	private static void initializePredictRowsForDayIndex(EntityRegistry registry, BudgetItem[] budgetItems, int dayIndex, Date startingDate)
 	{
 		//Get a hold of the relevant user accounts
-		ArrayList<Account> accounts = data.getAccounts();
-		ArrayList<MoneyGain> gains = data.getGains();
-		ArrayList<MoneyOwed> debts = data.getDebts();
-		ArrayList<MoneyLoss> losses = data.getLosses();
-		ArrayList<MoneyTransfer> transfers = data.getTransfers();
-				
-		Budget budget = data.getBudget();
+		MoneyGain[] gains = registry.gains();
+		MoneyLoss[] losses = registry.losses();
+		MoneyTransfer[] transfers = registry.transfers();
 		
-		//initialize the predict data rows
-		for (Account a : accounts)
+		//initialize the predict data rows, first the savings accounts
+		for (SavingsAccount sa : registry.savingsAccounts())
 		{
 			//Use the previous day's data (or the accounts data for 0 index) to initialize the new row
-			if (a instanceof SavingsAccount)
+			if (dayIndex == 0)
 			{
-				SavingsAccount sa = (SavingsAccount) a;
-				if (dayIndex == 0)
-				{
-					//Savings accounts can have interest that accumulates. This sets the first interest accumulation date to be
-					//the 1st of the month of the next month after the start date of a prediction. (Thus a start date of Feb 1 and Feb 12 
-					//results in interest accumulation first occurring on March 1. 
-					Calendar firstOfNextMonth = Calendar.getInstance();
-					firstOfNextMonth.setTime(startingDate);
-					firstOfNextMonth.set(Calendar.DAY_OF_MONTH, 1);
-					firstOfNextMonth.add(Calendar.MONTH, 1);
-										
-					PredictDataSavingsAccount firstRow = new PredictDataSavingsAccount(startingDate, 
-																						sa.value(), sa.nextContribution(), firstOfNextMonth.getTime(), 0, false);
-					sa.setPredictData(dayIndex, firstRow);
-					//sa.addPredictData(firstRow);
-				}
-				else
-				{
-					PredictDataSavingsAccount yesterdayRow = sa.getPredictData(dayIndex - 1);
-					PredictDataSavingsAccount newRow = new PredictDataSavingsAccount(addDays(yesterdayRow.date(), 1), yesterdayRow.value(), 
-																					yesterdayRow.getNextContributionDate(), yesterdayRow.getNextInterestAccumulationDate(), 
-																					yesterdayRow.getAccumulatedInterest(), yesterdayRow.isValueChangedByTransfer());
-					sa.setPredictData(dayIndex, newRow);
-					//sa.addPredictData(newRow);
-				}
+				//Savings accounts can have interest that accumulates. This sets the first interest accumulation date to be
+				//the 1st of the month of the next month after the start date of a prediction. (Thus a start date of Feb 1 and Feb 12 
+				//results in interest accumulation first occurring on March 1. 
+				Calendar firstOfNextMonth = Calendar.getInstance();
+				firstOfNextMonth.setTime(startingDate);
+				firstOfNextMonth.set(Calendar.DAY_OF_MONTH, 1);
+				firstOfNextMonth.add(Calendar.MONTH, 1);
+									
+				PredictDataSavingsAccount firstRow = new PredictDataSavingsAccount(startingDate, 
+																					sa.value(), sa.nextContribution(), firstOfNextMonth.getTime(), 0, false);
+				sa.setPredictData(dayIndex, firstRow);
+				//sa.addPredictData(firstRow);
 			}
 			else
 			{
-				if (dayIndex == 0)
-				{
-					PredictDataAccount firstRow = new PredictDataAccount(startingDate, a.value());
-					a.setPredictData(dayIndex, firstRow);
-					//a.addPredictData(firstRow);
-				}
-				else
-				{
-					PredictDataAccount yesterdayRow = a.getPredictData(dayIndex - 1);
-					
-					PredictDataAccount newRow = new PredictDataAccount(addDays(yesterdayRow.date(), 1), yesterdayRow.value());
-					a.setPredictData(dayIndex, newRow);
-					//a.addPredictData(newRow);
-				}
+				PredictDataSavingsAccount yesterdayRow = sa.getPredictData(dayIndex - 1);
+				PredictDataSavingsAccount newRow = new PredictDataSavingsAccount(addDays(yesterdayRow.date(), 1), yesterdayRow.value(), 
+																				yesterdayRow.getNextContributionDate(), yesterdayRow.getNextInterestAccumulationDate(), 
+																				yesterdayRow.getAccumulatedInterest(), yesterdayRow.isValueChangedByTransfer());
+				sa.setPredictData(dayIndex, newRow);
+				//sa.addPredictData(newRow);
+			}
+		}
+		
+		//then the rest of the accounts
+		for (Account a : registry.plainAccounts())
+		{
+			if (dayIndex == 0)
+			{
+				PredictDataAccount firstRow = new PredictDataAccount(startingDate, a.value());
+				a.setPredictData(dayIndex, firstRow);
+				//a.addPredictData(firstRow);
+			}
+			else
+			{
+				PredictDataAccount yesterdayRow = a.getPredictData(dayIndex - 1);
+				
+				PredictDataAccount newRow = new PredictDataAccount(addDays(yesterdayRow.date(), 1), yesterdayRow.value());
+				a.setPredictData(dayIndex, newRow);
+				//a.addPredictData(newRow);
 			}
 		}
 		
@@ -724,82 +906,53 @@ public class Prediction {
 		}
 		
 		//Initialize the money owed (debt) objects next
-		for (MoneyOwed currDebt : debts)
-		{	
-			if (!(currDebt instanceof Loan))
+		for (CreditCard currCreditCard : registry.creditCards())
+		{
+			initializeDebtRowForDayIndex(currCreditCard, dayIndex, startingDate);
+		}
+		for (MoneyOwed currDebt : registry.otherDebts())
+		{
+			initializeDebtRowForDayIndex(currDebt, dayIndex, startingDate);
+		}
+		//Loans also track their principal and interest
+		for (Loan currLoan : registry.loans())
+		{
+			if (dayIndex == 0)
 			{
-				if (dayIndex == 0)
+				PredictDataLoan pdl = null;
+				
+				//Interest accumulation for debts is initialized to the day after the starting date,
+				//then should occur daily after that
+				Calendar tmrwCal = Calendar.getInstance();
+				tmrwCal.setTime(startingDate);
+				tmrwCal.add(Calendar.DAY_OF_YEAR, 1);
+				
+				Date tempNextPayment = null;
+				if (currLoan.payment() != null)
 				{
-					PredictDataMoneyOwed pdmo = null;
-					
-					//Interest accumulation for debts is initialized to the day after the starting date,
-					//then should occur daily after that
-					Calendar tmrwCal = Calendar.getInstance();
-					tmrwCal.setTime(startingDate);
-					tmrwCal.add(Calendar.DAY_OF_YEAR, 1);
-					
-					if (currDebt.payment() == null)
-					{
-						pdmo = new PredictDataMoneyOwed(startingDate, currDebt.amount(), null, tmrwCal.getTime(), 0);
-					}
-					else
-					{
-						pdmo = new PredictDataMoneyOwed(startingDate, currDebt.amount(), currDebt.payment().nextPaymentDate(), tmrwCal.getTime(), 0);
-					}
-					
-					//currDebt.addPredictData(pdmo);
-					currDebt.setPredictData(dayIndex, pdmo);
+					tempNextPayment = currLoan.payment().nextPaymentDate();
+				}
+				
+				if (currLoan.interestRate() != 0 && currLoan.isSimpleInterest())
+				{
+					pdl = new PredictDataLoan(startingDate, currLoan.amount(), tempNextPayment, tmrwCal.getTime(), 0,
+							currLoan.getPrincipalBalance(), currLoan.getInterestAmount());
 				}
 				else
 				{
-					PredictDataMoneyOwed yesterdayRow = currDebt.getPredictData(dayIndex - 1);
-					PredictDataMoneyOwed newRow = new PredictDataMoneyOwed(addDays(yesterdayRow.date(), 1), yesterdayRow.value(), 
-							yesterdayRow.getNextPaymentDate(), yesterdayRow.getNextInterestAccumulationDate(), yesterdayRow.getAccumulatedInterest());
-					//currDebt.addPredictData(newRow);
-					currDebt.setPredictData(dayIndex, newRow);
+					pdl = new PredictDataLoan(startingDate, currLoan.amount(), tempNextPayment, tmrwCal.getTime(), 0,
+							currLoan.amount(), 0);
 				}
+				currLoan.setPredictData(dayIndex, pdl);
 			}
 			else
 			{
-				Loan currLoan = (Loan) currDebt;
-				if (dayIndex == 0)
-				{
-					PredictDataLoan pdl = null;
-					
-					//Interest accumulation for debts is initialized to the day after the starting date,
-					//then should occur daily after that
-					Calendar tmrwCal = Calendar.getInstance();
-					tmrwCal.setTime(startingDate);
-					tmrwCal.add(Calendar.DAY_OF_YEAR, 1);
-					
-					Date tempNextPayment = null;
-					if (currLoan.payment() != null)
-					{
-						tempNextPayment = currLoan.payment().nextPaymentDate();
-					}
-					
-					if (currLoan.interestRate() != 0 && currLoan.isSimpleInterest())
-					{
-						pdl = new PredictDataLoan(startingDate, currLoan.amount(), tempNextPayment, tmrwCal.getTime(), 0,
-								currLoan.getPrincipalBalance(), currLoan.getInterestAmount());
-					}
-					else
-					{
-						pdl = new PredictDataLoan(startingDate, currLoan.amount(), tempNextPayment, tmrwCal.getTime(), 0,
-								currLoan.amount(), 0);
-					}
-					currLoan.setPredictData(dayIndex, pdl);
-				}
-				else
-				{
-					PredictDataLoan yesterdayRow = currLoan.getPredictData(dayIndex - 1);
-					PredictDataLoan newRow = new PredictDataLoan(addDays(yesterdayRow.date(), 1), 
-							yesterdayRow.value(), yesterdayRow.getNextPaymentDate(), yesterdayRow.getNextInterestAccumulationDate(), yesterdayRow.getAccumulatedInterest(),
-							yesterdayRow.getPrincipal(), yesterdayRow.getInterest());
-					currLoan.setPredictData(dayIndex, newRow);
-				}
+				PredictDataLoan yesterdayRow = currLoan.getPredictData(dayIndex - 1);
+				PredictDataLoan newRow = new PredictDataLoan(addDays(yesterdayRow.date(), 1), 
+						yesterdayRow.value(), yesterdayRow.getNextPaymentDate(), yesterdayRow.getNextInterestAccumulationDate(), yesterdayRow.getAccumulatedInterest(),
+						yesterdayRow.getPrincipal(), yesterdayRow.getInterest());
+				currLoan.setPredictData(dayIndex, newRow);
 			}
-			
 		}
 		
 		//Initialize the money loss objects next
@@ -822,7 +975,7 @@ public class Prediction {
 		}
 		
 		//Also initialize losses from all the budgetItems in the user's budget
-		for (BudgetItem currItem : budget.getAllBudgetItems().values())
+		for (BudgetItem currItem : budgetItems)
 		{
 			PredictDataBudgetItem pdbi = null;
 			if (dayIndex == 0)
@@ -845,6 +998,47 @@ public class Prediction {
 		}
 	}
 	
+	/**
+	 * Private helper for initializePredictRowsForDayIndex. Initializes the predict row of a debt that isn't a loan
+	 * (credit cards and other debts) for the given day index.
+	 * @param currDebt - the debt to initialize the row of
+	 * @param dayIndex - index specifying which day we are currently on (days from starting Date)
+	 * @param startingDate - the date the prediction was kicked off on
+	 */
+	private static void initializeDebtRowForDayIndex(MoneyOwed currDebt, int dayIndex, Date startingDate)
+	{
+		if (dayIndex == 0)
+		{
+			PredictDataMoneyOwed pdmo = null;
+			
+			//Interest accumulation for debts is initialized to the day after the starting date,
+			//then should occur daily after that
+			Calendar tmrwCal = Calendar.getInstance();
+			tmrwCal.setTime(startingDate);
+			tmrwCal.add(Calendar.DAY_OF_YEAR, 1);
+			
+			if (currDebt.payment() == null)
+			{
+				pdmo = new PredictDataMoneyOwed(startingDate, currDebt.amount(), null, tmrwCal.getTime(), 0);
+			}
+			else
+			{
+				pdmo = new PredictDataMoneyOwed(startingDate, currDebt.amount(), currDebt.payment().nextPaymentDate(), tmrwCal.getTime(), 0);
+			}
+			
+			//currDebt.addPredictData(pdmo);
+			currDebt.setPredictData(dayIndex, pdmo);
+		}
+		else
+		{
+			PredictDataMoneyOwed yesterdayRow = currDebt.getPredictData(dayIndex - 1);
+			PredictDataMoneyOwed newRow = new PredictDataMoneyOwed(addDays(yesterdayRow.date(), 1), yesterdayRow.value(), 
+					yesterdayRow.getNextPaymentDate(), yesterdayRow.getNextInterestAccumulationDate(), yesterdayRow.getAccumulatedInterest());
+			//currDebt.addPredictData(newRow);
+			currDebt.setPredictData(dayIndex, newRow);
+		}
+	}
+	
 	/** Adds the given number of days to the given day and returns the resulting Date
 	 * 
 	 * @param day - the starting date
@@ -947,6 +1141,24 @@ public class Prediction {
 	 * 
 	 */
 	public static Date findGoalDate(Date nextContribution, Contribution contribution, double currentAmount, double goalAmount)
+	{
+		EngineListener listener = engineListener;
+		if (listener == null)
+		{
+			return findGoalDate(nextContribution, contribution, currentAmount, goalAmount, null);
+		}
+		SolverCall call = new SolverCall("findGoalDate");
+		Date result = findGoalDate(nextContribution, contribution, currentAmount, goalAmount, call);
+		listener.solverCompleted(call.finish());
+		return result;
+	}
+	
+	/**
+	 * Private helper method running findGoalDate. Counts the iterations of its loops toward the call
+	 * if one is given.
+	 * @param call - the solver call to count iterations toward, null if no engine listener is installed
+	 */
+	private static Date findGoalDate(Date nextContribution, Contribution contribution, double currentAmount, double goalAmount, SolverCall call)
 	{
 		//Frequency should be recurring
 		if (contribution.getFrequency().equals(Frequency.oneTime))
@@ -959,6 +1171,10 @@ public class Prediction {
 
 		while (!(currentAmount >= goalAmount))
 		{
+			if (call != null)
+			{
+				call.iteration();
+			}
 			//Make a contribution
 			currentAmount+=contribution.getContribution();
 			endDate = contribution.nextContributionDate(endDate);
@@ -980,6 +1196,25 @@ public class Prediction {
 	 */
 	public static double findPaymentAmountSimpleInterest(Date startDate, int daysBeforeFirstPayment, Date goalDate,
 			Frequency freq, double debtAmount, double interestRate, double principal)
+	{
+		EngineListener listener = engineListener;
+		if (listener == null)
+		{
+			return findPaymentAmountSimpleInterest(startDate, daysBeforeFirstPayment, goalDate, freq, debtAmount, interestRate, principal, null);
+		}
+		SolverCall call = new SolverCall("findPaymentAmountSimpleInterest");
+		double result = findPaymentAmountSimpleInterest(startDate, daysBeforeFirstPayment, goalDate, freq, debtAmount, interestRate, principal, call);
+		listener.solverCompleted(call.finish());
+		return result;
+	}
+	
+	/**
+	 * Private helper method running findPaymentAmountSimpleInterest. Counts the iterations of its loops toward the call
+	 * if one is given.
+	 * @param call - the solver call to count iterations toward, null if no engine listener is installed
+	 */
+	private static double findPaymentAmountSimpleInterest(Date startDate, int daysBeforeFirstPayment, Date goalDate,
+			Frequency freq, double debtAmount, double interestRate, double principal, SolverCall call)
 	{
 		double interestRateConstant = (interestRate/NUM_DAYS_IN_YEAR);
 		double initialInterest = principal * (interestRateConstant * daysBeforeFirstPayment);
@@ -992,6 +1227,10 @@ public class Prediction {
 		
 		while (Prediction.numDaysBetween(currentPaymentCal.getTime(), goalDate) >= 0)
 		{
+			if (call != null)
+			{
+				call.iteration();
+			}
 			Date lastPaymentDate = currentPaymentCal.getTime();
 			switch (freq)
 			{
@@ -1132,6 +1371,25 @@ public class Prediction {
 	 */
 	public static double findPaymentAmountCompoundInterest(Date startDate, int daysBeforeFirstPayment, Date goalDate,
 			Frequency freq, double debtAmount, double interestRate)
+	{
+		EngineListener listener = engineListener;
+		if (listener == null)
+		{
+			return findPaymentAmountCompoundInterest(startDate, daysBeforeFirstPayment, goalDate, freq, debtAmount, interestRate, null);
+		}
+		SolverCall call = new SolverCall("findPaymentAmountCompoundInterest");
+		double result = findPaymentAmountCompoundInterest(startDate, daysBeforeFirstPayment, goalDate, freq, debtAmount, interestRate, call);
+		listener.solverCompleted(call.finish());
+		return result;
+	}
+	
+	/**
+	 * Private helper method running findPaymentAmountCompoundInterest. Counts the iterations of its loops toward the call
+	 * if one is given.
+	 * @param call - the solver call to count iterations toward, null if no engine listener is installed
+	 */
+	private static double findPaymentAmountCompoundInterest(Date startDate, int daysBeforeFirstPayment, Date goalDate,
+			Frequency freq, double debtAmount, double interestRate, SolverCall call)
 	{
 		double interestRateConstant = (1+interestRate/NUM_DAYS_IN_YEAR);
 		
@@ -1143,6 +1401,10 @@ public class Prediction {
 		
 		while (Prediction.numDaysBetween(currentPaymentCal.getTime(), goalDate) >= 0)
 		{
+			if (call != null)
+			{
+				call.iteration();
+			}
 			Date lastPaymentDate = currentPaymentCal.getTime();
 			switch (freq)
 			{
@@ -1209,6 +1471,25 @@ public class Prediction {
 	 */
 	public static double findContributionAmount(Date startDate, Date nextContribution, Frequency contributionFreq, 
 			double currentAmount, double goalAmount, double interestRate, Date goalDate)
+	{
+		EngineListener listener = engineListener;
+		if (listener == null)
+		{
+			return findContributionAmount(startDate, nextContribution, contributionFreq, currentAmount, goalAmount, interestRate, goalDate, null);
+		}
+		SolverCall call = new SolverCall("findContributionAmount");
+		double result = findContributionAmount(startDate, nextContribution, contributionFreq, currentAmount, goalAmount, interestRate, goalDate, call);
+		listener.solverCompleted(call.finish());
+		return result;
+	}
+	
+	/**
+	 * Private helper method running findContributionAmount. Counts the iterations of its loops toward the call
+	 * if one is given.
+	 * @param call - the solver call to count iterations toward, null if no engine listener is installed
+	 */
+	private static double findContributionAmount(Date startDate, Date nextContribution, Frequency contributionFreq, 
+			double currentAmount, double goalAmount, double interestRate, Date goalDate, SolverCall call)
 	{
 		//Figure out all the dates of contributions and interest accumulation
 		ArrayList<Date> contributionDates = new ArrayList<Date>();
@@ -1219,6 +1500,10 @@ public class Prediction {
 		
 		while (Prediction.numDaysBetween(currentContributionCal.getTime(), goalDate) >= 0)
 		{
+			if (call != null)
+			{
+				call.iteration();
+			}
 			contributionDates.add(currentContributionCal.getTime());
 			switch (contributionFreq)
 			{
@@ -1257,6 +1542,10 @@ public class Prediction {
 		
 		while (Prediction.numDaysBetween(interestCal.getTime(), goalDate) >= 0)
 		{
+			if (call != null)
+			{
+				call.iteration();
+			}
 			interestDates.add(interestCal.getTime());
 			interestCal.add(Calendar.MONTH, 1);
 		}
@@ -1270,6 +1559,10 @@ public class Prediction {
 		
 		while (interestIndex < interestDates.size())
 		{
+			if (call != null)
+			{
+				call.iteration();
+			}
 			int contributionToInterestDays = -1;
 			if (contributionIndex < contributionDates.size())
 			{
@@ -1322,6 +1615,25 @@ public class Prediction {
 	 */
 	public static double findGoalAmount(Date startDate, Date nextContribution, Contribution contribution, 
 			double currentAmount, double interestRate, Date goalDate)
+	{
+		EngineListener listener = engineListener;
+		if (listener == null)
+		{
+			return findGoalAmount(startDate, nextContribution, contribution, currentAmount, interestRate, goalDate, null);
+		}
+		SolverCall call = new SolverCall("findGoalAmount");
+		double result = findGoalAmount(startDate, nextContribution, contribution, currentAmount, interestRate, goalDate, call);
+		listener.solverCompleted(call.finish());
+		return result;
+	}
+	
+	/**
+	 * Private helper method running findGoalAmount. Counts the iterations of its loops toward the call
+	 * if one is given.
+	 * @param call - the solver call to count iterations toward, null if no engine listener is installed
+	 */
+	private static double findGoalAmount(Date startDate, Date nextContribution, Contribution contribution, 
+			double currentAmount, double interestRate, Date goalDate, SolverCall call)
 	{
 		Calendar nextContributionCal = Calendar.getInstance();
 		nextContributionCal.setTime(nextContribution);
@@ -1334,6 +1646,10 @@ public class Prediction {
 		while (Prediction.numDaysBetween(nextContributionCal.getTime(), goalDate) >= 0 || 
 				Prediction.numDaysBetween(nextInterestCal.getTime(), goalDate) >= 0)
 		{
+			if (call != null)
+			{
+				call.iteration();
+			}
 			//Make a contribution
 			if (Prediction.numDaysBetween(nextContributionCal.getTime(), nextInterestCal.getTime()) >= 0)
 			{
@@ -1364,6 +1680,25 @@ public class Prediction {
 	 */
 	public static Date findGoalDateWithInterest(Date startDate, Date nextContribution, Contribution contribution, 
 			double currentAmount, double goalAmount, double interestRate, Date goalLimit)
+	{
+		EngineListener listener = engineListener;
+		if (listener == null)
+		{
+			return findGoalDateWithInterest(startDate, nextContribution, contribution, currentAmount, goalAmount, interestRate, goalLimit, null);
+		}
+		SolverCall call = new SolverCall("findGoalDateWithInterest");
+		Date result = findGoalDateWithInterest(startDate, nextContribution, contribution, currentAmount, goalAmount, interestRate, goalLimit, call);
+		listener.solverCompleted(call.finish());
+		return result;
+	}
+	
+	/**
+	 * Private helper method running findGoalDateWithInterest. Counts the iterations of its loops toward the call
+	 * if one is given.
+	 * @param call - the solver call to count iterations toward, null if no engine listener is installed
+	 */
+	private static Date findGoalDateWithInterest(Date startDate, Date nextContribution, Contribution contribution, 
+			double currentAmount, double goalAmount, double interestRate, Date goalLimit, SolverCall call)
 	{
 		//Frequency should be recurring
 		if (contribution.getFrequency().equals(Frequency.oneTime))
@@ -1378,7 +1713,11 @@ public class Prediction {
 		
 		Date potentialGoalDate = null;
 		while (!(currentAmount >= goalAmount))
-		{	
+		{
+			if (call != null)
+			{
+				call.iteration();
+			}	
 			if (Prediction.numDaysBetween(nextInterestCalendar.getTime(), nextContribution) > 0)
 			{
 				//Handle the interest accumulation
@@ -1421,6 +1760,25 @@ public class Prediction {
 	 */
 	public static double findInterestEarned(Date startDate, Date nextContribution, Contribution contribution, 
 			double currentAmount, double goalAmount, double interestRate, Date goalLimit)
+	{
+		EngineListener listener = engineListener;
+		if (listener == null)
+		{
+			return findInterestEarned(startDate, nextContribution, contribution, currentAmount, goalAmount, interestRate, goalLimit, null);
+		}
+		SolverCall call = new SolverCall("findInterestEarned");
+		double result = findInterestEarned(startDate, nextContribution, contribution, currentAmount, goalAmount, interestRate, goalLimit, call);
+		listener.solverCompleted(call.finish());
+		return result;
+	}
+	
+	/**
+	 * Private helper method running findInterestEarned. Counts the iterations of its loops toward the call
+	 * if one is given.
+	 * @param call - the solver call to count iterations toward, null if no engine listener is installed
+	 */
+	private static double findInterestEarned(Date startDate, Date nextContribution, Contribution contribution, 
+			double currentAmount, double goalAmount, double interestRate, Date goalLimit, SolverCall call)
 	{
 		//Frequency should be recurring
 		double interestEarned = 0;
@@ -1435,7 +1793,11 @@ public class Prediction {
 		nextInterestCalendar.add(Calendar.MONTH, 1);
 		
 		while (!(currentAmount >= goalAmount))
-		{	
+		{
+			if (call != null)
+			{
+				call.iteration();
+			}	
 			if (Prediction.numDaysBetween(nextInterestCalendar.getTime(), nextContribution) > 0)
 			{
 				//Handle the interest accumulation
@@ -1479,12 +1841,34 @@ public class Prediction {
 	 * 					this method does not take into account the interest rate
 	 */
 	public static Date findGoalDate(Date startDate, double paymentAmount, Frequency freq, double debtAmount, Date goalLimit)
+	{
+		EngineListener listener = engineListener;
+		if (listener == null)
+		{
+			return findGoalDate(startDate, paymentAmount, freq, debtAmount, goalLimit, null);
+		}
+		SolverCall call = new SolverCall("findGoalDate");
+		Date result = findGoalDate(startDate, paymentAmount, freq, debtAmount, goalLimit, call);
+		listener.solverCompleted(call.finish());
+		return result;
+	}
+	
+	/**
+	 * Private helper method running findGoalDate. Counts the iterations of its loops toward the call
+	 * if one is given.
+	 * @param call - the solver call to count iterations toward, null if no engine listener is installed
+	 */
+	private static Date findGoalDate(Date startDate, double paymentAmount, Frequency freq, double debtAmount, Date goalLimit, SolverCall call)
 	{
 		//Make initial payment
 		Date nextPayment = startDate;
 		debtAmount-=paymentAmount;
 		while (debtAmount > 0)
 		{
+			if (call != null)
+			{
+				call.iteration();
+			}
 			if (goalLimit != null && Prediction.numDaysBetween(nextPayment, goalLimit) < 0)
 			{
 				return null;
@@ -1511,6 +1895,25 @@ public class Prediction {
 	 */
 	public static double findSimpleInterestPaid(Date startDate, int daysBeforeFirstPayment, double paymentAmount,
 			Frequency freq, double debtAmount, double interestRate, double principal, Date goalLimit)
+	{
+		EngineListener listener = engineListener;
+		if (listener == null)
+		{
+			return findSimpleInterestPaid(startDate, daysBeforeFirstPayment, paymentAmount, freq, debtAmount, interestRate, principal, goalLimit, null);
+		}
+		SolverCall call = new SolverCall("findSimpleInterestPaid");
+		double result = findSimpleInterestPaid(startDate, daysBeforeFirstPayment, paymentAmount, freq, debtAmount, interestRate, principal, goalLimit, call);
+		listener.solverCompleted(call.finish());
+		return result;
+	}
+	
+	/**
+	 * Private helper method running findSimpleInterestPaid. Counts the iterations of its loops toward the call
+	 * if one is given.
+	 * @param call - the solver call to count iterations toward, null if no engine listener is installed
+	 */
+	private static double findSimpleInterestPaid(Date startDate, int daysBeforeFirstPayment, double paymentAmount,
+			Frequency freq, double debtAmount, double interestRate, double principal, Date goalLimit, SolverCall call)
 	{
 		double totalInterestPaid = 0;
 		double currInterest = debtAmount - principal;
@@ -1539,6 +1942,10 @@ public class Prediction {
 		//Keep applying payments until principal is reduced to zero or the next payment date goes past our limit
 		while (principal > 0)
 		{
+			if (call != null)
+			{
+				call.iteration();
+			}
 			//If the next payment date is past the goal limit date
 			//than we give up on finding a goal date and return null
 			if (goalLimit != null && Prediction.numDaysBetween(nextPayment, goalLimit) < 0)
@@ -1584,6 +1991,25 @@ public class Prediction {
 	 */
 	public static Date findGoalDateSimpleInterest(Date startDate, int daysBeforeFirstPayment, double paymentAmount,
 			Frequency freq, double debtAmount, double interestRate, double principal, Date goalLimit)
+	{
+		EngineListener listener = engineListener;
+		if (listener == null)
+		{
+			return findGoalDateSimpleInterest(startDate, daysBeforeFirstPayment, paymentAmount, freq, debtAmount, interestRate, principal, goalLimit, null);
+		}
+		SolverCall call = new SolverCall("findGoalDateSimpleInterest");
+		Date result = findGoalDateSimpleInterest(startDate, daysBeforeFirstPayment, paymentAmount, freq, debtAmount, interestRate, principal, goalLimit, call);
+		listener.solverCompleted(call.finish());
+		return result;
+	}
+	
+	/**
+	 * Private helper method running findGoalDateSimpleInterest. Counts the iterations of its loops toward the call
+	 * if one is given.
+	 * @param call - the solver call to count iterations toward, null if no engine listener is installed
+	 */
+	private static Date findGoalDateSimpleInterest(Date startDate, int daysBeforeFirstPayment, double paymentAmount,
+			Frequency freq, double debtAmount, double interestRate, double principal, Date goalLimit, SolverCall call)
 	{
 		double currInterest = debtAmount - principal;
 		
@@ -1609,6 +2035,10 @@ public class Prediction {
 		//Keep applying payments until principal is reduced to zero or the next payment date goes past our limit
 		while (principal > 0)
 		{
+			if (call != null)
+			{
+				call.iteration();
+			}
 			//If the next payment date is past the goal limit date
 			//than we give up on finding a goal date and return null
 			if (goalLimit != null && Prediction.numDaysBetween(nextPayment, goalLimit) < 0)
@@ -1651,6 +2081,25 @@ public class Prediction {
 	 */
 	public static double findCompoundInterestPaid(Date startDate, int daysBeforeFirstPayment, double paymentAmount,
 			Frequency freq, double debtAmount, double interestRate, Date goalLimit)
+	{
+		EngineListener listener = engineListener;
+		if (listener == null)
+		{
+			return findCompoundInterestPaid(startDate, daysBeforeFirstPayment, paymentAmount, freq, debtAmount, interestRate, goalLimit, null);
+		}
+		SolverCall call = new SolverCall("findCompoundInterestPaid");
+		double result = findCompoundInterestPaid(startDate, daysBeforeFirstPayment, paymentAmount, freq, debtAmount, interestRate, goalLimit, call);
+		listener.solverCompleted(call.finish());
+		return result;
+	}
+	
+	/**
+	 * Private helper method running findCompoundInterestPaid. Counts the iterations of its loops toward the call
+	 * if one is given.
+	 * @param call - the solver call to count iterations toward, null if no engine listener is installed
+	 */
+	private static double findCompoundInterestPaid(Date startDate, int daysBeforeFirstPayment, double paymentAmount,
+			Frequency freq, double debtAmount, double interestRate, Date goalLimit, SolverCall call)
 	{
 		double totalInterest = 0;
 		//Add in initial interest and apply first payment
@@ -1666,6 +2115,10 @@ public class Prediction {
 		//Keep applying payments until debt is reduced to zero
 		while (debtAmount > 0)
 		{
+			if (call != null)
+			{
+				call.iteration();
+			}
 			if (goalLimit != null && Prediction.numDaysBetween(nextPayment, goalLimit) < 0)
 			{
 				return -1;
@@ -1698,6 +2151,25 @@ public class Prediction {
 	 */
 	public static Date findGoalDateCompoundInterest(Date startDate, int daysBeforeFirstPayment, double paymentAmount,
 			Frequency freq, double debtAmount, double interestRate, Date goalLimit)
+	{
+		EngineListener listener = engineListener;
+		if (listener == null)
+		{
+			return findGoalDateCompoundInterest(startDate, daysBeforeFirstPayment, paymentAmount, freq, debtAmount, interestRate, goalLimit, null);
+		}
+		SolverCall call = new SolverCall("findGoalDateCompoundInterest");
+		Date result = findGoalDateCompoundInterest(startDate, daysBeforeFirstPayment, paymentAmount, freq, debtAmount, interestRate, goalLimit, call);
+		listener.solverCompleted(call.finish());
+		return result;
+	}
+	
+	/**
+	 * Private helper method running findGoalDateCompoundInterest. Counts the iterations of its loops toward the call
+	 * if one is given.
+	 * @param call - the solver call to count iterations toward, null if no engine listener is installed
+	 */
+	private static Date findGoalDateCompoundInterest(Date startDate, int daysBeforeFirstPayment, double paymentAmount,
+			Frequency freq, double debtAmount, double interestRate, Date goalLimit, SolverCall call)
 	{
 		//Add in initial interest and apply first payment
 		debtAmount = debtAmount * Math.pow(1+interestRate/NUM_DAYS_IN_YEAR, daysBeforeFirstPayment) - paymentAmount;
@@ -1708,6 +2180,10 @@ public class Prediction {
 		//Keep applying payments until debt is reduced to zero
 		while (debtAmount > 0)
 		{
+			if (call != null)
+			{
+				call.iteration();
+			}
 
 			if (goalLimit != null && Prediction.numDaysBetween(nextPayment, goalLimit) < 0)
 			{
@@ -1829,7 +2305,7 @@ public class Prediction {
 			dailyAmount = -dailyAmount;
 			dailyAmounts.put(currLoss.expenseDescription(), dailyAmount);
 		}
-		for (BudgetItem currItem : budget.getAllBudgetItems().values())
+		for (BudgetItem currItem : budget.getBudgetItemArray())
 		{
 			double dailyAmount = toggle(currItem.lossAmount(), currItem.lossFrequency(), freq);
 			dailyAmount = -dailyAmount;
@@ -1940,7 +2416,7 @@ public class Prediction {
 	public static double analyzeNetGainAtFreq(BadBudgetData bbd, Frequency freq, Date chosenDate)
 	{
 		double netGainAtFreq = 0;
-		for (MoneyGain currGain : bbd.getGains())
+		for (MoneyGain currGain : bbd.getRegistry().gains())
 		{
 			if (considerableNextDate(chosenDate, currGain.nextDeposit(), currGain.endDate(), currGain.gainFrequency()))
 			{
@@ -2062,10 +2538,11 @@ public class Prediction {
 	public static double analyzeNetPaymentsAtFreq(BadBudgetData bbd, Frequency freq, Date chosenDate, Date today, Date limitDate)
 	{
 		double netPaymentAtFreq = 0;
-		for (MoneyOwed currDebt : bbd.getDebts())
+		SourceIndex sourceIndex = bbd.getSourceIndex();
+		for (MoneyOwed currDebt : sourceIndex.registry().debts())
 		{
 			double paymentAtFreq = Prediction.analyzeSingleDebtPaymentAtFreq(currDebt, 
-					bbd, freq, chosenDate, today, limitDate);
+					sourceIndex, freq, chosenDate, today, limitDate);
 			if (paymentAtFreq != -1)
 			{
 				netPaymentAtFreq += paymentAtFreq;
@@ -2088,7 +2565,7 @@ public class Prediction {
 	public static double analyzeNetContributionsAtFreq(BadBudgetData bbd, Frequency freq, Date chosenDate)
 	{
 		double netContributionAtFreq = 0;
-		for (Account currAccount : bbd.getAccounts())
+		for (Account currAccount : bbd.getRegistry().accounts())
 		{
 			if (currAccount instanceof SavingsAccount)
 			{
@@ -2203,7 +2680,7 @@ public class Prediction {
 		}
 		
 		//Consider all savings accounts. Add the sources for their contributions to the map.
-		for (Account currAccount : bbd.getAccounts())
+		for (Account currAccount : bbd.getRegistry().accounts())
 		{
 			if (currAccount instanceof SavingsAccount)
 			{
@@ -2230,10 +2707,11 @@ public class Prediction {
 		}
 		
 		//Consider all debts.
-		for (MoneyOwed currDebt : bbd.getDebts())
+		SourceIndex sourceIndex = bbd.getSourceIndex();
+		for (MoneyOwed currDebt : sourceIndex.registry().debts())
 		{
 			double paymentAtFreq = Prediction.analyzeSingleDebtPaymentAtFreq(currDebt, 
-					bbd, freq, chosenDate, today, limitDate);
+					sourceIndex, freq, chosenDate, today, limitDate);
 			
 			if (paymentAtFreq != -1)
 			{
@@ -2252,7 +2730,7 @@ public class Prediction {
 		}
 		
 		//Consider all transfers (the source of the transfer is included if it is not a savings account)
-		for (MoneyTransfer currTransfer : bbd.getTransfers())
+		for (MoneyTransfer currTransfer : bbd.getRegistry().transfers())
 		{
 			Account source = currTransfer.getSource();
 			if (!(source instanceof SavingsAccount) && 
@@ -2280,7 +2758,7 @@ public class Prediction {
 	 * it has a considerable payment this method returns the payment amount for the given
 	 * chosen date at the given frequency. If it does not have a considerable payment this method returns -1;
 	 * @param debt - the single debt to consider
-	 * @param bbd - the bad budget data to use for calculating a credit cards money out
+	 * @param sourceIndex - the source index of the bad budget data, used for calculating a credit cards money out
 	 * @param freq - the frequency to see our payment at
 	 * @param chosenDate - the user chosen date (should be greater equal or greater than today's date) to
 	 * 						see the payment amount for.
@@ -2289,7 +2767,7 @@ public class Prediction {
 	 * @return returns the payment amount for the given
 	 * chosen date at the given frequency. If it does not have a considerable payment this method returns -1
 	 */
-	private static double analyzeSingleDebtPaymentAtFreq(MoneyOwed debt, BadBudgetData bbd,
+	private static double analyzeSingleDebtPaymentAtFreq(MoneyOwed debt, SourceIndex sourceIndex,
 			Frequency freq, Date chosenDate, Date today, Date limitDate)
 	{
 		Payment currPayment = debt.payment();
@@ -2301,7 +2779,7 @@ public class Prediction {
 			{
 				if (debt instanceof CreditCard)
 				{
-					paymentAtFreq = Prediction.analyzeCreditCardMoneyOut((CreditCard)debt, bbd, freq, chosenDate);
+					paymentAtFreq = Prediction.analyzeCreditCardMoneyOut((CreditCard)debt, sourceIndex, freq, chosenDate);
 				}
 			}
 			else
@@ -2310,7 +2788,7 @@ public class Prediction {
 				double lossesAmt = 0;
 				if (debt instanceof CreditCard)
 				{
-					lossesAmt = Prediction.analyzeCreditCardMoneyOut((CreditCard)debt, bbd, currPayment.frequency(), chosenDate);
+					lossesAmt = Prediction.analyzeCreditCardMoneyOut((CreditCard)debt, sourceIndex, currPayment.frequency(), chosenDate);
 				}
 				
 				Date switchDate = null;
@@ -2336,7 +2814,7 @@ public class Prediction {
 	
 	/**
 	 * Returns the money coming out of a credit card for the given freq and chosen date. Includes money going
-	 * toward losses and budget items.
+	 * toward losses and budget items. The credit card should be one of the bad budget data's debts.
 	 * @param creditCard - the credit card to consider
 	 * @param bbd - the bad budget data object
 	 * @param freq - the frequency to see the credit card's money out
@@ -2345,22 +2823,37 @@ public class Prediction {
 	 */
 	public static double analyzeCreditCardMoneyOut(CreditCard creditCard, BadBudgetData bbd, Frequency freq, Date chosenDate)
 	{	
+		return analyzeCreditCardMoneyOut(creditCard, bbd.getSourceIndex(), freq, chosenDate);
+	}
+	
+	/**
+	 * Private helper for analyzeCreditCardMoneyOut that looks up the losses and budget items drawing from the credit
+	 * card in an already built source index.
+	 * @param creditCard - the credit card to consider
+	 * @param sourceIndex - the source index of the bad budget data object
+	 * @param freq - the frequency to see the credit card's money out
+	 * @param chosenDate - the date to consider for the credit card's money out
+	 * @return the money out of a credit card for the given freq and chosen date.
+	 */
+	private static double analyzeCreditCardMoneyOut(CreditCard creditCard, SourceIndex sourceIndex, Frequency freq, Date chosenDate)
+	{
 		double freqAmount = 0.0;
 		
-		ArrayList<MoneyLoss> allLosses = new ArrayList<MoneyLoss>();
-		allLosses.addAll(bbd.getLosses());
-		allLosses.addAll(bbd.getBudget().getAllBudgetItems().values());
-		
-		//Check all losses and budget items. If their source is the credit card we are interested in we add the freqAmt to the net amount
-		for (MoneyLoss currLoss : allLosses)
+		//Check the losses and then the budget items drawing from the credit card and add the freqAmt of each to the net amount
+		for (MoneyLoss currLoss : sourceIndex.lossesFrom(creditCard))
 		{
-			Source source = currLoss.source();
-			if (source instanceof CreditCard && source.name().equals(creditCard.name()) && 
-					considerableNextDate(chosenDate, currLoss.nextLoss(), currLoss.endDate(), currLoss.lossFrequency()))
+			if (considerableNextDate(chosenDate, currLoss.nextLoss(), currLoss.endDate(), currLoss.lossFrequency()))
 			{
 				freqAmount += toggle(currLoss.lossAmount(), currLoss.lossFrequency(), freq);
 			}
 		}
+		for (BudgetItem currItem : sourceIndex.budgetItemsFrom(creditCard))
+		{
+			if (considerableNextDate(chosenDate, currItem.nextLoss(), currItem.endDate(), currItem.lossFrequency()))
+			{
+				freqAmount += toggle(currItem.lossAmount(), currItem.lossFrequency(), freq);
+			}
+		}
 		
 		return freqAmount;
 	}
@@ -2376,7 +2869,7 @@ public class Prediction {
 	public static double analyzeInterestChangeSavings(BadBudgetData bbd, int dayIndex, Frequency freq)
 	{
 		double totalChangeAtFreq = 0;
-		for (Account currAccount : bbd.getAccounts())
+		for (Account currAccount : bbd.getRegistry().accounts())
 		{
 			if (currAccount instanceof SavingsAccount)
 			{
@@ -2398,7 +2891,7 @@ public class Prediction {
 	public static double analyzeInterestChangeDebts(BadBudgetData bbd, int dayIndex, Frequency freq)
 	{
 		double totalChangeAtFreq = 0;
-		for (MoneyOwed debt : bbd.getDebts())
+		for (MoneyOwed debt : bbd.getRegistry().debts())
 		{
 			totalChangeAtFreq += analyzeInterestChangeRateForDayIndex(debt, dayIndex, freq);
 		}
@@ -2454,41 +2947,55 @@ public class Prediction {
 	public static void update(BadBudgetData bbd, Date currDate, Date endDate)
 	{
 		boolean autoReset = bbd.getBudget().isAutoReset();
+		
+		EngineListener listener = engineListener;
+		PredictionTimings callTimings = null;
+		long startNanos = 0;
+		if (listener != null)
+		{
+			startNanos = System.nanoTime();
+			callTimings = new PredictionTimings();
+		}
 
 		if (autoReset)
 		{
 			//Run a prediction with considerRemainAmount set
-			Prediction.predict(bbd, currDate, endDate, true);
+			Prediction.predict(bbd, currDate, endDate, true, callTimings);
 		}
 		else
 		{
-			Prediction.predict(bbd, currDate, endDate, false);
+			Prediction.predict(bbd, currDate, endDate, false, callTimings);
 		}
 		int dayIndex = Prediction.numDaysBetween(currDate, endDate);
-		for (Account currAccount : bbd.getAccounts())
+		for (Account currAccount : bbd.getRegistry().accounts())
 		{
 			currAccount.update(dayIndex);
 		}
-		for (MoneyTransfer currTransfer : bbd.getTransfers())
+		for (MoneyTransfer currTransfer : bbd.getRegistry().transfers())
 		{
 			currTransfer.update(dayIndex);
 		}
-		for (MoneyOwed currDebt : bbd.getDebts())
+		for (MoneyOwed currDebt : bbd.getRegistry().debts())
 		{
 			currDebt.update(endDate, dayIndex);
 		}
-		for (MoneyGain currGain : bbd.getGains())
+		for (MoneyGain currGain : bbd.getRegistry().gains())
 		{
 			currGain.update(dayIndex);
 		}
-		for (MoneyLoss currLoss : bbd.getLosses())
+		for (MoneyLoss currLoss : bbd.getRegistry().losses())
 		{
 			currLoss.update(dayIndex);
 		}
-		for (BudgetItem currItem : bbd.getBudget().getAllBudgetItems().values())
+		for (BudgetItem currItem : bbd.getBudget().getBudgetItemArray())
 		{
 			currItem.update(dayIndex, autoReset);
 		}
+		
+		if (listener != null)
+		{
+			predictionCompleted(listener, PredictionCall.UPDATE, bbd, callTimings, null, startNanos);
+		}
 	}
 	
 	/**
@@ -2496,6 +3003,10 @@ public class Prediction {
 	 * current amount is set depending on whether autoReset is set in the budget. If not set then
 	 * the budget items only have their next dates updated. If set then the remain action is considered and
 	 * the curr amount of the items is updated accordingly.
+	 * 
+	 * Since next dates don't depend on any balances no prediction is run (and no predict data is created).
+	 * Each entity's recurrence is jumped straight past the end date (see RecurrenceJump) and the budget item
+	 * remain amounts come from counting the skipped resets.
 	 * @param bbd - the bad budget data to update the next dates for
 	 * @param currDate - the date considered as the start
 	 * @param endDate - the date to end our update on
@@ -2503,41 +3014,56 @@ public class Prediction {
 	public static void updateNextDatesOnly(BadBudgetData bbd, Date currDate, Date endDate)
 	{
 		boolean autoReset = bbd.getBudget().isAutoReset();
-
-		if (autoReset)
+		
+		EngineListener listener = engineListener;
+		PredictionTimings callTimings = null;
+		long startNanos = 0;
+		if (listener != null)
 		{
-			//Run a prediction and consider remain action
-			Prediction.predict(bbd, currDate, endDate, true);
+			startNanos = System.nanoTime();
+			callTimings = new PredictionTimings();
 		}
-		else
+
+		RecurrenceJump jump = new RecurrenceJump(currDate, endDate);
+		for (SavingsAccount currAccount : bbd.getRegistry().savingsAccounts())
 		{
-			Prediction.predict(bbd, currDate, endDate, false);
+			Date nextContribution = currAccount.nextContribution();
+			if (nextContribution != null)
+			{
+				nextContribution = jump.jump(nextContribution, currAccount.contribution().getFrequency(), currAccount.endDate());
+			}
+			currAccount.updateNextDatesOnly(nextContribution);
 		}
-		
-		int dayIndex = Prediction.numDaysBetween(currDate, endDate);
-		for (Account currAccount : bbd.getAccounts())
+		for (MoneyTransfer currTransfer : bbd.getRegistry().transfers())
 		{
-			currAccount.updateNextDatesOnly(dayIndex);
+			currTransfer.setNextTransfer(jump.jump(currTransfer.getNextTransfer(), currTransfer.getFrequency(), currTransfer.getEndDate()));
 		}
-		for (MoneyTransfer currTransfer : bbd.getTransfers())
+		for (MoneyOwed currDebt : bbd.getRegistry().debts())
 		{
-			currTransfer.updateNextDatesOnly(dayIndex);
+			Payment payment = currDebt.payment();
+			if (payment != null)
+			{
+				currDebt.updateNextDatesOnly(jump.jump(payment.nextPaymentDate(), payment.frequency(), payment.endDate()));
+			}
 		}
-		for (MoneyOwed currDebt : bbd.getDebts())
+		for (MoneyGain currGain : bbd.getRegistry().gains())
 		{
-			currDebt.updateNextDatesOnly(dayIndex);
+			currGain.setNextDeposit(jump.jump(currGain.nextDeposit(), currGain.gainFrequency(), currGain.endDate()));
 		}
-		for (MoneyGain currGain : bbd.getGains())
+		for (MoneyLoss currLoss : bbd.getRegistry().losses())
 		{
-			currGain.updateNextDatesOnly(dayIndex);
+			currLoss.setNextLoss(jump.jump(currLoss.nextLoss(), currLoss.lossFrequency(), currLoss.endDate()));
 		}
-		for (MoneyLoss currLoss : bbd.getLosses())
+		Budget budget = bbd.getBudget();
+		for (BudgetItem currItem : budget.getBudgetItemArray())
 		{
-			currLoss.updateNextDatesOnly(dayIndex);
+			Date nextLoss = jump.jump(budget, currItem, currItem.nextLoss());
+			currItem.updateNextDatesOnly(nextLoss, jump, autoReset);
 		}
-		for (BudgetItem currItem : bbd.getBudget().getAllBudgetItems().values())
+		
+		if (listener != null)
 		{
-			currItem.updateNextDatesOnly(dayIndex, autoReset);
+			predictionCompleted(listener, PredictionCall.UPDATE_NEXT_DATES_ONLY, bbd, callTimings, null, startNanos);
 		}
 	}
 }
@@ -0,0 +1,123 @@
+package com.erikartymiuk.badbudgetlogic.main;
+
+import com.erikartymiuk.badbudgetlogic.budget.Budget;
+
+/**
+ * The details of a completed call into the prediction algorithm handed to an EngineListener: which call it was, the
+ * shape of the user's data, how many days it predicted, what it fired and how long it took.
+ */
+public class PredictionCall
+{
+	public static final String PREDICT = "predict";
+	public static final String PREDICT_CONTINUE = "predictContinue";
+	public static final String UPDATE = "update";
+	public static final String UPDATE_NEXT_DATES_ONLY = "updateNextDatesOnly";
+
+	private final String operation;			//One of the constants above
+	private final int numAccounts;			//Including savings accounts
+	private final int numDebts;
+	private final int numGains;
+	private final int numLosses;
+	private final int numTransfers;
+	private final int numBudgetItems;
+	private final int horizonDays;			//Days predicted by this call
+	private final long numEvents;			//Transfers, payments, interest accumulations and so on fired
+	private final long historyItems;		//Transaction history items created
+	private final long durationNanos;
+
+	/**
+	 * Constructor for the details of a call.
+	 * @param operation - the call made, one of the constants of this class
+	 * @param bbd - the data the call was made on
+	 * @param timings - the timings the call's prediction loop recorded
+	 * @param durationNanos - how long the whole call took
+	 */
+	PredictionCall(String operation, BadBudgetData bbd, PredictionTimings timings, long durationNanos)
+	{
+		EntityRegistry registry = bbd.getRegistry();
+		Budget budget = bbd.getBudget();
+
+		this.operation = operation;
+		this.numAccounts = registry.accounts().length;
+		this.numDebts = registry.debts().length;
+		this.numGains = registry.gains().length;
+		this.numLosses = registry.losses().length;
+		this.numTransfers = registry.transfers().length;
+		if (budget != null)
+		{
+			this.numBudgetItems = budget.getBudgetItemArray().length;
+		}
+		else
+		{
+			this.numBudgetItems = 0;
+		}
+		this.horizonDays = (int) timings.numDays();
+		this.numEvents = timings.totalEvents();
+		this.historyItems = timings.historyItems();
+		this.durationNanos = durationNanos;
+	}
+
+	public String getOperation()
+	{
+		return this.operation;
+	}
+
+	public int getNumAccounts()
+	{
+		return this.numAccounts;
+	}
+
+	public int getNumDebts()
+	{
+		return this.numDebts;
+	}
+
+	public int getNumGains()
+	{
+		return this.numGains;
+	}
+
+	public int getNumLosses()
+	{
+		return this.numLosses;
+	}
+
+	public int getNumTransfers()
+	{
+		return this.numTransfers;
+	}
+
+	public int getNumBudgetItems()
+	{
+		return this.numBudgetItems;
+	}
+
+	/**
+	 * The total number of entities (accounts, debts, gains, losses, transfers and budget items) the call handled.
+	 * @return the number of entities
+	 */
+	public int getNumEntities()
+	{
+		return this.numAccounts + this.numDebts + this.numGains + this.numLosses + this.numTransfers + this.numBudgetItems;
+	}
+
+	public int getHorizonDays()
+	{
+		return this.horizonDays;
+	}
+
+	public long getNumEvents()
+	{
+		return this.numEvents;
+	}
+
+	public long getHistoryItems()
+	{
+		return this.historyItems;
+	}
+
+	public long getDurationNanos()
+	{
+		return this.durationNanos;
+	}
+}
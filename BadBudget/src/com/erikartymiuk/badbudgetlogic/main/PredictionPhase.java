@@ -0,0 +1,17 @@
+package com.erikartymiuk.badbudgetlogic.main;
+
+/**
+ * The phases the prediction algorithm runs through on each day, in the order it runs them.
+ */
+public enum PredictionPhase
+{
+	initializeRows,
+	transfers,
+	contributions,
+	gains,
+	debtPayments,
+	losses,
+	budget,
+	debtInterest,
+	savingsInterest
+}
@@ -0,0 +1,234 @@
+package com.erikartymiuk.badbudgetlogic.main;
+
+import java.util.Locale;
+
+/**
+ * Per phase timing instrumentation for the prediction algorithm. Passing an instance to Prediction.predict or
+ * Prediction.predictContinue records, for each phase, the cumulative nanos spent in it, the number of times it ran
+ * (once per day) and the number of events it fired (transfers made, payments applied, interest accumulated and so
+ * on). Events are also counted by the kind of entity that fired them, as are the transaction history items
+ * created. When no timings are passed the prediction runs exactly as it did without instrumentation, so the cost
+ * is only paid when asked for.
+ *
+ * A timings object is meant to be used for one prediction run at a time (it isn't thread safe). Runs can be
+ * combined with add and a run can be exported with toString (a table) or toCsv.
+ */
+public class PredictionTimings
+{
+	private static final PredictionPhase[] PHASES = PredictionPhase.values();
+	private static final EntityKind[] KINDS = EntityKind.values();
+
+	private final long[] phaseNanos;			//By phase ordinal
+	private final long[] phaseInvocations;		//By phase ordinal
+	private final long[] phaseEvents;			//By phase ordinal
+	private final long[] kindEvents;			//By entity kind ordinal
+	private long historyItems;					//Transaction history items created
+	private long pendingEvents;					//Events fired since the last phase was recorded
+	private long numDays;						//Days predicted
+	private long numRuns;						//Calls to predict or predictContinue recorded
+
+	public PredictionTimings()
+	{
+		this.phaseNanos = new long[PHASES.length];
+		this.phaseInvocations = new long[PHASES.length];
+		this.phaseEvents = new long[PHASES.length];
+		this.kindEvents = new long[KINDS.length];
+	}
+
+	/**
+	 * Counts an event fired by an entity of the given kind toward the phase currently running.
+	 * @param kind - the kind of entity that fired the event
+	 * @param historyItems - the number of transaction history items the event created
+	 */
+	void event(EntityKind kind, int historyItems)
+	{
+		this.kindEvents[kind.ordinal()]++;
+		this.pendingEvents++;
+		this.historyItems += historyItems;
+	}
+
+	/**
+	 * Records a run of a phase that started at the given time, along with the events fired since the previous phase
+	 * was recorded.
+	 * @param phase - the phase that just ran
+	 * @param startNanos - System.nanoTime() when the phase started
+	 * @return System.nanoTime() now, so it can be used as the start of the next phase
+	 */
+	long record(PredictionPhase phase, long startNanos)
+	{
+		long now = System.nanoTime();
+		int index = phase.ordinal();
+		this.phaseNanos[index] += now - startNanos;
+		this.phaseInvocations[index]++;
+		this.phaseEvents[index] += this.pendingEvents;
+		this.pendingEvents = 0;
+		return now;
+	}
+
+	/**
+	 * Records the start of a run of the prediction loop.
+	 * @param numDays - the number of days the run predicts
+	 */
+	void startRun(int numDays)
+	{
+		this.numRuns++;
+		if (numDays > 0)
+		{
+			this.numDays += numDays;
+		}
+		this.pendingEvents = 0;
+	}
+
+	public long nanos(PredictionPhase phase)
+	{
+		return this.phaseNanos[phase.ordinal()];
+	}
+
+	public long invocations(PredictionPhase phase)
+	{
+		return this.phaseInvocations[phase.ordinal()];
+	}
+
+	public long events(PredictionPhase phase)
+	{
+		return this.phaseEvents[phase.ordinal()];
+	}
+
+	public long events(EntityKind kind)
+	{
+		return this.kindEvents[kind.ordinal()];
+	}
+
+	public long historyItems()
+	{
+		return this.historyItems;
+	}
+
+	public long numDays()
+	{
+		return this.numDays;
+	}
+
+	public long numRuns()
+	{
+		return this.numRuns;
+	}
+
+	/**
+	 * The total nanos recorded over every phase.
+	 * @return the total nanos
+	 */
+	public long totalNanos()
+	{
+		long total = 0;
+		for (long nanos : this.phaseNanos)
+		{
+			total += nanos;
+		}
+		return total;
+	}
+
+	/**
+	 * The total events recorded over every phase.
+	 * @return the total events
+	 */
+	public long totalEvents()
+	{
+		long total = 0;
+		for (long events : this.phaseEvents)
+		{
+			total += events;
+		}
+		return total;
+	}
+
+	/**
+	 * Adds the counts of another timings object to this one (to combine the timings of several runs).
+	 * @param other - the timings to add
+	 */
+	public void add(PredictionTimings other)
+	{
+		for (int i = 0; i < PHASES.length; i++)
+		{
+			this.phaseNanos[i] += other.phaseNanos[i];
+			this.phaseInvocations[i] += other.phaseInvocations[i];
+			this.phaseEvents[i] += other.phaseEvents[i];
+		}
+		for (int i = 0; i < KINDS.length; i++)
+		{
+			this.kindEvents[i] += other.kindEvents[i];
+		}
+		this.historyItems += other.historyItems;
+		this.numDays += other.numDays;
+		this.numRuns += other.numRuns;
+	}
+
+	/**
+	 * Clears every count so the object can be reused for another run.
+	 */
+	public void reset()
+	{
+		for (int i = 0; i < PHASES.length; i++)
+		{
+			this.phaseNanos[i] = 0;
+			this.phaseInvocations[i] = 0;
+			this.phaseEvents[i] = 0;
+		}
+		for (int i = 0; i < KINDS.length; i++)
+		{
+			this.kindEvents[i] = 0;
+		}
+		this.historyItems = 0;
+		this.pendingEvents = 0;
+		this.numDays = 0;
+		this.numRuns = 0;
+	}
+
+	/**
+	 * Exports the counts as csv. The first line is a header, then a line per phase
+	 * ("phase,name,nanos,invocations,events") followed by a line per entity kind ("kind,name,,,events").
+	 * @return the csv text
+	 */
+	public String toCsv()
+	{
+		StringBuilder sb = new StringBuilder("type,name,nanos,invocations,events\n");
+		for (PredictionPhase phase : PHASES)
+		{
+			sb.append("phase,").append(phase.name()).append(',').append(this.nanos(phase)).append(',')
+				.append(this.invocations(phase)).append(',').append(this.events(phase)).append('\n');
+		}
+		for (EntityKind kind : KINDS)
+		{
+			sb.append("kind,").append(kind.name()).append(",,,").append(this.events(kind)).append('\n');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * A table of the counts, a row per phase with its share of the total time followed by the events per entity kind.
+	 */
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+		long total = this.totalNanos();
+		sb.append(String.format(Locale.ROOT, "%d run(s), %d day(s), %d history item(s), %.3f ms%n", this.numRuns,
+				this.numDays, this.historyItems, total / 1e6));
+		sb.append(String.format(Locale.ROOT, "%-16s %14s %7s %12s %10s%n", "phase", "nanos", "%", "invocations", "events"));
+		for (PredictionPhase phase : PHASES)
+		{
+			double percent = 0;
+			if (total != 0)
+			{
+				percent = 100.0 * this.nanos(phase) / total;
+			}
+			sb.append(String.format(Locale.ROOT, "%-16s %14d %7.2f %12d %10d%n", phase.name(), this.nanos(phase), percent,
+					this.invocations(phase), this.events(phase)));
+		}
+		sb.append(String.format(Locale.ROOT, "%-16s %10s%n", "kind", "events"));
+		for (EntityKind kind : KINDS)
+		{
+			sb.append(String.format(Locale.ROOT, "%-16s %10d%n", kind.name(), this.events(kind)));
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,183 @@
+package com.erikartymiuk.badbudgetlogic.main;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+
+/**
+ * Speeds up the date checks of many verifyValues calls in a row. Dates are reduced to day numbers with one reused
+ * calendar instead of the calendars Prediction.numDaysBetween and datesEqualUpToDay allocate on every call, and the
+ * occurrences of a recurrence (a start day and a frequency) are worked out once and kept, so payments sharing a
+ * next payment date and frequency share the walk findGoalDate would repeat for each of them. Gives the same answers
+ * as the Prediction methods it stands in for. Not thread safe, each thread should use its own.
+ */
+public class RecurrenceCache
+{
+	private static final long MILLIS_PER_DAY = 1000L * 60 * 60 * 24;
+	private static final int NUM_FREQUENCIES = Frequency.values().length;
+
+	private final Calendar calendar;					//Reused to find the local day of a date
+	private final HashMap<Long, Recurrence> recurrences;	//By start day * NUM_FREQUENCIES + frequency ordinal
+
+	/**
+	 * The occurrences of a recurrence found so far.
+	 */
+	private static class Recurrence
+	{
+		private int[] days;			//The day numbers of the occurrences, days[0] is the start day
+		private int count;			//The number of occurrences found
+		private Date last;			//The date of the last occurrence found
+
+		private Recurrence(Date start, int startDay)
+		{
+			this.days = new int[16];
+			this.days[0] = startDay;
+			this.count = 1;
+			this.last = start;
+		}
+	}
+
+	public RecurrenceCache()
+	{
+		this.calendar = Calendar.getInstance();
+		this.recurrences = new HashMap<Long, Recurrence>();
+	}
+
+	/**
+	 * The local day a date falls on as a count of days since the epoch. Only differences between day numbers mean
+	 * anything.
+	 * @param date - the date
+	 * @return the day number
+	 */
+	public int dayNumber(Date date)
+	{
+		this.calendar.setTime(date);
+		long localMillis = date.getTime() + this.calendar.get(Calendar.ZONE_OFFSET) + this.calendar.get(Calendar.DST_OFFSET);
+		return (int) Math.floorDiv(localMillis, MILLIS_PER_DAY);
+	}
+
+	/**
+	 * Same as Prediction.numDaysBetween.
+	 * @param day1 - the first day
+	 * @param day2 - the second day
+	 * @return the number of days from day1 to day2, negative if day2 is before day1
+	 */
+	public int numDaysBetween(Date day1, Date day2)
+	{
+		return this.dayNumber(day2) - this.dayNumber(day1);
+	}
+
+	/**
+	 * Same as Prediction.datesEqualUpToDay.
+	 * @param date1 - the first date
+	 * @param date2 - the second date
+	 * @return true if the dates fall on the same day
+	 */
+	public boolean datesEqualUpToDay(Date date1, Date date2)
+	{
+		return this.dayNumber(date1) == this.dayNumber(date2);
+	}
+
+	/**
+	 * The day of an occurrence of a recurrence, found as repeated calls to Payment.determineNextPayment would find it.
+	 * @param start - the date of the first occurrence
+	 * @param frequency - the frequency of the recurrence, must not be one time
+	 * @param occurrence - which occurrence, 0 being the start
+	 * @return the day number of the occurrence
+	 */
+	public int occurrenceDay(Date start, Frequency frequency, int occurrence)
+	{
+		int startDay = this.dayNumber(start);
+		Long key = (long) startDay * NUM_FREQUENCIES + frequency.ordinal();
+		Recurrence recurrence = this.recurrences.get(key);
+		if (recurrence == null)
+		{
+			recurrence = new Recurrence(start, startDay);
+			this.recurrences.put(key, recurrence);
+		}
+
+		while (recurrence.count <= occurrence)
+		{
+			if (recurrence.count == recurrence.days.length)
+			{
+				int[] days = new int[recurrence.days.length * 2];
+				System.arraycopy(recurrence.days, 0, days, 0, recurrence.count);
+				recurrence.days = days;
+			}
+			recurrence.last = Payment.determineNextPayment(recurrence.last, frequency);
+			recurrence.days[recurrence.count] = this.dayNumber(recurrence.last);
+			recurrence.count++;
+		}
+		return recurrence.days[occurrence];
+	}
+
+	/**
+	 * Same as Prediction.findGoalDate(startDate, paymentAmount, freq, debtAmount, null) but giving the day number of
+	 * the goal date.
+	 * @param startDate - the date of the first payment
+	 * @param paymentAmount - the amount of each payment, must be positive
+	 * @param freq - the frequency of the payments, must not be one time
+	 * @param debtAmount - the amount to pay off
+	 * @return the day number of the payment that pays off the debt
+	 */
+	public int findGoalDay(Date startDate, double paymentAmount, Frequency freq, double debtAmount)
+	{
+		//Count the payments the same way findGoalDate does so rounding is the same
+		int numPayments = 0;
+		debtAmount-=paymentAmount;
+		while (debtAmount > 0)
+		{
+			debtAmount-=paymentAmount;
+			numPayments++;
+		}
+		return this.occurrenceDay(startDate, freq, numPayments);
+	}
+
+	/**
+	 * Forgets the recurrences found so far.
+	 */
+	public void clear()
+	{
+		this.recurrences.clear();
+	}
+
+	/*
+	 * Used by verifyValues, which takes a null cache to mean the Prediction methods should be used
+	 */
+
+	static int numDaysBetween(RecurrenceCache cache, Date day1, Date day2)
+	{
+		if (cache == null)
+		{
+			return Prediction.numDaysBetween(day1, day2);
+		}
+		else
+		{
+			return cache.numDaysBetween(day1, day2);
+		}
+	}
+
+	static boolean datesEqualUpToDay(RecurrenceCache cache, Date date1, Date date2)
+	{
+		if (cache == null)
+		{
+			return Prediction.datesEqualUpToDay(date1, date2);
+		}
+		else
+		{
+			return cache.datesEqualUpToDay(date1, date2);
+		}
+	}
+
+	static boolean isGoalDate(RecurrenceCache cache, Date goalDate, Date startDate, double paymentAmount, Frequency freq, double debtAmount)
+	{
+		if (cache == null)
+		{
+			return Prediction.datesEqualUpToDay(goalDate, Prediction.findGoalDate(startDate, paymentAmount, freq, debtAmount, null));
+		}
+		else
+		{
+			return cache.dayNumber(goalDate) == cache.findGoalDay(startDate, paymentAmount, freq, debtAmount);
+		}
+	}
+}
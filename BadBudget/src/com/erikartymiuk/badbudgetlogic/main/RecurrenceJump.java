@@ -0,0 +1,372 @@
+package com.erikartymiuk.badbudgetlogic.main;
+
+import java.util.Calendar;
+import java.util.Date;
+
+import com.erikartymiuk.badbudgetlogic.budget.Budget;
+import com.erikartymiuk.badbudgetlogic.budget.BudgetItem;
+
+/**
+ * Moves the next date of a recurring event straight past an end date without simulating the days in between.
+ * The dates reached are the same as stepping the event's recurrence one occurrence at a time the way
+ * Prediction.predict does, but once a recurrence settles into a fixed calendar step (every day, every week or two,
+ * the same day of every month when that day is at most the 28th, the same day of every year other than Feb 29)
+ * all of the remaining occurrences up to the end date are skipped with a single calendar add. Only the
+ * occurrences before a recurrence settles (e.g. a monthly event on the 31st clamping into a short month) are
+ * stepped one at a time.
+ *
+ * After each jump the number of occurrences skipped is kept so that callers can do any per occurrence bookkeeping
+ * (such as budget item remain amounts) by counting rather than by looking at each day.
+ */
+public class RecurrenceJump
+{
+	private static final int IRREGULAR = -1;		//Returned by the regular field helpers when a recurrence hasn't settled
+
+	private final Date startDate;			//The date of day index 0
+	private final int lastDayIndex;			//The day index of the end date
+
+	private int count;						//The number of occurrences skipped by the last jump
+	private Date lastOccurrence;			//The date of the last occurrence skipped by the last jump, null if none
+	private double lossTotal;				//The sum of the loss amounts skipped by the last budget item jump
+	private double lastLossAmount;			//The amount of the last loss skipped by the last budget item jump
+
+	/**
+	 * Sets up jumps for an update running from startDate up to and including endDate.
+	 * @param startDate - the date considered as the start (day index 0)
+	 * @param endDate - the last date an occurrence can be skipped on
+	 */
+	public RecurrenceJump(Date startDate, Date endDate)
+	{
+		this.startDate = startDate;
+		this.lastDayIndex = Prediction.numDaysBetween(startDate, endDate);
+	}
+
+	/**
+	 * Jumps a transfer, contribution, gain, loss, or payment recurrence past the end date. As in the prediction
+	 * algorithm an event whose next date is before the start date or after its own end date doesn't occur and
+	 * its next date is left as is.
+	 *
+	 * @param next - the event's next date, can be null
+	 * @param frequency - the event's frequency
+	 * @param endDate - the event's own end date, null if it doesn't have one
+	 * @return the event's first date after the end date (or after its own end date), null if a one time event occurred
+	 */
+	public Date jump(Date next, Frequency frequency, Date endDate)
+	{
+		this.reset();
+		int limit = this.limitOf(endDate);
+		if (!this.occurs(next, limit))
+		{
+			return next;
+		}
+
+		while (true)
+		{
+			int field = regularField(next, frequency);
+			if (field != IRREGULAR)
+			{
+				return this.jumpRegular(next, field, stepOf(frequency), limit);
+			}
+
+			this.occurred(next);
+			next = Payment.determineNextPayment(next, frequency);
+			if (next == null || this.dayOf(next) > limit)
+			{
+				return next;
+			}
+		}
+	}
+
+	/**
+	 * Jumps a budget item's resets past the end date. Along with the count the loss amounts of the skipped resets
+	 * are totaled (taking proration into account) for the item's remain amount.
+	 *
+	 * @param budget - the budget the item is in, its reset settings are used to find the reset dates
+	 * @param item - the budget item to jump
+	 * @param next - the item's next loss date, can be null
+	 * @return the item's first reset after the end date (or after its own end date), null if a one time item reset
+	 */
+	public Date jump(Budget budget, BudgetItem item, Date next)
+	{
+		this.reset();
+		int limit = this.limitOf(item.endDate());
+		if (!this.occurs(next, limit))
+		{
+			return next;
+		}
+
+		while (true)
+		{
+			int field = regularField(budget, item, next);
+			if (field != IRREGULAR)
+			{
+				//Settled resets are never prorated since they are a full period apart
+				int counted = this.count;
+				Date after = this.jumpRegular(next, field, stepOf(item.lossFrequency()), limit);
+				this.lossTotal = this.lossTotal + (this.count - counted) * item.lossAmount();
+				this.lastLossAmount = item.lossAmount();
+				return after;
+			}
+
+			double lossAmount;
+			if (item.isProratedStart())
+			{
+				lossAmount = budget.lossAmount(item, next);
+			}
+			else
+			{
+				lossAmount = item.lossAmount();
+			}
+			this.occurred(next);
+			this.lossTotal = this.lossTotal + lossAmount;
+			this.lastLossAmount = lossAmount;
+
+			next = budget.calculateNextLoss(item, next);
+			if (next == null || this.dayOf(next) > limit)
+			{
+				return next;
+			}
+		}
+	}
+
+	/**
+	 * The number of occurrences skipped by the last jump.
+	 * @return the number of occurrences between the start date and the end date
+	 */
+	public int count()
+	{
+		return this.count;
+	}
+
+	public Date lastOccurrence()
+	{
+		return this.lastOccurrence;
+	}
+
+	/**
+	 * The sum of the loss amounts of the resets skipped by the last budget item jump.
+	 * @return the total of the skipped losses, 0 if none were skipped
+	 */
+	public double lossTotal()
+	{
+		return this.lossTotal;
+	}
+
+	/**
+	 * The loss amount of the last reset skipped by the last budget item jump.
+	 * @return the last skipped loss amount, -1 if none were skipped
+	 */
+	public double lastLossAmount()
+	{
+		return this.lastLossAmount;
+	}
+
+	/**
+	 * Private helper clearing the results of the previous jump.
+	 */
+	private void reset()
+	{
+		this.count = 0;
+		this.lastOccurrence = null;
+		this.lossTotal = 0;
+		this.lastLossAmount = -1;
+	}
+
+	private void occurred(Date occurrence)
+	{
+		this.count++;
+		this.lastOccurrence = occurrence;
+	}
+
+	private int dayOf(Date date)
+	{
+		return Prediction.numDaysBetween(this.startDate, date);
+	}
+
+	/**
+	 * Private helper finding the last day index an event with the given end date can occur on.
+	 * @param endDate - the event's own end date, can be null
+	 * @return the earlier of the event's end day and the update's end day
+	 */
+	private int limitOf(Date endDate)
+	{
+		if (endDate != null)
+		{
+			return Math.min(this.lastDayIndex, this.dayOf(endDate));
+		}
+		else
+		{
+			return this.lastDayIndex;
+		}
+	}
+
+	/**
+	 * Private helper checking if an event with the given next date occurs at all during the update.
+	 * @param next - the event's next date, can be null
+	 * @param limit - the last day index the event can occur on
+	 * @return true if the next date falls between the start date and the limit
+	 */
+	private boolean occurs(Date next, int limit)
+	{
+		if (next == null)
+		{
+			return false;
+		}
+		else
+		{
+			int day = this.dayOf(next);
+			return day >= 0 && day <= limit;
+		}
+	}
+
+	/**
+	 * Private helper skipping every occurrence of a settled recurrence up to the limit with one calendar add.
+	 * The next date is known to occur (its day is at most the limit).
+	 *
+	 * @param next - the next occurrence
+	 * @param field - the Calendar field each occurrence steps
+	 * @param step - the amount each occurrence steps the field by
+	 * @param limit - the last day index an occurrence can be on
+	 * @return the first occurrence after the limit
+	 */
+	private Date jumpRegular(Date next, int field, int step, int limit)
+	{
+		int day = this.dayOf(next);
+		int occurrences;
+		if (field == Calendar.DAY_OF_MONTH || field == Calendar.WEEK_OF_YEAR)
+		{
+			int daysPerStep = step;
+			if (field == Calendar.WEEK_OF_YEAR)
+			{
+				daysPerStep = 7 * step;
+			}
+			occurrences = (limit - day) / daysPerStep + 1;
+		}
+		else
+		{
+			//Estimate from the months (or years) between the next date and the limit then correct the estimate
+			Calendar nextCal = Calendar.getInstance();
+			nextCal.setTime(next);
+			Calendar limitCal = Calendar.getInstance();
+			limitCal.setTime(this.startDate);
+			limitCal.add(Calendar.DAY_OF_YEAR, limit);
+
+			int between = (limitCal.get(Calendar.YEAR) - nextCal.get(Calendar.YEAR));
+			if (field == Calendar.MONTH)
+			{
+				between = between * 12 + limitCal.get(Calendar.MONTH) - nextCal.get(Calendar.MONTH);
+			}
+			occurrences = between + 1;
+			if (this.dayOf(add(next, field, between)) > limit)
+			{
+				occurrences = between;
+			}
+		}
+
+		this.count = this.count + occurrences;
+		this.lastOccurrence = add(next, field, (occurrences - 1) * step);
+		return add(next, field, occurrences * step);
+	}
+
+	private static Date add(Date date, int field, int amount)
+	{
+		Calendar cal = Calendar.getInstance();
+		cal.setTime(date);
+		cal.add(field, amount);
+		return cal.getTime();
+	}
+
+	/**
+	 * Private helper finding the Calendar field an entity recurrence steps once it has settled.
+	 * @param next - the next occurrence
+	 * @param frequency - the frequency of the recurrence
+	 * @return the field stepped or IRREGULAR if the recurrence has to be stepped one occurrence at a time from next
+	 */
+	private static int regularField(Date next, Frequency frequency)
+	{
+		Calendar cal = Calendar.getInstance();
+		cal.setTime(next);
+		switch (frequency)
+		{
+			case daily:
+				return Calendar.DAY_OF_MONTH;
+			case weekly:
+			case biWeekly:
+				return Calendar.WEEK_OF_YEAR;
+			case monthly:
+				if (cal.get(Calendar.DAY_OF_MONTH) <= 28)
+				{
+					return Calendar.MONTH;
+				}
+				else
+				{
+					return IRREGULAR;
+				}
+			case yearly:
+				if (cal.get(Calendar.MONTH) == Calendar.FEBRUARY && cal.get(Calendar.DAY_OF_MONTH) == 29)
+				{
+					return IRREGULAR;
+				}
+				else
+				{
+					return Calendar.YEAR;
+				}
+			default:
+				return IRREGULAR;
+		}
+	}
+
+	/**
+	 * Private helper finding the Calendar field a budget item's resets step once they have settled. Weekly and
+	 * monthly resets settle once they land on the budget's reset day.
+	 * @param budget - the budget the item is in
+	 * @param item - the budget item
+	 * @param next - the next reset
+	 * @return the field stepped or IRREGULAR if the resets have to be stepped one at a time from next
+	 */
+	private static int regularField(Budget budget, BudgetItem item, Date next)
+	{
+		Calendar cal = Calendar.getInstance();
+		cal.setTime(next);
+		switch (item.lossFrequency())
+		{
+			case weekly:
+				if (cal.get(Calendar.DAY_OF_WEEK) == budget.getWeeklyReset())
+				{
+					return Calendar.WEEK_OF_YEAR;
+				}
+				else
+				{
+					return IRREGULAR;
+				}
+			case monthly:
+				if (budget.getMonthlyReset() <= 28 && cal.get(Calendar.DAY_OF_MONTH) == budget.getMonthlyReset())
+				{
+					return Calendar.MONTH;
+				}
+				else
+				{
+					return IRREGULAR;
+				}
+			default:
+				return regularField(next, item.lossFrequency());
+		}
+	}
+
+	/**
+	 * Private helper giving the amount a settled recurrence steps its field by.
+	 * @param frequency - the frequency of the recurrence
+	 * @return the amount of the field per occurrence
+	 */
+	private static int stepOf(Frequency frequency)
+	{
+		if (frequency == Frequency.biWeekly)
+		{
+			return 2;
+		}
+		else
+		{
+			return 1;
+		}
+	}
+}
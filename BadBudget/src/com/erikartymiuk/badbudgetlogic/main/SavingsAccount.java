@@ -102,113 +102,63 @@ public class SavingsAccount extends Account
 			this.endDate = endDate;
 			this.ongoing = ongoing;
 			this.interestRate = interestRate;
-			
+			this.adopt(null, contribution);
 		}
 		else
 		{
-			String message = "";
-			switch (error)
-			{
-				case 1:
-				{
-					message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E1;
-					break;
-				}
-				case 2:
-				{
-					message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E2;
-					break;
-				}
-				case 3:
-				{
-					message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E3;
-					break;
-				}
-				case 4:
-				{
-					message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E4;
-					break;
-				}
-				case 5:
-				{
-					message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E5;
-					break;
-				}
-				case 6:
-				{
-					message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E6;
-					break;
-				}
-				case 7:
-				{
-					message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E7;
-					break;
-				}
-				case 8:
-				{
-					message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E8;
-					break;
-				}
-				case 9:
-				{
-					message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E9;
-					break;
-				}
-				case 10:
-				{
-					message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E10;
-					break;
-				}
-				case 11:
-				{
-					message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E11;
-					break;
-				}
-				case 12:
-				{
-					message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E12;
-					break;
-				}
-				case 13:
-				{
-					message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E13;
-					break;
-				}
-				case 14:
-				{
-					message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E14;
-					break;
-				}
-				case 15:
-				{
-					message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E15;
-					break;
-				}
-				case 16:
-				{
-					message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E16;
-					break;
-				}
-				case 17:
-				{
-					message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E17;
-					break;
-				}
-				case 18:
-				{
-					message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E18;
-					break;
-				}
-				default:
-				{
-					message = BadBudgetInvalidValueException.UNKNOWN_UNDEFINED;
-					break;
-				}
-			}
-			throw new BadBudgetInvalidValueException(message);
+			throw new BadBudgetInvalidValueException(messageFor(error));
 		}
 	}
 	
+	/**
+	 * Private constructor for restore. Sets up the vanilla account values only.
+	 */
+	private SavingsAccount(String name, double value, boolean quickLook) throws BadBudgetInvalidValueException
+	{
+		super(name, value, quickLook);
+	}
+	
+	/**
+	 * Package private factory used to restore a savings account from a snapshot. The savings specific values are set
+	 * as given without being verified. They were verified when the account was first created but updates can move the
+	 * next contribution past the goal date while the value is still short of the goal, which verifyValues won't accept.
+	 * The source account may be null and set afterwards with updateSourceAccount (a source can be restored after the
+	 * accounts that use it).
+	 * 
+	 * @param name - the name of the account
+	 * @param value - the current value of the account
+	 * @param quickLook - indicates if the account is considered for quicklook
+	 * @param goalSet - indicates if a goal is set
+	 * @param goalAmount - the goal amount (-1 if no goal)
+	 * @param goalDate - the goal date (null if no goal)
+	 * @param contribution - the regular contribution
+	 * @param sourceAccount - the account contributions come from
+	 * @param nextContribution - the date of the next contribution
+	 * @param endDate - the date contributions end
+	 * @param ongoing - indicates if contributions are ongoing
+	 * @param interestRate - the yearly interest rate
+	 * @return the restored savings account
+	 * @throws BadBudgetInvalidValueException - if the name isn't valid
+	 */
+	static SavingsAccount restore(String name, double value, boolean quickLook, 
+			boolean goalSet, double goalAmount, Date goalDate,
+			Contribution contribution, Account sourceAccount, Date nextContribution, Date endDate, boolean ongoing, double interestRate)
+			throws BadBudgetInvalidValueException
+	{
+		SavingsAccount account = new SavingsAccount(name, value, quickLook);
+		account.goalSet = goalSet;
+		account.goal = goalAmount;
+		account.goalDate = goalDate;
+		account.contribution = contribution;
+		account.sourceAccount = sourceAccount;
+		account.nextContribution = nextContribution;
+		account.endDate = endDate;
+		account.ongoing = ongoing;
+		account.interestRate = interestRate;
+		account.adopt(null, contribution);
+		return account;
+	}
+	
 	/**
 	 * Verifies values being used for the creation of a savings account. Returns an error code indicating a specific error that
 	 * is being violated.
@@ -247,6 +197,20 @@ public class SavingsAccount extends Account
 	 */
 	public static int verifyValues(double currentValue, boolean goalSet, double goalAmount, Date goalDate, 
 			Contribution contribution, Account sourceAccount, Date nextContribution, Date end, boolean ongoing, double interestRate)
+	{
+		return verifyValues(currentValue, goalSet, goalAmount, goalDate, contribution, sourceAccount, nextContribution, end, ongoing,
+				interestRate, null);
+	}
+
+	/**
+	 * Same as verifyValues above but working out the date checks with the given cache, for checking many savings
+	 * accounts in a row.
+	 * @param cache - the cache to use, null to use the Prediction methods
+	 * @return the error code, see above
+	 */
+	public static int verifyValues(double currentValue, boolean goalSet, double goalAmount, Date goalDate, 
+			Contribution contribution, Account sourceAccount, Date nextContribution, Date end, boolean ongoing, double interestRate,
+			RecurrenceCache cache)
 	{		
 		if (currentValue < 0)
 		{
@@ -284,7 +248,7 @@ public class SavingsAccount extends Account
 		{
 			return 9;
 		}
-		else if (goalSet && Prediction.numDaysBetween(nextContribution, goalDate) < 0 && currentValue < goalAmount)
+		else if (goalSet && RecurrenceCache.numDaysBetween(cache, nextContribution, goalDate) < 0 && currentValue < goalAmount)
 		{
 			return 17;
 		}
@@ -293,7 +257,7 @@ public class SavingsAccount extends Account
 		{
 			return 11;
 		}
-		else if (goalSet && !Prediction.datesEqualUpToDay(end, goalDate))
+		else if (goalSet && !RecurrenceCache.datesEqualUpToDay(cache, end, goalDate))
 		{
 			return 12;
 		}
@@ -303,7 +267,7 @@ public class SavingsAccount extends Account
 		}
 		else if (contribution.getFrequency() == Frequency.oneTime && 
 				nextContribution != null && 
-				!Prediction.datesEqualUpToDay(end, nextContribution))
+				!RecurrenceCache.datesEqualUpToDay(cache, end, nextContribution))
 		{
 			return 14;
 		}
@@ -325,6 +289,115 @@ public class SavingsAccount extends Account
 		}
 	}
 	
+	/**
+	 * Returns the exception message for an error code returned by verifyValues.
+	 * @param error - the error code
+	 * @return the message for the error
+	 */
+	public static String messageFor(int error)
+	{
+		String message = "";
+		switch (error)
+		{
+			case 1:
+			{
+				message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E1;
+				break;
+			}
+			case 2:
+			{
+				message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E2;
+				break;
+			}
+			case 3:
+			{
+				message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E3;
+				break;
+			}
+			case 4:
+			{
+				message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E4;
+				break;
+			}
+			case 5:
+			{
+				message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E5;
+				break;
+			}
+			case 6:
+			{
+				message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E6;
+				break;
+			}
+			case 7:
+			{
+				message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E7;
+				break;
+			}
+			case 8:
+			{
+				message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E8;
+				break;
+			}
+			case 9:
+			{
+				message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E9;
+				break;
+			}
+			case 10:
+			{
+				message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E10;
+				break;
+			}
+			case 11:
+			{
+				message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E11;
+				break;
+			}
+			case 12:
+			{
+				message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E12;
+				break;
+			}
+			case 13:
+			{
+				message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E13;
+				break;
+			}
+			case 14:
+			{
+				message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E14;
+				break;
+			}
+			case 15:
+			{
+				message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E15;
+				break;
+			}
+			case 16:
+			{
+				message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E16;
+				break;
+			}
+			case 17:
+			{
+				message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E17;
+				break;
+			}
+			case 18:
+			{
+				message = BadBudgetInvalidValueException.SAVING_ACCOUNT_E18;
+				break;
+			}
+			default:
+			{
+				message = BadBudgetInvalidValueException.UNKNOWN_UNDEFINED;
+				break;
+			}
+		}
+		return message;
+	}
+	
 	/** Returns the indicated index in the list of predict data rows.
 	 * 
 	 * @param i - the index to retrieve from the list (corresponds to a date)
@@ -392,6 +465,7 @@ public class SavingsAccount extends Account
 		{
 			this.nextContribution = this.contribution.nextContributionDate(this.nextContribution);
 		}
+		this.contentChanged();
 	}
 	
 	/**
@@ -425,7 +499,9 @@ public class SavingsAccount extends Account
 	{
 		this.goal = goalAmount;
 		this.goalDate = goalDate;
+		this.adopt(this.contribution, contribution);
 		this.contribution = contribution;
+		this.contentChanged();
 	}
 	
 	/* Getters and setters */
@@ -459,12 +535,23 @@ public class SavingsAccount extends Account
 		return this.sourceAccount;
 	}
 	
+	public boolean goalSet()
+	{
+		return this.goalSet;
+	}
+	
+	public boolean ongoing()
+	{
+		return this.ongoing;
+	}
+	
 	public double getInterestRate() {
 		return interestRate;
 	}
 
 	public void setInterestRate(double interestRate) {
 		this.interestRate = interestRate;
+		this.contentChanged();
 	}
 	
 	/** 
@@ -473,6 +560,7 @@ public class SavingsAccount extends Account
 	public void changeEndDate(Date endDate)
 	{
 		this.endDate = endDate;
+		this.contentChanged();
 	}
 	
 	/**
@@ -482,6 +570,7 @@ public class SavingsAccount extends Account
 	public void changeNextContribution(Date next)
 	{
 		this.nextContribution = next;
+		this.contentChanged();
 	}
 	
 	/**
@@ -489,7 +578,9 @@ public class SavingsAccount extends Account
 	 */
 	public void updateContribution(Contribution c)
 	{
+		this.adopt(this.contribution, c);
 		this.contribution = c;
+		this.contentChanged();
 	}
 	
 	/**
@@ -501,6 +592,7 @@ public class SavingsAccount extends Account
 	public void updateSourceAccount(Account account)
 	{
 		this.sourceAccount = account;
+		this.contentChanged();
 	}
 	
 	/**
@@ -567,18 +659,31 @@ public class SavingsAccount extends Account
 	 */
 	public void update(int dayIndex)
 	{
-		super.update(dayIndex);
 		PredictDataSavingsAccount pdsa = this.getPredictData(dayIndex);
-		Date uNextContributionDate = pdsa.getNextContributionDate();
-		this.nextContribution = uNextContributionDate;
+		this.update(pdsa.value(), pdsa.getNextContributionDate(), pdsa.isValueChangedByTransfer());
+	}
+	
+	/**
+	 * Updates this savings account to the given end state of a prediction without
+	 * reading any predict data rows. Clears the goal if the value was impacted by a transfer.
+	 * 
+	 * @param value - the value of this savings account on the update day
+	 * @param nextContributionDate - the next contribution date on the update day
+	 * @param valueChangedByTransfer - true if a transfer to or from this account occurred up to the update day
+	 */
+	public void update(double value, Date nextContributionDate, boolean valueChangedByTransfer)
+	{
+		this.setValue(value);
+		this.nextContribution = nextContributionDate;
 		
-		if (pdsa.isValueChangedByTransfer())
+		if (valueChangedByTransfer)
 		{
 			//Clear the goal
 			this.goalSet = false;
 			this.goal = -1;
 			this.goalDate = null;
 		}
+		this.contentChanged();
 	}
 	
 	/**
@@ -590,13 +695,24 @@ public class SavingsAccount extends Account
 	{
 		super.updateNextDatesOnly(dayIndex);
 		PredictDataSavingsAccount pdsa = this.getPredictData(dayIndex);
-		Date uNextContributionDate = pdsa.getNextContributionDate();
+		this.updateNextDatesOnly(pdsa.getNextContributionDate());
+	}
+	
+	/**
+	 * Updates this savings accounts next contribution date without reading any predict data rows. If a goal
+	 * was set it is assumed to no longer be valid and is cleared.
+	 * @param nextContributionDate - the next contribution date after the update
+	 */
+	public void updateNextDatesOnly(Date nextContributionDate)
+	{
+		Date uNextContributionDate = nextContributionDate;
 		this.nextContribution = uNextContributionDate;
 		
 		//Clear the goal
 		this.goalSet = false;
 		this.goal = -1;
 		this.goalDate = null;
+		this.contentChanged();
 		
 		/* Changed 3/16/2017 - assume now that a set goal is no longer valid and clear it rather than check.
 		if (this.goalSet)
@@ -613,4 +729,30 @@ public class SavingsAccount extends Account
 		}
 		*/	
 	}
+	
+	/**
+	 * Extends the account hash with the savings values, the contribution's hash, and the source account's name.
+	 * @return the hash of this savings account's values
+	 */
+	protected long computeContentHash()
+	{
+		long hash = super.computeContentHash();
+		hash = mix(hash, this.interestRate);
+		hash = mix(hash, this.goalSet);
+		hash = mix(hash, this.goal);
+		hash = mix(hash, this.goalDate);
+		if (this.contribution != null)
+		{
+			hash = mix(hash, this.contribution.contentHash());
+		}
+		else
+		{
+			hash = mix(hash, (Date) null);
+		}
+		hash = mix(hash, this.sourceAccount);
+		hash = mix(hash, this.endDate);
+		hash = mix(hash, this.ongoing);
+		hash = mix(hash, this.nextContribution);
+		return hash;
+	}
 }
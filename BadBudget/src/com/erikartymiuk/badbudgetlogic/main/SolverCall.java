@@ -0,0 +1,56 @@
+package com.erikartymiuk.badbudgetlogic.main;
+
+/**
+ * The details of a completed solver call (findGoalDateCompoundInterest, findContributionAmount and so on) handed to
+ * an EngineListener: which solver ran, how many iterations its loops took and how long it took.
+ */
+public class SolverCall
+{
+	private final String solver;		//The name of the solver method
+	private final long startNanos;
+	private int iterations;				//Loop iterations over every loop of the solver
+	private long durationNanos;			//Set when the call finishes
+
+	/**
+	 * Constructor for the details of a solver call, starting its clock.
+	 * @param solver - the name of the solver method being called
+	 */
+	SolverCall(String solver)
+	{
+		this.solver = solver;
+		this.startNanos = System.nanoTime();
+	}
+
+	/**
+	 * Counts an iteration of one of the solver's loops.
+	 */
+	void iteration()
+	{
+		this.iterations++;
+	}
+
+	/**
+	 * Stops the clock of the call.
+	 * @return this call
+	 */
+	SolverCall finish()
+	{
+		this.durationNanos = System.nanoTime() - this.startNanos;
+		return this;
+	}
+
+	public String getSolver()
+	{
+		return this.solver;
+	}
+
+	public int getIterations()
+	{
+		return this.iterations;
+	}
+
+	public long getDurationNanos()
+	{
+		return this.durationNanos;
+	}
+}
@@ -0,0 +1,276 @@
+package com.erikartymiuk.badbudgetlogic.main;
+
+import java.util.*;
+
+import com.erikartymiuk.badbudgetlogic.budget.Budget;
+import com.erikartymiuk.badbudgetlogic.budget.BudgetItem;
+
+/**
+ * An index from each source of a bad budget data object (by its source id in the entity registry) to everything
+ * that draws money from that source. Those are the losses and budget items that have the source as their source,
+ * the debts whose payment comes out of the source, the savings accounts whose contribution comes out of the source,
+ * and the transfers that take money out of the source. This turns any "what draws from this source" question into
+ * a direct lookup rather than a pass (and name compare) over every loss and budget item.
+ *
+ * The index is a snapshot of the links when it was built. The bad budget data keeps one (see
+ * BadBudgetData.getSourceIndex) and drops it when an entity is added or deleted or reports a change, so it should be
+ * asked for again rather than kept around by callers.
+ *
+ * Items whose source isn't one of the bad budget data's sources are not part of the index. The arrays returned
+ * by this class are shared and must not be modified by callers.
+ */
+public class SourceIndex
+{
+	private static final MoneyLoss[] NO_LOSSES = new MoneyLoss[0];
+	private static final BudgetItem[] NO_BUDGET_ITEMS = new BudgetItem[0];
+	private static final MoneyOwed[] NO_PAYMENTS = new MoneyOwed[0];
+	private static final SavingsAccount[] NO_CONTRIBUTIONS = new SavingsAccount[0];
+	private static final MoneyTransfer[] NO_TRANSFERS = new MoneyTransfer[0];
+
+	private final EntityRegistry registry;	//The registry the source ids come from
+
+	//Each indexed by source id
+	private final MoneyLoss[][] losses;
+	private final BudgetItem[][] budgetItems;
+	private final MoneyOwed[][] payments;			//The debts whose payment draws from the source
+	private final SavingsAccount[][] contributions;	//The savings accounts whose contribution draws from the source
+	private final MoneyTransfer[][] transfers;		//The transfers whose source is the source
+
+	/**
+	 * Package private constructor. Builds the index from the given registry and budget.
+	 * Should be built through BadBudgetData.getSourceIndex.
+	 * @param registry - the registry of the bbd to index
+	 * @param budget - the bbd's budget, can be null
+	 */
+	SourceIndex(EntityRegistry registry, Budget budget)
+	{
+		this.registry = registry;
+		int numSources = registry.sources().length;
+
+		//Count first so that each list can be sized exactly
+		int[] lossCounts = new int[numSources];
+		int[] itemCounts = new int[numSources];
+		int[] paymentCounts = new int[numSources];
+		int[] contributionCounts = new int[numSources];
+		int[] transferCounts = new int[numSources];
+
+		BudgetItem[] allItems;
+		if (budget != null)
+		{
+			allItems = budget.getBudgetItemArray();
+		}
+		else
+		{
+			allItems = NO_BUDGET_ITEMS;
+		}
+
+		for (MoneyLoss loss : registry.losses())
+		{
+			count(lossCounts, loss.source());
+		}
+		for (BudgetItem item : allItems)
+		{
+			count(itemCounts, item.source());
+		}
+		for (MoneyOwed debt : registry.debts())
+		{
+			if (debt.payment() != null)
+			{
+				count(paymentCounts, debt.payment().sourceAccount());
+			}
+		}
+		for (SavingsAccount savingsAccount : registry.savingsAccounts())
+		{
+			if (savingsAccount.contribution() != null)
+			{
+				count(contributionCounts, savingsAccount.sourceAccount());
+			}
+		}
+		for (MoneyTransfer transfer : registry.transfers())
+		{
+			count(transferCounts, transfer.getSource());
+		}
+
+		this.losses = new MoneyLoss[numSources][];
+		this.budgetItems = new BudgetItem[numSources][];
+		this.payments = new MoneyOwed[numSources][];
+		this.contributions = new SavingsAccount[numSources][];
+		this.transfers = new MoneyTransfer[numSources][];
+		for (int i = 0; i < numSources; i++)
+		{
+			this.losses[i] = new MoneyLoss[lossCounts[i]];
+			this.budgetItems[i] = new BudgetItem[itemCounts[i]];
+			this.payments[i] = new MoneyOwed[paymentCounts[i]];
+			this.contributions[i] = new SavingsAccount[contributionCounts[i]];
+			this.transfers[i] = new MoneyTransfer[transferCounts[i]];
+		}
+
+		//Then fill (the counts are reused as the fill positions), keeping the registry's order within each list
+		Arrays.fill(lossCounts, 0);
+		Arrays.fill(itemCounts, 0);
+		Arrays.fill(paymentCounts, 0);
+		Arrays.fill(contributionCounts, 0);
+		Arrays.fill(transferCounts, 0);
+
+		for (MoneyLoss loss : registry.losses())
+		{
+			int id = registry.sourceId(loss.source());
+			if (id != -1)
+			{
+				this.losses[id][lossCounts[id]++] = loss;
+			}
+		}
+		for (BudgetItem item : allItems)
+		{
+			int id = registry.sourceId(item.source());
+			if (id != -1)
+			{
+				this.budgetItems[id][itemCounts[id]++] = item;
+			}
+		}
+		for (MoneyOwed debt : registry.debts())
+		{
+			if (debt.payment() != null)
+			{
+				int id = registry.sourceId(debt.payment().sourceAccount());
+				if (id != -1)
+				{
+					this.payments[id][paymentCounts[id]++] = debt;
+				}
+			}
+		}
+		for (SavingsAccount savingsAccount : registry.savingsAccounts())
+		{
+			if (savingsAccount.contribution() != null)
+			{
+				int id = registry.sourceId(savingsAccount.sourceAccount());
+				if (id != -1)
+				{
+					this.contributions[id][contributionCounts[id]++] = savingsAccount;
+				}
+			}
+		}
+		for (MoneyTransfer transfer : registry.transfers())
+		{
+			int id = registry.sourceId(transfer.getSource());
+			if (id != -1)
+			{
+				this.transfers[id][transferCounts[id]++] = transfer;
+			}
+		}
+	}
+
+	/**
+	 * Private helper that increments the count for the given source if it is part of the registry.
+	 * @param counts - counts indexed by source id
+	 * @param source - the source to count
+	 */
+	private void count(int[] counts, Source source)
+	{
+		int id = this.registry.sourceId(source);
+		if (id != -1)
+		{
+			counts[id]++;
+		}
+	}
+
+	/**
+	 * The registry the source ids of this index refer to.
+	 * @return the registry this index was built from
+	 */
+	public EntityRegistry registry()
+	{
+		return this.registry;
+	}
+
+	/**
+	 * The losses (not including budget items) that draw from the given source.
+	 * @param source - the source to look up
+	 * @return the losses drawing from the source, empty if there are none or the source isn't indexed
+	 */
+	public MoneyLoss[] lossesFrom(Source source)
+	{
+		int id = this.registry.sourceId(source);
+		if (id == -1)
+		{
+			return NO_LOSSES;
+		}
+		else
+		{
+			return this.losses[id];
+		}
+	}
+
+	/**
+	 * The budget items that draw from the given source.
+	 * @param source - the source to look up
+	 * @return the budget items drawing from the source, empty if there are none or the source isn't indexed
+	 */
+	public BudgetItem[] budgetItemsFrom(Source source)
+	{
+		int id = this.registry.sourceId(source);
+		if (id == -1)
+		{
+			return NO_BUDGET_ITEMS;
+		}
+		else
+		{
+			return this.budgetItems[id];
+		}
+	}
+
+	/**
+	 * The debts whose payment draws from the given source.
+	 * @param source - the source to look up
+	 * @return the debts with payments drawing from the source, empty if there are none or the source isn't indexed
+	 */
+	public MoneyOwed[] paymentsFrom(Source source)
+	{
+		int id = this.registry.sourceId(source);
+		if (id == -1)
+		{
+			return NO_PAYMENTS;
+		}
+		else
+		{
+			return this.payments[id];
+		}
+	}
+
+	/**
+	 * The savings accounts whose contribution draws from the given source.
+	 * @param source - the source to look up
+	 * @return the savings accounts with contributions drawing from the source, empty if there are none
+	 * 			or the source isn't indexed
+	 */
+	public SavingsAccount[] contributionsFrom(Source source)
+	{
+		int id = this.registry.sourceId(source);
+		if (id == -1)
+		{
+			return NO_CONTRIBUTIONS;
+		}
+		else
+		{
+			return this.contributions[id];
+		}
+	}
+
+	/**
+	 * The transfers that take money out of the given source.
+	 * @param source - the source to look up
+	 * @return the transfers drawing from the source, empty if there are none or the source isn't indexed
+	 */
+	public MoneyTransfer[] transfersFrom(Source source)
+	{
+		int id = this.registry.sourceId(source);
+		if (id == -1)
+		{
+			return NO_TRANSFERS;
+		}
+		else
+		{
+			return this.transfers[id];
+		}
+	}
+}
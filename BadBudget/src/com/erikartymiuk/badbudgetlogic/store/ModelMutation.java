@@ -0,0 +1,19 @@
+package com.erikartymiuk.badbudgetlogic.store;
+
+import com.erikartymiuk.badbudgetlogic.main.BadBudgetData;
+import com.erikartymiuk.badbudgetlogic.main.BadBudgetInvalidValueException;
+
+/**
+ * A change to a user's data applied by ModelStore.update. The mutation is given a private working copy of the current
+ * version and may be applied more than once (to newer copies) if another writer publishes first, so it should only
+ * change the bbd it is given.
+ */
+public interface ModelMutation
+{
+	/**
+	 * Applies the change.
+	 * @param bbd - a private copy of the current version to change
+	 * @throws BadBudgetInvalidValueException - if the change can't be made, nothing is published
+	 */
+	void apply(BadBudgetData bbd) throws BadBudgetInvalidValueException;
+}
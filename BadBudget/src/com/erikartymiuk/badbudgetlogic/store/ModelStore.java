@@ -0,0 +1,109 @@
+package com.erikartymiuk.badbudgetlogic.store;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.erikartymiuk.badbudgetlogic.main.BadBudgetData;
+import com.erikartymiuk.badbudgetlogic.main.BadBudgetInvalidValueException;
+
+/**
+ * Holds the current version of one user's data for threads that read (predict) and write (sync) it at the same time.
+ * The current version is an immutable ModelVersion published through an AtomicReference, so readers never lock and
+ * always see one consistent version, however many writes happen while they predict.
+ *
+ * Writers copy on write: update materializes a private copy of the current version, applies the change to it,
+ * snapshots the result as the next version and publishes it with a compare and set. If another writer published in
+ * between, the change is applied again to a copy of the newer version, so writers don't block readers or each other
+ * and no change is lost. A change that leaves the data as it was publishes nothing.
+ */
+public class ModelStore
+{
+	private final AtomicReference<ModelVersion> current;
+	private final AtomicLong retries;		//Changes applied again after losing a race to another writer
+
+	/**
+	 * Constructor for a store, starting at version 1 with a snapshot of the given data.
+	 * @param initial - the user's data, not kept (later changes to it don't affect the store)
+	 * @throws BadBudgetInvalidValueException - if the data can't be snapshot
+	 */
+	public ModelStore(BadBudgetData initial) throws BadBudgetInvalidValueException
+	{
+		this.current = new AtomicReference<ModelVersion>(new ModelVersion(1, initial));
+		this.retries = new AtomicLong();
+	}
+
+	/**
+	 * The current version. Never blocks.
+	 * @return the latest published version
+	 */
+	public ModelVersion current()
+	{
+		return this.current.get();
+	}
+
+	/**
+	 * A private copy of the current version's data to predict on.
+	 * @return a new bbd with the current version's entities
+	 * @throws BadBudgetInvalidValueException - if the snapshot can't be read (not expected)
+	 */
+	public BadBudgetData checkout() throws BadBudgetInvalidValueException
+	{
+		return this.current().materialize();
+	}
+
+	/**
+	 * Applies a change and publishes the result as the next version.
+	 * @param mutation - the change to apply, possibly more than once (see ModelMutation)
+	 * @return the version holding the change, the current version unchanged if the change left the data as it was
+	 * @throws BadBudgetInvalidValueException - if the mutation throws, in which case nothing is published
+	 */
+	public ModelVersion update(ModelMutation mutation) throws BadBudgetInvalidValueException
+	{
+		while (true)
+		{
+			ModelVersion base = this.current.get();
+			BadBudgetData working = base.materialize();
+			mutation.apply(working);
+			ModelVersion next = new ModelVersion(base.getVersion() + 1, working);
+			if (next.sameContent(base))
+			{
+				return base;
+			}
+			if (this.current.compareAndSet(base, next))
+			{
+				return next;
+			}
+			this.retries.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Replaces the data with the given data, as the next version.
+	 * @param bbd - the new data, not kept
+	 * @return the version holding the new data
+	 * @throws BadBudgetInvalidValueException - if the data can't be snapshot
+	 */
+	public ModelVersion replace(BadBudgetData bbd) throws BadBudgetInvalidValueException
+	{
+		ModelVersion content = new ModelVersion(0, bbd);
+		while (true)
+		{
+			ModelVersion base = this.current.get();
+			ModelVersion next = content.withVersion(base.getVersion() + 1);
+			if (this.current.compareAndSet(base, next))
+			{
+				return next;
+			}
+			this.retries.incrementAndGet();
+		}
+	}
+
+	/**
+	 * The number of times a change had to be applied again because another writer published first.
+	 * @return the retry count
+	 */
+	public long retryCount()
+	{
+		return this.retries.get();
+	}
+}
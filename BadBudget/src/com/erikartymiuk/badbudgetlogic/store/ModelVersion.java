@@ -0,0 +1,112 @@
+package com.erikartymiuk.badbudgetlogic.store;
+
+import java.nio.ByteBuffer;
+
+import com.erikartymiuk.badbudgetlogic.main.BadBudgetData;
+import com.erikartymiuk.badbudgetlogic.main.BadBudgetInvalidValueException;
+import com.erikartymiuk.badbudgetlogic.main.BadBudgetSnapshot;
+
+/**
+ * An immutable version of a user's data, held as its snapshot (see BadBudgetSnapshot). A version never changes once
+ * made, so any number of threads can share it without locking. Predictions write their results into the entities
+ * they run on, so each reader materializes its own copy of the entities to predict on.
+ */
+public final class ModelVersion
+{
+	private final long version;				//Increases by one with each published change
+	private final ByteBuffer snapshot;		//Read only, shared by every materialize
+	private final long contentHash;			//The content hash of the data the snapshot was written from
+	private final byte[] fingerprint;		//See BadBudgetSnapshot.fingerprint
+
+	/**
+	 * Constructor for a version, snapshotting the given data.
+	 * @param version - the version number
+	 * @param bbd - the data of this version, not kept (later changes to it don't affect the version)
+	 * @throws BadBudgetInvalidValueException - if the data can't be snapshot
+	 */
+	ModelVersion(long version, BadBudgetData bbd) throws BadBudgetInvalidValueException
+	{
+		this.version = version;
+		this.snapshot = BadBudgetSnapshot.write(bbd).asReadOnlyBuffer();
+		this.contentHash = bbd.contentHash();
+		this.fingerprint = BadBudgetSnapshot.fingerprint(this.snapshot);
+	}
+
+	/**
+	 * Constructor for a version holding the same data as another under a new version number.
+	 * @param version - the version number
+	 * @param content - the version to share the snapshot of
+	 */
+	private ModelVersion(long version, ModelVersion content)
+	{
+		this.version = version;
+		this.snapshot = content.snapshot;
+		this.contentHash = content.contentHash;
+		this.fingerprint = content.fingerprint;
+	}
+
+	/**
+	 * This version's data under another version number (the snapshot is shared, not copied).
+	 * @param version - the version number
+	 * @return the renumbered version
+	 */
+	ModelVersion withVersion(long version)
+	{
+		return new ModelVersion(version, this);
+	}
+
+	/**
+	 * Builds a private copy of this version's data. The copy can be predicted on or changed freely without affecting
+	 * this version or any other reader.
+	 * @return a new bbd with this version's entities
+	 * @throws BadBudgetInvalidValueException - if the snapshot holds values the entities don't accept (not expected
+	 * 					as the snapshot was written from valid entities)
+	 */
+	public BadBudgetData materialize() throws BadBudgetInvalidValueException
+	{
+		return BadBudgetSnapshot.read(this.snapshot.duplicate());
+	}
+
+	public long getVersion()
+	{
+		return this.version;
+	}
+
+	public long contentHash()
+	{
+		return this.contentHash;
+	}
+
+	/**
+	 * The fingerprint of this version's data, for example to key a PredictionCache.
+	 * @return a copy of the 32 byte fingerprint
+	 */
+	public byte[] fingerprint()
+	{
+		return this.fingerprint.clone();
+	}
+
+	/**
+	 * This version's snapshot.
+	 * @return a read only view of the snapshot, positioned at its start
+	 */
+	public ByteBuffer snapshot()
+	{
+		return this.snapshot.duplicate();
+	}
+
+	public int sizeInBytes()
+	{
+		return this.snapshot.remaining();
+	}
+
+	/**
+	 * Indicates if this version holds exactly the same data as another.
+	 * @param other - the version to compare to
+	 * @return true if both snapshots are byte for byte equal
+	 */
+	public boolean sameContent(ModelVersion other)
+	{
+		return this.snapshot.equals(other.snapshot);
+	}
+}
@@ -0,0 +1,382 @@
+package com.erikartymiuk.badbudgetlogic.synthetic;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import com.erikartymiuk.badbudgetlogic.budget.Budget;
+import com.erikartymiuk.badbudgetlogic.budget.BudgetItem;
+import com.erikartymiuk.badbudgetlogic.budget.RemainAmountAction;
+import com.erikartymiuk.badbudgetlogic.main.*;
+
+/**
+ * Makes synthetic user models for load and scale testing. Each model is built from its own random number generator,
+ * seeded from the generator's seed and the model's index, so model i is the same every time it's generated whatever
+ * else was generated before it, and ranges of indices can be generated on separate threads.
+ *
+ * Every value is chosen to satisfy the entities' verifyValues: goal dates are worked out from the contribution or
+ * payment they belong to, one time entities end on their only date, transfers into a savings account come from a
+ * savings account, and prorated budget items are only weekly, monthly or yearly. The budget's items cover every
+ * frequency and every remain amount action once it has 18 or more of them.
+ */
+public class PortfolioGenerator
+{
+	private static final Frequency[] FREQUENCIES = Frequency.values();
+	private static final Frequency[] RECURRING = {Frequency.daily, Frequency.weekly, Frequency.biWeekly, Frequency.monthly, Frequency.yearly};
+	private static final RemainAmountAction[] ACTIONS = RemainAmountAction.values();
+
+	private final PortfolioProfile profile;
+	private final long seed;
+	private final Date startDate;		//The date the generated models are current on, next dates are on or after it
+
+	/**
+	 * Constructor for a generator.
+	 * @param profile - the size and shape of the models to make
+	 * @param seed - the seed all the models are generated from
+	 * @param startDate - the date the models are current on
+	 */
+	public PortfolioGenerator(PortfolioProfile profile, long seed, Date startDate)
+	{
+		this.profile = profile;
+		this.seed = seed;
+		this.startDate = startDate;
+	}
+
+	/**
+	 * Generates one model.
+	 * @param index - the index of the model
+	 * @return the model, the same for the same seed, profile, start date and index
+	 * @throws BadBudgetInvalidValueException - never, the values are valid by construction (so a throw is a bug here)
+	 */
+	public BadBudgetData generate(long index) throws BadBudgetInvalidValueException
+	{
+		Random random = new Random(HashedEntity.mix(this.seed, index));
+		BadBudgetData bbd = new BadBudgetData();
+		List<Account> accounts = new ArrayList<Account>();
+		List<Source> sources = new ArrayList<Source>();
+
+		int numAccounts = Math.max(1, this.count(random, this.profile.getNumAccounts()));
+		for (int i = 0; i < numAccounts; i++)
+		{
+			Account account = new Account("account " + i, money(random, 100, 20000), random.nextBoolean());
+			bbd.addAccount(account);
+			accounts.add(account);
+			sources.add(account);
+		}
+
+		int numSavings = this.count(random, this.profile.getNumSavings());
+		for (int i = 0; i < numSavings; i++)
+		{
+			SavingsAccount savings = this.savingsAccount(random, "savings " + i, accounts.get(random.nextInt(accounts.size())));
+			bbd.addAccount(savings);
+			accounts.add(savings);
+			sources.add(savings);
+		}
+
+		int numCreditCards = this.count(random, this.profile.getNumCreditCards());
+		for (int i = 0; i < numCreditCards; i++)
+		{
+			CreditCard card = new CreditCard("card " + i, money(random, 0, 5000), random.nextBoolean(), rate(random, 0.12, 0.29));
+			Payment payment;
+			if (random.nextInt(5) < 3)
+			{
+				payment = new Payment(-1, true, Frequency.monthly, this.plainAccount(random, accounts), this.nextDate(random, Frequency.monthly),
+						true, null, card, null);
+			}
+			else
+			{
+				payment = new Payment(money(random, 25, 500), false, Frequency.monthly, this.plainAccount(random, accounts),
+						this.nextDate(random, Frequency.monthly), true, null, card, null);
+			}
+			bbd.addDebt(card);
+			card.setupPayment(payment);
+			sources.add(card);
+		}
+
+		int numLoans = this.count(random, this.profile.getNumLoans());
+		for (int i = 0; i < numLoans; i++)
+		{
+			double amount = money(random, 1000, 250000);
+			double interestRate = rate(random, 0.02, 0.09);
+			boolean simpleInterest = random.nextBoolean();
+			double principal = amount;
+			if (simpleInterest)
+			{
+				principal = Math.round(amount * (0.8 + 0.2 * random.nextDouble()) * 100) / 100.0;
+			}
+			Loan loan = new Loan("loan " + i, amount, random.nextBoolean(), interestRate, simpleInterest, principal);
+
+			//Enough to pay the interest and more, so the loan is paid off
+			Frequency frequency = Frequency.monthly;
+			if (random.nextInt(4) == 0)
+			{
+				frequency = Frequency.biWeekly;
+			}
+			double paymentAmount = Math.max(25, Math.round(amount * interestRate / 12 * (1.5 + random.nextDouble())));
+			bbd.addDebt(loan);
+			loan.setupPayment(new Payment(paymentAmount, false, frequency, this.plainAccount(random, accounts),
+					this.nextDate(random, frequency), true, null, loan, null));
+		}
+
+		int numOwed = this.count(random, this.profile.getNumOwed());
+		for (int i = 0; i < numOwed; i++)
+		{
+			MoneyOwed owed = new MoneyOwed("owed " + i, money(random, 200, 5000), random.nextBoolean(), 0);
+			bbd.addDebt(owed);
+			owed.setupPayment(this.owedPayment(random, owed, this.plainAccount(random, accounts)));
+		}
+
+		int numGains = this.count(random, this.profile.getNumGains());
+		for (int i = 0; i < numGains; i++)
+		{
+			Frequency frequency = FREQUENCIES[random.nextInt(FREQUENCIES.length)];
+			Date next = this.nextDate(random, frequency);
+			bbd.addGain(new MoneyGain("gain " + i, money(random, 10, 3000), frequency, next, this.endDate(random, frequency, next),
+					accounts.get(random.nextInt(accounts.size()))));
+		}
+
+		int numLosses = this.count(random, this.profile.getNumLosses());
+		for (int i = 0; i < numLosses; i++)
+		{
+			Frequency frequency = FREQUENCIES[random.nextInt(FREQUENCIES.length)];
+			Date next = this.nextDate(random, frequency);
+			bbd.addLoss(new MoneyLoss("loss " + i, money(random, 1, 1500), frequency, next, this.endDate(random, frequency, next),
+					sources.get(random.nextInt(sources.size()))));
+		}
+
+		int numTransfers = this.count(random, this.profile.getNumTransfers());
+		for (int i = 0; i < numTransfers && accounts.size() > 1; i++)
+		{
+			Account source = accounts.get(random.nextInt(accounts.size()));
+			Account destination = accounts.get(random.nextInt(accounts.size()));
+			//Only a savings account can transfer into a savings account, fall back to a plain account
+			if (destination == source || (destination instanceof SavingsAccount && !(source instanceof SavingsAccount)))
+			{
+				destination = accounts.get(0);
+				if (destination == source)
+				{
+					destination = accounts.get(1);
+				}
+				if (destination instanceof SavingsAccount && !(source instanceof SavingsAccount))
+				{
+					continue;
+				}
+			}
+			Frequency frequency = FREQUENCIES[random.nextInt(FREQUENCIES.length)];
+			Date next = this.nextDate(random, frequency);
+			bbd.addTransfer(new MoneyTransfer("transfer " + i, source, destination, money(random, 5, 500), frequency, next,
+					this.endDate(random, frequency, next)));
+		}
+
+		Source budgetSource = sources.get(random.nextInt(sources.size()));
+		Budget budget = new Budget(budgetSource, random.nextBoolean(), Calendar.SUNDAY + random.nextInt(7), 1 + random.nextInt(28));
+		int numBudgetItems = this.count(random, this.profile.getNumBudgetItems());
+		for (int i = 0; i < numBudgetItems; i++)
+		{
+			//Every frequency with every remain amount action in turn
+			Frequency frequency = FREQUENCIES[i % FREQUENCIES.length];
+			RemainAmountAction action = ACTIONS[(i / FREQUENCIES.length) % ACTIONS.length];
+			boolean prorated = (frequency == Frequency.weekly || frequency == Frequency.monthly || frequency == Frequency.yearly)
+					&& random.nextBoolean();
+			Date next = this.nextDate(random, frequency);
+			double amount = money(random, 5, 600);
+			BudgetItem item = new BudgetItem("item " + i, amount, frequency, next, this.endDate(random, frequency, next), prorated,
+					budgetSource);
+			item.setRemainAmountAction(action);
+			item.setCurrAmount(Math.round(amount * random.nextDouble() * 100) / 100.0);
+			budget.addBudgetItem(item);
+		}
+		bbd.setBudget(budget);
+
+		return bbd;
+	}
+
+	/**
+	 * Generates a run of models one at a time, for streaming far more models than fit in memory.
+	 * @param first - the index of the first model
+	 * @param count - the number of models
+	 * @return an iterator over the models; it throws IllegalStateException if a model is rejected, which would be a
+	 * 					bug in the generator
+	 */
+	public Iterator<BadBudgetData> iterator(final long first, final long count)
+	{
+		return new Iterator<BadBudgetData>()
+		{
+			private long next = first;
+
+			public boolean hasNext()
+			{
+				return this.next < first + count;
+			}
+
+			public BadBudgetData next()
+			{
+				if (!this.hasNext())
+				{
+					throw new NoSuchElementException();
+				}
+				try
+				{
+					return generate(this.next++);
+				}
+				catch (BadBudgetInvalidValueException e)
+				{
+					throw new IllegalStateException("Generated model " + (this.next - 1) + " was rejected", e);
+				}
+			}
+
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/*
+	 * Helpers
+	 */
+
+	private SavingsAccount savingsAccount(Random random, String name, Account source) throws BadBudgetInvalidValueException
+	{
+		double value = money(random, 0, 10000);
+		Frequency frequency = RECURRING[random.nextInt(RECURRING.length)];
+		Contribution contribution = new Contribution(money(random, 5, 500), frequency);
+		Date next = this.nextDate(random, frequency);
+		double interestRate = rate(random, 0, 0.05);
+
+		if (random.nextDouble() < this.profile.getGoalFraction())
+		{
+			//The goal is reached after 5 to 60 contributions
+			double goal = value + contribution.getContribution() * (5 + random.nextInt(56));
+			Date goalDate = Prediction.findGoalDate(next, contribution, value, goal);
+			return new SavingsAccount(name, value, random.nextBoolean(), true, goal, goalDate, contribution, source, next, goalDate,
+					false, interestRate);
+		}
+		else if (random.nextInt(4) == 0)
+		{
+			Date end = Prediction.addDays(next, 365 + random.nextInt(3 * 365));
+			return new SavingsAccount(name, value, random.nextBoolean(), false, -1, null, contribution, source, next, end, false,
+					interestRate);
+		}
+		else
+		{
+			return new SavingsAccount(name, value, random.nextBoolean(), false, -1, null, contribution, source, next, null, true,
+					interestRate);
+		}
+	}
+
+	@SuppressWarnings("deprecation")
+	private Payment owedPayment(Random random, MoneyOwed owed, Account source) throws BadBudgetInvalidValueException
+	{
+		Frequency frequency = RECURRING[1 + random.nextInt(RECURRING.length - 1)];
+		double amount = money(random, 25, 300);
+		Date next = this.nextDate(random, frequency);
+		if (random.nextDouble() < this.profile.getGoalFraction())
+		{
+			//The same goal date Payment.verifyValues expects for a debt without interest
+			Date goalDate = Prediction.findGoalDate(next, amount, frequency, owed.amount(), null);
+			return new Payment(amount, false, frequency, source, next, false, goalDate, owed, goalDate);
+		}
+		else
+		{
+			return new Payment(amount, false, frequency, source, next, true, null, owed, null);
+		}
+	}
+
+	/**
+	 * A count around the profile's count, varied by the profile's jitter.
+	 */
+	private int count(Random random, int base)
+	{
+		int spread = (int) Math.round(base * this.profile.getJitter());
+		if (spread == 0)
+		{
+			return base;
+		}
+		return Math.max(0, base - spread + random.nextInt(2 * spread + 1));
+	}
+
+	/**
+	 * A plain (not savings) account, the first one if the chosen account is a savings account.
+	 */
+	private Account plainAccount(Random random, List<Account> accounts)
+	{
+		Account account = accounts.get(random.nextInt(accounts.size()));
+		if (account instanceof SavingsAccount)
+		{
+			return accounts.get(0);
+		}
+		return account;
+	}
+
+	/**
+	 * A next date within one period of the frequency after the start date (within a month for one time).
+	 */
+	private Date nextDate(Random random, Frequency frequency)
+	{
+		int maxOffset;
+		switch (frequency)
+		{
+			case daily:
+			{
+				maxOffset = 1;
+				break;
+			}
+			case weekly:
+			{
+				maxOffset = 7;
+				break;
+			}
+			case biWeekly:
+			{
+				maxOffset = 14;
+				break;
+			}
+			case yearly:
+			{
+				maxOffset = 365;
+				break;
+			}
+			default:
+			{
+				maxOffset = 28;
+				break;
+			}
+		}
+		return Prediction.addDays(this.startDate, random.nextInt(maxOffset));
+	}
+
+	/**
+	 * The end date of a gain, loss, transfer or budget item: the next date for one time, otherwise usually none and
+	 * sometimes a few years out.
+	 */
+	private Date endDate(Random random, Frequency frequency, Date next)
+	{
+		if (frequency == Frequency.oneTime)
+		{
+			return next;
+		}
+		else if (random.nextInt(10) == 0)
+		{
+			return Prediction.addDays(next, 365 + random.nextInt(3 * 365));
+		}
+		else
+		{
+			return null;
+		}
+	}
+
+	private static double money(Random random, double min, double max)
+	{
+		return Math.round((min + (max - min) * random.nextDouble()) * 100) / 100.0;
+	}
+
+	private static double rate(Random random, double min, double max)
+	{
+		return Math.round((min + (max - min) * random.nextDouble()) * 10000) / 10000.0;
+	}
+}
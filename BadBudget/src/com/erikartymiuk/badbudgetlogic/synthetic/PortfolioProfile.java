@@ -0,0 +1,125 @@
+package com.erikartymiuk.badbudgetlogic.synthetic;
+
+/**
+ * The size and shape of the models a PortfolioGenerator makes: how many of each kind of entity a model has on
+ * average, how much the counts vary from model to model, and how often savings accounts and interest free debts are
+ * given a goal. Immutable.
+ */
+public class PortfolioProfile
+{
+	/* Profiles for the common cases */
+	public static final PortfolioProfile SMALL = new PortfolioProfile(1, 0, 1, 0, 0, 1, 3, 0, 3, 0, 0);
+	public static final PortfolioProfile TYPICAL = new PortfolioProfile(2, 3, 2, 2, 1, 3, 12, 2, 12, 0.25, 0.5);
+	public static final PortfolioProfile LARGE = new PortfolioProfile(20, 50, 20, 20, 10, 50, 500, 50, 200, 0.25, 0.5);
+
+	private final int numAccounts;			//Plain accounts, at least one
+	private final int numSavings;			//Savings accounts, each with a contribution and interest
+	private final int numCreditCards;
+	private final int numLoans;				//Simple and compound interest loans, each with a payment
+	private final int numOwed;				//Interest free debts, each with a payment
+	private final int numGains;
+	private final int numLosses;
+	private final int numTransfers;
+	private final int numBudgetItems;
+	private final double jitter;			//Each count varies by up to this fraction of itself from model to model
+	private final double goalFraction;		//The fraction of savings accounts and interest free debts given a goal
+
+	/**
+	 * Constructor for a profile.
+	 * @param numAccounts - plain accounts per model, at least 1 (transfers need 2)
+	 * @param numSavings - savings accounts per model
+	 * @param numCreditCards - credit cards per model
+	 * @param numLoans - simple and compound interest loans per model
+	 * @param numOwed - interest free debts per model
+	 * @param numGains - gains per model
+	 * @param numLosses - losses per model
+	 * @param numTransfers - transfers per model
+	 * @param numBudgetItems - budget items per model
+	 * @param jitter - how much the counts vary from model to model, between 0 (never) and 1
+	 * @param goalFraction - the fraction of savings accounts and interest free debts with a goal, between 0 and 1
+	 */
+	public PortfolioProfile(int numAccounts, int numSavings, int numCreditCards, int numLoans, int numOwed, int numGains,
+			int numLosses, int numTransfers, int numBudgetItems, double jitter, double goalFraction)
+	{
+		this.numAccounts = Math.max(1, numAccounts);
+		this.numSavings = numSavings;
+		this.numCreditCards = numCreditCards;
+		this.numLoans = numLoans;
+		this.numOwed = numOwed;
+		this.numGains = numGains;
+		this.numLosses = numLosses;
+		this.numTransfers = numTransfers;
+		this.numBudgetItems = numBudgetItems;
+		this.jitter = jitter;
+		this.goalFraction = goalFraction;
+	}
+
+	/**
+	 * A profile with every count multiplied by the given factor (plain accounts staying at least 1).
+	 * @param factor - the factor to scale the counts by
+	 * @return the scaled profile
+	 */
+	public PortfolioProfile scaled(double factor)
+	{
+		return new PortfolioProfile((int) Math.round(this.numAccounts * factor), (int) Math.round(this.numSavings * factor),
+				(int) Math.round(this.numCreditCards * factor), (int) Math.round(this.numLoans * factor),
+				(int) Math.round(this.numOwed * factor), (int) Math.round(this.numGains * factor),
+				(int) Math.round(this.numLosses * factor), (int) Math.round(this.numTransfers * factor),
+				(int) Math.round(this.numBudgetItems * factor), this.jitter, this.goalFraction);
+	}
+
+	public int getNumAccounts()
+	{
+		return this.numAccounts;
+	}
+
+	public int getNumSavings()
+	{
+		return this.numSavings;
+	}
+
+	public int getNumCreditCards()
+	{
+		return this.numCreditCards;
+	}
+
+	public int getNumLoans()
+	{
+		return this.numLoans;
+	}
+
+	public int getNumOwed()
+	{
+		return this.numOwed;
+	}
+
+	public int getNumGains()
+	{
+		return this.numGains;
+	}
+
+	public int getNumLosses()
+	{
+		return this.numLosses;
+	}
+
+	public int getNumTransfers()
+	{
+		return this.numTransfers;
+	}
+
+	public int getNumBudgetItems()
+	{
+		return this.numBudgetItems;
+	}
+
+	public double getJitter()
+	{
+		return this.jitter;
+	}
+
+	public double getGoalFraction()
+	{
+		return this.goalFraction;
+	}
+}
@@ -0,0 +1,236 @@
+package com.erikartymiuk.badbudgetlogic.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import com.erikartymiuk.badbudgetlogic.budget.Budget;
+import com.erikartymiuk.badbudgetlogic.budget.BudgetItem;
+import com.erikartymiuk.badbudgetlogic.main.*;
+
+/**
+ * Checks many candidate entities without constructing them, so invalid values cost an error value instead of a
+ * thrown BadBudgetInvalidValueException and its stack trace. Each check runs the entity's verifyValues and, for a
+ * nonzero code, records a ValidationError with the message the constructor would have thrown. Each check returns the
+ * error code (0 if the candidate is valid) and counts as one candidate of the batch, errors naming candidates by
+ * their index.
+ *
+ * The date checks of savings accounts and payments share one RecurrenceCache across the batch, so a goal date check
+ * walks a given payment recurrence once however many candidates use it. Not thread safe, each thread should use its
+ * own validator.
+ */
+public class BatchValidator
+{
+	private final RecurrenceCache recurrences;		//Shared by the checks of the whole batch
+	private final ArrayList<ValidationError> errors;
+	private int numCandidates;						//Candidates checked since the batch was started or cleared
+
+	public BatchValidator()
+	{
+		this.recurrences = new RecurrenceCache();
+		this.errors = new ArrayList<ValidationError>();
+		this.numCandidates = 0;
+	}
+
+	/**
+	 * Checks the values of an account.
+	 * @return the Account.verifyValues error code, 0 if valid
+	 */
+	public int checkAccount(String name)
+	{
+		int error = Account.verifyValues(name);
+		return this.record(error, "Account", Account.messageFor(error));
+	}
+
+	/**
+	 * Checks the values of a savings account, first as an account and then as a savings account. Counts as one
+	 * candidate. A negative value is accepted, as the SavingsAccount constructor accepts it.
+	 * @return the Account.verifyValues error code if nonzero, otherwise the SavingsAccount.verifyValues error code,
+	 * 			0 if valid (including a negative value)
+	 */
+	public int checkSavingsAccount(String name, double value, boolean goalSet, double goalAmount, Date goalDate,
+			Contribution contribution, Account sourceAccount, Date nextContribution, Date endDate, boolean ongoing, double interestRate)
+	{
+		int error = Account.verifyValues(name);
+		if (error != 0)
+		{
+			return this.record(error, "Account", Account.messageFor(error));
+		}
+
+		error = SavingsAccount.verifyValues(value, goalSet, goalAmount, goalDate, contribution, sourceAccount, nextContribution,
+				endDate, ongoing, interestRate, this.recurrences);
+		if (error == 1)
+		{
+			error = 0;
+		}
+		return this.record(error, "SavingsAccount", SavingsAccount.messageFor(error));
+	}
+
+	/**
+	 * Checks the values of a contribution.
+	 * @return the Contribution.verifyValues error code, 0 if valid
+	 */
+	public int checkContribution(double contribution, Frequency frequency)
+	{
+		int error = Contribution.verifyValues(contribution, frequency);
+		return this.record(error, "Contribution", Contribution.messageFor(error));
+	}
+
+	/**
+	 * Checks the values of a debt (a MoneyOwed or CreditCard).
+	 * @return the MoneyOwed.verifyValues error code, 0 if valid
+	 */
+	public int checkDebt(String name, double amount, double interestRate)
+	{
+		int error = MoneyOwed.verifyValues(name, amount, interestRate);
+		return this.record(error, "MoneyOwed", MoneyOwed.messageFor(error));
+	}
+
+	/**
+	 * Checks the values of a loan, first as a debt and then as a loan. Counts as one candidate.
+	 * @return the MoneyOwed.verifyValues error code if nonzero, otherwise the Loan.verifyValues error code
+	 */
+	public int checkLoan(String name, double amount, double interestRate, boolean simpleInterest, double principalBalance)
+	{
+		int error = MoneyOwed.verifyValues(name, amount, interestRate);
+		if (error != 0)
+		{
+			return this.record(error, "MoneyOwed", MoneyOwed.messageFor(error));
+		}
+		else
+		{
+			error = Loan.verifyValues(amount, simpleInterest, principalBalance);
+			return this.record(error, "Loan", Loan.messageFor(error));
+		}
+	}
+
+	/**
+	 * Checks the values of a payment.
+	 * @return the Payment.verifyValues error code, 0 if valid
+	 */
+	public int checkPayment(double amount, boolean payoff, Frequency frequency, Account sourceAccount, Date nextPayment,
+			boolean ongoing, Date endDate, MoneyOwed debt, Date goalDate)
+	{
+		int error = Payment.verifyValues(amount, payoff, frequency, sourceAccount, nextPayment, ongoing, endDate, debt, goalDate,
+				this.recurrences);
+		return this.record(error, "Payment", Payment.messageFor(error));
+	}
+
+	/**
+	 * Checks the values of a gain.
+	 * @return the MoneyGain.verifyValues error code, 0 if valid
+	 */
+	public int checkGain(String source, double amount, Frequency frequency, Date nextDeposit, Date endDate, Account destination)
+	{
+		int error = MoneyGain.verifyValues(source, amount, frequency, nextDeposit, endDate, destination);
+		return this.record(error, "MoneyGain", MoneyGain.messageFor(error));
+	}
+
+	/**
+	 * Checks the values of a loss.
+	 * @return the MoneyLoss.verifyValues error code, 0 if valid
+	 */
+	public int checkLoss(String expense, double amount, Frequency frequency, Date nextLoss, Date endDate, Source source)
+	{
+		int error = MoneyLoss.verifyValues(expense, amount, frequency, nextLoss, endDate, source);
+		return this.record(error, "MoneyLoss", MoneyLoss.messageFor(error));
+	}
+
+	/**
+	 * Checks the values of a transfer.
+	 * @return the MoneyTransfer.verifyValues error code, 0 if valid
+	 */
+	public int checkTransfer(String description, Account source, Account destination, double amount, Frequency frequency,
+			Date nextTransfer, Date endDate)
+	{
+		int error = MoneyTransfer.verifyValues(description, source, destination, amount, frequency, nextTransfer, endDate);
+		return this.record(error, "MoneyTransfer", MoneyTransfer.messageFor(error));
+	}
+
+	/**
+	 * Checks the values of a budget.
+	 * @return the Budget.verifyValues error code, 0 if valid
+	 */
+	public int checkBudget(Source budgetSource)
+	{
+		int error = Budget.verifyValues(budgetSource);
+		return this.record(error, "Budget", Budget.messageFor(error));
+	}
+
+	/**
+	 * Checks the values of a budget item, first as a loss and then as a budget item. Counts as one candidate.
+	 * @return the MoneyLoss.verifyValues error code if nonzero, otherwise the BudgetItem.verifyValues error code
+	 */
+	public int checkBudgetItem(String description, double amount, Frequency frequency, Date startDate, Date endDate,
+			boolean proratedStart, Source source)
+	{
+		int error = MoneyLoss.verifyValues(description, amount, frequency, startDate, endDate, source);
+		if (error != 0)
+		{
+			return this.record(error, "MoneyLoss", MoneyLoss.messageFor(error));
+		}
+		else
+		{
+			error = BudgetItem.verifyValues(frequency, proratedStart);
+			return this.record(error, "BudgetItem", BudgetItem.messageFor(error));
+		}
+	}
+
+	/**
+	 * The cache the date checks of this batch share, for callers running verifyValues themselves.
+	 * @return the recurrence cache
+	 */
+	public RecurrenceCache recurrences()
+	{
+		return this.recurrences;
+	}
+
+	/**
+	 * The errors found so far in the order found.
+	 * @return an unmodifiable view of the errors
+	 */
+	public List<ValidationError> errors()
+	{
+		return Collections.unmodifiableList(this.errors);
+	}
+
+	public boolean hasErrors()
+	{
+		return !this.errors.isEmpty();
+	}
+
+	/**
+	 * The number of candidates checked, valid or not.
+	 * @return the number of candidates
+	 */
+	public int numCandidates()
+	{
+		return this.numCandidates;
+	}
+
+	/**
+	 * Starts a new batch, forgetting the errors and the candidate count. The recurrence cache is kept unless
+	 * clearRecurrences is set.
+	 * @param clearRecurrences - true to also empty the recurrence cache
+	 */
+	public void clear(boolean clearRecurrences)
+	{
+		this.errors.clear();
+		this.numCandidates = 0;
+		if (clearRecurrences)
+		{
+			this.recurrences.clear();
+		}
+	}
+
+	private int record(int error, String entity, String message)
+	{
+		if (error != 0)
+		{
+			this.errors.add(new ValidationError(this.numCandidates, entity, error, message));
+		}
+		this.numCandidates++;
+		return error;
+	}
+}
@@ -0,0 +1,53 @@
+package com.erikartymiuk.badbudgetlogic.validation;
+
+/**
+ * A candidate entity a BatchValidator found invalid, the error code its verifyValues returned along with the message
+ * its constructor would have thrown.
+ */
+public class ValidationError
+{
+	private final int candidate;		//The candidate's index in the batch, in the order candidates were checked
+	private final String entity;		//The simple name of the entity class that rejected the candidate
+	private final int code;				//The verifyValues error code
+	private final String message;		//The BadBudgetInvalidValueException message for the error
+
+	/**
+	 * Constructor for a validation error.
+	 * @param candidate - the candidate's index in the batch
+	 * @param entity - the simple name of the entity class
+	 * @param code - the verifyValues error code
+	 * @param message - the message for the error
+	 */
+	public ValidationError(int candidate, String entity, int code, String message)
+	{
+		this.candidate = candidate;
+		this.entity = entity;
+		this.code = code;
+		this.message = message;
+	}
+
+	public int getCandidate()
+	{
+		return this.candidate;
+	}
+
+	public String getEntity()
+	{
+		return this.entity;
+	}
+
+	public int getCode()
+	{
+		return this.code;
+	}
+
+	public String getMessage()
+	{
+		return this.message;
+	}
+
+	public String toString()
+	{
+		return "candidate " + this.candidate + " (" + this.entity + "): " + this.message + " [" + this.code + "]";
+	}
+}
@@ -0,0 +1,282 @@
+package com.erikartymiuk.badbudgetlogic.batch;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.erikartymiuk.badbudgetlogic.kernel.InPlaceUpdate;
+import com.erikartymiuk.badbudgetlogic.main.*;
+import com.erikartymiuk.badbudgetlogic.store.ModelMutation;
+import com.erikartymiuk.badbudgetlogic.store.ModelStore;
+import com.erikartymiuk.badbudgetlogic.store.ModelVersion;
+import com.erikartymiuk.badbudgetlogic.synthetic.PortfolioGenerator;
+import com.erikartymiuk.badbudgetlogic.synthetic.PortfolioProfile;
+
+public class RollForwardBatchTest {
+
+	private static final Date FROM = new GregorianCalendar(2018, Calendar.MARCH, 1).getTime();
+	private static final Date TO = new GregorianCalendar(2018, Calendar.MARCH, 2).getTime();
+
+	/**
+	 * Generates the users, keeps each in the directory and gives each a store of its data.
+	 */
+	private static Map<String, ModelStore> users(int numUsers, SnapshotDirectory kept)
+			throws BadBudgetInvalidValueException, IOException
+	{
+		PortfolioGenerator generator = new PortfolioGenerator(PortfolioProfile.SMALL, 7, FROM);
+		Map<String, ModelStore> users = new HashMap<String, ModelStore>();
+		for (int i = 0; i < numUsers; i++)
+		{
+			BadBudgetData bbd = generator.generate(i);
+			kept.write("user" + i, bbd);
+			users.put("user" + i, new ModelStore(bbd));
+		}
+		return users;
+	}
+
+	/**
+	 * Rebuilds the users' stores from what the directory kept, as a restart after a crash would.
+	 */
+	private static Map<String, ModelStore> restart(Map<String, ModelStore> users, SnapshotDirectory kept)
+			throws BadBudgetInvalidValueException, IOException
+	{
+		Map<String, ModelStore> restarted = new HashMap<String, ModelStore>();
+		for (String userId : users.keySet())
+		{
+			restarted.put(userId, new ModelStore(kept.read(userId)));
+		}
+		return restarted;
+	}
+
+	private static byte[] rolledOnce(ModelStore store) throws BadBudgetInvalidValueException
+	{
+		BadBudgetData bbd = store.current().materialize();
+		InPlaceUpdate.update(bbd, FROM, TO);
+		return BadBudgetSnapshot.fingerprint(bbd);
+	}
+
+	private static Map<String, byte[]> rolledOnce(Map<String, ModelStore> users) throws BadBudgetInvalidValueException
+	{
+		Map<String, byte[]> expected = new HashMap<String, byte[]>();
+		for (Map.Entry<String, ModelStore> user : users.entrySet())
+		{
+			expected.put(user.getKey(), rolledOnce(user.getValue()));
+		}
+		return expected;
+	}
+
+	private static void deleteAll(Path directory) throws IOException
+	{
+		DirectoryStream<Path> files = Files.newDirectoryStream(directory);
+		try
+		{
+			for (Path file : files)
+			{
+				Files.delete(file);
+			}
+		}
+		finally
+		{
+			files.close();
+		}
+		Files.delete(directory);
+	}
+
+	@Test
+	public void rollsEveryUserOnceTest() throws BadBudgetInvalidValueException, IOException, InterruptedException {
+
+		Path directory = Files.createTempDirectory("rollforward");
+		SnapshotDirectory kept = new SnapshotDirectory(directory);
+		Map<String, ModelStore> users = users(25, kept);
+		Map<String, byte[]> expected = rolledOnce(users);
+
+		Path file = Files.createTempFile("rollforward", ".checkpoint");
+		try
+		{
+			RollForwardReport report = new RollForwardBatch(4, kept).run(users, FROM, TO, file);
+			assertTrue(report.numUsers() == 25 && report.numRolled() == 25 && report.numFailed() == 0);
+			assertTrue(report.maxLagMillis() >= report.meanLagMillis());
+			for (Map.Entry<String, ModelStore> user : users.entrySet())
+			{
+				assertTrue(user.getValue().current().getVersion() == 2);
+				assertTrue(Arrays.equals(user.getValue().current().fingerprint(), expected.get(user.getKey())));
+				assertTrue(Arrays.equals(kept.persistedFingerprint(user.getKey()), expected.get(user.getKey())));
+			}
+
+			//Running the same night again after a restart changes nothing
+			Map<String, ModelStore> restarted = restart(users, kept);
+			RollForwardReport again = new RollForwardBatch(3, kept).run(restarted, FROM, TO, file);
+			assertTrue(again.numSkipped() == 25 && again.numRolled() == 0);
+			for (Map.Entry<String, ModelStore> user : restarted.entrySet())
+			{
+				assertTrue(Arrays.equals(kept.persistedFingerprint(user.getKey()), expected.get(user.getKey())));
+			}
+		}
+		finally
+		{
+			Files.delete(file);
+			deleteAll(directory);
+		}
+	}
+
+	/*
+	 * A crash leaves some users done, one part way (kept but not recorded), one part way (published to its store but
+	 * not kept, so lost with the store) and one part way (not yet published). The run after it starts from stores
+	 * rebuilt from what was kept.
+	 */
+	@Test
+	public void resumeAfterCrashTest() throws BadBudgetInvalidValueException, IOException, InterruptedException {
+
+		Path directory = Files.createTempDirectory("rollforward");
+		SnapshotDirectory kept = new SnapshotDirectory(directory);
+		Map<String, ModelStore> users = users(12, kept);
+		Map<String, byte[]> expected = rolledOnce(users);
+		ModelMutation rollForward = new ModelMutation()
+		{
+			public void apply(BadBudgetData bbd) throws BadBudgetInvalidValueException
+			{
+				InPlaceUpdate.update(bbd, FROM, TO);
+			}
+		};
+
+		Path file = Files.createTempFile("rollforward", ".checkpoint");
+		Files.delete(file);
+		try
+		{
+			Map<String, ModelStore> firstHalf = new HashMap<String, ModelStore>();
+			for (int i = 0; i < 6; i++)
+			{
+				firstHalf.put("user" + i, users.get("user" + i));
+			}
+			new RollForwardBatch(2, kept).run(firstHalf, FROM, TO, file);
+
+			RollForwardCheckpoint checkpoint = new RollForwardCheckpoint(file, FROM, TO);
+			ModelStore keptUser = users.get("user6");
+			checkpoint.begin("user6", keptUser.current().fingerprint());
+			kept.persist("user6", keptUser.update(rollForward));
+			ModelStore publishedUser = users.get("user7");
+			checkpoint.begin("user7", publishedUser.current().fingerprint());
+			publishedUser.update(rollForward);
+			checkpoint.begin("user8", users.get("user8").current().fingerprint());
+			checkpoint.close();
+
+			//A record cut off part way through its write
+			Files.write(file, "done\tuser8\t".getBytes(Charset.forName("UTF-8")), StandardOpenOption.APPEND);
+
+			Map<String, ModelStore> restarted = restart(users, kept);
+			RollForwardReport report = new RollForwardBatch(3, kept).run(restarted, FROM, TO, file);
+			assertTrue(report.numSkipped() == 6);
+			assertTrue(report.numRecovered() == 1);
+			assertTrue(report.numRolled() == 5);
+
+			//Every user was rolled exactly once, in what was kept as well as in the stores
+			restarted = restart(users, kept);
+			for (Map.Entry<String, ModelStore> user : restarted.entrySet())
+			{
+				assertTrue(Arrays.equals(user.getValue().current().fingerprint(), expected.get(user.getKey())));
+			}
+
+			RollForwardCheckpoint reopened = new RollForwardCheckpoint(file, FROM, TO);
+			assertTrue(reopened.numDone() == 12);
+			reopened.close();
+		}
+		finally
+		{
+			Files.deleteIfExists(file);
+			deleteAll(directory);
+		}
+	}
+
+	//A user whose rolled version can't be kept fails, and is kept rather than rolled again by the next run
+	@Test
+	public void sinkFailureTest() throws BadBudgetInvalidValueException, IOException, InterruptedException {
+
+		Path directory = Files.createTempDirectory("rollforward");
+		final SnapshotDirectory kept = new SnapshotDirectory(directory);
+		Map<String, ModelStore> users = users(4, kept);
+		Map<String, byte[]> expected = rolledOnce(users);
+		final boolean[] fail = {true};
+		RollForwardSink failing = new RollForwardSink()
+		{
+			public void persist(String userId, ModelVersion rolled) throws IOException
+			{
+				if (userId.equals("user2") && fail[0])
+				{
+					throw new IOException("disk full");
+				}
+				kept.persist(userId, rolled);
+			}
+
+			public byte[] persistedFingerprint(String userId) throws IOException
+			{
+				return kept.persistedFingerprint(userId);
+			}
+		};
+
+		Path file = Files.createTempFile("rollforward", ".checkpoint");
+		try
+		{
+			RollForwardReport report = new RollForwardBatch(2, failing).run(users, FROM, TO, file);
+			assertTrue(report.numRolled() == 3 && report.numFailed() == 1);
+			assertTrue(report.getFailures().get("user2").contains("disk full"));
+
+			fail[0] = false;
+			RollForwardReport again = new RollForwardBatch(2, failing).run(users, FROM, TO, file);
+			assertTrue(again.numSkipped() == 3 && again.numRecovered() == 1 && again.numRolled() == 0);
+			assertTrue(users.get("user2").current().getVersion() == 2);
+			assertTrue(Arrays.equals(kept.persistedFingerprint("user2"), expected.get("user2")));
+		}
+		finally
+		{
+			Files.delete(file);
+			deleteAll(directory);
+		}
+	}
+
+	@Test
+	public void failuresAndOtherRunTest() throws BadBudgetInvalidValueException, IOException, InterruptedException {
+
+		Path directory = Files.createTempDirectory("rollforward");
+		SnapshotDirectory kept = new SnapshotDirectory(directory);
+		Map<String, ModelStore> users = users(5, kept);
+		//A user without a budget can't be updated
+		users.put("nobudget", new ModelStore(new BadBudgetData()));
+
+		Path file = Files.createTempFile("rollforward", ".checkpoint");
+		try
+		{
+			RollForwardReport report = new RollForwardBatch(2, kept).run(users, FROM, TO, file);
+			assertTrue(report.numRolled() == 5 && report.numFailed() == 1);
+			assertTrue(report.getFailures().containsKey("nobudget"));
+
+			//The checkpoint belongs to the night it was made for
+			try
+			{
+				new RollForwardBatch(2, kept).run(users, TO, new GregorianCalendar(2018, Calendar.MARCH, 3).getTime(), file);
+				fail();
+			}
+			catch (IOException e)
+			{
+				assertTrue(e.getMessage().contains("another run"));
+			}
+		}
+		finally
+		{
+			Files.delete(file);
+			deleteAll(directory);
+		}
+	}
+}
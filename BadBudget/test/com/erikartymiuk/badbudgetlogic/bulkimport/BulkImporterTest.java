@@ -0,0 +1,135 @@
+package com.erikartymiuk.badbudgetlogic.bulkimport;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import com.erikartymiuk.badbudgetlogic.main.*;
+
+public class BulkImporterTest {
+
+	private static final String INPUT =
+			"# two users\n" +
+			"user\talice\n" +
+			"account\tchecking\t5000\ttrue\n" +
+			"savings\tvacation\t50\tfalse\tfalse\t-1\t-\t10\tmonthly\trainy day\t2017-05-10\t-\ttrue\t0\n" +
+			"savings\trainy day\t200\tfalse\tfalse\t-1\t-\t25\tweekly\tchecking\t2017-05-10\t-\ttrue\t0.01\n" +
+			"card\tcard\t400\tfalse\t0.2\n" +
+			"loan\tloan\t2000\ttrue\t0.05\ttrue\t1800\n" +
+			"payment\tloan\t75\tfalse\tmonthly\tchecking\t2017-05-10\ttrue\t-\t-\n" +
+			"gain\tjob\t1200.50\tbiWeekly\t2017-05-12\t-\tchecking\n" +
+			"loss\trent\t800\tmonthly\t2017-05-01\t-\tchecking\n" +
+			"transfer\tmove\trainy day\tchecking\t50\tweekly\t2017-05-10\t-\n" +
+			"item\tgroceries\t60\tweekly\t2017-05-10\t-\tfalse\n" +
+			"budget\tcard\ttrue\t1\t1\n" +
+			"\n" +
+			"user\tbob\r\n" +
+			"account\tchecking\t100\ttrue\r\n" +
+			"account\tchecking\t200\ttrue\r\n" +
+			"gain\tjob\t-5\tweekly\t2017-05-12\t-\tchecking\r\n" +
+			"loss\trent\tlots\tmonthly\t2017-05-01\t-\tchecking\r\n" +
+			"payment\tnone\t75\tfalse\tmonthly\tchecking\t2017-05-10\ttrue\t-\t-\r\n" +
+			"mortgage\thouse\r\n" +
+			"debt\towed\t10\tfalse\r\n";
+
+	@Test
+	public void importTest() throws InterruptedException {
+
+		ByteBuffer buffer = ByteBuffer.wrap(INPUT.getBytes(StandardCharsets.UTF_8));
+		List<ImportedUser> users = BulkImporter.importBuffer(buffer, null);
+		assertTrue(users.size() == 2);
+		assertTrue(buffer.position() == 0);
+
+		ImportedUser alice = users.get(0);
+		assertTrue(alice.getUserId().equals("alice"));
+		assertFalse(alice.hasErrors());
+		assertTrue(alice.numImported() == 11);
+
+		BadBudgetData bbd = alice.getData();
+		//Sourced from a savings account that comes after it in the input
+		SavingsAccount vacation = (SavingsAccount) bbd.getAccountWithName("vacation");
+		assertTrue(vacation.sourceAccount() == bbd.getAccountWithName("rainy day"));
+		assertTrue(vacation.contribution().getFrequency() == Frequency.monthly);
+		assertTrue(bbd.getDebtWithName("card") instanceof CreditCard);
+		Loan loan = (Loan) bbd.getDebtWithName("loan");
+		assertTrue(loan.getPrincipalBalance() == 1800);
+		assertTrue(loan.payment().amount() == 75 && loan.payment().sourceAccount() == bbd.getAccountWithName("checking"));
+		assertTrue(bbd.getGainWithDescription("job").gainAmount() == 1200.5);
+		assertTrue(bbd.getBudget().getBudgetSource() == bbd.getDebtWithName("card"));
+		//Listed before the budget but imported after it
+		assertTrue(bbd.getBudget().retrieveBudgetItem("groceries").lossAmount() == 60);
+
+		ImportedUser bob = users.get(1);
+		assertTrue(bob.getUserId().equals("bob"));
+		assertTrue(bob.numImported() == 1);
+		assertTrue(bob.getData().getAccountWithName("checking").value() == 100);
+
+		List<ImportError> errors = bob.getErrors();
+		assertTrue(errors.size() == 6);
+		assertTrue(findError(errors, 17).getCode() == ImportError.DUPLICATE_ERROR);
+		assertTrue(findError(errors, 18).getCode() == 2);
+		assertTrue(findError(errors, 18).getMessage().equals(BadBudgetInvalidValueException.GAIN_AMOUNT_NEGATIVE_E2));
+		assertTrue(findError(errors, 19).getCode() == ImportError.FORMAT_ERROR);
+		assertTrue(findError(errors, 19).getField() == 2);
+		assertTrue(findError(errors, 20).getCode() == ImportError.REFERENCE_ERROR);
+		assertTrue(findError(errors, 21).getMessage().equals(BadBudgetInvalidValueException.IMPORT_UNKNOWN_RECORD));
+		assertTrue(findError(errors, 22).getMessage().equals(BadBudgetInvalidValueException.IMPORT_FIELD_COUNT));
+	}
+
+	@Test
+	public void parallelImportTest() throws InterruptedException {
+
+		StringBuilder input = new StringBuilder("account\tstray\t1\ttrue\n");
+		for (int i = 0; i < 50; i++)
+		{
+			input.append("user\tu").append(i).append('\n');
+			input.append("account\tchecking\t").append(i).append("\ttrue\n");
+			input.append("loss\trent\t10\tmonthly\t2017-05-01\t-\tchecking\n");
+		}
+		ByteBuffer buffer = ByteBuffer.allocateDirect(input.length());
+		buffer.put(input.toString().getBytes(StandardCharsets.US_ASCII));
+		buffer.flip();
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try
+		{
+			List<ImportedUser> users = BulkImporter.importBuffer(buffer, executor);
+			assertTrue(users.size() == 51);
+
+			ImportedUser stray = users.get(0);
+			assertTrue(stray.getUserId() == null);
+			assertTrue(stray.getErrors().get(0).getMessage().equals(BadBudgetInvalidValueException.IMPORT_NO_USER));
+
+			for (int i = 0; i < 50; i++)
+			{
+				ImportedUser user = users.get(i + 1);
+				assertTrue(user.getUserId().equals("u" + i));
+				assertFalse(user.hasErrors());
+				assertTrue(user.getData().getAccountWithName("checking").value() == i);
+				assertTrue(user.getData().getLossWithDescription("rent").source() == user.getData().getAccountWithName("checking"));
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	private static ImportError findError(List<ImportError> errors, long lineNumber)
+	{
+		for (ImportError error : errors)
+		{
+			if (error.getLineNumber() == lineNumber)
+			{
+				return error;
+			}
+		}
+		return null;
+	}
+}
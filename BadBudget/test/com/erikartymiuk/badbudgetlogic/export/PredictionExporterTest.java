@@ -0,0 +1,177 @@
+package com.erikartymiuk.badbudgetlogic.export;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.erikartymiuk.badbudgetlogic.kernel.PredictionSeries;
+import com.erikartymiuk.badbudgetlogic.main.*;
+import com.erikartymiuk.badbudgetlogic.predictdataclasses.TransactionHistoryItem;
+
+public class PredictionExporterTest {
+
+	/**
+	 * The shared kernel test model with names that need quoting and escaping, and a loss whose name isn't ASCII.
+	 */
+	private static BadBudgetData quotedModel(Calendar startCal) throws BadBudgetInvalidValueException
+	{
+		BadBudgetData bbd = ModelFixture.buildModel(startCal);
+		MoneyOwed card = bbd.getDebtWithName("card");
+		bbd.getAccountWithName("checking").setName("checking, main");
+		card.changeName("card \"gold\"");
+		bbd.addLoss(new MoneyLoss("caf\u00e9", 4.5, Frequency.daily, startCal.getTime(), null, (Source) card));
+		return bbd;
+	}
+
+	@Test
+	public void csvValuesTest() throws BadBudgetInvalidValueException, IOException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+		Calendar endCal = new GregorianCalendar(2017, Calendar.JULY, 10);
+		PredictionSeries series = PredictionSeries.predict(quotedModel(startCal), startCal.getTime(), endCal.getTime());
+
+		//A small buffer so it's written out many times
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		CsvExporter exporter = new CsvExporter(Channels.newChannel(bytes), 64, 2);
+		exporter.writeValues(series);
+		assertTrue(exporter.bytesWritten() == bytes.size());
+
+		String[] lines = new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n");
+		assertTrue(lines[0].equals(CsvExporter.VALUES_HEADER));
+		int rowsPerDay = series.numAccounts() + series.numDebts();
+		assertTrue(lines.length == 1 + series.numDays() * rowsPerDay);
+		assertTrue(lines[1].startsWith("2017-05-10,account,0,\"checking, main\","));
+		assertTrue(lines[1 + series.numAccounts()].startsWith("2017-05-10,debt,0,\"card \"\"gold\"\"\","));
+
+		//Day 40's first account row
+		String row = lines[1 + 40 * rowsPerDay];
+		assertTrue(row.startsWith("2017-06-19,account,0,"));
+		double value = Double.parseDouble(row.substring(row.lastIndexOf(',') + 1));
+		assertTrue(Math.abs(value - series.accountValue(40, 0)) < 0.005);
+	}
+
+	@Test
+	public void jsonHistoryTest() throws BadBudgetInvalidValueException, IOException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+		Calendar endCal = new GregorianCalendar(2017, Calendar.JUNE, 10);
+		BadBudgetData bbd = quotedModel(startCal);
+		Prediction.predict(bbd, startCal.getTime(), endCal.getTime());
+		int lastDay = Prediction.numDaysBetween(startCal.getTime(), endCal.getTime());
+
+		int numItems = 0;
+		for (Account a : bbd.getAccounts())
+		{
+			for (int i = 0; i <= lastDay; i++)
+			{
+				List<TransactionHistoryItem> items = a.getPredictData(i).transactionHistory();
+				if (items != null)
+				{
+					numItems += items.size();
+				}
+			}
+		}
+		for (MoneyOwed mo : bbd.getDebts())
+		{
+			for (int i = 0; i <= lastDay; i++)
+			{
+				List<TransactionHistoryItem> items = mo.getPredictData(i).transactionHistory();
+				if (items != null)
+				{
+					numItems += items.size();
+				}
+			}
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		JsonLinesExporter exporter = new JsonLinesExporter(Channels.newChannel(bytes));
+		exporter.writeHistory(bbd, lastDay);
+
+		String[] lines = new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n");
+		assertTrue(numItems > 0 && lines.length == numItems);
+		boolean foundCafe = false;
+		for (String line : lines)
+		{
+			assertTrue(line.startsWith("{\"date\":\"2017-") && line.endsWith("}"));
+			foundCafe = foundCafe || line.contains("\"caf\u00e9\"");
+		}
+		assertTrue(foundCafe);
+		assertTrue(lines[0].contains("\"entity\":\"checking, main\""));
+	}
+
+	@Test
+	public void jsonNonFiniteTest() throws BadBudgetInvalidValueException, IOException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+		Calendar endCal = new GregorianCalendar(2017, Calendar.MAY, 20);
+		BadBudgetData bbd = quotedModel(startCal);
+		bbd.getRegistry().accounts()[0].setValue(Double.NaN);
+		//Owed has no payment to pay it off
+		bbd.getDebtWithName("owed").changeAmount(Double.POSITIVE_INFINITY);
+		int owedRow = bbd.getRegistry().accounts().length + bbd.getRegistry().debtId(bbd.getDebtWithName("owed"));
+		PredictionSeries series = PredictionSeries.predict(bbd, startCal.getTime(), endCal.getTime());
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new JsonLinesExporter(Channels.newChannel(bytes)).writeValues(series);
+		String[] lines = new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n");
+		int rowsPerDay = series.numAccounts() + series.numDebts();
+		assertTrue(lines.length == series.numDays() * rowsPerDay);
+		for (int day = 0; day < series.numDays(); day++)
+		{
+			assertTrue(lines[day * rowsPerDay].endsWith(",\"value\":null}"));
+			assertTrue(lines[day * rowsPerDay + owedRow].endsWith(",\"value\":null}"));
+		}
+		for (String line : lines)
+		{
+			assertFalse(line.contains("NaN") || line.contains("Infinity"));
+		}
+
+		//CSV has no null so keeps Double.toString's text
+		bytes.reset();
+		new CsvExporter(Channels.newChannel(bytes)).writeValues(series);
+		lines = new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n");
+		assertTrue(lines[1].endsWith(",NaN") && lines[1 + owedRow].endsWith(",Infinity"));
+	}
+
+	@Test
+	public void formattingTest() throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ChannelOutput out = new ChannelOutput(Channels.newChannel(bytes), 64);
+		out.putFixed(-0.004, 2);
+		out.putAscii(' ');
+		out.putFixed(-12.375, 2);
+		out.putAscii(' ');
+		out.putFixed(7, 0);
+		out.putAscii(' ');
+		out.putFixed(0.5, 3);
+		out.putAscii(' ');
+		out.putFixed(1e30, 2);
+		out.putAscii(' ');
+		out.putJsonNumber(Double.NaN, 2);
+		out.putAscii(' ');
+		out.putJsonNumber(Double.NEGATIVE_INFINITY, 2);
+		out.putAscii(' ');
+		out.putJsonNumber(1.5, 1);
+		out.putAscii(' ');
+		out.putLong(Long.MIN_VALUE);
+		out.putAscii(' ');
+		out.putCsvField("a,\"b\"");
+		out.putAscii(' ');
+		out.putJsonString("\u00e9\n\uD83D\uDE00\\");
+		out.putAscii(' ');
+		out.putString("x\uD83Dy");
+		out.flush();
+
+		String text = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+		assertTrue(text.equals("0.00 -12.38 7 0.500 1.0E30 null null 1.5 -9223372036854775808 \"a,\"\"b\"\"\" \"\u00e9\\n\uD83D\uDE00\\\\\" x?y"));
+	}
+}
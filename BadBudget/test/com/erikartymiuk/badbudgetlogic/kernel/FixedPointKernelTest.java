@@ -0,0 +1,101 @@
+package com.erikartymiuk.badbudgetlogic.kernel;
+
+import static org.junit.Assert.*;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+import org.junit.Test;
+
+import com.erikartymiuk.badbudgetlogic.main.*;
+
+public class FixedPointKernelTest {
+
+	@Test
+	public void matchesDoubleKernelTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+		Calendar endCal = new GregorianCalendar(2018, Calendar.JUNE, 20);
+		BadBudgetData bbd = ModelFixture.buildModel(startCal);
+
+		PredictionKernel kernel = PredictionKernel.compile(bbd, startCal.getTime(), false);
+		kernel.advanceTo(endCal.getTime(), null);
+		FixedPointKernel fixed = FixedPointKernel.compile(bbd, startCal.getTime(), false);
+		fixed.advanceTo(endCal.getTime());
+		assertTrue(fixed.dayIndex() == kernel.dayIndex());
+
+		//Rounding each accrual to the cent moves balances by cents, not dollars
+		EntityRegistry registry = kernel.registry();
+		for (int i = 0; i < registry.accounts().length; i++)
+		{
+			assertTrue(Math.abs(fixed.accountValue(i) - kernel.accountValue(i)) < 1);
+		}
+		for (int i = 0; i < registry.debts().length; i++)
+		{
+			assertTrue(Math.abs(fixed.debtValue(i) - kernel.debtValue(i)) < 1);
+		}
+
+		//Only whole dollar events touch this account so both agree exactly
+		int other = registry.accountId(bbd.getAccountWithName("other"));
+		assertTrue(fixed.accountUnits(other) == fixed.toUnits(kernel.accountValue(other)));
+		int flat = registry.debtId(bbd.getDebtWithName("flat"));
+		assertTrue(fixed.debtUnits(flat) == fixed.toUnits(kernel.debtValue(flat)));
+
+		//Recording gives the same end of day values
+		PredictionSeries series = FixedPointKernel.compile(bbd, startCal.getTime(), false).record(kernel.dayIndex());
+		for (int i = 0; i < registry.accounts().length; i++)
+		{
+			assertTrue(series.accountValue(kernel.dayIndex(), i) == fixed.accountValue(i));
+		}
+	}
+
+	@Test
+	public void exactTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+		BadBudgetData bbd = new BadBudgetData();
+		Account jar = new Account("jar", 0, false);
+		bbd.addAccount(jar);
+		bbd.addGain(new MoneyGain("dime", 0.1, Frequency.daily, startCal.getTime(), null, jar));
+
+		//A dime a day for 1000 days is exactly 100 dollars
+		FixedPointKernel fixed = FixedPointKernel.compile(bbd, startCal.getTime(), false);
+		fixed.advanceTo(999);
+		assertTrue(fixed.accountUnits(0) == 10000);
+		assertTrue(fixed.accountValue(0) == 100);
+
+		FixedPointKernel micros = FixedPointKernel.compile(bbd, startCal.getTime(), false, FixedPointKernel.MICROS);
+		micros.advanceTo(999);
+		assertTrue(micros.accountUnits(0) == 100000000L && micros.accountValue(0) == 100);
+	}
+
+	@Test
+	public void interestRoundingTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+		BadBudgetData bbd = new BadBudgetData();
+		Account checking = new Account("checking", 0, false);
+		//0.06 / 12 is half a cent a month per dollar, contributions only start next year
+		Calendar laterCal = new GregorianCalendar(2018, Calendar.MAY, 10);
+		SavingsAccount one = new SavingsAccount("one", 1, false, false, -1, null,
+				new Contribution(1, Frequency.monthly), checking, laterCal.getTime(), null, true, 0.06);
+		SavingsAccount three = new SavingsAccount("three", 3, false, false, -1, null,
+				new Contribution(1, Frequency.monthly), checking, laterCal.getTime(), null, true, 0.06);
+		CreditCard card = new CreditCard("card", 100, false, 0.2);
+		bbd.addAccount(checking);
+		bbd.addAccount(one);
+		bbd.addAccount(three);
+		bbd.addDebt(card);
+
+		FixedPointKernel fixed = FixedPointKernel.compile(bbd, startCal.getTime(), false);
+
+		//100 * 0.2 / 365.25 = 5.48 cents a day, rounded to 5
+		fixed.advanceTo(1);
+		assertTrue(fixed.debtUnits(0) == 10005 && fixed.debtAccumulatedInterestUnits(0) == 5);
+
+		//Half a cent rounds to even, down from 0.5 and up from 1.5
+		fixed.advanceTo(Prediction.numDaysBetween(startCal.getTime(), new GregorianCalendar(2017, Calendar.JUNE, 1).getTime()));
+		assertTrue(fixed.accountUnits(1) == 100 && fixed.accountAccumulatedInterestUnits(1) == 0);
+		assertTrue(fixed.accountUnits(2) == 302 && fixed.accountAccumulatedInterestUnits(2) == 2);
+	}
+}
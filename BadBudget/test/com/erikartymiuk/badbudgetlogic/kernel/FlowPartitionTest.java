@@ -0,0 +1,123 @@
+package com.erikartymiuk.badbudgetlogic.kernel;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.erikartymiuk.badbudgetlogic.budget.BudgetItem;
+import com.erikartymiuk.badbudgetlogic.main.*;
+import com.erikartymiuk.badbudgetlogic.synthetic.PortfolioGenerator;
+import com.erikartymiuk.badbudgetlogic.synthetic.PortfolioProfile;
+
+public class FlowPartitionTest {
+
+	/**
+	 * Adds a second household that shares nothing with the kernel test model and an account on its own.
+	 */
+	private static void addSideHousehold(BadBudgetData bbd, Calendar startCal) throws BadBudgetInvalidValueException
+	{
+		Account side = new Account("side", 700, false);
+		Account jar = new Account("jar", 20, false);
+		CreditCard sideCard = new CreditCard("side card", 150, false, 0.18);
+		bbd.addAccount(side);
+		bbd.addAccount(jar);
+		bbd.addDebt(sideCard);
+		sideCard.setupPayment(new Payment(40, false, Frequency.monthly, side, startCal.getTime(), true, null, sideCard, null));
+		bbd.addGain(new MoneyGain("side job", 300, Frequency.weekly, startCal.getTime(), null, side));
+		bbd.addLoss(new MoneyLoss("side rent", 500, Frequency.monthly, startCal.getTime(), null, side));
+		bbd.addGain(new MoneyGain("coins", 1, Frequency.daily, startCal.getTime(), null, jar));
+		bbd.getBudget().addBudgetItem(new BudgetItem("side food", 45, Frequency.weekly, startCal.getTime(), null, false, sideCard));
+	}
+
+	@Test
+	public void componentsTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+		BadBudgetData bbd = ModelFixture.buildModel(startCal);
+		addSideHousehold(bbd, startCal);
+		FlowPartition partition = FlowPartition.partition(bbd);
+		EntityRegistry registry = bbd.getRegistry();
+
+		assertTrue(partition.numComponents() == 4);
+		int main = partition.accountComponent(registry.accountId(bbd.getAccountWithName("checking")));
+		int side = partition.accountComponent(registry.accountId(bbd.getAccountWithName("side")));
+		int jar = partition.accountComponent(registry.accountId(bbd.getAccountWithName("jar")));
+		assertTrue(main == 0 && side != main && jar != main && jar != side);
+
+		//Linked by a transfer, a contribution and payments
+		assertTrue(partition.accountComponent(registry.accountId(bbd.getAccountWithName("other"))) == main);
+		assertTrue(partition.accountComponent(registry.accountId(bbd.getAccountWithName("savings"))) == main);
+		assertTrue(partition.debtComponent(registry.debtId(bbd.getDebtWithName("compound"))) == main);
+		assertTrue(partition.debtComponent(registry.debtId(bbd.getDebtWithName("side card"))) == side);
+		assertTrue(partition.componentSize(side) == 2 && partition.componentSize(jar) == 1);
+		assertTrue(partition.componentSize(main) == 7);
+
+		//A debt without a payment is a component of its own
+		int owed = partition.debtComponent(registry.debtId(bbd.getDebtWithName("owed")));
+		assertTrue(owed == 3 && partition.componentSize(owed) == 1);
+	}
+
+	@Test
+	public void matchesWholeTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+		Calendar endCal = new GregorianCalendar(2018, Calendar.JUNE, 20);
+		BadBudgetData bbd = ModelFixture.buildModel(startCal);
+		addSideHousehold(bbd, startCal);
+		int lastDay = Prediction.numDaysBetween(startCal.getTime(), endCal.getTime());
+		PredictionSeries whole = PredictionSeries.record(PredictionKernel.compile(bbd, startCal.getTime(), false), lastDay);
+
+		FlowPartition partition = FlowPartition.partition(bbd);
+		ForkJoinPool pool = new ForkJoinPool(3);
+		PredictionSeries parallel = partition.record(startCal.getTime(), endCal.getTime(), pool);
+		PredictionSeries sequential = partition.record(startCal.getTime(), endCal.getTime(), null);
+		pool.shutdown();
+
+		assertTrue(parallel.numDays() == whole.numDays());
+		assertTrue(Arrays.equals(parallel.accountValues(), whole.accountValues()));
+		assertTrue(Arrays.equals(parallel.debtValues(), whole.debtValues()));
+		assertTrue(Arrays.equals(sequential.accountValues(), whole.accountValues()));
+		assertTrue(Arrays.equals(sequential.debtValues(), whole.debtValues()));
+	}
+
+	@Test
+	public void generatedTest() throws BadBudgetInvalidValueException {
+
+		Date start = new GregorianCalendar(2017, Calendar.MAY, 10).getTime();
+		Date end = new GregorianCalendar(2019, Calendar.MAY, 10).getTime();
+		BadBudgetData bbd = new PortfolioGenerator(PortfolioProfile.LARGE, 11, start).generate(0);
+		int lastDay = Prediction.numDaysBetween(start, end);
+		PredictionSeries whole = PredictionSeries.record(PredictionKernel.compile(bbd, start, false), lastDay);
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		PredictionSeries parallel = FlowPartition.partition(bbd).record(start, end, pool);
+		pool.shutdown();
+		assertTrue(Arrays.equals(parallel.accountValues(), whole.accountValues()));
+		assertTrue(Arrays.equals(parallel.debtValues(), whole.debtValues()));
+	}
+
+	@Test
+	public void sourceNotInDataTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+		BadBudgetData bbd = new BadBudgetData();
+		Account stranger = new Account("stranger", 10, false);
+		bbd.addAccount(new Account("checking", 10, false));
+		bbd.addLoss(new MoneyLoss("rent", 5, Frequency.monthly, startCal.getTime(), null, stranger));
+		try
+		{
+			FlowPartition.partition(bbd);
+			fail();
+		}
+		catch (BadBudgetInvalidValueException e)
+		{
+			assertTrue(e.getMessage().equals(BadBudgetInvalidValueException.KERNEL_SOURCE_NOT_IN_DATA));
+		}
+	}
+}
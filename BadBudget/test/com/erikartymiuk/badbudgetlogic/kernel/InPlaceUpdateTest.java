@@ -0,0 +1,89 @@
+package com.erikartymiuk.badbudgetlogic.kernel;
+
+import static org.junit.Assert.*;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+
+import org.junit.Test;
+
+import com.erikartymiuk.badbudgetlogic.main.*;
+import com.erikartymiuk.badbudgetlogic.synthetic.PortfolioGenerator;
+import com.erikartymiuk.badbudgetlogic.synthetic.PortfolioProfile;
+
+public class InPlaceUpdateTest {
+
+	/**
+	 * Updates one copy of the bbd with Prediction.update and another with InPlaceUpdate and checks
+	 * that every value, next date, goal, and budget item amount came out the same.
+	 */
+	private void assertSameUpdate(BadBudgetData expected, BadBudgetData actual, Date start, Date end)
+			throws BadBudgetInvalidValueException
+	{
+		Prediction.update(expected, start, end);
+		InPlaceUpdate.update(actual, start, end);
+		assertTrue(BadBudgetSnapshot.write(expected).equals(BadBudgetSnapshot.write(actual)));
+	}
+
+	@Test
+	public void matchesUpdateTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 7);
+		int[] days = {0, 1, 6, 30, 200, 800};
+
+		for (int autoReset = 0; autoReset < 2; autoReset++)
+		{
+			for (int numDays : days)
+			{
+				Calendar endCal = (Calendar) startCal.clone();
+				endCal.add(Calendar.DAY_OF_YEAR, numDays);
+
+				BadBudgetData expected = ModelFixture.buildModel(startCal);
+				BadBudgetData actual = ModelFixture.buildModel(startCal);
+				expected.getBudget().setAutoReset(autoReset == 1);
+				actual.getBudget().setAutoReset(autoReset == 1);
+
+				assertSameUpdate(expected, actual, startCal.getTime(), endCal.getTime());
+			}
+		}
+	}
+
+	@Test
+	public void generatedPortfolioTest() throws BadBudgetInvalidValueException {
+
+		Date start = new GregorianCalendar(2018, Calendar.JANUARY, 1).getTime();
+		Date end = new GregorianCalendar(2019, Calendar.MARCH, 15).getTime();
+		PortfolioGenerator generator = new PortfolioGenerator(PortfolioProfile.TYPICAL, 11, start);
+
+		for (int i = 0; i < 10; i++)
+		{
+			BadBudgetData expected = generator.generate(i);
+			BadBudgetData actual = generator.generate(i);
+			expected.getBudget().setAutoReset(i % 2 == 0);
+			actual.getBudget().setAutoReset(i % 2 == 0);
+
+			assertSameUpdate(expected, actual, start, end);
+		}
+	}
+
+	@Test
+	public void repeatedUpdateTest() throws BadBudgetInvalidValueException {
+
+		//Rolling forward a month at a time should stay in step with the row engine
+		Calendar cal = new GregorianCalendar(2017, Calendar.MAY, 7);
+		BadBudgetData expected = ModelFixture.buildModel(cal);
+		BadBudgetData actual = ModelFixture.buildModel(cal);
+		expected.getBudget().setAutoReset(true);
+		actual.getBudget().setAutoReset(true);
+
+		for (int i = 0; i < 12; i++)
+		{
+			Date start = cal.getTime();
+			cal.add(Calendar.MONTH, 1);
+			Date end = cal.getTime();
+			cal.add(Calendar.DAY_OF_YEAR, 1);
+			assertSameUpdate(expected, actual, start, end);
+		}
+	}
+}
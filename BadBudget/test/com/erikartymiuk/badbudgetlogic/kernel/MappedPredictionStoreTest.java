@@ -0,0 +1,121 @@
+package com.erikartymiuk.badbudgetlogic.kernel;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+
+import org.junit.Test;
+
+import com.erikartymiuk.badbudgetlogic.main.*;
+import com.erikartymiuk.badbudgetlogic.predictdataclasses.*;
+
+public class MappedPredictionStoreTest {
+
+	private static boolean sameDay(Date date1, Date date2)
+	{
+		if (date1 == null || date2 == null)
+		{
+			return date1 == date2;
+		}
+		return Prediction.datesEqualUpToDay(date1, date2);
+	}
+
+	/**
+	 * Checks every stored row against the rows Prediction.predict left on the bbd's entities.
+	 */
+	private static void checkAgainstPredict(MappedPredictionStore store, BadBudgetData bbd, int lastDay)
+	{
+		EntityRegistry registry = bbd.getRegistry();
+		assertTrue(store.numDays() == lastDay + 1);
+		for (int day = 0; day <= lastDay; day++)
+		{
+			for (int i = 0; i < registry.accounts().length; i++)
+			{
+				PredictDataAccount expected = registry.accounts()[i].getPredictData(day);
+				PredictDataAccount actual = store.getAccountPredictData(i, day);
+				assertTrue(actual.value() == expected.value());
+				assertTrue(sameDay(actual.date(), expected.date()));
+				if (expected instanceof PredictDataSavingsAccount)
+				{
+					PredictDataSavingsAccount expectedSavings = (PredictDataSavingsAccount) expected;
+					PredictDataSavingsAccount actualSavings = (PredictDataSavingsAccount) actual;
+					assertTrue(actualSavings.getAccumulatedInterest() == expectedSavings.getAccumulatedInterest());
+					assertTrue(sameDay(actualSavings.getNextContributionDate(), expectedSavings.getNextContributionDate()));
+					assertTrue(sameDay(actualSavings.getNextInterestAccumulationDate(), expectedSavings.getNextInterestAccumulationDate()));
+					assertTrue(actualSavings.isValueChangedByTransfer() == expectedSavings.isValueChangedByTransfer());
+				}
+			}
+			for (int i = 0; i < registry.debts().length; i++)
+			{
+				PredictDataMoneyOwed expected = registry.debts()[i].getPredictData(day);
+				PredictDataMoneyOwed actual = store.getDebtPredictData(i, day);
+				assertTrue(actual.value() == expected.value());
+				assertTrue(actual.getAccumulatedInterest() == expected.getAccumulatedInterest());
+				assertTrue(sameDay(actual.getNextPaymentDate(), expected.getNextPaymentDate()));
+				assertTrue(sameDay(actual.getNextInterestAccumulationDate(), expected.getNextInterestAccumulationDate()));
+				if (expected instanceof PredictDataLoan)
+				{
+					assertTrue(((PredictDataLoan) actual).getPrincipal() == ((PredictDataLoan) expected).getPrincipal());
+					assertTrue(((PredictDataLoan) actual).getInterest() == ((PredictDataLoan) expected).getInterest());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void writeAndReopenTest() throws BadBudgetInvalidValueException, IOException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+		Calendar endCal = new GregorianCalendar(2018, Calendar.JUNE, 20);
+		BadBudgetData bbd = ModelFixture.buildModel(startCal);
+		int lastDay = Prediction.numDaysBetween(startCal.getTime(), endCal.getTime());
+
+		Path file = Files.createTempFile("prediction", ".bbstore");
+		try
+		{
+			//Small chunks so that the days span several mappings
+			PredictionKernel kernel = PredictionKernel.compile(bbd, startCal.getTime(), false);
+			MappedPredictionStore store = MappedPredictionStore.create(file, kernel, lastDay, 10000);
+			kernel.advanceTo(lastDay, store);
+			store.close();
+
+			Prediction.predict(bbd, startCal.getTime(), endCal.getTime());
+
+			MappedPredictionStore reopened = MappedPredictionStore.open(file);
+			assertTrue(reopened.numAccounts() == 3 && reopened.numDebts() == 5);
+			assertTrue(reopened.accountName(0).equals("checking") && reopened.debtName(1).equals("simple"));
+			assertTrue(sameDay(reopened.getStartDate(), startCal.getTime()));
+			checkAgainstPredict(reopened, bbd, lastDay);
+			reopened.close();
+		}
+		finally
+		{
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void notAStoreTest() throws IOException {
+
+		Path file = Files.createTempFile("prediction", ".bbstore");
+		try
+		{
+			Files.write(file, new byte[128]);
+			MappedPredictionStore.open(file);
+			fail();
+		}
+		catch (BadBudgetInvalidValueException e)
+		{
+			assertTrue(e.getMessage().equals(BadBudgetInvalidValueException.SNAPSHOT_NOT_A_SNAPSHOT));
+		}
+		finally
+		{
+			Files.delete(file);
+		}
+	}
+}
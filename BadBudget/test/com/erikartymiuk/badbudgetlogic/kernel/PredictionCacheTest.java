@@ -0,0 +1,268 @@
+package com.erikartymiuk.badbudgetlogic.kernel;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import com.erikartymiuk.badbudgetlogic.main.*;
+import com.erikartymiuk.badbudgetlogic.synthetic.PortfolioGenerator;
+import com.erikartymiuk.badbudgetlogic.synthetic.PortfolioProfile;
+
+public class PredictionCacheTest {
+
+	@Test
+	public void hitSliceAndMissTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+		Calendar longCal = new GregorianCalendar(2018, Calendar.MAY, 10);
+		Calendar shortCal = new GregorianCalendar(2017, Calendar.AUGUST, 10);
+		BadBudgetData bbd = ModelFixture.buildModel(startCal);
+
+		PredictionCache cache = new PredictionCache(1 << 20);
+
+		PredictionSeries first = cache.get(bbd, startCal.getTime(), longCal.getTime());
+		assertTrue(cache.missCount() == 1 && cache.hitCount() == 0);
+		assertTrue(cache.bytesHeld() == first.estimatedBytes());
+
+		//Unchanged model, same horizon
+		assertTrue(cache.get(bbd, startCal.getTime(), longCal.getTime()) == first);
+		assertTrue(cache.hitCount() == 1);
+
+		//A shorter horizon is sliced from the cached one
+		PredictionSeries sliced = cache.get(bbd, startCal.getTime(), shortCal.getTime());
+		PredictionSeries direct = PredictionSeries.predict(bbd, startCal.getTime(), shortCal.getTime());
+		assertTrue(cache.sliceCount() == 1 && cache.hitCount() == 2);
+		assertTrue(sliced.numDays() == direct.numDays());
+		for (int i = 0; i < direct.accountValues().length; i++)
+		{
+			assertTrue(sliced.accountValues()[i] == direct.accountValues()[i]);
+		}
+		for (int i = 0; i < direct.debtValues().length; i++)
+		{
+			assertTrue(sliced.debtValues()[i] == direct.debtValues()[i]);
+		}
+
+		//Changing the model misses
+		bbd.getAccountWithName("checking").setValue(1);
+		cache.get(bbd, startCal.getTime(), shortCal.getTime());
+		assertTrue(cache.missCount() == 2 && cache.size() == 2);
+		assertTrue(cache.hitRate() == 0.5);
+	}
+
+	@Test
+	public void sameDayTest() throws BadBudgetInvalidValueException {
+
+		Calendar morningCal = new GregorianCalendar(2017, Calendar.MAY, 10, 9, 0);
+		Calendar eveningCal = new GregorianCalendar(2017, Calendar.MAY, 10, 17, 30);
+		Calendar nextDayCal = new GregorianCalendar(2017, Calendar.MAY, 11, 9, 0);
+		Calendar targetCal = new GregorianCalendar(2018, Calendar.MAY, 10);
+		BadBudgetData bbd = ModelFixture.buildModel(new GregorianCalendar(2017, Calendar.MAY, 10));
+
+		PredictionCache cache = new PredictionCache(1 << 20);
+
+		//A later time on the same day is a hit
+		PredictionSeries first = cache.get(bbd, morningCal.getTime(), targetCal.getTime());
+		assertTrue(cache.get(bbd, eveningCal.getTime(), targetCal.getTime()) == first);
+		assertTrue(cache.missCount() == 1 && cache.hitCount() == 1 && cache.size() == 1);
+
+		//The next day isn't
+		cache.get(bbd, nextDayCal.getTime(), targetCal.getTime());
+		assertTrue(cache.missCount() == 2 && cache.size() == 2);
+	}
+
+	@Test
+	public void evictionTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+		Calendar endCal = new GregorianCalendar(2017, Calendar.JUNE, 10);
+		BadBudgetData bbd = ModelFixture.buildModel(startCal);
+		long seriesBytes = PredictionSeries.predict(bbd, startCal.getTime(), endCal.getTime()).estimatedBytes();
+
+		//Room for two series
+		PredictionCache cache = new PredictionCache(2 * seriesBytes);
+		Account checking = bbd.getAccountWithName("checking");
+
+		checking.setValue(1);
+		cache.get(bbd, startCal.getTime(), endCal.getTime());
+		checking.setValue(2);
+		cache.get(bbd, startCal.getTime(), endCal.getTime());
+
+		//Use the first so that the second is least recently used
+		checking.setValue(1);
+		cache.get(bbd, startCal.getTime(), endCal.getTime());
+		assertTrue(cache.hitCount() == 1);
+
+		checking.setValue(3);
+		cache.get(bbd, startCal.getTime(), endCal.getTime());
+		assertTrue(cache.evictionCount() == 1 && cache.size() == 2);
+		assertTrue(cache.bytesHeld() == 2 * seriesBytes);
+
+		checking.setValue(1);
+		cache.get(bbd, startCal.getTime(), endCal.getTime());
+		checking.setValue(2);
+		cache.get(bbd, startCal.getTime(), endCal.getTime());
+		assertTrue(cache.hitCount() == 2 && cache.missCount() == 4);
+	}
+
+	@Test
+	public void coalesceTest() throws Exception {
+
+		final Date start = new GregorianCalendar(2017, Calendar.MAY, 10).getTime();
+		final Date longTarget = new GregorianCalendar(2022, Calendar.MAY, 10).getTime();
+		final Date shortTarget = new GregorianCalendar(2018, Calendar.MAY, 10).getTime();
+		final PortfolioGenerator generator = new PortfolioGenerator(PortfolioProfile.LARGE, 5, start);
+		//Nothing is kept so every request has to predict or coalesce
+		final PredictionCache cache = new PredictionCache(0);
+		final PredictionSeries[] results = new PredictionSeries[5];
+
+		Thread leader = new Thread()
+		{
+			public void run()
+			{
+				try
+				{
+					results[0] = cache.get(generator.generate(0), start, longTarget);
+				}
+				catch (BadBudgetInvalidValueException e)
+				{
+				}
+			}
+		};
+		leader.start();
+		while (cache.inFlightCount() == 0)
+		{
+			Thread.sleep(1);
+		}
+
+		//The same horizon and shorter ones attach to the prediction in flight
+		Thread[] followers = new Thread[4];
+		for (int i = 0; i < followers.length; i++)
+		{
+			final int index = i + 1;
+			final Date target;
+			if (index % 2 == 0)
+			{
+				target = longTarget;
+			}
+			else
+			{
+				target = shortTarget;
+			}
+			followers[i] = new Thread()
+			{
+				public void run()
+				{
+					try
+					{
+						results[index] = cache.get(generator.generate(0), start, target);
+					}
+					catch (BadBudgetInvalidValueException e)
+					{
+					}
+				}
+			};
+			followers[i].start();
+		}
+		leader.join();
+		for (Thread follower : followers)
+		{
+			follower.join();
+		}
+
+		assertTrue(cache.missCount() == 1 && cache.coalescedCount() == 4);
+		assertTrue(cache.inFlightCount() == 0 && cache.size() == 0);
+		int shortDays = Prediction.numDaysBetween(start, shortTarget) + 1;
+		for (int i = 1; i < results.length; i++)
+		{
+			PredictionSeries expected;
+			if (i % 2 == 0)
+			{
+				expected = results[0];
+			}
+			else
+			{
+				expected = results[0].slice(shortDays);
+			}
+			assertTrue(results[i].numDays() == expected.numDays());
+			assertTrue(Arrays.equals(results[i].accountValues(), expected.accountValues()));
+			assertTrue(Arrays.equals(results[i].debtValues(), expected.debtValues()));
+		}
+
+		//With nothing in flight the next request predicts again
+		cache.get(generator.generate(0), start, shortTarget);
+		assertTrue(cache.missCount() == 2);
+	}
+	@Test
+	public void simultaneousMissTest() throws Exception {
+
+		Date start = new GregorianCalendar(2017, Calendar.MAY, 10).getTime();
+		Date target = new GregorianCalendar(2018, Calendar.MAY, 10).getTime();
+		PortfolioGenerator generator = new PortfolioGenerator(PortfolioProfile.LARGE, 20, start);
+
+		//Fresh keys each round, every thread requesting the key at once and only one of them may predict
+		for (int round = 0; round < 20; round++)
+		{
+			PredictionCache cache = new PredictionCache(1 << 24);
+			PredictionSeries[] results = requestAtOnce(cache, generator.generate(round), start, target, 16);
+
+			//Each miss runs a prediction, the others coalesced or (if late) hit what it cached
+			assertTrue(cache.missCount() == 1);
+			assertTrue(cache.coalescedCount() + cache.hitCount() == results.length - 1);
+			for (int i = 1; i < results.length; i++)
+			{
+				assertTrue(results[i] == results[0]);
+			}
+		}
+	}
+
+	/**
+	 * Private helper releasing threads on a latch to all request the same prediction from a cache.
+	 * @return the series each thread got
+	 */
+	private static PredictionSeries[] requestAtOnce(final PredictionCache cache, final BadBudgetData bbd, final Date start,
+			final Date target, int numThreads) throws Exception
+	{
+		final byte[] fingerprint = BadBudgetSnapshot.fingerprint(bbd);
+		final PredictionSeries[] results = new PredictionSeries[numThreads];
+		final CountDownLatch ready = new CountDownLatch(numThreads);
+		final CountDownLatch go = new CountDownLatch(1);
+
+		Thread[] threads = new Thread[numThreads];
+		for (int i = 0; i < threads.length; i++)
+		{
+			final int index = i;
+			threads[i] = new Thread()
+			{
+				public void run()
+				{
+					try
+					{
+						ready.countDown();
+						go.await();
+						results[index] = cache.get(fingerprint, bbd, start, target);
+					}
+					catch (InterruptedException e)
+					{
+					}
+					catch (BadBudgetInvalidValueException e)
+					{
+					}
+				}
+			};
+			threads[i].start();
+		}
+		ready.await();
+		go.countDown();
+		for (Thread thread : threads)
+		{
+			thread.join();
+		}
+		return results;
+	}
+}
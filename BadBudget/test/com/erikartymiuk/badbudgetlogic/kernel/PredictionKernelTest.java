@@ -0,0 +1,185 @@
+package com.erikartymiuk.badbudgetlogic.kernel;
+
+import static org.junit.Assert.*;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+import org.junit.Test;
+
+import com.erikartymiuk.badbudgetlogic.budget.Budget;
+import com.erikartymiuk.badbudgetlogic.budget.BudgetItem;
+import com.erikartymiuk.badbudgetlogic.budget.RemainAmountAction;
+import com.erikartymiuk.badbudgetlogic.main.*;
+import com.erikartymiuk.badbudgetlogic.predictdataclasses.*;
+
+public class PredictionKernelTest {
+
+	@Test
+	public void matchesPredictTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+		Calendar endCal = new GregorianCalendar(2018, Calendar.JUNE, 20);
+		BadBudgetData bbd = ModelFixture.buildModel(startCal);
+
+		PredictionKernel kernel = PredictionKernel.compile(bbd, startCal.getTime(), false);
+		kernel.advanceTo(endCal.getTime(), null);
+		Prediction.predict(bbd, startCal.getTime(), endCal.getTime());
+
+		int lastDay = Prediction.numDaysBetween(startCal.getTime(), endCal.getTime());
+		assertTrue(kernel.dayIndex() == lastDay);
+
+		EntityRegistry registry = kernel.registry();
+		for (int i = 0; i < registry.accounts().length; i++)
+		{
+			Account account = registry.accounts()[i];
+			assertTrue(kernel.accountValue(i) == account.getPredictData(lastDay).value());
+		}
+		for (int i = 0; i < registry.debts().length; i++)
+		{
+			MoneyOwed debt = registry.debts()[i];
+			assertTrue(kernel.debtValue(i) == debt.getPredictData(lastDay).value());
+			if (debt instanceof Loan)
+			{
+				PredictDataLoan pdl = ((Loan) debt).getPredictData(lastDay);
+				assertTrue(kernel.loanPrincipal(i) == pdl.getPrincipal());
+				assertTrue(kernel.loanInterest(i) == pdl.getInterest());
+			}
+		}
+
+		SavingsAccount savings = registry.savingsAccounts()[0];
+		int savingsId = registry.accountId(savings);
+		assertTrue(kernel.accountAccumulatedInterest(savingsId) == savings.getPredictData(lastDay).getAccumulatedInterest());
+
+		BudgetItem[] items = bbd.getBudget().getBudgetItemArray();
+		for (int i = 0; i < items.length; i++)
+		{
+			assertTrue(kernel.budgetItemAmount(i) == items[i].getPredictData(lastDay).getUpdatedAmount());
+		}
+	}
+
+	@Test
+	public void advanceInStepsTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+		BadBudgetData bbd = ModelFixture.buildModel(startCal);
+
+		PredictionKernel whole = PredictionKernel.compile(bbd, startCal.getTime(), false);
+		whole.advanceTo(200, null);
+
+		final int[] daysSeen = new int[1];
+		PredictionKernel steps = PredictionKernel.compile(bbd, startCal.getTime(), false);
+		DaySink counter = new DaySink() {
+			public void endOfDay(int dayIndex, PredictionKernel kernel) {
+				assertTrue(dayIndex == daysSeen[0]);
+				daysSeen[0]++;
+			}
+		};
+		steps.advanceTo(10, counter);
+		steps.advanceTo(10, counter);
+		steps.advanceTo(200, counter);
+
+		assertTrue(daysSeen[0] == 201);
+		for (int i = 0; i < whole.values().length; i++)
+		{
+			assertTrue(whole.values()[i] == steps.values()[i]);
+		}
+	}
+
+	@Test
+	public void remainActionsTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 7);
+
+		BadBudgetData bbd = new BadBudgetData();
+		Account checking = new Account("checking", 1000, false);
+		bbd.addAccount(checking);
+
+		Budget budget = new Budget(checking, true, Calendar.SUNDAY, 1);
+		BudgetItem accumulates = new BudgetItem("accumulates", 10, Frequency.weekly, startCal.getTime(), null, false, checking);
+		BudgetItem disappears = new BudgetItem("disappears", 20, Frequency.weekly, startCal.getTime(), null, false, checking);
+		BudgetItem addsBack = new BudgetItem("addsBack", 30, Frequency.weekly, startCal.getTime(), null, false, checking);
+		accumulates.setRemainAmountAction(RemainAmountAction.accumulates);
+		disappears.setRemainAmountAction(RemainAmountAction.disappear);
+		addsBack.setRemainAmountAction(RemainAmountAction.addBack);
+		budget.addBudgetItem(accumulates);
+		budget.addBudgetItem(disappears);
+		budget.addBudgetItem(addsBack);
+		bbd.setBudget(budget);
+
+		//Three weeks of losses (days 0, 7, and 14)
+		PredictionKernel kernel = PredictionKernel.compile(bbd, startCal.getTime(), true);
+		kernel.advanceTo(14, null);
+
+		assertTrue(kernel.budgetItemAmount(0) == 30);
+		assertTrue(kernel.budgetItemAmount(1) == 20);
+		assertTrue(kernel.budgetItemAmount(2) == 30);
+		assertTrue(kernel.budgetItemLossAmount(2, 14) == 30);
+		assertTrue(kernel.budgetItemLossAmount(2, 13) == -1);
+
+		//The add back item only costs its amount once, the others cost their amount each week
+		assertTrue(kernel.accountValue(0) == 1000 - 3*10 - 3*20 - 30);
+	}
+
+	@Test
+	public void sourceNotInDataTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+
+		BadBudgetData bbd = new BadBudgetData();
+		Account stranger = new Account("stranger", 0, false);
+		bbd.addLoss(new MoneyLoss("rent", 800, Frequency.monthly, startCal.getTime(), null, stranger));
+
+		try
+		{
+			PredictionKernel.compile(bbd, startCal.getTime(), false);
+			fail();
+		}
+		catch (BadBudgetInvalidValueException e)
+		{
+			assertTrue(e.getMessage().equals(BadBudgetInvalidValueException.KERNEL_SOURCE_NOT_IN_DATA));
+		}
+	}
+
+	@Test
+	public void interestAccrualTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+		Calendar endCal = new GregorianCalendar(2018, Calendar.MAY, 10);
+		BadBudgetData bbd = ModelFixture.buildModel(startCal);
+		PredictionKernel scalar = PredictionKernel.compile(bbd, startCal.getTime(), false);
+		scalar.advanceTo(endCal.getTime(), null);
+
+		//An installed accrual is used by kernels compiled after it, and the results don't change
+		final int[] calls = new int[2];
+		PredictionKernel.setInterestAccrual(new InterestAccrual()
+		{
+			public void accrueDaily(double[] values, double[] accumulatedInterest, double[] periodRates, double[] periodFactors, int from, int to)
+			{
+				calls[0]++;
+				ScalarInterestAccrual.INSTANCE.accrueDaily(values, accumulatedInterest, periodRates, periodFactors, from, to);
+			}
+
+			public void accrueMonthly(double[] values, double[] accumulatedInterest, double[] periodRates, double[] rates, int from, int to)
+			{
+				calls[1]++;
+				ScalarInterestAccrual.INSTANCE.accrueMonthly(values, accumulatedInterest, periodRates, rates, from, to);
+			}
+		});
+		try
+		{
+			PredictionKernel kernel = PredictionKernel.compile(bbd, startCal.getTime(), false);
+			kernel.advanceTo(endCal.getTime(), null);
+			assertTrue(calls[0] == kernel.dayIndex() && calls[1] == 12);
+			for (int i = 0; i < scalar.values().length; i++)
+			{
+				assertTrue(kernel.values()[i] == scalar.values()[i]);
+			}
+		}
+		finally
+		{
+			PredictionKernel.setInterestAccrual(null);
+		}
+		assertTrue(PredictionKernel.getInterestAccrual() == ScalarInterestAccrual.INSTANCE);
+	}
+}
@@ -0,0 +1,70 @@
+package com.erikartymiuk.badbudgetlogic.kernel;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+import org.junit.Test;
+
+import com.erikartymiuk.badbudgetlogic.budget.Budget;
+import com.erikartymiuk.badbudgetlogic.main.*;
+
+public class PredictionSeriesTest {
+
+	@Test
+	public void predictAndSnapshotTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+		Calendar endCal = new GregorianCalendar(2017, Calendar.SEPTEMBER, 10);
+
+		BadBudgetData bbd = new BadBudgetData();
+		Account checking = new Account("checking", 1000, false);
+		CreditCard card = new CreditCard("card", 100, false, 0.2);
+		bbd.addAccount(checking);
+		bbd.addDebt(card);
+		card.setupPayment(new Payment(50, false, Frequency.monthly, checking, startCal.getTime(), true, null, card, null));
+		bbd.addGain(new MoneyGain("job", 500, Frequency.biWeekly, startCal.getTime(), null, checking));
+		bbd.addLoss(new MoneyLoss("gym", 40, Frequency.weekly, startCal.getTime(), null, card));
+		bbd.setBudget(new Budget(checking, false, Calendar.SUNDAY, 1));
+
+		PredictionSeries series = PredictionSeries.predict(bbd, startCal.getTime(), endCal.getTime());
+		Prediction.predict(bbd, startCal.getTime(), endCal.getTime());
+
+		int lastDay = Prediction.numDaysBetween(startCal.getTime(), endCal.getTime());
+		assertTrue(series.numDays() == lastDay + 1);
+		assertTrue(series.accountName(0).equals("checking") && series.debtName(0).equals("card"));
+		for (int day = 0; day <= lastDay; day++)
+		{
+			assertTrue(series.accountValue(day, 0) == checking.getPredictData(day).value());
+			assertTrue(series.debtValue(day, 0) == card.getPredictData(day).value());
+		}
+
+		ByteBuffer snapshot = series.writeSnapshot();
+		assertTrue(snapshot.remaining() == series.snapshotSize());
+		PredictionSeries restored = PredictionSeries.readSnapshot(snapshot);
+		assertFalse(snapshot.hasRemaining());
+
+		assertTrue(restored.getStartDate().equals(series.getStartDate()));
+		assertTrue(restored.numDays() == series.numDays());
+		assertTrue(restored.accountName(0).equals("checking"));
+		for (int day = 0; day <= lastDay; day++)
+		{
+			assertTrue(restored.accountValue(day, 0) == series.accountValue(day, 0));
+			assertTrue(restored.debtValue(day, 0) == series.debtValue(day, 0));
+		}
+
+		//A series snapshot isn't a bbd snapshot
+		snapshot.rewind();
+		try
+		{
+			BadBudgetSnapshot.read(snapshot);
+			fail();
+		}
+		catch (BadBudgetInvalidValueException e)
+		{
+			assertTrue(e.getMessage().equals(BadBudgetInvalidValueException.SNAPSHOT_WRONG_KIND));
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package com.erikartymiuk.badbudgetlogic.kernel;
+
+import static org.junit.Assert.*;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+import org.junit.Test;
+
+import com.erikartymiuk.badbudgetlogic.budget.BudgetItem;
+import com.erikartymiuk.badbudgetlogic.budget.RemainAmountAction;
+import com.erikartymiuk.badbudgetlogic.main.*;
+
+public class SensitivitiesTest {
+
+	private static final int LAST_DAY = 500;
+
+	private static BadBudgetData model(Calendar startCal, boolean considerRemain) throws BadBudgetInvalidValueException
+	{
+		BadBudgetData bbd = ModelFixture.buildModel(startCal);
+		if (considerRemain)
+		{
+			BudgetItem[] items = bbd.getBudget().getBudgetItemArray();
+			items[0].setRemainAmountAction(RemainAmountAction.addBack);
+			items[1].setRemainAmountAction(RemainAmountAction.accumulates);
+			items[2].setRemainAmountAction(RemainAmountAction.disappear);
+		}
+		return bbd;
+	}
+
+	/**
+	 * Private helper adding one to the amount of the entity a parameter stands for.
+	 */
+	private static void bump(BadBudgetData bbd, Sensitivities sensitivities, int parameter)
+	{
+		EntityRegistry registry = bbd.getRegistry();
+		BudgetItem[] items = bbd.getBudget().getBudgetItemArray();
+		for (int i = 0; i < registry.losses().length; i++)
+		{
+			if (sensitivities.lossParameter(i) == parameter)
+			{
+				registry.losses()[i].setLossAmount(registry.losses()[i].lossAmount() + 1);
+			}
+		}
+		for (int i = 0; i < items.length; i++)
+		{
+			if (sensitivities.budgetItemParameter(i) == parameter)
+			{
+				items[i].setLossAmount(items[i].lossAmount() + 1);
+			}
+		}
+		for (int i = 0; i < registry.gains().length; i++)
+		{
+			if (sensitivities.gainParameter(i) == parameter)
+			{
+				registry.gains()[i].setGainAmount(registry.gains()[i].gainAmount() + 1);
+			}
+		}
+	}
+
+	//Balances are affine in the amounts away from branch changes, so a unit bump moves each balance by its sensitivity
+	@Test
+	public void matchesWhatIfTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 7);
+		for (int considerRemain = 0; considerRemain < 2; considerRemain++)
+		{
+			BadBudgetData bbd = model(startCal, considerRemain == 1);
+			PredictionKernel kernel = PredictionKernel.compile(bbd, startCal.getTime(), considerRemain == 1);
+			Sensitivities sensitivities = kernel.trackSensitivities();
+			kernel.advanceTo(LAST_DAY, null);
+
+			//2 losses, 3 budget items, and 1 gain
+			assertTrue(sensitivities.numParameters() == 6);
+
+			for (int p = 0; p < sensitivities.numParameters(); p++)
+			{
+				BadBudgetData whatIf = model(startCal, considerRemain == 1);
+				bump(whatIf, sensitivities, p);
+				PredictionKernel whatIfKernel = PredictionKernel.compile(whatIf, startCal.getTime(), considerRemain == 1);
+				whatIfKernel.advanceTo(LAST_DAY, null);
+
+				for (int a = 0; a < bbd.getRegistry().accounts().length; a++)
+				{
+					double change = whatIfKernel.accountValue(a) - kernel.accountValue(a);
+					assertEquals("account " + a + " parameter " + p, change, kernel.accountSensitivity(a, p), 0.000001);
+				}
+				for (int d = 0; d < bbd.getRegistry().debts().length; d++)
+				{
+					double change = whatIfKernel.debtValue(d) - kernel.debtValue(d);
+					assertEquals("debt " + d + " parameter " + p, change, kernel.debtSensitivity(d, p), 0.000001);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void linearCountsTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 7);
+		BadBudgetData bbd = new BadBudgetData();
+		Account checking = new Account("checking", 1000, false);
+		bbd.addAccount(checking);
+		bbd.addLoss(new MoneyLoss("rent", 800, Frequency.monthly, startCal.getTime(), null, checking));
+		bbd.addGain(new MoneyGain("job", 1200, Frequency.weekly, startCal.getTime(), null, checking));
+
+		PredictionKernel kernel = PredictionKernel.compile(bbd, startCal.getTime(), false);
+		Sensitivities sensitivities = kernel.trackSensitivities();
+		kernel.advanceTo(69, null);
+
+		//Ten weeks: rent on May 7, June 7, and July 7, pay every week
+		assertTrue(kernel.accountSensitivity(0, sensitivities.lossParameter(0)) == -3);
+		assertTrue(kernel.accountSensitivity(0, sensitivities.gainParameter(0)) == 10);
+
+		try
+		{
+			kernel.trackSensitivities();
+			fail();
+		}
+		catch (IllegalStateException e)
+		{
+		}
+	}
+}
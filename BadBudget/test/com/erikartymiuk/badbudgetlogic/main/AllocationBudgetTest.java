@@ -0,0 +1,265 @@
+package com.erikartymiuk.badbudgetlogic.main;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.erikartymiuk.badbudgetlogic.budget.Budget;
+import com.erikartymiuk.badbudgetlogic.kernel.FixedPointKernel;
+import com.erikartymiuk.badbudgetlogic.kernel.PredictionKernel;
+import com.erikartymiuk.badbudgetlogic.synthetic.PortfolioGenerator;
+import com.erikartymiuk.badbudgetlogic.synthetic.PortfolioProfile;
+
+/**
+ * Allocation budgets for the prediction engine. Each test runs part of the engine under HotSpot's per thread
+ * allocated bytes counter, reports the bytes allocated and fails if they exceed the budget. Budgets can be overridden
+ * with system properties (-Dbadbudget.allocation.<name>=bytes). The tests are skipped on JVMs without the counter.
+ */
+public class AllocationBudgetTest {
+
+	//Budgets, bytes per entity per day for the row based algorithm and bytes per event fired for the kernel. Each is
+	//about 10% over what the typical portfolio measures (about 2250 bytes per entity-day and 2750 bytes per event)
+	private static final long PREDICT_BUDGET = budget("predictPerEntityDay", 2500);
+	private static final long PREDICT_CONTINUE_BUDGET = budget("predictContinuePerEntityDay", 2500);
+	private static final long UPDATE_BUDGET = budget("updatePerEntityDay", 2500);
+	private static final long KERNEL_EVENT_BUDGET = budget("kernelPerEvent", 3000);
+	//Days without any events must stay allocation free
+	private static final long KERNEL_IDLE_BUDGET = budget("kernelIdleDays", 0);
+
+	private static final int WARMUP_RUNS = 5;
+	private static final int MEASURED_RUNS = 5;
+
+	private static com.sun.management.ThreadMXBean threadBean;
+	private static long meterOverhead;			//Bytes reading the counter allocates itself
+
+	private static long budget(String name, long defaultBytes)
+	{
+		return Long.getLong("badbudget.allocation." + name, defaultBytes);
+	}
+
+	@BeforeClass
+	public static void setUpMeter()
+	{
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean)
+		{
+			com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+			if (sunBean.isThreadAllocatedMemorySupported())
+			{
+				sunBean.setThreadAllocatedMemoryEnabled(true);
+				threadBean = sunBean;
+				meterOverhead = Long.MAX_VALUE;
+				for (int i = 0; i < 100; i++)
+				{
+					long before = allocatedBytes();
+					meterOverhead = Math.min(meterOverhead, allocatedBytes() - before);
+				}
+			}
+		}
+	}
+
+	private static long allocatedBytes()
+	{
+		return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Something to measure the allocation of. Setup is done outside of the measured run.
+	 */
+	private static abstract class Run
+	{
+		void setUp() throws BadBudgetInvalidValueException
+		{
+		}
+
+		abstract void run() throws BadBudgetInvalidValueException;
+	}
+
+	/**
+	 * Measures the bytes a run allocates, the fewest over several runs after warming up (so a run caught while being
+	 * compiled doesn't count).
+	 */
+	private static long measure(Run run) throws BadBudgetInvalidValueException
+	{
+		for (int i = 0; i < WARMUP_RUNS; i++)
+		{
+			run.setUp();
+			run.run();
+		}
+		long fewest = Long.MAX_VALUE;
+		for (int i = 0; i < MEASURED_RUNS; i++)
+		{
+			run.setUp();
+			long before = allocatedBytes();
+			run.run();
+			fewest = Math.min(fewest, allocatedBytes() - before - meterOverhead);
+		}
+		return Math.max(fewest, 0);
+	}
+
+	private static void check(String name, double measured, long budget, String unit)
+	{
+		System.out.println(String.format("allocation %s: %.1f bytes per %s (budget %d)", name, measured, unit, budget));
+		assertTrue(name + " allocated " + measured + " bytes per " + unit + ", over its budget of " + budget, measured <= budget);
+	}
+
+	private static int numEntities(BadBudgetData bbd)
+	{
+		EntityRegistry registry = bbd.getRegistry();
+		return registry.accounts().length + registry.debts().length + registry.gains().length + registry.losses().length +
+				registry.transfers().length + bbd.getBudget().getBudgetItemArray().length;
+	}
+
+	private static Date startDate()
+	{
+		return new GregorianCalendar(2017, Calendar.MAY, 10).getTime();
+	}
+
+	private static Date endDate()
+	{
+		return new GregorianCalendar(2018, Calendar.MAY, 10).getTime();
+	}
+
+	@Test
+	public void predictTest() throws BadBudgetInvalidValueException {
+
+		assumeTrue(threadBean != null);
+		final BadBudgetData bbd = new PortfolioGenerator(PortfolioProfile.TYPICAL, 7, startDate()).generate(0);
+		long bytes = measure(new Run()
+		{
+			void run()
+			{
+				Prediction.predict(bbd, startDate(), endDate());
+			}
+		});
+		int entityDays = numEntities(bbd) * (Prediction.numDaysBetween(startDate(), endDate()) + 1);
+		check("predict", bytes / (double) entityDays, PREDICT_BUDGET, "entity-day");
+	}
+
+	@Test
+	public void predictContinueTest() throws BadBudgetInvalidValueException {
+
+		assumeTrue(threadBean != null);
+		final BadBudgetData bbd = new PortfolioGenerator(PortfolioProfile.TYPICAL, 7, startDate()).generate(0);
+		final Date continueDate = new GregorianCalendar(2018, Calendar.NOVEMBER, 10).getTime();
+		long bytes = measure(new Run()
+		{
+			void setUp()
+			{
+				Prediction.predict(bbd, startDate(), endDate());
+			}
+
+			void run()
+			{
+				Prediction.predictContinue(bbd, startDate(), endDate(), continueDate);
+			}
+		});
+		int entityDays = numEntities(bbd) * Prediction.numDaysBetween(endDate(), continueDate);
+		check("predictContinue", bytes / (double) entityDays, PREDICT_CONTINUE_BUDGET, "entity-day");
+	}
+
+	@Test
+	public void updateTest() throws BadBudgetInvalidValueException {
+
+		assumeTrue(threadBean != null);
+		final PortfolioGenerator generator = new PortfolioGenerator(PortfolioProfile.TYPICAL, 7, startDate());
+		final BadBudgetData[] bbd = new BadBudgetData[1];
+		long bytes = measure(new Run()
+		{
+			void setUp() throws BadBudgetInvalidValueException
+			{
+				//Updating changes the bbd so each run updates a fresh copy
+				bbd[0] = generator.generate(0);
+			}
+
+			void run()
+			{
+				Prediction.update(bbd[0], startDate(), endDate());
+			}
+		});
+		int entityDays = numEntities(bbd[0]) * (Prediction.numDaysBetween(startDate(), endDate()) + 1);
+		check("update", bytes / (double) entityDays, UPDATE_BUDGET, "entity-day");
+	}
+
+	@Test
+	public void kernelEventTest() throws BadBudgetInvalidValueException {
+
+		assumeTrue(threadBean != null);
+		final BadBudgetData bbd = new PortfolioGenerator(PortfolioProfile.TYPICAL, 7, startDate()).generate(0);
+		final int lastDay = Prediction.numDaysBetween(startDate(), endDate());
+		final PredictionKernel[] kernel = new PredictionKernel[1];
+		long bytes = measure(new Run()
+		{
+			void setUp() throws BadBudgetInvalidValueException
+			{
+				kernel[0] = PredictionKernel.compile(bbd, startDate(), false);
+				kernel[0].advanceTo(0, null);
+			}
+
+			void run()
+			{
+				kernel[0].advanceTo(lastDay, null);
+			}
+		});
+
+		//The events the kernel fires that pick a next date (everything other than interest)
+		PredictionTimings timings = new PredictionTimings();
+		Prediction.predict(bbd, startDate(), endDate(), timings);
+		long events = timings.totalEvents() - timings.events(PredictionPhase.debtInterest) - timings.events(PredictionPhase.savingsInterest);
+		assertTrue(events > 0);
+		check("kernel", bytes / (double) events, KERNEL_EVENT_BUDGET, "event");
+	}
+
+	@Test
+	public void kernelIdleTest() throws BadBudgetInvalidValueException {
+
+		assumeTrue(threadBean != null);
+		//Only interest, no scheduled events and no savings interest before June 1st
+		final BadBudgetData bbd = new BadBudgetData();
+		Account checking = new Account("checking", 5000, true);
+		bbd.addAccount(checking);
+		bbd.addDebt(new CreditCard("card", 400, false, 0.2));
+		bbd.addDebt(new Loan("loan", 2000, true, 0.05, true, 1800));
+		bbd.addDebt(new Loan("mortgage", 9000, true, 0.04, false, 9000));
+		bbd.setBudget(new Budget(checking, false, Calendar.SUNDAY, 1));
+		final int lastDay = 20;
+		final PredictionKernel[] kernel = new PredictionKernel[1];
+		long bytes = measure(new Run()
+		{
+			void setUp() throws BadBudgetInvalidValueException
+			{
+				kernel[0] = PredictionKernel.compile(bbd, startDate(), false);
+				kernel[0].advanceTo(0, null);
+			}
+
+			void run()
+			{
+				kernel[0].advanceTo(lastDay, null);
+			}
+		});
+		check("kernel idle days", bytes, KERNEL_IDLE_BUDGET, lastDay + " days");
+
+		final FixedPointKernel[] fixed = new FixedPointKernel[1];
+		bytes = measure(new Run()
+		{
+			void setUp() throws BadBudgetInvalidValueException
+			{
+				fixed[0] = FixedPointKernel.compile(bbd, startDate(), false);
+				fixed[0].advanceTo(0);
+			}
+
+			void run()
+			{
+				fixed[0].advanceTo(lastDay);
+			}
+		});
+		check("fixed point kernel idle days", bytes, KERNEL_IDLE_BUDGET, lastDay + " days");
+	}
+}
@@ -0,0 +1,139 @@
+package com.erikartymiuk.badbudgetlogic.main;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+import org.junit.Test;
+
+import com.erikartymiuk.badbudgetlogic.budget.BudgetItem;
+import com.erikartymiuk.badbudgetlogic.budget.RemainAmountAction;
+
+public class BadBudgetSnapshotTest {
+
+	@Test
+	public void roundTripTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+		BadBudgetData bbd = ModelFixture.buildModel(startCal);
+
+		//A savings account whose source is added after it
+		Account checking = bbd.getAccountWithName("checking");
+		SavingsAccount vacation = new SavingsAccount("vacation", 50, false, false, -1, null,
+				new Contribution(10, Frequency.monthly), checking, startCal.getTime(), null, true, 0);
+		SavingsAccount rainyDay = new SavingsAccount("rainy day", 200, false, false, -1, null,
+				new Contribution(25, Frequency.weekly), checking, startCal.getTime(), null, true, 0.01);
+		bbd.addAccount(vacation);
+		bbd.addAccount(rainyDay);
+		vacation.updateSourceAccount(rainyDay);
+
+		BudgetItem groceries = bbd.getBudget().retrieveBudgetItem("groceries");
+		groceries.setCurrAmount(12.5);
+		groceries.setRemainAmountAction(RemainAmountAction.addBack);
+
+		ByteBuffer snapshot = BadBudgetSnapshot.write(bbd);
+		assertTrue(snapshot.remaining() == BadBudgetSnapshot.sizeOf(bbd));
+
+		BadBudgetData restored = BadBudgetSnapshot.read(snapshot);
+		assertFalse(snapshot.hasRemaining());
+
+		//Writing the restored bbd gives back the same bytes
+		snapshot.rewind();
+		assertTrue(BadBudgetSnapshot.write(restored).equals(snapshot));
+
+		EntityRegistry registry = restored.getRegistry();
+		assertTrue(registry.accounts()[3].name().equals("vacation"));
+		SavingsAccount restoredVacation = (SavingsAccount) registry.accounts()[3];
+		assertTrue(restoredVacation.sourceAccount() == registry.accounts()[4]);
+		assertTrue(restoredVacation.contribution().getContribution() == 10);
+
+		Loan loan = (Loan) registry.debts()[1];
+		assertTrue(loan.getPrincipalBalance() == 1800 && loan.getInterestAmount() == 200);
+		assertTrue(loan.payment().getDebt() == loan);
+		assertTrue(loan.payment().sourceAccount() == restored.getAccountWithName("checking"));
+
+		assertTrue(restored.getLossWithDescription("gym").source() == restored.getDebtWithName("card"));
+		BudgetItem restoredGroceries = restored.getBudget().retrieveBudgetItem("groceries");
+		assertTrue(restoredGroceries.getCurrAmount() == 12.5);
+		assertTrue(restoredGroceries.remainAmountAction() == RemainAmountAction.addBack);
+		assertTrue(restored.getBudget().getBudgetSource() == restored.getDebtWithName("card"));
+
+		//The restored bbd predicts the same values
+		Calendar endCal = new GregorianCalendar(2018, Calendar.MAY, 10);
+		Prediction.predict(bbd, startCal.getTime(), endCal.getTime());
+		Prediction.predict(restored, startCal.getTime(), endCal.getTime());
+		int lastDay = Prediction.numDaysBetween(startCal.getTime(), endCal.getTime());
+		for (int i = 0; i < registry.accounts().length; i++)
+		{
+			assertTrue(registry.accounts()[i].getPredictData(lastDay).value() == bbd.getRegistry().accounts()[i].getPredictData(lastDay).value());
+		}
+		for (int i = 0; i < registry.debts().length; i++)
+		{
+			assertTrue(registry.debts()[i].getPredictData(lastDay).value() == bbd.getRegistry().debts()[i].getPredictData(lastDay).value());
+		}
+	}
+
+	@Test
+	public void unverifiedStateTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+		Calendar goalCal = new GregorianCalendar(2017, Calendar.JUNE, 10);
+
+		BadBudgetData bbd = new BadBudgetData();
+		Account checking = new Account("checking", 5000, false);
+		SavingsAccount goal = new SavingsAccount("goal", 0, false, true, 100, goalCal.getTime(),
+				new Contribution(25, Frequency.weekly), checking, startCal.getTime(), goalCal.getTime(), false, 0);
+		bbd.addAccount(checking);
+		bbd.addAccount(goal);
+
+		//Contributions have moved past the goal date without reaching the goal, the constructor wouldn't accept this
+		goal.changeNextContribution(new GregorianCalendar(2017, Calendar.JULY, 1).getTime());
+
+		BadBudgetData restored = BadBudgetSnapshot.read(BadBudgetSnapshot.write(bbd));
+		SavingsAccount restoredGoal = (SavingsAccount) restored.getAccountWithName("goal");
+		assertTrue(restoredGoal.goalSet() && restoredGoal.goal() == 100);
+		assertTrue(Prediction.datesEqualUpToDay(restoredGoal.nextContribution(), goal.nextContribution()));
+	}
+
+	@Test
+	public void invalidSnapshotTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+		ByteBuffer snapshot = BadBudgetSnapshot.write(ModelFixture.buildModel(startCal));
+
+		//Cut short
+		ByteBuffer truncated = snapshot.duplicate();
+		truncated.limit(truncated.limit() / 2);
+		assertTrue(readError(truncated).equals(BadBudgetInvalidValueException.SNAPSHOT_CORRUPT));
+
+		//Not a snapshot
+		ByteBuffer garbage = ByteBuffer.allocate(64);
+		assertTrue(readError(garbage).equals(BadBudgetInvalidValueException.SNAPSHOT_NOT_A_SNAPSHOT));
+
+		//Another version
+		ByteBuffer otherVersion = snapshot.duplicate();
+		otherVersion.putShort(4, (short) (BadBudgetSnapshot.VERSION + 1));
+		assertTrue(readError(otherVersion).equals(BadBudgetInvalidValueException.SNAPSHOT_UNSUPPORTED_VERSION));
+
+		//Another kind (duplicates share their bytes so put the version back first)
+		ByteBuffer otherKind = snapshot.duplicate();
+		otherKind.putShort(4, BadBudgetSnapshot.VERSION);
+		otherKind.put(6, BadBudgetSnapshot.KIND_SERIES);
+		assertTrue(readError(otherKind).equals(BadBudgetInvalidValueException.SNAPSHOT_WRONG_KIND));
+	}
+
+	private static String readError(ByteBuffer buffer)
+	{
+		try
+		{
+			BadBudgetSnapshot.read(buffer);
+			return null;
+		}
+		catch (BadBudgetInvalidValueException e)
+		{
+			return e.getMessage();
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package com.erikartymiuk.badbudgetlogic.main;
+
+import static org.junit.Assert.*;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+import org.junit.Test;
+
+import com.erikartymiuk.badbudgetlogic.budget.Budget;
+import com.erikartymiuk.badbudgetlogic.budget.BudgetItem;
+
+public class ContentHashTest {
+
+	@Test
+	public void rollUpTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+		BadBudgetData bbd = ModelFixture.buildModel(startCal);
+		BadBudgetData same = ModelFixture.buildModel(startCal);
+		assertTrue(bbd.contentHash() == same.contentHash());
+		bbd.clearChangedEntities();
+
+		long modelHash = bbd.contentHash();
+		long debtsHash = bbd.debtsHash();
+
+		//A setter changes the account, its collection and the model, nothing else
+		Account checking = bbd.getAccountWithName("checking");
+		checking.setValue(4000);
+		assertTrue(bbd.contentHash() != modelHash);
+		assertTrue(bbd.accountsHash() != same.accountsHash());
+		assertTrue(bbd.debtsHash() == debtsHash && bbd.lossesHash() == same.lossesHash());
+		assertTrue(bbd.changedEntities().size() == 1 && bbd.changedEntities().contains(checking));
+
+		//Changing it back gives back the same hashes
+		checking.setValue(5000);
+		assertTrue(bbd.contentHash() == modelHash);
+
+		//Owned entities roll up through their owner
+		bbd.getDebtWithName("simple").payment().updateAmount(150);
+		assertTrue(bbd.debtsHash() != debtsHash);
+		assertTrue(bbd.changedEntities().contains(bbd.getDebtWithName("simple")));
+
+		long contributionAccounts = bbd.accountsHash();
+		((SavingsAccount) bbd.getAccountWithName("savings")).contribution().setContributionAmount(30);
+		assertTrue(bbd.accountsHash() != contributionAccounts);
+
+		long budgetHash = bbd.budgetHash();
+		bbd.getBudget().retrieveBudgetItem("groceries").setCurrAmount(12);
+		assertTrue(bbd.budgetHash() != budgetHash);
+		bbd.getBudget().setMonthlyReset(15);
+		assertTrue(bbd.changedEntities().contains(bbd.getBudget()));
+
+		bbd.getLossWithDescription("rent").setLossAmount(900);
+		assertTrue(bbd.lossesHash() != same.lossesHash());
+		assertTrue(bbd.changedEntities().size() == 5);
+	}
+
+	@Test
+	public void addDeleteTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+		BadBudgetData bbd = ModelFixture.buildModel(startCal);
+		long modelHash = bbd.contentHash();
+		long gainsHash = bbd.gainsHash();
+		bbd.clearChangedEntities();
+
+		MoneyGain bonus = new MoneyGain("bonus", 500, Frequency.yearly, new GregorianCalendar(2017, Calendar.DECEMBER, 1).getTime(),
+				null, bbd.getAccountWithName("checking"));
+		bbd.addGain(bonus);
+		assertTrue(bbd.gainsHash() != gainsHash);
+
+		//A deleted entity no longer changes the bbd
+		assertTrue(bbd.deleteGainWithDescription("bonus"));
+		assertTrue(bbd.gainsHash() == gainsHash && bbd.contentHash() == modelHash);
+		bonus.setGainAmount(600);
+		assertTrue(bbd.contentHash() == modelHash);
+		assertTrue(bbd.changedEntities().contains(bonus));
+
+		//Replacing an item with an equal one leaves the hash alone
+		bbd.clearChangedEntities();
+		bbd.addLoss(new MoneyLoss("rent", 800, Frequency.monthly, startCal.getTime(), null, bbd.getAccountWithName("checking")));
+		assertTrue(bbd.contentHash() == modelHash);
+		assertTrue(bbd.changedEntities().size() == 2);
+	}
+
+	@Test
+	public void replaceBudgetItemTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+		BadBudgetData bbd = ModelFixture.buildModel(startCal);
+		long budgetHash = bbd.budgetHash();
+		Budget budget = bbd.getBudget();
+
+		//Removing an item and adding another keeps the number of items, the hash still sees the swap
+		BudgetItem groceries = budget.retrieveBudgetItem("groceries");
+		assertTrue(budget.deleteBudgetItem("groceries"));
+		budget.addBudgetItem(new BudgetItem("gas", 60, Frequency.weekly, startCal.getTime(), null, false,
+				(Source) bbd.getDebtWithName("card")));
+		BudgetItem[] items = budget.getBudgetItemArray();
+		assertTrue(items.length == 3 && items[2].getDescription().equals("gas"));
+		assertTrue(bbd.budgetHash() != budgetHash);
+
+		BadBudgetData rebuilt = BadBudgetSnapshot.read(BadBudgetSnapshot.write(bbd));
+		assertTrue(bbd.budgetHash() == rebuilt.budgetHash());
+		assertTrue(bbd.contentHash() == rebuilt.contentHash());
+
+		//The removed item no longer changes the budget
+		long replacedHash = bbd.budgetHash();
+		groceries.setCurrAmount(5);
+		assertTrue(bbd.budgetHash() == replacedHash);
+	}
+
+	@Test
+	public void renameTest() throws BadBudgetInvalidValueException {
+
+		BadBudgetData bbd = ModelFixture.buildModel(new GregorianCalendar(2017, Calendar.MAY, 10));
+		bbd.clearChangedEntities();
+
+		//Everything referring to a renamed source is rehashed, matching the model built with the new names
+		//The name maps aren't rekeyed by a rename so look up what's needed first
+		MoneyOwed card = bbd.getDebtWithName("card");
+		Account savings = bbd.getAccountWithName("savings");
+		bbd.getAccountWithName("checking").setName("spending");
+		card.changeName("visa");
+		BadBudgetData rebuilt = BadBudgetSnapshot.read(BadBudgetSnapshot.write(bbd));
+		assertTrue(bbd.accountsHash() == rebuilt.accountsHash());
+		assertTrue(bbd.debtsHash() == rebuilt.debtsHash());
+		assertTrue(bbd.gainsHash() == rebuilt.gainsHash());
+		assertTrue(bbd.lossesHash() == rebuilt.lossesHash());
+		assertTrue(bbd.transfersHash() == rebuilt.transfersHash());
+		assertTrue(bbd.budgetHash() == rebuilt.budgetHash());
+		assertTrue(bbd.contentHash() == rebuilt.contentHash());
+
+		//Checking, savings (its contribution), card, simple and flat (their payments), job, rent, gym, move and the budget
+		assertTrue(bbd.changedEntities().size() == 10);
+		assertTrue(bbd.changedEntities().contains(bbd.getLossWithDescription("rent")));
+		assertTrue(bbd.changedEntities().contains(bbd.getBudget()));
+
+		//The budget hashes its own source as well as its items' sources (moved off it here)
+		bbd.getBudget().setBudgetSource(savings);
+		for (BudgetItem item : bbd.getBudget().getBudgetItemArray())
+		{
+			item.setSource((Source) card);
+		}
+		bbd.clearChangedEntities();
+		savings.setName("rainy day");
+		rebuilt = BadBudgetSnapshot.read(BadBudgetSnapshot.write(bbd));
+		assertTrue(bbd.budgetHash() == rebuilt.budgetHash());
+		assertTrue(bbd.contentHash() == rebuilt.contentHash());
+		assertTrue(bbd.changedEntities().contains(bbd.getBudget()));
+	}
+}
@@ -0,0 +1,87 @@
+package com.erikartymiuk.badbudgetlogic.main;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.erikartymiuk.badbudgetlogic.budget.Budget;
+
+public class EngineListenerTest {
+
+	private static class RecordingListener implements EngineListener
+	{
+		List<PredictionCall> predictions = new ArrayList<PredictionCall>();
+		List<SolverCall> solvers = new ArrayList<SolverCall>();
+
+		public void predictionCompleted(PredictionCall call)
+		{
+			this.predictions.add(call);
+		}
+
+		public void solverCompleted(SolverCall call)
+		{
+			this.solvers.add(call);
+		}
+	}
+
+	@Test
+	public void listenerTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+		Calendar endCal = new GregorianCalendar(2017, Calendar.JUNE, 10);
+		Calendar nextCal = new GregorianCalendar(2017, Calendar.JULY, 10);
+
+		BadBudgetData bbd = new BadBudgetData();
+		Account checking = new Account("checking", 5000, true);
+		bbd.addAccount(checking);
+		bbd.addGain(new MoneyGain("job", 1200, Frequency.monthly, startCal.getTime(), null, checking));
+		bbd.addLoss(new MoneyLoss("rent", 800, Frequency.monthly, startCal.getTime(), null, checking));
+		bbd.setBudget(new Budget(checking, false, Calendar.SUNDAY, 1));
+
+		RecordingListener listener = new RecordingListener();
+		PredictionTimings timings = new PredictionTimings();
+		Prediction.setEngineListener(listener);
+		try
+		{
+			Prediction.predict(bbd, startCal.getTime(), endCal.getTime(), timings);
+			Prediction.predictContinue(bbd, startCal.getTime(), endCal.getTime(), nextCal.getTime());
+			Prediction.findGoalDateCompoundInterest(startCal.getTime(), 0, 100, Frequency.monthly, 1000, 0.1, null);
+			Prediction.update(bbd, startCal.getTime(), endCal.getTime());
+		}
+		finally
+		{
+			Prediction.setEngineListener(null);
+		}
+
+		assertTrue(listener.predictions.size() == 3);
+		PredictionCall predict = listener.predictions.get(0);
+		assertTrue(predict.getOperation().equals(PredictionCall.PREDICT));
+		assertTrue(predict.getNumAccounts() == 1 && predict.getNumGains() == 1 && predict.getNumLosses() == 1);
+		assertTrue(predict.getNumEntities() == 3);
+		assertTrue(predict.getHorizonDays() == Prediction.numDaysBetween(startCal.getTime(), endCal.getTime()) + 1);
+		//The gain and the loss on both the start and end dates, each recording a history item
+		assertTrue(predict.getNumEvents() == 4 && predict.getHistoryItems() == 4);
+		assertTrue(predict.getDurationNanos() > 0);
+		//Timings passed in still get the call's counts
+		assertTrue(timings.totalEvents() == 4);
+
+		PredictionCall predictContinue = listener.predictions.get(1);
+		assertTrue(predictContinue.getOperation().equals(PredictionCall.PREDICT_CONTINUE));
+		assertTrue(predictContinue.getHorizonDays() == Prediction.numDaysBetween(endCal.getTime(), nextCal.getTime()));
+		assertTrue(listener.predictions.get(2).getOperation().equals(PredictionCall.UPDATE));
+
+		assertTrue(listener.solvers.size() == 1);
+		SolverCall solver = listener.solvers.get(0);
+		assertTrue(solver.getSolver().equals("findGoalDateCompoundInterest"));
+		assertTrue(solver.getIterations() > 0);
+
+		//Nothing is reported once the listener is removed
+		Prediction.predict(bbd, startCal.getTime(), endCal.getTime());
+		assertTrue(listener.predictions.size() == 3);
+	}
+}
@@ -0,0 +1,124 @@
+package com.erikartymiuk.badbudgetlogic.main;
+
+import static org.junit.Assert.*;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+import org.junit.Test;
+
+import com.erikartymiuk.badbudgetlogic.budget.Budget;
+import com.erikartymiuk.badbudgetlogic.budget.BudgetItem;
+
+public class EntityRegistryTest {
+
+	@Test
+	public void insertionOrderAndIdsTest() throws BadBudgetInvalidValueException {
+
+		BadBudgetData bbd = new BadBudgetData();
+
+		Account zeta = new Account("zeta", 100, false);
+		Account alpha = new Account("alpha", 200, false);
+		SavingsAccount middle = new SavingsAccount("middle", 300, false, false, -1, null,
+				new Contribution(10, Frequency.monthly), zeta, new GregorianCalendar(2017, Calendar.MAY, 1).getTime(), null, true, 0);
+		bbd.addAccount(zeta);
+		bbd.addAccount(alpha);
+		bbd.addAccount(middle);
+
+		CreditCard card = new CreditCard("card", 50, false, 0);
+		Loan loan = new Loan("loan", 500, false, 0, true, 500);
+		MoneyOwed other = new MoneyOwed("other", 20, false, 0);
+		bbd.addDebt(loan);
+		bbd.addDebt(card);
+		bbd.addDebt(other);
+
+		EntityRegistry registry = bbd.getRegistry();
+
+		assertTrue(registry.accounts().length == 3);
+		assertTrue(registry.accounts()[0] == zeta && registry.accounts()[1] == alpha && registry.accounts()[2] == middle);
+		assertTrue(registry.accountId(alpha) == 1);
+
+		assertTrue(registry.plainAccounts().length == 2);
+		assertTrue(registry.savingsAccounts().length == 1 && registry.savingsAccounts()[0] == middle);
+		assertTrue(registry.creditCards().length == 1 && registry.creditCards()[0] == card);
+		assertTrue(registry.loans().length == 1 && registry.loans()[0] == loan);
+		assertTrue(registry.otherDebts().length == 1 && registry.otherDebts()[0] == other);
+
+		//Sources are the accounts followed by the credit cards
+		assertTrue(registry.sources().length == 4);
+		assertTrue(registry.sourceId(card) == 3);
+		assertTrue(registry.sourceId(middle) == 2);
+
+		//Not part of the registry
+		assertTrue(registry.accountId(new Account("stranger", 0, false)) == -1);
+
+		//The getters keep the same order
+		assertTrue(bbd.getAccounts().get(0) == zeta);
+		assertTrue(bbd.getDebts().get(0) == loan);
+	}
+
+	@Test
+	public void invalidatedOnlyOnAddDeleteTest() throws BadBudgetInvalidValueException {
+
+		BadBudgetData bbd = new BadBudgetData();
+		Account account = new Account("account", 100, false);
+		bbd.addAccount(account);
+
+		EntityRegistry first = bbd.getRegistry();
+
+		//Changing values does not rebuild the registry
+		account.setValue(500);
+		assertTrue(bbd.getRegistry() == first);
+
+		Account second = new Account("second", 0, false);
+		bbd.addAccount(second);
+		EntityRegistry afterAdd = bbd.getRegistry();
+		assertTrue(afterAdd != first);
+		assertTrue(afterAdd.accounts().length == 2);
+
+		bbd.deleteAccountWithName("account");
+		EntityRegistry afterDelete = bbd.getRegistry();
+		assertTrue(afterDelete != afterAdd);
+		assertTrue(afterDelete.accounts().length == 1 && afterDelete.accounts()[0] == second);
+		assertTrue(afterDelete.accountId(second) == 0);
+
+		//Deleting something not present keeps the registry
+		bbd.deleteAccountWithName("nothing");
+		assertTrue(bbd.getRegistry() == afterDelete);
+	}
+
+	@Test
+	public void budgetItemArrayTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+
+		Account account = new Account("account", 0, false);
+		Budget budget = new Budget(account, false, Calendar.SUNDAY, 1);
+
+		BudgetItem groceries = new BudgetItem("groceries", 50, Frequency.weekly, startCal.getTime(), null, false, account);
+		BudgetItem gas = new BudgetItem("gas", 30, Frequency.weekly, startCal.getTime(), null, false, account);
+		budget.addBudgetItem(groceries);
+		budget.addBudgetItem(gas);
+
+		BudgetItem[] items = budget.getBudgetItemArray();
+		assertTrue(items.length == 2 && items[0] == groceries && items[1] == gas);
+		assertTrue(budget.getBudgetItemArray() == items);
+
+		assertTrue(budget.deleteBudgetItem("groceries"));
+		assertFalse(budget.deleteBudgetItem("groceries"));
+		items = budget.getBudgetItemArray();
+		assertTrue(items.length == 1 && items[0] == gas);
+
+		//The map is read only so the array can't go stale behind the budget's back
+		boolean rejected = false;
+		try
+		{
+			budget.getAllBudgetItems().remove("gas");
+		}
+		catch (UnsupportedOperationException e)
+		{
+			rejected = true;
+		}
+		assertTrue(rejected && budget.getBudgetItemArray().length == 1);
+	}
+}
@@ -0,0 +1,63 @@
+package com.erikartymiuk.badbudgetlogic.main;
+
+import java.util.Calendar;
+
+import com.erikartymiuk.badbudgetlogic.budget.Budget;
+import com.erikartymiuk.badbudgetlogic.budget.BudgetItem;
+
+/**
+ * The full model shared by the tests that need every kind of entity in one bbd, which add whatever else they need on
+ * top of it.
+ */
+public class ModelFixture {
+
+	/**
+	 * Builds a bbd with at least one of every kind of account, debt, and recurring event, all starting on the
+	 * given day.
+	 */
+	public static BadBudgetData buildModel(Calendar startCal) throws BadBudgetInvalidValueException
+	{
+		BadBudgetData bbd = new BadBudgetData();
+
+		Account checking = new Account("checking", 5000, false);
+		Account other = new Account("other", 300, false);
+		SavingsAccount savings = new SavingsAccount("savings", 1000, false, false, -1, null,
+				new Contribution(100, Frequency.monthly), checking, startCal.getTime(), null, true, 0.02);
+		bbd.addAccount(checking);
+		bbd.addAccount(other);
+		bbd.addAccount(savings);
+
+		CreditCard card = new CreditCard("card", 400, false, 0.2);
+		Loan simpleLoan = new Loan("simple", 2000, false, 0.05, true, 1800);
+		Loan compoundLoan = new Loan("compound", 1500, false, 0.07, false, 1500);
+		Loan flatLoan = new Loan("flat", 90, false, 0, true, 90);
+		MoneyOwed owed = new MoneyOwed("owed", 250, false, 0.03);
+		bbd.addDebt(card);
+		bbd.addDebt(simpleLoan);
+		bbd.addDebt(compoundLoan);
+		bbd.addDebt(flatLoan);
+		bbd.addDebt(owed);
+
+		card.setupPayment(new Payment(-1, true, Frequency.monthly, checking, startCal.getTime(), true, null, card, null));
+		simpleLoan.setupPayment(new Payment(75, false, Frequency.monthly, checking, startCal.getTime(), true, null, simpleLoan, null));
+		compoundLoan.setupPayment(new Payment(60, false, Frequency.biWeekly, other, startCal.getTime(), true, null, compoundLoan, null));
+		flatLoan.setupPayment(new Payment(25, false, Frequency.monthly, checking, startCal.getTime(), true, null, flatLoan, null));
+
+		bbd.addGain(new MoneyGain("job", 1200, Frequency.biWeekly, startCal.getTime(), null, checking));
+
+		Calendar endCal = (Calendar) startCal.clone();
+		endCal.add(Calendar.MONTH, 4);
+		bbd.addLoss(new MoneyLoss("rent", 800, Frequency.monthly, startCal.getTime(), null, checking));
+		bbd.addLoss(new MoneyLoss("gym", 40, Frequency.monthly, startCal.getTime(), endCal.getTime(), card));
+
+		bbd.addTransfer(new MoneyTransfer("move", checking, other, 50, Frequency.weekly, startCal.getTime(), null));
+
+		Budget budget = new Budget(card, false, Calendar.SUNDAY, 1);
+		budget.addBudgetItem(new BudgetItem("groceries", 60, Frequency.weekly, startCal.getTime(), null, false, card));
+		budget.addBudgetItem(new BudgetItem("fun", 30, Frequency.weekly, startCal.getTime(), null, false, checking));
+		budget.addBudgetItem(new BudgetItem("clothes", 100, Frequency.monthly, startCal.getTime(), null, true, checking));
+		bbd.setBudget(budget);
+
+		return bbd;
+	}
+}
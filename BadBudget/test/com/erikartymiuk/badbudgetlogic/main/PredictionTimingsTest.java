@@ -0,0 +1,70 @@
+package com.erikartymiuk.badbudgetlogic.main;
+
+import static org.junit.Assert.*;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+import org.junit.Test;
+
+
+public class PredictionTimingsTest {
+
+	@Test
+	public void timingsTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+		Calendar endCal = new GregorianCalendar(2018, Calendar.MAY, 10);
+		int lastDay = Prediction.numDaysBetween(startCal.getTime(), endCal.getTime());
+
+		BadBudgetData plain = ModelFixture.buildModel(startCal);
+		Prediction.predict(plain, startCal.getTime(), endCal.getTime());
+
+		BadBudgetData timed = ModelFixture.buildModel(startCal);
+		PredictionTimings timings = new PredictionTimings();
+		Prediction.predict(timed, startCal.getTime(), endCal.getTime(), timings);
+
+		//Instrumenting doesn't change the result
+		assertTrue(plain.getAccountWithName("checking").getPredictData(lastDay).value() ==
+				timed.getAccountWithName("checking").getPredictData(lastDay).value());
+		assertTrue(plain.getDebtWithName("card").getPredictData(lastDay).value() ==
+				timed.getDebtWithName("card").getPredictData(lastDay).value());
+
+		//Every phase runs once a day
+		assertTrue(timings.numRuns() == 1 && timings.numDays() == lastDay + 1);
+		for (PredictionPhase phase : PredictionPhase.values())
+		{
+			assertTrue(timings.invocations(phase) == lastDay + 1);
+		}
+		assertTrue(timings.totalNanos() > 0);
+
+		//A year of events (both the start and end dates are predicted so monthly events happen 13 times)
+		//Gym ends after 4 months, payments keep firing after their debt is paid off, and the flat loan has no interest
+		assertTrue(timings.events(PredictionPhase.transfers) == 53);
+		assertTrue(timings.events(PredictionPhase.losses) == 13 + 5);
+		assertTrue(timings.events(PredictionPhase.debtPayments) == 3 * 13 + 27);
+		assertTrue(timings.events(PredictionPhase.budget) == 2 * 53 + 13);
+		assertTrue(timings.events(PredictionPhase.gains) == 27);
+		assertTrue(timings.events(PredictionPhase.contributions) == 13);
+		assertTrue(timings.events(PredictionPhase.savingsInterest) == 12);
+		assertTrue(timings.events(PredictionPhase.debtInterest) == 4 * lastDay);
+		assertTrue(timings.events(PredictionPhase.initializeRows) == 0);
+		assertTrue(timings.events(EntityKind.creditCard) == 13 + lastDay);
+		assertTrue(timings.events(EntityKind.savingsAccount) == 13 + 12);
+
+		//Continuing adds to the same timings
+		Calendar nextCal = new GregorianCalendar(2018, Calendar.JUNE, 10);
+		Prediction.predictContinue(timed, startCal.getTime(), endCal.getTime(), nextCal.getTime(), timings);
+		assertTrue(timings.numRuns() == 2);
+		assertTrue(timings.numDays() == Prediction.numDaysBetween(startCal.getTime(), nextCal.getTime()) + 1);
+
+		PredictionTimings combined = new PredictionTimings();
+		combined.add(timings);
+		combined.add(timings);
+		assertTrue(combined.totalEvents() == 2 * timings.totalEvents());
+		assertTrue(combined.toCsv().split("\n").length == 1 + PredictionPhase.values().length + EntityKind.values().length);
+
+		combined.reset();
+		assertTrue(combined.totalEvents() == 0 && combined.totalNanos() == 0 && combined.numRuns() == 0);
+	}
+}
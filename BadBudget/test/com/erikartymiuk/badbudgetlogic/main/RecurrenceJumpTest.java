@@ -0,0 +1,166 @@
+package com.erikartymiuk.badbudgetlogic.main;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+
+import org.junit.Test;
+
+import com.erikartymiuk.badbudgetlogic.budget.Budget;
+import com.erikartymiuk.badbudgetlogic.budget.BudgetItem;
+import com.erikartymiuk.badbudgetlogic.kernel.PredictionKernel;
+import com.erikartymiuk.badbudgetlogic.synthetic.PortfolioGenerator;
+import com.erikartymiuk.badbudgetlogic.synthetic.PortfolioProfile;
+
+public class RecurrenceJumpTest {
+
+	private static final Frequency[] FREQUENCIES = {Frequency.oneTime, Frequency.daily, Frequency.weekly, Frequency.biWeekly,
+			Frequency.monthly, Frequency.yearly};
+
+	//Jumping should land on the same date as stepping one occurrence at a time, including the month end dates that clamp
+	@Test
+	public void jumpMatchesSteppingTest() {
+
+		Date start = new GregorianCalendar(2016, Calendar.JANUARY, 1).getTime();
+		Date end = new GregorianCalendar(2021, Calendar.MARCH, 30).getTime();
+		RecurrenceJump jump = new RecurrenceJump(start, end);
+		int lastDay = Prediction.numDaysBetween(start, end);
+
+		int[][] firstDates = {{2016, Calendar.JANUARY, 1}, {2016, Calendar.JANUARY, 28}, {2016, Calendar.JANUARY, 29},
+				{2016, Calendar.JANUARY, 31}, {2016, Calendar.FEBRUARY, 29}, {2016, Calendar.MARCH, 30},
+				{2021, Calendar.MARCH, 30}, {2021, Calendar.MARCH, 31}, {2015, Calendar.DECEMBER, 31}};
+
+		for (Frequency frequency : FREQUENCIES)
+		{
+			for (int[] first : firstDates)
+			{
+				Date next = new GregorianCalendar(first[0], first[1], first[2]).getTime();
+
+				Date expected = next;
+				int expectedCount = 0;
+				int day = Prediction.numDaysBetween(start, next);
+				if (day >= 0)
+				{
+					while (expected != null && Prediction.numDaysBetween(start, expected) <= lastDay)
+					{
+						expected = Payment.determineNextPayment(expected, frequency);
+						expectedCount++;
+					}
+				}
+
+				Date actual = jump.jump(next, frequency, null);
+				assertTrue(frequency + " " + next, (expected == null && actual == null) || expected.equals(actual));
+				assertTrue(frequency + " " + next, jump.count() == expectedCount);
+			}
+		}
+	}
+
+	@Test
+	public void entityEndDateTest() {
+
+		Date start = new GregorianCalendar(2017, Calendar.MAY, 1).getTime();
+		Date end = new GregorianCalendar(2017, Calendar.DECEMBER, 31).getTime();
+		Date entityEnd = new GregorianCalendar(2017, Calendar.JUNE, 20).getTime();
+		RecurrenceJump jump = new RecurrenceJump(start, end);
+
+		//Weekly on May 1, 8, 15, 22, 29, June 5, 12, 19 then stops before the 26th
+		Date next = jump.jump(start, Frequency.weekly, entityEnd);
+		assertTrue(next.equals(new GregorianCalendar(2017, Calendar.JUNE, 26).getTime()));
+		assertTrue(jump.count() == 8);
+		assertTrue(jump.lastOccurrence().equals(new GregorianCalendar(2017, Calendar.JUNE, 19).getTime()));
+
+		//Next dates before the start never occur and are left as is
+		Date stale = new GregorianCalendar(2017, Calendar.APRIL, 1).getTime();
+		assertTrue(jump.jump(stale, Frequency.monthly, null).equals(stale));
+		assertTrue(jump.count() == 0);
+	}
+
+	/**
+	 * Runs updateNextDatesOnly on generated portfolios and checks each next date and budget item amount against a
+	 * kernel simulating every day of the same portfolio.
+	 */
+	@Test
+	public void matchesSimulationTest() throws BadBudgetInvalidValueException {
+
+		Date start = new GregorianCalendar(2018, Calendar.JANUARY, 1).getTime();
+		Date end = new GregorianCalendar(2020, Calendar.AUGUST, 17).getTime();
+		PortfolioGenerator generator = new PortfolioGenerator(PortfolioProfile.TYPICAL, 5, start);
+		int[] monthlyResets = {1, 15, 28, 30, 31};
+
+		for (int i = 0; i < monthlyResets.length * 2; i++)
+		{
+			BadBudgetData updated = generator.generate(i);
+			BadBudgetData simulated = generator.generate(i);
+			for (BadBudgetData bbd : new BadBudgetData[] {updated, simulated})
+			{
+				bbd.getBudget().setAutoReset(i % 2 == 0);
+				bbd.getBudget().setMonthlyReset(monthlyResets[i / 2]);
+				bbd.getBudget().setWeeklyReset(Calendar.SUNDAY + i % 7);
+			}
+
+			Prediction.updateNextDatesOnly(updated, start, end);
+			PredictionKernel kernel = PredictionKernel.compile(simulated, start, i % 2 == 0);
+			kernel.advanceTo(end, null);
+
+			EntityRegistry registry = updated.getRegistry();
+			for (int j = 0; j < registry.accounts().length; j++)
+			{
+				if (registry.accounts()[j] instanceof SavingsAccount)
+				{
+					SavingsAccount savingsAccount = (SavingsAccount) registry.accounts()[j];
+					assertTrue(sameDate(savingsAccount.nextContribution(), kernel.nextContributionDate(j)));
+					assertTrue(!savingsAccount.goalSet());
+				}
+			}
+			for (int j = 0; j < registry.transfers().length; j++)
+			{
+				assertTrue(sameDate(registry.transfers()[j].getNextTransfer(), kernel.nextTransferDate(j)));
+			}
+			for (int j = 0; j < registry.debts().length; j++)
+			{
+				Payment payment = registry.debts()[j].payment();
+				if (payment != null)
+				{
+					assertTrue(sameDate(payment.nextPaymentDate(), kernel.nextPaymentDate(j)));
+					assertTrue(payment.goalDate() == null);
+				}
+			}
+			for (int j = 0; j < registry.gains().length; j++)
+			{
+				assertTrue(sameDate(registry.gains()[j].nextDeposit(), kernel.nextDepositDate(j)));
+			}
+			for (int j = 0; j < registry.losses().length; j++)
+			{
+				assertTrue(sameDate(registry.losses()[j].nextLoss(), kernel.nextLossDate(j)));
+			}
+			Budget budget = updated.getBudget();
+			BudgetItem[] items = budget.getBudgetItemArray();
+			for (int j = 0; j < items.length; j++)
+			{
+				assertTrue(sameDate(items[j].nextLoss(), kernel.budgetItemNextLossDate(j)));
+				if (budget.isAutoReset())
+				{
+					assertTrue(Math.abs(items[j].getCurrAmount() - kernel.budgetItemAmount(j)) < 0.000001);
+				}
+				else
+				{
+					assertTrue(items[j].getCurrAmount() == simulated.getBudget().getBudgetItemArray()[j].getCurrAmount());
+				}
+			}
+		}
+	}
+
+	private static boolean sameDate(Date expected, Date actual)
+	{
+		if (expected == null || actual == null)
+		{
+			return expected == actual;
+		}
+		else
+		{
+			return expected.equals(actual);
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package com.erikartymiuk.badbudgetlogic.main;
+
+import static org.junit.Assert.*;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+import org.junit.Test;
+
+import com.erikartymiuk.badbudgetlogic.budget.Budget;
+import com.erikartymiuk.badbudgetlogic.budget.BudgetItem;
+
+public class SourceIndexTest {
+
+	@Test
+	public void drawsFromTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+
+		BadBudgetData bbd = new BadBudgetData();
+		Account checking = new Account("checking", 1000, false);
+		Account other = new Account("other", 1000, false);
+		CreditCard card = new CreditCard("card", 0, false, 0);
+		bbd.addAccount(checking);
+		bbd.addAccount(other);
+		bbd.addDebt(card);
+
+		Payment payment = new Payment(25, false, Frequency.monthly, checking, startCal.getTime(), true, null, card, null);
+		card.setupPayment(payment);
+
+		MoneyLoss rent = new MoneyLoss("rent", 500, Frequency.monthly, startCal.getTime(), null, checking);
+		MoneyLoss tv = new MoneyLoss("tv", 30, Frequency.monthly, startCal.getTime(), null, card);
+		bbd.addLoss(rent);
+		bbd.addLoss(tv);
+
+		MoneyTransfer transfer = new MoneyTransfer("move", other, checking, 10, Frequency.weekly, startCal.getTime(), null);
+		bbd.addTransfer(transfer);
+
+		Budget budget = new Budget(card, false, Calendar.SUNDAY, 1);
+		BudgetItem groceries = new BudgetItem("groceries", 50, Frequency.weekly, startCal.getTime(), null, false, card);
+		budget.addBudgetItem(groceries);
+		bbd.setBudget(budget);
+
+		SourceIndex index = bbd.getSourceIndex();
+
+		assertTrue(index.lossesFrom(checking).length == 1 && index.lossesFrom(checking)[0] == rent);
+		assertTrue(index.lossesFrom(card).length == 1 && index.lossesFrom(card)[0] == tv);
+		assertTrue(index.lossesFrom(other).length == 0);
+		assertTrue(index.budgetItemsFrom(card).length == 1 && index.budgetItemsFrom(card)[0] == groceries);
+		assertTrue(index.paymentsFrom(checking).length == 1 && index.paymentsFrom(checking)[0] == card);
+		assertTrue(index.transfersFrom(other).length == 1 && index.transfersFrom(other)[0] == transfer);
+		assertTrue(index.transfersFrom(checking).length == 0);
+
+		//Unknown sources have nothing drawing from them
+		assertTrue(index.lossesFrom(new Account("stranger", 0, false)).length == 0);
+
+		//Weekly groceries plus monthly tv at a monthly frequency
+		double cardOut = Prediction.analyzeCreditCardMoneyOut(card, bbd, Frequency.monthly, startCal.getTime());
+		double expected = 30 + Prediction.toggle(50, Frequency.weekly, Frequency.monthly);
+		assertTrue(Math.abs(cardOut - expected) < 0.00001);
+	}
+
+	@Test
+	public void keptUntilChangedTest() throws BadBudgetInvalidValueException {
+
+		Calendar startCal = new GregorianCalendar(2017, Calendar.MAY, 10);
+
+		BadBudgetData bbd = new BadBudgetData();
+		Account shared = new Account("shared", 1000, false);
+		CreditCard sharedCard = new CreditCard("shared", 0, false, 0);
+		bbd.addAccount(shared);
+		bbd.addDebt(sharedCard);
+		MoneyLoss rent = new MoneyLoss("rent", 500, Frequency.monthly, startCal.getTime(), null, shared);
+		bbd.addLoss(rent);
+		Budget budget = new Budget(shared, false, Calendar.SUNDAY, 1);
+		BudgetItem groceries = new BudgetItem("groceries", 50, Frequency.weekly, startCal.getTime(), null, false, shared);
+		budget.addBudgetItem(groceries);
+		bbd.setBudget(budget);
+
+		SourceIndex index = bbd.getSourceIndex();
+		assertTrue(bbd.getSourceIndex() == index);
+
+		//Moving a loss to the credit card of the same name
+		rent.setSource(sharedCard);
+		assertTrue(bbd.getSourceIndex() != index);
+		index = bbd.getSourceIndex();
+		assertTrue(index.lossesFrom(shared).length == 0 && index.lossesFrom(sharedCard)[0] == rent);
+
+		//A budget item reports through the budget
+		groceries.setSource(sharedCard);
+		index = bbd.getSourceIndex();
+		assertTrue(index.budgetItemsFrom(shared).length == 0 && index.budgetItemsFrom(sharedCard)[0] == groceries);
+
+		//Adding a loss
+		MoneyLoss tv = new MoneyLoss("tv", 30, Frequency.monthly, startCal.getTime(), null, shared);
+		bbd.addLoss(tv);
+		assertTrue(bbd.getSourceIndex().lossesFrom(shared)[0] == tv);
+	}
+
+	@Test
+	public void sourceWithNameTest() throws BadBudgetInvalidValueException {
+
+		BadBudgetData bbd = new BadBudgetData();
+		Account shared = new Account("shared", 0, false);
+		CreditCard sharedCard = new CreditCard("shared", 0, false, 0);
+		CreditCard card = new CreditCard("card", 0, false, 0);
+		SavingsAccount savings = new SavingsAccount("savings", 0, false, false, -1, null,
+				new Contribution(10, Frequency.monthly), shared, new GregorianCalendar(2017, Calendar.MAY, 1).getTime(), null, true, 0);
+		bbd.addDebt(sharedCard);
+		bbd.addDebt(card);
+		bbd.addAccount(shared);
+		bbd.addAccount(savings);
+
+		//Accounts take precedence over credit cards with the same name
+		assertTrue(bbd.getSourceWithName("shared") == shared);
+		assertTrue(bbd.getSourceWithName("card") == card);
+		assertTrue(bbd.getSourceWithName("savings") == savings);
+		assertTrue(bbd.getSourceWithName("nothing") == null);
+
+		assertTrue(bbd.getSourceWithNameExcludeSavingAccounts("shared") == shared);
+		assertTrue(bbd.getSourceWithNameExcludeSavingAccounts("savings") == null);
+
+		bbd.deleteAccountWithName("shared");
+		assertTrue(bbd.getSourceWithName("shared") == sharedCard);
+	}
+}
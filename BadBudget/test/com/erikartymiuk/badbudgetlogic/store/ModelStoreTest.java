@@ -0,0 +1,164 @@
+package com.erikartymiuk.badbudgetlogic.store;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.erikartymiuk.badbudgetlogic.main.*;
+
+public class ModelStoreTest {
+
+	private static Calendar startCal()
+	{
+		return new GregorianCalendar(2017, Calendar.MAY, 10);
+	}
+
+	private static Date startDate()
+	{
+		return startCal().getTime();
+	}
+
+	@Test
+	public void updateTest() throws BadBudgetInvalidValueException {
+
+		BadBudgetData original = ModelFixture.buildModel(startCal());
+		ModelStore store = new ModelStore(original);
+		ModelVersion first = store.current();
+		assertTrue(first.getVersion() == 1);
+
+		//Changing the original afterwards doesn't change the store
+		original.getAccountWithName("checking").setValue(1);
+		assertTrue(store.checkout().getAccountWithName("checking").value() == 5000);
+
+		ModelVersion second = store.update(new ModelMutation()
+		{
+			public void apply(BadBudgetData bbd) throws BadBudgetInvalidValueException
+			{
+				bbd.addLoss(new MoneyLoss("insurance", 120, Frequency.monthly, startDate(), null, bbd.getAccountWithName("checking")));
+			}
+		});
+		assertTrue(second.getVersion() == 2 && store.current() == second);
+		assertTrue(second.materialize().getLossWithDescription("insurance") != null);
+		//The old version is untouched
+		assertTrue(first.materialize().getLossWithDescription("insurance") == null);
+		assertFalse(first.sameContent(second));
+		assertTrue(first.contentHash() != second.contentHash());
+
+		//A change that changes nothing publishes nothing
+		ModelVersion same = store.update(new ModelMutation()
+		{
+			public void apply(BadBudgetData bbd)
+			{
+				bbd.getAccountWithName("checking").setValue(5000);
+			}
+		});
+		assertTrue(same == second);
+
+		//A failing change publishes nothing
+		try
+		{
+			store.update(new ModelMutation()
+			{
+				public void apply(BadBudgetData bbd) throws BadBudgetInvalidValueException
+				{
+					bbd.getAccountWithName("checking").setValue(0);
+					throw new BadBudgetInvalidValueException("failed");
+				}
+			});
+			fail();
+		}
+		catch (BadBudgetInvalidValueException e)
+		{
+			assertTrue(store.current() == second);
+		}
+
+		ModelVersion replaced = store.replace(ModelFixture.buildModel(startCal()));
+		assertTrue(replaced.getVersion() == 3 && replaced.sameContent(first));
+	}
+
+	@Test
+	public void concurrentTest() throws Exception {
+
+		final ModelStore store = new ModelStore(ModelFixture.buildModel(startCal()));
+		final int numLosses = store.checkout().getLosses().size();
+		final int numWriters = 4;
+		final int numWrites = 25;
+		final Date endDate = new GregorianCalendar(2017, Calendar.AUGUST, 10).getTime();
+
+		ExecutorService executor = Executors.newFixedThreadPool(numWriters + 2);
+		try
+		{
+			List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+			for (int w = 0; w < numWriters; w++)
+			{
+				final int writer = w;
+				futures.add(executor.submit(new Callable<Integer>()
+				{
+					public Integer call() throws Exception
+					{
+						for (int i = 0; i < numWrites; i++)
+						{
+							final String description = "loss " + writer + " " + i;
+							store.update(new ModelMutation()
+							{
+								public void apply(BadBudgetData bbd) throws BadBudgetInvalidValueException
+								{
+									Account checking = bbd.getAccountWithName("checking");
+									bbd.addLoss(new MoneyLoss(description, 1, Frequency.monthly, startDate(), null, checking));
+									checking.setValue(checking.value() - 1);
+								}
+							});
+						}
+						return 0;
+					}
+				}));
+			}
+			for (int r = 0; r < 2; r++)
+			{
+				futures.add(executor.submit(new Callable<Integer>()
+				{
+					public Integer call() throws Exception
+					{
+						int reads = 0;
+						while (store.current().getVersion() <= numWriters * numWrites)
+						{
+							//Every version is consistent, one loss and one dollar off for each change published
+							ModelVersion version = store.current();
+							BadBudgetData bbd = version.materialize();
+							long changes = version.getVersion() - 1;
+							assertTrue(bbd.getLosses().size() == numLosses + changes);
+							assertTrue(bbd.getAccountWithName("checking").value() == 5000 - changes);
+							Prediction.predict(bbd, startDate(), endDate);
+							reads++;
+						}
+						return reads;
+					}
+				}));
+			}
+			for (Future<Integer> future : futures)
+			{
+				future.get();
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		//No change was lost
+		BadBudgetData last = store.checkout();
+		assertTrue(store.current().getVersion() == numWriters * numWrites + 1);
+		assertTrue(last.getLosses().size() == numLosses + numWriters * numWrites);
+		assertTrue(last.getAccountWithName("checking").value() == 5000 - numWriters * numWrites);
+	}
+}
@@ -0,0 +1,90 @@
+package com.erikartymiuk.badbudgetlogic.synthetic;
+
+import static org.junit.Assert.*;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.GregorianCalendar;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import com.erikartymiuk.badbudgetlogic.budget.BudgetItem;
+import com.erikartymiuk.badbudgetlogic.budget.RemainAmountAction;
+import com.erikartymiuk.badbudgetlogic.main.*;
+
+public class PortfolioGeneratorTest {
+
+	@Test
+	public void deterministicTest() throws BadBudgetInvalidValueException {
+
+		Date start = new GregorianCalendar(2017, Calendar.MAY, 10).getTime();
+		PortfolioGenerator generator = new PortfolioGenerator(PortfolioProfile.TYPICAL, 42, start);
+
+		//The same index gives the same model, whatever was generated in between
+		long first = generator.generate(7).contentHash();
+		generator.generate(8);
+		assertTrue(generator.generate(7).contentHash() == first);
+		assertTrue(new PortfolioGenerator(PortfolioProfile.TYPICAL, 42, start).generate(7).contentHash() == first);
+
+		assertTrue(generator.generate(8).contentHash() != first);
+		assertTrue(new PortfolioGenerator(PortfolioProfile.TYPICAL, 43, start).generate(7).contentHash() != first);
+	}
+
+	@Test
+	public void shapeTest() throws BadBudgetInvalidValueException {
+
+		Date start = new GregorianCalendar(2017, Calendar.MAY, 10).getTime();
+		PortfolioProfile profile = new PortfolioProfile(3, 4, 2, 3, 2, 5, 10, 4, 36, 0, 0.5);
+		BadBudgetData bbd = new PortfolioGenerator(profile, 1, start).generate(0);
+
+		int numSavings = 0;
+		for (Account account : bbd.getAccounts())
+		{
+			if (account instanceof SavingsAccount)
+			{
+				numSavings++;
+			}
+		}
+		assertTrue(bbd.getAccounts().size() == 7 && numSavings == 4);
+		assertTrue(bbd.getDebts().size() == 7);
+		for (MoneyOwed debt : bbd.getDebts())
+		{
+			assertTrue(debt.payment() != null);
+		}
+		assertTrue(bbd.getGains().size() == 5 && bbd.getLosses().size() == 10);
+
+		//36 items cover every frequency with every remain amount action
+		EnumSet<Frequency> frequencies = EnumSet.noneOf(Frequency.class);
+		EnumSet<RemainAmountAction> actions = EnumSet.noneOf(RemainAmountAction.class);
+		for (BudgetItem item : bbd.getBudget().getBudgetItemArray())
+		{
+			frequencies.add(item.lossFrequency());
+			actions.add(item.remainAmountAction());
+		}
+		assertTrue(frequencies.size() == Frequency.values().length);
+		assertTrue(actions.size() == RemainAmountAction.values().length);
+	}
+
+	@Test
+	public void streamTest() throws BadBudgetInvalidValueException {
+
+		Date start = new GregorianCalendar(2017, Calendar.MAY, 10).getTime();
+		Date end = new GregorianCalendar(2018, Calendar.MAY, 10).getTime();
+		PortfolioProfile profile = PortfolioProfile.TYPICAL.scaled(2);
+		PortfolioGenerator generator = new PortfolioGenerator(profile, 2017, start);
+
+		//Every model is valid (the constructors would have thrown otherwise) and can be predicted and updated
+		int numModels = 0;
+		Iterator<BadBudgetData> models = generator.iterator(100, 25);
+		while (models.hasNext())
+		{
+			BadBudgetData bbd = models.next();
+			Prediction.predict(bbd, start, end);
+			Prediction.update(bbd, start, end);
+			numModels++;
+		}
+		assertTrue(numModels == 25);
+	}
+}
@@ -0,0 +1,100 @@
+package com.erikartymiuk.badbudgetlogic.validation;
+
+import static org.junit.Assert.*;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+
+import org.junit.Test;
+
+import com.erikartymiuk.badbudgetlogic.main.*;
+
+public class BatchValidatorTest {
+
+	@Test
+	public void batchTest() throws BadBudgetInvalidValueException {
+
+		Date start = new GregorianCalendar(2017, Calendar.MAY, 10).getTime();
+		Account checking = new Account("checking", 1000, true);
+		MoneyOwed owed = new MoneyOwed("owed", 1000, false, 0);
+
+		BatchValidator validator = new BatchValidator();
+		assertTrue(validator.checkAccount("checking") == 0);
+		assertTrue(validator.checkAccount(null) != 0);
+		assertTrue(validator.checkGain("job", -5, Frequency.weekly, start, null, checking) == 2);
+		//A negative savings value is accepted like the constructor accepts it
+		assertTrue(validator.checkSavingsAccount("savings", -10, false, -1, null, new Contribution(10, Frequency.weekly), checking, start,
+				null, true, 0) == 0);
+		assertTrue(validator.checkLoan("loan", 100, 0.05, true, 200) != 0);
+
+		//1000 at 100 a month is paid off by the tenth payment
+		Date goal = new GregorianCalendar(2018, Calendar.FEBRUARY, 10).getTime();
+		Date wrongGoal = new GregorianCalendar(2018, Calendar.MARCH, 10).getTime();
+		assertTrue(validator.checkPayment(100, false, Frequency.monthly, checking, start, false, goal, owed, goal) == 0);
+		assertTrue(validator.checkPayment(100, false, Frequency.monthly, checking, start, false, wrongGoal, owed, wrongGoal) == 16);
+
+		assertTrue(validator.numCandidates() == 7);
+		assertTrue(validator.errors().size() == 4);
+		ValidationError gainError = validator.errors().get(1);
+		assertTrue(gainError.getCandidate() == 2 && gainError.getEntity().equals("MoneyGain"));
+		assertTrue(gainError.getMessage().equals(BadBudgetInvalidValueException.GAIN_AMOUNT_NEGATIVE_E2));
+		assertTrue(validator.errors().get(3).getCandidate() == 6);
+
+		validator.clear(false);
+		assertFalse(validator.hasErrors());
+		assertTrue(validator.numCandidates() == 0);
+
+		//The name is checked first, as the SavingsAccount constructor checks it
+		assertTrue(validator.checkSavingsAccount(null, 10, false, -1, null, new Contribution(10, Frequency.weekly), checking, start,
+				null, true, 0) == 1);
+		assertTrue(validator.checkSavingsAccount("", 10, false, -1, null, new Contribution(10, Frequency.weekly), checking, start,
+				null, true, 0) == 2);
+		assertTrue(validator.numCandidates() == 2 && validator.errors().size() == 2);
+		ValidationError nameError = validator.errors().get(1);
+		assertTrue(nameError.getEntity().equals("Account"));
+		assertTrue(nameError.getMessage().equals(Account.messageFor(2)));
+		try
+		{
+			new SavingsAccount("", 10, false, false, -1, null, new Contribution(10, Frequency.weekly), checking, start, null, true, 0);
+			fail();
+		}
+		catch (BadBudgetInvalidValueException e)
+		{
+			assertTrue(e.getMessage().equals(nameError.getMessage()));
+		}
+	}
+
+	@Test
+	public void cachedChecksMatchTest() throws BadBudgetInvalidValueException {
+
+		Account checking = new Account("checking", 1000, true);
+		RecurrenceCache cache = new RecurrenceCache();
+		Frequency[] frequencies = {Frequency.daily, Frequency.weekly, Frequency.biWeekly, Frequency.monthly, Frequency.yearly};
+
+		//Start dates across month ends and daylight saving changes, goal dates on and around the real goal date
+		Calendar startCal = new GregorianCalendar(2016, Calendar.JANUARY, 28);
+		for (int i = 0; i < 40; i++)
+		{
+			Date start = startCal.getTime();
+			for (Frequency frequency : frequencies)
+			{
+				for (int debtAmount = 50; debtAmount <= 650; debtAmount += 150)
+				{
+					MoneyOwed debt = new MoneyOwed("debt", debtAmount, false, 0);
+					Date realGoal = Prediction.findGoalDate(start, 60, frequency, debtAmount, null);
+					for (int offset = -1; offset <= 1; offset++)
+					{
+						Date goal = Prediction.addDays(realGoal, offset);
+						int uncached = Payment.verifyValues(60, false, frequency, checking, start, false, goal, debt, goal);
+						int cached = Payment.verifyValues(60, false, frequency, checking, start, false, goal, debt, goal, cache);
+						assertTrue(uncached == cached);
+						assertTrue((offset == 0) == (cached == 0));
+					}
+				}
+				assertTrue(cache.numDaysBetween(start, Prediction.addDays(start, 400)) == Prediction.numDaysBetween(start, Prediction.addDays(start, 400)));
+			}
+			startCal.add(Calendar.DAY_OF_MONTH, 19);
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package com.erikartymiuk.badbudgetlogic.bench;
+
+import java.util.Date;
+import java.util.HashMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.erikartymiuk.badbudgetlogic.main.*;
+
+/**
+ * Benchmarks of the analyze methods over every model shape predicted a year ahead, each analyzing monthly. analyze1 is
+ * left out as it prints its results.
+ */
+@State(Scope.Thread)
+public class AnalyzeBenchmarks extends BenchmarkState
+{
+	@Param({"small", "typical", "pathological"})
+	public ModelShape shape;
+
+	private BadBudgetData bbd;
+	private Date start;
+	private Date limit;
+
+	@Setup(Level.Trial)
+	public void setUp() throws BadBudgetInvalidValueException
+	{
+		this.start = startDate();
+		this.limit = Prediction.addDays(this.start, 365);
+		this.bbd = this.shape.build(this.start);
+		Prediction.predict(this.bbd, this.start, this.limit);
+	}
+
+	@Benchmark
+	public double netGainAtFreq()
+	{
+		return Prediction.analyzeNetGainAtFreq(this.bbd, Frequency.monthly, this.start);
+	}
+
+	@Benchmark
+	public double netLossAtFreq()
+	{
+		return Prediction.analyzeNetLossAtFreq(this.bbd, Frequency.monthly, this.start);
+	}
+
+	@Benchmark
+	public double netAccountLossAtFreq()
+	{
+		return Prediction.analyzeNetAccountLossAtFreq(this.bbd, Frequency.monthly, this.start);
+	}
+
+	@Benchmark
+	public double netCreditCardLossAtFreq()
+	{
+		return Prediction.analyzeNetCreditCardLossAtFreq(this.bbd, Frequency.monthly, this.start);
+	}
+
+	@Benchmark
+	public double netPaymentsAtFreq()
+	{
+		return Prediction.analyzeNetPaymentsAtFreq(this.bbd, Frequency.monthly, this.start, this.start, this.limit);
+	}
+
+	@Benchmark
+	public double netContributionsAtFreq()
+	{
+		return Prediction.analyzeNetContributionsAtFreq(this.bbd, Frequency.monthly, this.start);
+	}
+
+	@Benchmark
+	public double gainsLosses()
+	{
+		return Prediction.analyzeGainsLosses(this.bbd, Frequency.monthly, this.start);
+	}
+
+	@Benchmark
+	public double cashFlow()
+	{
+		return Prediction.analyzeCashFlow(this.bbd, Frequency.monthly, this.start, this.start, this.limit);
+	}
+
+	@Benchmark
+	public double debtFlow()
+	{
+		return Prediction.analyzeDebtFlow(this.bbd, Frequency.monthly, this.start, this.start, this.limit);
+	}
+
+	@Benchmark
+	public HashMap<Source, Double> sourceMoneyOut()
+	{
+		return Prediction.analyzeSourceMoneyOut(this.bbd, Frequency.monthly, this.start, this.start, this.limit);
+	}
+
+	@Benchmark
+	public double creditCardMoneyOut()
+	{
+		double total = 0;
+		for (MoneyOwed debt : this.bbd.getRegistry().debts())
+		{
+			if (debt instanceof CreditCard)
+			{
+				total += Prediction.analyzeCreditCardMoneyOut((CreditCard) debt, this.bbd, Frequency.monthly, this.start);
+			}
+		}
+		return total;
+	}
+
+	@Benchmark
+	public double interestChangeSavings()
+	{
+		return Prediction.analyzeInterestChangeSavings(this.bbd, 365, Frequency.monthly);
+	}
+
+	@Benchmark
+	public double interestChangeDebts()
+	{
+		return Prediction.analyzeInterestChangeDebts(this.bbd, 365, Frequency.monthly);
+	}
+}
@@ -0,0 +1,55 @@
+package com.erikartymiuk.badbudgetlogic.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks of the suite with the gc profiler on, so that every benchmark reports its allocation rate
+ * and bytes allocated per operation (gc.alloc.rate and gc.alloc.rate.norm) beside its time. Takes JMH's own command
+ * line options, for example a benchmark regex, -p shape=typical, -l to list the benchmarks, or -prof to pick other
+ * profilers in place of gc.
+ *
+ * The suite is built by the module's pom.xml, which runs JMH's annotation processor over the benchmark classes and
+ * shades the suite, BadBudget and JMH into target/benchmarks.jar with this class as its main class:
+ *   mvn package
+ *   java -jar target/benchmarks.jar -l
+ */
+public class BenchmarkRunner
+{
+	public static void main(String[] args) throws Exception
+	{
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		if (commandLine.shouldHelp())
+		{
+			commandLine.showHelp();
+		}
+		else if (commandLine.shouldList())
+		{
+			new Runner(commandLine).list();
+		}
+		else if (commandLine.shouldListWithParams())
+		{
+			new Runner(commandLine).listWithParams(commandLine);
+		}
+		else if (commandLine.shouldListProfilers())
+		{
+			commandLine.listProfilers();
+		}
+		else if (commandLine.shouldListResultFormats())
+		{
+			commandLine.listResultFormats();
+		}
+		else
+		{
+			ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+			if (commandLine.getProfilers().isEmpty())
+			{
+				options.addProfiler(GCProfiler.class);
+			}
+			new Runner(options.build()).run();
+		}
+	}
+}
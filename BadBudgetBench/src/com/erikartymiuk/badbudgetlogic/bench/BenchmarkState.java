@@ -0,0 +1,65 @@
+package com.erikartymiuk.badbudgetlogic.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The base of every benchmark class of the suite. Each benchmark class is its own thread scoped JMH state, holding its
+ * parameters and the model its benchmarks run over, and inherits the run settings here: average time per operation in
+ * microseconds, one fork, five one second warmup iterations then five one second measured iterations. Anything the
+ * engine prints during a trial is discarded so the forked VM's output doesn't slow it down.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public abstract class BenchmarkState
+{
+	private PrintStream out;		//System.out before the trial, restored after it
+
+	/**
+	 * The date every benchmark model starts on. Fixed so runs are comparable.
+	 * @return the start date
+	 */
+	public static Date startDate()
+	{
+		return new GregorianCalendar(2017, Calendar.MAY, 10).getTime();
+	}
+
+	@Setup(Level.Trial)
+	public void discardOutput()
+	{
+		this.out = System.out;
+		System.setOut(new PrintStream(new OutputStream()
+		{
+			public void write(int b)
+			{
+			}
+
+			public void write(byte[] b, int off, int len)
+			{
+			}
+		}));
+	}
+
+	@TearDown(Level.Trial)
+	public void restoreOutput()
+	{
+		System.setOut(this.out);
+	}
+}
@@ -0,0 +1,161 @@
+package com.erikartymiuk.badbudgetlogic.bench;
+
+import java.util.Calendar;
+import java.util.Date;
+
+import com.erikartymiuk.badbudgetlogic.budget.Budget;
+import com.erikartymiuk.badbudgetlogic.budget.BudgetItem;
+import com.erikartymiuk.badbudgetlogic.main.*;
+
+/**
+ * The user models the benchmarks run over. A small model is a single account with a gain, a loss and a one item
+ * budget. A typical model is what an active user keeps: a few accounts and savings accounts, cards and loans with
+ * payments, a dozen gains and losses and a budget. A pathological model is far larger than any real user and made of
+ * the most expensive parts: daily frequencies, chained savings accounts, compounding loans and a large daily budget.
+ */
+public enum ModelShape
+{
+	small(1, 0, 0, 1, 1, 0, 1),
+	typical(2, 3, 3, 4, 10, 2, 8),
+	pathological(20, 100, 60, 100, 500, 50, 200);
+
+	private final int numAccounts;
+	private final int numSavings;
+	private final int numDebts;
+	private final int numGains;
+	private final int numLosses;
+	private final int numTransfers;
+	private final int numBudgetItems;
+
+	private ModelShape(int numAccounts, int numSavings, int numDebts, int numGains, int numLosses, int numTransfers, int numBudgetItems)
+	{
+		this.numAccounts = numAccounts;
+		this.numSavings = numSavings;
+		this.numDebts = numDebts;
+		this.numGains = numGains;
+		this.numLosses = numLosses;
+		this.numTransfers = numTransfers;
+		this.numBudgetItems = numBudgetItems;
+	}
+
+	/**
+	 * Builds a model of this shape. The same shape and start date always give the same model.
+	 * @param startDate - the date the model's next dates start from
+	 * @return the model
+	 * @throws BadBudgetInvalidValueException - never for the built in shapes
+	 */
+	public BadBudgetData build(Date startDate) throws BadBudgetInvalidValueException
+	{
+		boolean pathological = (this == ModelShape.pathological);
+		Frequency[] frequencies = {Frequency.daily, Frequency.weekly, Frequency.biWeekly, Frequency.monthly, Frequency.yearly};
+		BadBudgetData bbd = new BadBudgetData();
+
+		Account[] accounts = new Account[this.numAccounts];
+		for (int i = 0; i < this.numAccounts; i++)
+		{
+			accounts[i] = new Account("account " + i, 2000 + 500 * i, true);
+			bbd.addAccount(accounts[i]);
+		}
+
+		//Each savings account is funded by the one before it, the first by the first account
+		Account previous = accounts[0];
+		for (int i = 0; i < this.numSavings; i++)
+		{
+			Frequency frequency = Frequency.monthly;
+			if (pathological)
+			{
+				frequency = Frequency.daily;
+			}
+			SavingsAccount savings = new SavingsAccount("savings " + i, 100 * i, false, false, -1, null,
+					new Contribution(5 + i % 20, frequency), previous, startDate, null, true, 0.01 + 0.001 * (i % 10));
+			bbd.addAccount(savings);
+			previous = savings;
+		}
+
+		CreditCard card = null;
+		for (int i = 0; i < this.numDebts; i++)
+		{
+			MoneyOwed debt;
+			Payment payment;
+			Account source = accounts[i % accounts.length];
+			if (i % 3 == 0)
+			{
+				card = new CreditCard("card " + i, 300 + 10 * i, false, 0.2);
+				debt = card;
+				payment = new Payment(-1, true, Frequency.monthly, source, startDate, true, null, debt, null);
+			}
+			else
+			{
+				double amount = 5000 + 1000 * i;
+				debt = new Loan("loan " + i, amount, false, 0.04 + 0.002 * (i % 10), i % 3 == 1, amount * 0.9);
+				Frequency frequency = Frequency.monthly;
+				if (pathological)
+				{
+					frequency = Frequency.daily;
+				}
+				payment = new Payment(25 + i, false, frequency, source, startDate, true, null, debt, null);
+			}
+			bbd.addDebt(debt);
+			debt.setupPayment(payment);
+		}
+
+		for (int i = 0; i < this.numGains; i++)
+		{
+			Frequency frequency = Frequency.biWeekly;
+			if (pathological)
+			{
+				frequency = frequencies[i % frequencies.length];
+			}
+			bbd.addGain(new MoneyGain("gain " + i, 800 + 10 * i, frequency, startDate, null, accounts[i % accounts.length]));
+		}
+
+		for (int i = 0; i < this.numLosses; i++)
+		{
+			Frequency frequency = frequencies[1 + i % (frequencies.length - 1)];
+			if (pathological)
+			{
+				frequency = Frequency.daily;
+			}
+			Source source = accounts[i % accounts.length];
+			if (card != null && i % 4 == 3)
+			{
+				source = card;
+			}
+			bbd.addLoss(new MoneyLoss("loss " + i, 1 + i % 50, frequency, startDate, null, source));
+		}
+
+		for (int i = 0; i < this.numTransfers; i++)
+		{
+			Frequency frequency = Frequency.monthly;
+			if (pathological)
+			{
+				frequency = Frequency.daily;
+			}
+			Account source = accounts[i % accounts.length];
+			Account destination = accounts[(i + 1) % accounts.length];
+			bbd.addTransfer(new MoneyTransfer("transfer " + i, source, destination, 1 + i % 10, frequency, startDate, null));
+		}
+
+		Source budgetSource = accounts[0];
+		if (card != null)
+		{
+			budgetSource = card;
+		}
+		Budget budget = new Budget(budgetSource, true, Calendar.SUNDAY, 1);
+		Frequency[] itemFrequencies = {Frequency.weekly, Frequency.monthly, Frequency.yearly};
+		for (int i = 0; i < this.numBudgetItems; i++)
+		{
+			Frequency frequency = itemFrequencies[i % itemFrequencies.length];
+			boolean prorated = (i % 2 == 1);
+			if (pathological && i % 2 == 0)
+			{
+				frequency = Frequency.daily;
+				prorated = false;
+			}
+			budget.addBudgetItem(new BudgetItem("item " + i, 10 + i % 90, frequency, startDate, null, prorated, budgetSource));
+		}
+		bbd.setBudget(budget);
+
+		return bbd;
+	}
+}
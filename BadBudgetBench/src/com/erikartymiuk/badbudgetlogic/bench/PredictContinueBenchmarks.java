@@ -0,0 +1,58 @@
+package com.erikartymiuk.badbudgetlogic.bench;
+
+import java.util.Date;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.erikartymiuk.badbudgetlogic.main.*;
+
+/**
+ * Benchmarks of predictContinue through the second half of each horizon over every model shape. The first half is
+ * predicted before every invocation, outside the measurement; a whole prediction is long enough that the per
+ * invocation timestamps JMH takes around it don't matter.
+ */
+@State(Scope.Thread)
+public class PredictContinueBenchmarks extends BenchmarkState
+{
+	@Param({"small", "typical", "pathological"})
+	public ModelShape shape;
+
+	@Param({"30", "365", "3650", "18250"})
+	public int horizon;		//Prediction horizon in days
+
+	private BadBudgetData bbd;
+	private Date start;
+	private Date middle;
+	private Date end;
+
+	@Setup(Level.Trial)
+	public void setUp() throws BadBudgetInvalidValueException
+	{
+		this.start = startDate();
+		this.middle = Prediction.addDays(this.start, this.horizon / 2);
+		this.end = Prediction.addDays(this.start, this.horizon);
+		this.bbd = this.shape.build(this.start);
+	}
+
+	@Setup(Level.Invocation)
+	public void predictFirstHalf()
+	{
+		Prediction.predict(this.bbd, this.start, this.middle);
+	}
+
+	/**
+	 * Continues the prediction of the first half through the second half of the horizon.
+	 * @return the model, consumed by JMH
+	 */
+	@Benchmark
+	public BadBudgetData predictContinue()
+	{
+		Prediction.predictContinue(this.bbd, this.start, this.middle, this.end);
+		return this.bbd;
+	}
+}
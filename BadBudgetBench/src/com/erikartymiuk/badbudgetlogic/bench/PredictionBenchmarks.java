@@ -0,0 +1,49 @@
+package com.erikartymiuk.badbudgetlogic.bench;
+
+import java.util.Date;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.erikartymiuk.badbudgetlogic.main.*;
+
+/**
+ * Benchmarks of predict at each horizon over every model shape. Predicting doesn't change the model so one model is
+ * predicted over and over.
+ */
+@State(Scope.Thread)
+public class PredictionBenchmarks extends BenchmarkState
+{
+	@Param({"small", "typical", "pathological"})
+	public ModelShape shape;
+
+	@Param({"30", "365", "3650", "18250"})
+	public int horizon;		//Prediction horizon in days
+
+	private BadBudgetData bbd;
+	private Date start;
+	private Date end;
+
+	@Setup(Level.Trial)
+	public void setUp() throws BadBudgetInvalidValueException
+	{
+		this.start = startDate();
+		this.end = Prediction.addDays(this.start, this.horizon);
+		this.bbd = this.shape.build(this.start);
+	}
+
+	/**
+	 * Predicts the model from the start date through the horizon.
+	 * @return the model, consumed by JMH
+	 */
+	@Benchmark
+	public BadBudgetData predict()
+	{
+		Prediction.predict(this.bbd, this.start, this.end);
+		return this.bbd;
+	}
+}
@@ -0,0 +1,169 @@
+package com.erikartymiuk.badbudgetlogic.bench;
+
+import java.util.Date;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.erikartymiuk.badbudgetlogic.main.*;
+
+/**
+ * Benchmarks of the goal solvers in Prediction, each over a small, a typical and a pathological set of parameters.
+ * The cost of a solver is its number of iterations, one per payment or contribution until the goal is met, so the
+ * pathological case pays a large debt with small daily payments and saves toward a large goal with small daily
+ * contributions.
+ */
+@State(Scope.Thread)
+@SuppressWarnings("deprecation")
+public class SolverBenchmarks extends BenchmarkState
+{
+	private static final int DAYS_BEFORE_FIRST_PAYMENT = 10;
+	private static final int LIMIT_DAYS = 100 * 366;		//Limit passed to the solvers that take one
+
+	/**
+	 * The parameters a solver runs with, named after the model shape they match.
+	 */
+	public enum SolverCase
+	{
+		small(1000, 200, Frequency.monthly, 0.1, 180, 100, 1000, 200, Frequency.monthly, 0.01, 180),
+		typical(20000, 450, Frequency.monthly, 0.06, 5 * 365, 1000, 20000, 300, Frequency.monthly, 0.02, 5 * 365),
+		pathological(250000, 30, Frequency.daily, 0.03, 30 * 365, 0, 1000000, 10, Frequency.daily, 0.04, 60 * 365);
+
+		private final double debtAmount;
+		private final double paymentAmount;
+		private final Frequency paymentFrequency;
+		private final double debtInterestRate;
+		private final int debtGoalDays;				//Days from the start to the goal date the payment amount solvers aim for
+		private final double savingsAmount;
+		private final double savingsGoal;
+		private final double contributionAmount;
+		private final Frequency contributionFrequency;
+		private final double savingsInterestRate;
+		private final int savingsGoalDays;			//Days from the start to the goal date the savings solvers aim for
+
+		private SolverCase(double debtAmount, double paymentAmount, Frequency paymentFrequency, double debtInterestRate,
+				int debtGoalDays, double savingsAmount, double savingsGoal, double contributionAmount, Frequency contributionFrequency,
+				double savingsInterestRate, int savingsGoalDays)
+		{
+			this.debtAmount = debtAmount;
+			this.paymentAmount = paymentAmount;
+			this.paymentFrequency = paymentFrequency;
+			this.debtInterestRate = debtInterestRate;
+			this.debtGoalDays = debtGoalDays;
+			this.savingsAmount = savingsAmount;
+			this.savingsGoal = savingsGoal;
+			this.contributionAmount = contributionAmount;
+			this.contributionFrequency = contributionFrequency;
+			this.savingsInterestRate = savingsInterestRate;
+			this.savingsGoalDays = savingsGoalDays;
+		}
+	}
+
+	@Param({"small", "typical", "pathological"})
+	public SolverCase shape;		//Named shape so that -p shape=... picks the same size in every benchmark class
+
+	private Date start;
+	private Date limit;
+	private Date debtGoal;
+	private Date savingsGoal;
+	private Contribution contribution;
+
+	@Setup(Level.Trial)
+	public void setUp() throws BadBudgetInvalidValueException
+	{
+		this.start = startDate();
+		this.limit = Prediction.addDays(this.start, LIMIT_DAYS);
+		this.debtGoal = Prediction.addDays(this.start, this.shape.debtGoalDays);
+		this.savingsGoal = Prediction.addDays(this.start, this.shape.savingsGoalDays);
+		this.contribution = new Contribution(this.shape.contributionAmount, this.shape.contributionFrequency);
+	}
+
+	@Benchmark
+	public Date findGoalDateContribution()
+	{
+		return Prediction.findGoalDate(this.start, this.contribution, this.shape.savingsAmount, this.shape.savingsGoal);
+	}
+
+	@Benchmark
+	public Date findGoalDatePayment()
+	{
+		return Prediction.findGoalDate(this.start, this.shape.paymentAmount, this.shape.paymentFrequency, this.shape.debtAmount,
+				this.limit);
+	}
+
+	@Benchmark
+	public Date findGoalDateWithInterest()
+	{
+		return Prediction.findGoalDateWithInterest(this.start, this.start, this.contribution, this.shape.savingsAmount,
+				this.shape.savingsGoal, this.shape.savingsInterestRate, this.limit);
+	}
+
+	@Benchmark
+	public double findInterestEarned()
+	{
+		return Prediction.findInterestEarned(this.start, this.start, this.contribution, this.shape.savingsAmount,
+				this.shape.savingsGoal, this.shape.savingsInterestRate, this.limit);
+	}
+
+	@Benchmark
+	public double findContributionAmount()
+	{
+		return Prediction.findContributionAmount(this.start, this.start, this.shape.contributionFrequency,
+				this.shape.savingsAmount, this.shape.savingsGoal, this.shape.savingsInterestRate, this.savingsGoal);
+	}
+
+	@Benchmark
+	public double findGoalAmount()
+	{
+		return Prediction.findGoalAmount(this.start, this.start, this.contribution, this.shape.savingsAmount,
+				this.shape.savingsInterestRate, this.savingsGoal);
+	}
+
+	@Benchmark
+	public double findPaymentAmountSimpleInterest()
+	{
+		return Prediction.findPaymentAmountSimpleInterest(this.start, DAYS_BEFORE_FIRST_PAYMENT, this.debtGoal,
+				this.shape.paymentFrequency, this.shape.debtAmount, this.shape.debtInterestRate, this.shape.debtAmount * 0.9);
+	}
+
+	@Benchmark
+	public double findPaymentAmountCompoundInterest()
+	{
+		return Prediction.findPaymentAmountCompoundInterest(this.start, DAYS_BEFORE_FIRST_PAYMENT, this.debtGoal,
+				this.shape.paymentFrequency, this.shape.debtAmount, this.shape.debtInterestRate);
+	}
+
+	@Benchmark
+	public double findSimpleInterestPaid()
+	{
+		return Prediction.findSimpleInterestPaid(this.start, DAYS_BEFORE_FIRST_PAYMENT, this.shape.paymentAmount,
+				this.shape.paymentFrequency, this.shape.debtAmount, this.shape.debtInterestRate, this.shape.debtAmount * 0.9,
+				this.limit);
+	}
+
+	@Benchmark
+	public Date findGoalDateSimpleInterest()
+	{
+		return Prediction.findGoalDateSimpleInterest(this.start, DAYS_BEFORE_FIRST_PAYMENT, this.shape.paymentAmount,
+				this.shape.paymentFrequency, this.shape.debtAmount, this.shape.debtInterestRate, this.shape.debtAmount * 0.9,
+				this.limit);
+	}
+
+	@Benchmark
+	public double findCompoundInterestPaid()
+	{
+		return Prediction.findCompoundInterestPaid(this.start, DAYS_BEFORE_FIRST_PAYMENT, this.shape.paymentAmount,
+				this.shape.paymentFrequency, this.shape.debtAmount, this.shape.debtInterestRate, this.limit);
+	}
+
+	@Benchmark
+	public Date findGoalDateCompoundInterest()
+	{
+		return Prediction.findGoalDateCompoundInterest(this.start, DAYS_BEFORE_FIRST_PAYMENT, this.shape.paymentAmount,
+				this.shape.paymentFrequency, this.shape.debtAmount, this.shape.debtInterestRate, this.limit);
+	}
+}
@@ -0,0 +1,61 @@
+package com.erikartymiuk.badbudgetlogic.bench;
+
+import java.nio.ByteBuffer;
+import java.util.Date;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.erikartymiuk.badbudgetlogic.main.*;
+
+/**
+ * Benchmarks of update and updateNextDatesOnly moving every model shape forward a day, a month and a year. Updating
+ * changes the model so every invocation gets a fresh copy restored from a snapshot, outside the measurement.
+ */
+@State(Scope.Thread)
+public class UpdateBenchmarks extends BenchmarkState
+{
+	@Param({"small", "typical", "pathological"})
+	public ModelShape shape;
+
+	@Param({"1", "30", "365"})
+	public int days;		//Days the model is moved forward
+
+	private ByteBuffer snapshot;
+	private BadBudgetData bbd;
+	private Date start;
+	private Date end;
+
+	@Setup(Level.Trial)
+	public void setUp() throws BadBudgetInvalidValueException
+	{
+		this.start = startDate();
+		this.end = Prediction.addDays(this.start, this.days);
+		this.snapshot = BadBudgetSnapshot.write(this.shape.build(this.start));
+	}
+
+	@Setup(Level.Invocation)
+	public void restore() throws Exception
+	{
+		this.snapshot.rewind();
+		this.bbd = BadBudgetSnapshot.read(this.snapshot);
+	}
+
+	@Benchmark
+	public BadBudgetData update()
+	{
+		Prediction.update(this.bbd, this.start, this.end);
+		return this.bbd;
+	}
+
+	@Benchmark
+	public BadBudgetData updateNextDatesOnly()
+	{
+		Prediction.updateNextDatesOnly(this.bbd, this.start, this.end);
+		return this.bbd;
+	}
+}
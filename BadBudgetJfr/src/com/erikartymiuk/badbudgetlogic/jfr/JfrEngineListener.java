@@ -0,0 +1,57 @@
+package com.erikartymiuk.badbudgetlogic.jfr;
+
+import com.erikartymiuk.badbudgetlogic.main.EngineListener;
+import com.erikartymiuk.badbudgetlogic.main.Prediction;
+import com.erikartymiuk.badbudgetlogic.main.PredictionCall;
+import com.erikartymiuk.badbudgetlogic.main.SolverCall;
+
+/**
+ * Engine listener emitting a flight recorder event for every prediction and solver call. Events are only built
+ * when flight recorder is recording them, so leaving the listener installed costs little when it isn't.
+ *
+ * The engine measures each call itself (the duration field), the events are committed right after the call
+ * completes so their own start and end times only cover the commit.
+ */
+public class JfrEngineListener implements EngineListener
+{
+	private static final JfrEngineListener INSTANCE = new JfrEngineListener();
+
+	/**
+	 * Installs the flight recorder listener as the prediction engine's listener.
+	 */
+	public static void install()
+	{
+		Prediction.setEngineListener(INSTANCE);
+	}
+
+	/**
+	 * Removes the flight recorder listener if it is the installed listener.
+	 */
+	public static void uninstall()
+	{
+		if (Prediction.getEngineListener() == INSTANCE)
+		{
+			Prediction.setEngineListener(null);
+		}
+	}
+
+	public void predictionCompleted(PredictionCall call)
+	{
+		PredictionEvent event = new PredictionEvent();
+		if (event.isEnabled())
+		{
+			event.set(call);
+			event.commit();
+		}
+	}
+
+	public void solverCompleted(SolverCall call)
+	{
+		SolverEvent event = new SolverEvent();
+		if (event.isEnabled())
+		{
+			event.set(call);
+			event.commit();
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package com.erikartymiuk.badbudgetlogic.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import com.erikartymiuk.badbudgetlogic.main.PredictionCall;
+
+/**
+ * Flight recorder event for a completed predict, predictContinue, update or updateNextDatesOnly call.
+ */
+@Name("com.erikartymiuk.badbudget.Prediction")
+@Label("Prediction")
+@Category({"BadBudget", "Engine"})
+@Description("A call into the prediction algorithm with the shape of the data it ran on")
+@StackTrace(false)
+public class PredictionEvent extends jdk.jfr.Event
+{
+	@Label("Operation")
+	public String operation;
+
+	@Label("Accounts")
+	public int numAccounts;
+
+	@Label("Debts")
+	public int numDebts;
+
+	@Label("Gains")
+	public int numGains;
+
+	@Label("Losses")
+	public int numLosses;
+
+	@Label("Transfers")
+	public int numTransfers;
+
+	@Label("Budget Items")
+	public int numBudgetItems;
+
+	@Label("Entities")
+	public int numEntities;
+
+	@Label("Horizon Days")
+	public int horizonDays;
+
+	@Label("Events Fired")
+	public long numEvents;
+
+	@Label("History Items Created")
+	public long historyItems;
+
+	@Label("Engine Duration")
+	@Timespan(Timespan.NANOSECONDS)
+	public long durationNanos;
+
+	/**
+	 * Fills in the fields of this event from a call.
+	 * @param call - the completed call
+	 */
+	void set(PredictionCall call)
+	{
+		this.operation = call.getOperation();
+		this.numAccounts = call.getNumAccounts();
+		this.numDebts = call.getNumDebts();
+		this.numGains = call.getNumGains();
+		this.numLosses = call.getNumLosses();
+		this.numTransfers = call.getNumTransfers();
+		this.numBudgetItems = call.getNumBudgetItems();
+		this.numEntities = call.getNumEntities();
+		this.horizonDays = call.getHorizonDays();
+		this.numEvents = call.getNumEvents();
+		this.historyItems = call.getHistoryItems();
+		this.durationNanos = call.getDurationNanos();
+	}
+}
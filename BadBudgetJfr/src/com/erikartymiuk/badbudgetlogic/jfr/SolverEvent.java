@@ -0,0 +1,42 @@
+package com.erikartymiuk.badbudgetlogic.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import com.erikartymiuk.badbudgetlogic.main.SolverCall;
+
+/**
+ * Flight recorder event for a completed solver call (findGoalDateCompoundInterest, findContributionAmount and so on).
+ */
+@Name("com.erikartymiuk.badbudget.Solver")
+@Label("Solver")
+@Category({"BadBudget", "Engine"})
+@Description("A call to one of the goal solvers with the number of iterations it took")
+@StackTrace(false)
+public class SolverEvent extends jdk.jfr.Event
+{
+	@Label("Solver")
+	public String solver;
+
+	@Label("Iterations")
+	public int iterations;
+
+	@Label("Solver Duration")
+	@Timespan(Timespan.NANOSECONDS)
+	public long durationNanos;
+
+	/**
+	 * Fills in the fields of this event from a call.
+	 * @param call - the completed call
+	 */
+	void set(SolverCall call)
+	{
+		this.solver = call.getSolver();
+		this.iterations = call.getIterations();
+		this.durationNanos = call.getDurationNanos();
+	}
+}
@@ -0,0 +1,389 @@
+package com.erikartymiuk.badbudgetlogic.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.erikartymiuk.badbudgetlogic.export.CsvExporter;
+import com.erikartymiuk.badbudgetlogic.export.JsonLinesExporter;
+import com.erikartymiuk.badbudgetlogic.kernel.PredictionSeries;
+import com.erikartymiuk.badbudgetlogic.main.BadBudgetData;
+import com.erikartymiuk.badbudgetlogic.main.BadBudgetInvalidValueException;
+import com.erikartymiuk.badbudgetlogic.main.BadBudgetSnapshot;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A loopback only HTTP front end for a PredictionService. There is a single endpoint:
+ * 
+ * POST /predict?start=yyyy-MM-dd&target=yyyy-MM-dd[&timeoutMillis=n][&format=csv|jsonl|snapshot]
+ * 
+ * The body is a model snapshot (BadBudgetSnapshot) and the response is the predicted values, as CSV by default.
+ * Responses are 200 with the values, 400 for a bad query or snapshot, 405 for anything but POST, 413 for a body over
+ * the size limit, 503 with Retry-After when the service is saturated and 504 when the request's deadline passes.
+ *
+ * Each exchange is handled on its own virtual thread. No more exchanges are admitted at once than the service has
+ * capacity for (its workers plus its queue); the rest are answered 503 straight away, before their body is read, so
+ * requests only ever wait in the service's bounded queue. A request's deadline is counted from when its exchange
+ * started, covering reading and parsing its body as well as its time in the service.
+ */
+public class PredictionHttpServer
+{
+	public static final String PATH = "/predict";
+	public static final String FORMAT_CSV = "csv";
+	public static final String FORMAT_JSONL = "jsonl";
+	public static final String FORMAT_SNAPSHOT = "snapshot";
+
+	public static final long DEFAULT_TIMEOUT_MILLIS = 10000;
+	public static final int DEFAULT_MAX_BODY_BYTES = 16 * 1024 * 1024;
+	public static final int RETRY_AFTER_SECONDS = 1;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final PredictionService service;	//Runs the predictions
+	private final int maxBodyBytes;				//Largest snapshot accepted
+	private final HttpServer server;
+	private final ExecutorService handlers;		//Reads requests and writes responses, predictions run on the service
+	private final Semaphore admitted;			//A permit for each exchange the service has room for
+
+	/**
+	 * Constructor for a server on the loopback address, not yet started.
+	 * @param service - the service to run predictions on
+	 * @param port - the port to listen on, 0 for any free port
+	 * @throws IOException - if the port can't be bound
+	 */
+	public PredictionHttpServer(PredictionService service, int port) throws IOException
+	{
+		this(service, port, DEFAULT_MAX_BODY_BYTES);
+	}
+
+	/**
+	 * Constructor for a server on the loopback address, not yet started.
+	 * @param service - the service to run predictions on
+	 * @param port - the port to listen on, 0 for any free port
+	 * @param maxBodyBytes - the largest snapshot accepted
+	 * @throws IOException - if the port can't be bound
+	 */
+	public PredictionHttpServer(PredictionService service, int port, int maxBodyBytes) throws IOException
+	{
+		this.service = service;
+		this.maxBodyBytes = maxBodyBytes;
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		this.handlers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("prediction-http-", 1).factory());
+		this.admitted = new Semaphore(service.capacity());
+		this.server.setExecutor(this.handlers);
+		this.server.createContext(PATH, new HttpHandler()
+		{
+			public void handle(HttpExchange exchange) throws IOException
+			{
+				long startNanos = System.nanoTime();
+				try
+				{
+					if (!PredictionHttpServer.this.admitted.tryAcquire())
+					{
+						rejected(exchange);
+						return;
+					}
+					try
+					{
+						PredictionHttpServer.this.predict(exchange, startNanos);
+					}
+					finally
+					{
+						PredictionHttpServer.this.admitted.release();
+					}
+				}
+				finally
+				{
+					exchange.close();
+				}
+			}
+		});
+	}
+
+	public void start()
+	{
+		this.server.start();
+	}
+
+	/**
+	 * Stops the server, waiting up to the given delay for open exchanges to finish. The service isn't shut down.
+	 * @param delaySeconds - the longest to wait
+	 */
+	public void stop(int delaySeconds)
+	{
+		this.server.stop(delaySeconds);
+		this.handlers.shutdown();
+	}
+
+	/**
+	 * The port the server is listening on.
+	 * @return the bound port
+	 */
+	public int getPort()
+	{
+		return this.server.getAddress().getPort();
+	}
+
+	/**
+	 * Answers an admitted exchange.
+	 * @param exchange - the exchange
+	 * @param startNanos - the nano time the exchange started at, its deadline is counted from then
+	 */
+	private void predict(HttpExchange exchange, long startNanos) throws IOException
+	{
+		if (!exchange.getRequestMethod().equals("POST"))
+		{
+			exchange.getResponseHeaders().set("Allow", "POST");
+			sendText(exchange, 405, "Only POST is supported");
+			return;
+		}
+
+		Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+		Date start = parseDate(query.get("start"));
+		Date target = parseDate(query.get("target"));
+		if (start == null || target == null || target.before(start))
+		{
+			sendText(exchange, 400, "start and target must be yyyy-MM-dd dates with target not before start");
+			return;
+		}
+		long timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+		if (query.containsKey("timeoutMillis"))
+		{
+			try
+			{
+				timeoutMillis = Long.parseLong(query.get("timeoutMillis"));
+			}
+			catch (NumberFormatException e)
+			{
+				timeoutMillis = -1;
+			}
+			if (timeoutMillis <= 0)
+			{
+				sendText(exchange, 400, "timeoutMillis must be a positive number");
+				return;
+			}
+		}
+		long deadlineNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		String format = FORMAT_CSV;
+		if (query.containsKey("format"))
+		{
+			format = query.get("format");
+		}
+		if (!format.equals(FORMAT_CSV) && !format.equals(FORMAT_JSONL) && !format.equals(FORMAT_SNAPSHOT))
+		{
+			sendText(exchange, 400, "format must be csv, jsonl or snapshot");
+			return;
+		}
+
+		byte[] body = readBody(exchange.getRequestBody(), this.maxBodyBytes);
+		if (body == null)
+		{
+			sendText(exchange, 413, "The model is larger than " + this.maxBodyBytes + " bytes");
+			return;
+		}
+		BadBudgetData bbd;
+		try
+		{
+			bbd = BadBudgetSnapshot.read(ByteBuffer.wrap(body));
+		}
+		catch (BadBudgetInvalidValueException e)
+		{
+			sendText(exchange, 400, e.getMessage());
+			return;
+		}
+
+		long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+		if (remainingMillis <= 0)
+		{
+			timedOut(exchange, timeoutMillis);
+			return;
+		}
+		Future<PredictionSeries> future;
+		try
+		{
+			future = this.service.submit(bbd, start, target, remainingMillis);
+		}
+		catch (RejectedExecutionException e)
+		{
+			rejected(exchange);
+			return;
+		}
+
+		PredictionSeries series;
+		try
+		{
+			series = future.get(remainingMillis, TimeUnit.MILLISECONDS);
+		}
+		catch (TimeoutException e)
+		{
+			future.cancel(true);
+			timedOut(exchange, timeoutMillis);
+			return;
+		}
+		catch (InterruptedException e)
+		{
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			sendText(exchange, 503, "The server is shutting down");
+			return;
+		}
+		catch (CancellationException e)
+		{
+			sendText(exchange, 503, "The request was cancelled");
+			return;
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof TimeoutException)
+			{
+				timedOut(exchange, timeoutMillis);
+			}
+			else if (e.getCause() instanceof BadBudgetInvalidValueException)
+			{
+				sendText(exchange, 400, e.getCause().getMessage());
+			}
+			else
+			{
+				sendText(exchange, 500, String.valueOf(e.getCause()));
+			}
+			return;
+		}
+
+		//Chunked since the exporters stream rows of unknown total length
+		exchange.getResponseHeaders().set("Content-Type", contentType(format));
+		exchange.sendResponseHeaders(200, 0);
+		OutputStream out = exchange.getResponseBody();
+		if (format.equals(FORMAT_SNAPSHOT))
+		{
+			Channels.newChannel(out).write(series.writeSnapshot());
+		}
+		else if (format.equals(FORMAT_JSONL))
+		{
+			new JsonLinesExporter(Channels.newChannel(out)).writeValues(series);
+		}
+		else
+		{
+			new CsvExporter(Channels.newChannel(out)).writeValues(series);
+		}
+		out.close();
+	}
+
+	private static String contentType(String format)
+	{
+		if (format.equals(FORMAT_SNAPSHOT))
+		{
+			return "application/octet-stream";
+		}
+		else if (format.equals(FORMAT_JSONL))
+		{
+			return "application/jsonl; charset=utf-8";
+		}
+		else
+		{
+			return "text/csv; charset=utf-8";
+		}
+	}
+
+	private static void rejected(HttpExchange exchange) throws IOException
+	{
+		exchange.getResponseHeaders().set("Retry-After", Integer.toString(RETRY_AFTER_SECONDS));
+		sendText(exchange, 503, PredictionService.REJECTED);
+	}
+
+	private static void timedOut(HttpExchange exchange, long timeoutMillis) throws IOException
+	{
+		sendText(exchange, 504, "The prediction didn't finish within " + timeoutMillis + " ms");
+	}
+
+	private static void sendText(HttpExchange exchange, int status, String message) throws IOException
+	{
+		byte[] bytes = (message + "\n").getBytes(UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		OutputStream out = exchange.getResponseBody();
+		out.write(bytes);
+		out.close();
+	}
+
+	/**
+	 * Reads a request body, giving up as soon as it passes the limit.
+	 * @return the body or null if it's larger than the limit
+	 */
+	private static byte[] readBody(InputStream in, int maxBytes) throws IOException
+	{
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] chunk = new byte[8192];
+		int read;
+		while ((read = in.read(chunk)) != -1)
+		{
+			if (body.size() + read > maxBytes)
+			{
+				return null;
+			}
+			body.write(chunk, 0, read);
+		}
+		return body.toByteArray();
+	}
+
+	private static Map<String, String> parseQuery(String rawQuery) throws IOException
+	{
+		Map<String, String> query = new HashMap<String, String>();
+		if (rawQuery == null)
+		{
+			return query;
+		}
+		for (String pair : rawQuery.split("&"))
+		{
+			int equals = pair.indexOf('=');
+			if (equals > 0)
+			{
+				query.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"), URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+			}
+		}
+		return query;
+	}
+
+	/**
+	 * Parses a yyyy-MM-dd date at midnight in the default time zone.
+	 * @return the date or null if the text isn't one
+	 */
+	private static Date parseDate(String text)
+	{
+		if (text == null || text.length() != 10)
+		{
+			return null;
+		}
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+		format.setLenient(false);
+		ParsePosition position = new ParsePosition(0);
+		Date date = format.parse(text, position);
+		if (position.getIndex() != text.length())
+		{
+			return null;
+		}
+		return date;
+	}
+}
@@ -0,0 +1,230 @@
+package com.erikartymiuk.badbudgetlogic.service;
+
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.erikartymiuk.badbudgetlogic.kernel.PredictionKernel;
+import com.erikartymiuk.badbudgetlogic.kernel.PredictionSeries;
+import com.erikartymiuk.badbudgetlogic.main.BadBudgetData;
+import com.erikartymiuk.badbudgetlogic.main.BadBudgetInvalidValueException;
+import com.erikartymiuk.badbudgetlogic.main.Prediction;
+import com.erikartymiuk.badbudgetlogic.store.ModelVersion;
+
+/**
+ * An in process service answering prediction requests on a fixed number of virtual worker threads. Requests wait in a
+ * bounded admission queue; once the workers are busy and the queue is full further requests are rejected straight away
+ * with a RejectedExecutionException (message REJECTED) rather than waiting, so a saturated service sheds load instead of
+ * letting latency grow without bound.
+ *
+ * Each request has a deadline counted from when it was submitted, covering its time in the queue. A request still
+ * queued at its deadline is dropped when a worker reaches it and a running one gives up part way through (see
+ * PredictionSeries.record), either way its future fails with a TimeoutException as the cause. Cancelling a request's
+ * future removes it from the queue, freeing its place for the next request, or interrupts its prediction.
+ */
+public class PredictionService
+{
+	public static final String REJECTED = "Prediction service is saturated, try again later";
+
+	private final ThreadPoolExecutor executor;
+	private final int capacity;					//The number of requests running or waiting at once
+	private final AtomicLong accepted;
+	private final AtomicLong rejected;
+	private final AtomicLong completed;
+	private final AtomicLong timedOut;
+
+	/**
+	 * Constructor for a service, starting its workers as requests arrive.
+	 * @param numThreads - the number of predictions run at once
+	 * @param queueCapacity - the number of requests that can wait for a worker, at least 1
+	 */
+	public PredictionService(int numThreads, int queueCapacity)
+	{
+		this.executor = new ThreadPoolExecutor(numThreads, numThreads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(queueCapacity), Thread.ofVirtual().name("prediction-", 1).factory(),
+				new ThreadPoolExecutor.AbortPolicy());
+		this.capacity = numThreads + queueCapacity;
+		this.accepted = new AtomicLong();
+		this.rejected = new AtomicLong();
+		this.completed = new AtomicLong();
+		this.timedOut = new AtomicLong();
+	}
+
+	/**
+	 * Submits a prediction of the given bbd from the start date through the target date.
+	 * @param bbd - the bbd to predict, owned by the service until the request completes (it must not be changed meanwhile)
+	 * @param startDate - the date the bbd's values are on
+	 * @param targetDate - the last date to predict
+	 * @param timeoutMillis - how long from now the request has to complete
+	 * @return the future prediction, failing with a TimeoutException cause if the deadline passes
+	 * @throws RejectedExecutionException - if the service is saturated or shut down
+	 */
+	public Future<PredictionSeries> submit(final BadBudgetData bbd, final Date startDate, final Date targetDate, long timeoutMillis)
+	{
+		final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		return this.admit(new Callable<PredictionSeries>()
+		{
+			public PredictionSeries call() throws Exception
+			{
+				return PredictionService.this.run(bbd, startDate, targetDate, deadlineNanos);
+			}
+		});
+	}
+
+	/**
+	 * Submits a prediction of a model version. The version is materialized on the worker, so the caller's thread
+	 * doesn't pay for it.
+	 * @param version - the version to predict
+	 * @param startDate - the date the version's values are on
+	 * @param targetDate - the last date to predict
+	 * @param timeoutMillis - how long from now the request has to complete
+	 * @return the future prediction, failing with a TimeoutException cause if the deadline passes
+	 * @throws RejectedExecutionException - if the service is saturated or shut down
+	 */
+	public Future<PredictionSeries> submit(final ModelVersion version, final Date startDate, final Date targetDate, long timeoutMillis)
+	{
+		final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		return this.admit(new Callable<PredictionSeries>()
+		{
+			public PredictionSeries call() throws Exception
+			{
+				return PredictionService.this.run(version.materialize(), startDate, targetDate, deadlineNanos);
+			}
+		});
+	}
+
+	private Future<PredictionSeries> admit(Callable<PredictionSeries> task)
+	{
+		try
+		{
+			Request request = new Request(task);
+			this.executor.execute(request);
+			this.accepted.incrementAndGet();
+			return request;
+		}
+		catch (RejectedExecutionException e)
+		{
+			this.rejected.incrementAndGet();
+			throw new RejectedExecutionException(REJECTED, e);
+		}
+	}
+
+	/**
+	 * The future of an admitted request. A cancelled FutureTask stays in the executor's queue until a worker reaches
+	 * and skips it, holding a place a live request could have taken, so cancelling also takes it out of the queue.
+	 */
+	private final class Request extends FutureTask<PredictionSeries>
+	{
+		private Request(Callable<PredictionSeries> task)
+		{
+			super(task);
+		}
+
+		public boolean cancel(boolean mayInterruptIfRunning)
+		{
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			if (cancelled)
+			{
+				PredictionService.this.executor.remove(this);
+			}
+			return cancelled;
+		}
+	}
+
+	/**
+	 * Runs a request on a worker.
+	 */
+	private PredictionSeries run(BadBudgetData bbd, Date startDate, Date targetDate, long deadlineNanos)
+			throws BadBudgetInvalidValueException, InterruptedException, TimeoutException
+	{
+		try
+		{
+			if (System.nanoTime() - deadlineNanos > 0)
+			{
+				throw new TimeoutException();
+			}
+			PredictionKernel kernel = PredictionKernel.compile(bbd, startDate, false);
+			PredictionSeries series = PredictionSeries.record(kernel, Prediction.numDaysBetween(startDate, targetDate), deadlineNanos);
+			this.completed.incrementAndGet();
+			return series;
+		}
+		catch (TimeoutException e)
+		{
+			this.timedOut.incrementAndGet();
+			throw e;
+		}
+	}
+
+	/**
+	 * Stops accepting requests, letting the admitted ones finish.
+	 */
+	public void shutdown()
+	{
+		this.executor.shutdown();
+	}
+
+	/**
+	 * Waits for the admitted requests to finish after a shutdown.
+	 * @param timeoutMillis - the longest to wait
+	 * @return true if every request finished
+	 * @throws InterruptedException - if interrupted while waiting
+	 */
+	public boolean awaitTermination(long timeoutMillis) throws InterruptedException
+	{
+		return this.executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * The number of requests that can be running or waiting for a worker at once, past which requests are rejected.
+	 * @return the worker count plus the queue capacity
+	 */
+	public int capacity()
+	{
+		return this.capacity;
+	}
+
+	/**
+	 * The number of requests waiting for a worker.
+	 * @return the queue length
+	 */
+	public int queuedCount()
+	{
+		return this.executor.getQueue().size();
+	}
+
+	/**
+	 * The number of requests being predicted.
+	 * @return the busy worker count
+	 */
+	public int activeCount()
+	{
+		return this.executor.getActiveCount();
+	}
+
+	public long acceptedCount()
+	{
+		return this.accepted.get();
+	}
+
+	public long rejectedCount()
+	{
+		return this.rejected.get();
+	}
+
+	public long completedCount()
+	{
+		return this.completed.get();
+	}
+
+	public long timedOutCount()
+	{
+		return this.timedOut.get();
+	}
+}
@@ -0,0 +1,335 @@
+package com.erikartymiuk.badbudgetlogic.service;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+import com.erikartymiuk.badbudgetlogic.export.CsvExporter;
+import com.erikartymiuk.badbudgetlogic.kernel.PredictionSeries;
+import com.erikartymiuk.badbudgetlogic.main.BadBudgetData;
+import com.erikartymiuk.badbudgetlogic.main.BadBudgetInvalidValueException;
+import com.erikartymiuk.badbudgetlogic.main.BadBudgetSnapshot;
+import com.erikartymiuk.badbudgetlogic.synthetic.PortfolioGenerator;
+import com.erikartymiuk.badbudgetlogic.synthetic.PortfolioProfile;
+
+public class PredictionServiceTest {
+
+	private static final Date START = new GregorianCalendar(2017, Calendar.MAY, 10).getTime();
+	private static final Date TARGET = new GregorianCalendar(2018, Calendar.MAY, 10).getTime();
+	//Far enough out that a large model takes a while to predict
+	private static final Date FAR_TARGET = new GregorianCalendar(2117, Calendar.MAY, 10).getTime();
+
+	private static BadBudgetData model(PortfolioProfile profile) throws BadBudgetInvalidValueException
+	{
+		return new PortfolioGenerator(profile, 3, START).generate(0);
+	}
+
+	@Test
+	public void resultTest() throws Exception {
+
+		PredictionService service = new PredictionService(2, 4);
+		PredictionSeries series = service.submit(model(PortfolioProfile.TYPICAL), START, TARGET, 10000).get();
+		PredictionSeries expected = PredictionSeries.predict(model(PortfolioProfile.TYPICAL), START, TARGET);
+
+		assertTrue(series.numDays() == expected.numDays());
+		for (int day = 0; day < series.numDays(); day++)
+		{
+			for (int i = 0; i < series.numAccounts(); i++)
+			{
+				assertTrue(series.accountValue(day, i) == expected.accountValue(day, i));
+			}
+			for (int i = 0; i < series.numDebts(); i++)
+			{
+				assertTrue(series.debtValue(day, i) == expected.debtValue(day, i));
+			}
+		}
+		assertTrue(service.acceptedCount() == 1 && service.completedCount() == 1);
+		service.shutdown();
+		assertTrue(service.awaitTermination(10000));
+	}
+
+	@Test
+	public void rejectionTest() throws Exception {
+
+		//One running and one queued, the rest are turned away
+		PredictionService service = new PredictionService(1, 1);
+		BadBudgetData bbd = model(PortfolioProfile.LARGE);
+		List<Future<PredictionSeries>> futures = new ArrayList<Future<PredictionSeries>>();
+		int rejections = 0;
+		for (int i = 0; i < 4; i++)
+		{
+			try
+			{
+				futures.add(service.submit(bbd, START, FAR_TARGET, 60000));
+			}
+			catch (RejectedExecutionException e)
+			{
+				assertTrue(e.getMessage().equals(PredictionService.REJECTED));
+				rejections++;
+			}
+		}
+		assertTrue(futures.size() == 2 && rejections == 2);
+		assertTrue(service.rejectedCount() == 2);
+
+		for (Future<PredictionSeries> future : futures)
+		{
+			future.cancel(true);
+		}
+		service.shutdown();
+		assertTrue(service.awaitTermination(10000));
+	}
+
+	@Test
+	public void cancelTest() throws Exception {
+
+		PredictionService service = new PredictionService(1, 1);
+		Future<PredictionSeries> future = service.submit(model(PortfolioProfile.LARGE), START, FAR_TARGET, 60000);
+		while (service.activeCount() == 0)
+		{
+			Thread.sleep(1);
+		}
+		assertTrue(future.cancel(true));
+		try
+		{
+			future.get();
+			fail();
+		}
+		catch (CancellationException e)
+		{
+		}
+
+		//The worker gives up the cancelled prediction and is free for the next
+		PredictionSeries series = service.submit(model(PortfolioProfile.SMALL), START, TARGET, 60000).get();
+		assertTrue(series.numDays() == 366);
+		service.shutdown();
+		assertTrue(service.awaitTermination(10000));
+	}
+
+	@Test
+	public void cancelQueuedTest() throws Exception {
+
+		//The worker is held, so a request times out waiting in the queue and its cancel must free its place
+		PredictionService service = new PredictionService(1, 1);
+		PredictionHttpServer server = new PredictionHttpServer(service, 0);
+		server.start();
+		try
+		{
+			Future<PredictionSeries> running = service.submit(model(PortfolioProfile.LARGE), START, FAR_TARGET, 60000);
+			while (service.activeCount() == 0)
+			{
+				Thread.sleep(1);
+			}
+			String url = "http://127.0.0.1:" + server.getPort() + PredictionHttpServer.PATH
+					+ "?start=2017-05-10&target=2018-05-10&timeoutMillis=100";
+			byte[] snapshot = toArray(BadBudgetSnapshot.write(model(PortfolioProfile.SMALL)));
+			assertTrue(post(url, snapshot).getResponseCode() == 504);
+			assertTrue(service.queuedCount() == 0);
+
+			//Admitted rather than rejected, and answered once the worker is free
+			Future<PredictionSeries> next = service.submit(model(PortfolioProfile.SMALL), START, TARGET, 60000);
+			running.cancel(true);
+			assertTrue(next.get().numDays() == 366);
+			assertTrue(service.rejectedCount() == 0);
+		}
+		finally
+		{
+			server.stop(0);
+			service.shutdown();
+		}
+		assertTrue(service.awaitTermination(10000));
+	}
+
+	@Test
+	public void deadlineTest() throws Exception {
+
+		PredictionService service = new PredictionService(1, 1);
+		Future<PredictionSeries> future = service.submit(model(PortfolioProfile.LARGE), START, FAR_TARGET, 20);
+		try
+		{
+			future.get();
+			fail();
+		}
+		catch (ExecutionException e)
+		{
+			assertTrue(e.getCause() instanceof TimeoutException);
+		}
+		assertTrue(service.timedOutCount() == 1 && service.completedCount() == 0);
+		service.shutdown();
+		assertTrue(service.awaitTermination(10000));
+	}
+
+	@Test
+	public void httpTest() throws Exception {
+
+		PredictionService service = new PredictionService(2, 4);
+		PredictionHttpServer server = new PredictionHttpServer(service, 0);
+		server.start();
+		try
+		{
+			BadBudgetData bbd = model(PortfolioProfile.TYPICAL);
+			byte[] snapshot = toArray(BadBudgetSnapshot.write(bbd));
+			String base = "http://127.0.0.1:" + server.getPort() + PredictionHttpServer.PATH;
+
+			//CSV matches exporting a local prediction
+			HttpURLConnection connection = post(base + "?start=2017-05-10&target=2018-05-10", snapshot);
+			assertTrue(connection.getResponseCode() == 200);
+			ByteArrayOutputStream expected = new ByteArrayOutputStream();
+			new CsvExporter(Channels.newChannel(expected)).writeValues(PredictionSeries.predict(model(PortfolioProfile.TYPICAL), START, TARGET));
+			assertTrue(new String(readAll(connection.getInputStream()), "UTF-8").equals(new String(expected.toByteArray(), "UTF-8")));
+
+			//A series snapshot reads back
+			connection = post(base + "?start=2017-05-10&target=2018-05-10&format=snapshot", snapshot);
+			assertTrue(connection.getResponseCode() == 200);
+			PredictionSeries series = PredictionSeries.readSnapshot(ByteBuffer.wrap(readAll(connection.getInputStream())));
+			assertTrue(series.numDays() == 366);
+
+			//Bad input
+			assertTrue(post(base + "?start=2017-05-10&target=2018-05-10", new byte[64]).getResponseCode() == 400);
+			assertTrue(post(base + "?start=2017-02-30&target=2018-05-10", snapshot).getResponseCode() == 400);
+			assertTrue(post(base + "?start=2018-05-10&target=2017-05-10", snapshot).getResponseCode() == 400);
+			assertTrue(post(base + "?start=2017-05-10&target=2018-05-10&format=xml", snapshot).getResponseCode() == 400);
+			HttpURLConnection get = (HttpURLConnection) new URL(base).openConnection();
+			assertTrue(get.getResponseCode() == 405);
+
+			//Deadline passes
+			byte[] large = toArray(BadBudgetSnapshot.write(model(PortfolioProfile.LARGE)));
+			assertTrue(post(base + "?start=2017-05-10&target=2117-05-10&timeoutMillis=20", large).getResponseCode() == 504);
+		}
+		finally
+		{
+			server.stop(0);
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void httpLimitsTest() throws Exception {
+
+		//Nothing runs while the single worker is held, so the second request finds the queue full
+		PredictionService service = new PredictionService(1, 1);
+		PredictionHttpServer server = new PredictionHttpServer(service, 0, 1024);
+		server.start();
+		try
+		{
+			String base = "http://127.0.0.1:" + server.getPort() + PredictionHttpServer.PATH;
+			assertTrue(post(base + "?start=2017-05-10&target=2018-05-10", new byte[2048]).getResponseCode() == 413);
+
+			BadBudgetData large = model(PortfolioProfile.LARGE);
+			Future<PredictionSeries> running = service.submit(large, START, FAR_TARGET, 60000);
+			Future<PredictionSeries> queued = service.submit(large, START, FAR_TARGET, 60000);
+			byte[] snapshot = toArray(BadBudgetSnapshot.write(model(PortfolioProfile.SMALL)));
+			HttpURLConnection connection = post(base + "?start=2017-05-10&target=2018-05-10", snapshot);
+			assertTrue(connection.getResponseCode() == 503);
+			assertTrue(connection.getHeaderField("Retry-After") != null);
+			running.cancel(true);
+			queued.cancel(true);
+		}
+		finally
+		{
+			server.stop(0);
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void httpSaturationTest() throws Exception {
+
+		//Room for two running and two queued, the other exchanges are turned away rather than waiting
+		PredictionService service = new PredictionService(2, 2);
+		PredictionHttpServer server = new PredictionHttpServer(service, 0);
+		server.start();
+		ExecutorService clients = Executors.newFixedThreadPool(8);
+		try
+		{
+			final String url = "http://127.0.0.1:" + server.getPort() + PredictionHttpServer.PATH
+					+ "?start=2017-05-10&target=2117-05-10&timeoutMillis=2000";
+			final byte[] large = toArray(BadBudgetSnapshot.write(model(PortfolioProfile.LARGE)));
+			List<Future<Integer>> statuses = new ArrayList<Future<Integer>>();
+			for (int i = 0; i < 8; i++)
+			{
+				statuses.add(clients.submit(new Callable<Integer>()
+				{
+					public Integer call() throws IOException
+					{
+						return post(url, large).getResponseCode();
+					}
+				}));
+			}
+
+			int rejected = 0;
+			int timedOut = 0;
+			for (Future<Integer> status : statuses)
+			{
+				if (status.get() == 503)
+				{
+					rejected++;
+				}
+				else if (status.get() == 504)
+				{
+					timedOut++;
+				}
+			}
+			assertTrue(rejected >= 4 && timedOut >= 1 && rejected + timedOut == 8);
+		}
+		finally
+		{
+			clients.shutdownNow();
+			server.stop(0);
+			service.shutdown();
+		}
+	}
+
+	private static HttpURLConnection post(String url, byte[] body) throws IOException
+	{
+		HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		connection.setFixedLengthStreamingMode(body.length);
+		OutputStream out = connection.getOutputStream();
+		out.write(body);
+		out.close();
+		return connection;
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] chunk = new byte[8192];
+		int read;
+		while ((read = in.read(chunk)) != -1)
+		{
+			bytes.write(chunk, 0, read);
+		}
+		in.close();
+		return bytes.toByteArray();
+	}
+
+	private static byte[] toArray(ByteBuffer buffer)
+	{
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.get(bytes);
+		return bytes;
+	}
+}
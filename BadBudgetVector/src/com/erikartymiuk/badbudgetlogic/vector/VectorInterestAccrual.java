@@ -0,0 +1,68 @@
+package com.erikartymiuk.badbudgetlogic.vector;
+
+import com.erikartymiuk.badbudgetlogic.kernel.InterestAccrual;
+import com.erikartymiuk.badbudgetlogic.kernel.PredictionKernel;
+import com.erikartymiuk.badbudgetlogic.kernel.ScalarInterestAccrual;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Interest accrual using the incubating vector API, accruing as many slots per instruction as the platform's preferred
+ * vector shape holds. The tail of each range that doesn't fill a vector is left to ScalarInterestAccrual. Lanes do a
+ * separate multiply and add, never a fused one, so results are identical to the scalar loop.
+ *
+ * Needs Java 17 or later run with --add-modules jdk.incubator.vector.
+ */
+public class VectorInterestAccrual implements InterestAccrual
+{
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+	private static final VectorInterestAccrual INSTANCE = new VectorInterestAccrual();
+
+	/**
+	 * Installs the vector accrual for kernels compiled from now on.
+	 */
+	public static void install()
+	{
+		PredictionKernel.setInterestAccrual(INSTANCE);
+	}
+
+	/**
+	 * Goes back to the scalar accrual if the vector accrual is the installed one.
+	 */
+	public static void uninstall()
+	{
+		if (PredictionKernel.getInterestAccrual() == INSTANCE)
+		{
+			PredictionKernel.setInterestAccrual(null);
+		}
+	}
+
+	public void accrueDaily(double[] values, double[] accumulatedInterest, double[] periodRates, double[] periodFactors, int from, int to)
+	{
+		int slot = from;
+		int vectorEnd = from + SPECIES.loopBound(to - from);
+		for (; slot < vectorEnd; slot += SPECIES.length())
+		{
+			DoubleVector value = DoubleVector.fromArray(SPECIES, values, slot);
+			DoubleVector accumulated = DoubleVector.fromArray(SPECIES, accumulatedInterest, slot);
+			accumulated.add(value.mul(DoubleVector.fromArray(SPECIES, periodRates, slot))).intoArray(accumulatedInterest, slot);
+			value.mul(DoubleVector.fromArray(SPECIES, periodFactors, slot)).intoArray(values, slot);
+		}
+		ScalarInterestAccrual.INSTANCE.accrueDaily(values, accumulatedInterest, periodRates, periodFactors, slot, to);
+	}
+
+	public void accrueMonthly(double[] values, double[] accumulatedInterest, double[] periodRates, double[] rates, int from, int to)
+	{
+		int slot = from;
+		int vectorEnd = from + SPECIES.loopBound(to - from);
+		for (; slot < vectorEnd; slot += SPECIES.length())
+		{
+			DoubleVector value = DoubleVector.fromArray(SPECIES, values, slot);
+			DoubleVector accumulated = DoubleVector.fromArray(SPECIES, accumulatedInterest, slot);
+			accumulated.add(value.mul(DoubleVector.fromArray(SPECIES, periodRates, slot))).intoArray(accumulatedInterest, slot);
+			value.add(value.mul(DoubleVector.fromArray(SPECIES, rates, slot)).div(12.0)).intoArray(values, slot);
+		}
+		ScalarInterestAccrual.INSTANCE.accrueMonthly(values, accumulatedInterest, periodRates, rates, slot, to);
+	}
+}
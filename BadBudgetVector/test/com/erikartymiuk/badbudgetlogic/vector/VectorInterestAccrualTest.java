@@ -0,0 +1,105 @@
+package com.erikartymiuk.badbudgetlogic.vector;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.erikartymiuk.badbudgetlogic.kernel.PredictionKernel;
+import com.erikartymiuk.badbudgetlogic.kernel.ScalarInterestAccrual;
+import com.erikartymiuk.badbudgetlogic.main.BadBudgetData;
+import com.erikartymiuk.badbudgetlogic.main.BadBudgetInvalidValueException;
+import com.erikartymiuk.badbudgetlogic.synthetic.PortfolioGenerator;
+import com.erikartymiuk.badbudgetlogic.synthetic.PortfolioProfile;
+
+import jdk.incubator.vector.DoubleVector;
+
+public class VectorInterestAccrualTest {
+
+	@Test
+	public void rangesTest() {
+
+		//Every range up to a few vectors long, starting off a vector boundary too, so each length of tail is covered
+		int length = 3 * DoubleVector.SPECIES_PREFERRED.length() + 3;
+		Random random = new Random(7);
+		double[] values = new double[length + 2];
+		double[] accumulated = new double[length + 2];
+		double[] periodRates = new double[length + 2];
+		double[] factors = new double[length + 2];
+		for (int i = 0; i < values.length; i++)
+		{
+			values[i] = (random.nextDouble() - 0.3) * 10000;
+			accumulated[i] = random.nextDouble() * 100;
+			double rate = random.nextDouble() * 0.3;
+			periodRates[i] = rate / 365.25;
+			factors[i] = 1 + rate / 365.25;
+		}
+
+		VectorInterestAccrual vector = new VectorInterestAccrual();
+		for (int from = 0; from < 3; from++)
+		{
+			for (int to = from; to <= values.length; to++)
+			{
+				double[] scalarValues = values.clone();
+				double[] scalarAccumulated = accumulated.clone();
+				double[] vectorValues = values.clone();
+				double[] vectorAccumulated = accumulated.clone();
+				ScalarInterestAccrual.INSTANCE.accrueDaily(scalarValues, scalarAccumulated, periodRates, factors, from, to);
+				vector.accrueDaily(vectorValues, vectorAccumulated, periodRates, factors, from, to);
+				assertTrue(Arrays.equals(scalarValues, vectorValues));
+				assertTrue(Arrays.equals(scalarAccumulated, vectorAccumulated));
+
+				//The monthly rules read the yearly rate where the daily ones read the factor
+				ScalarInterestAccrual.INSTANCE.accrueMonthly(scalarValues, scalarAccumulated, periodRates, factors, from, to);
+				vector.accrueMonthly(vectorValues, vectorAccumulated, periodRates, factors, from, to);
+				assertTrue(Arrays.equals(scalarValues, vectorValues));
+				assertTrue(Arrays.equals(scalarAccumulated, vectorAccumulated));
+			}
+		}
+	}
+
+	@Test
+	public void kernelTest() throws BadBudgetInvalidValueException {
+
+		Date start = new GregorianCalendar(2017, Calendar.MAY, 10).getTime();
+		Date end = new GregorianCalendar(2020, Calendar.MAY, 10).getTime();
+
+		//Savings account and credit card counts that aren't a multiple of any vector length
+		int[][] counts = {{1, 3}, {5, 7}, {13, 11}};
+		for (int[] count : counts)
+		{
+			PortfolioProfile profile = new PortfolioProfile(2, count[0], count[1], 2, 1, 3, 20, 2, 10, 0.25, 0.5);
+			BadBudgetData bbd = new PortfolioGenerator(profile, 3, start).generate(0);
+
+			PredictionKernel scalar = PredictionKernel.compile(bbd, start, false);
+			scalar.advanceTo(end, null);
+			PredictionKernel vector;
+			VectorInterestAccrual.install();
+			try
+			{
+				vector = PredictionKernel.compile(bbd, start, false);
+			}
+			finally
+			{
+				VectorInterestAccrual.uninstall();
+			}
+			vector.advanceTo(end, null);
+
+			assertTrue(Arrays.equals(scalar.values(), vector.values()));
+			for (int i = 0; i < scalar.registry().accounts().length; i++)
+			{
+				assertTrue(scalar.accountAccumulatedInterest(i) == vector.accountAccumulatedInterest(i));
+			}
+			for (int i = 0; i < scalar.registry().debts().length; i++)
+			{
+				assertTrue(scalar.debtAccumulatedInterest(i) == vector.debtAccumulatedInterest(i));
+			}
+		}
+		assertTrue(PredictionKernel.getInterestAccrual() == ScalarInterestAccrual.INSTANCE);
+	}
+}